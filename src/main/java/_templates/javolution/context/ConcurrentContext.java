@@ -8,6 +8,9 @@
  */
 package _templates.javolution.context;
 
+import _templates.java.util.Collection;
+import _templates.java.util.List;
+import _templates.java.util.RandomAccess;
 import _templates.javolution.lang.Configurable;
 import _templates.javolution.lang.MathLib;
 import _templates.javolution.lang.Reflection;
@@ -140,6 +143,26 @@ import _templates.javolution.lang.Reflection;
  *         } finally {
  *             LocalContext.exit();    
  *         }[/code] </p>
+ *     
+ * <p> For data parallelism, the {@link #forEach(int, int, Loop) forEach} and
+ *     {@link #reduce reduce} primitives split index ranges (or collections) 
+ *     into chunks executed concurrently; the chunks are claimed dynamically 
+ *     by the concurrent executors (guided scheduling, large chunks first)
+ *     for automatic load-balancing. For example:[code]
+ *     // Parallel sum of squares.
+ *     Long sum = ConcurrentContext.reduce(0, values.length, 0L, new Reducer<Long>() {
+ *         public Long reduce(Long partial, int start, int end) {
+ *             long sum = partial;
+ *             for (int i = start; i < end; i++) {
+ *                 sum += values[i] * values[i];
+ *             }
+ *             return sum;
+ *         }
+ *         public Long combine(Long left, Long right) {
+ *             return left + right;
+ *         }
+ *     });[/code]</p>
+ *     
  *     It should be noted that the concurrency cannot be increased above the  
  *     configurable {@link #MAXIMUM_CONCURRENCY maximum concurrency}. 
  *     In other words, if the maximum concurrency is <code>0</code>, 
@@ -163,6 +186,18 @@ public abstract class ConcurrentContext extends Context {
         }
     };
 
+    /**
+     * Holds the number of iterations the concurrent executors waiting 
+     * for a task and the threads waiting for the completion of concurrent
+     * executions spin (polling volatile fields) before blocking 
+     * (default <code>0</code>, no spinning). Spinning reduces the hand-off 
+     * latency of very short concurrent executions at the expense of 
+     * processor time; it should only be enabled when the number of 
+     * processors exceeds the {@link #MAXIMUM_CONCURRENCY maximum concurrency}.
+     */
+    public static final Configurable/*<Integer>*/ SPIN_ITERATIONS = new Configurable(
+            new Integer(0)) {};
+
     private static int availableProcessors() {
         Reflection.Method availableProcessors = Reflection.getInstance().getMethod("java.lang.Runtime.availableProcessors()");
         if (availableProcessors != null) {
@@ -298,6 +333,151 @@ public abstract class ConcurrentContext extends Context {
     }
     }
     /**/
+    /**
+     * Executes the specified loop over the specified index range 
+     * concurrently. The range is split into chunks claimed dynamically by 
+     * up to {@link #getConcurrency()} concurrent executors plus the current
+     * thread (the chunks size decreasing as the range is consumed).
+     * This method returns only after all the chunks have been executed, 
+     * any exception raised is propagated to the current thread.
+     * 
+     * @param from the start index (inclusive).
+     * @param to the end index (exclusive).
+     * @param body the loop body executed for each chunk.
+     */
+    public static void forEach(int from, int to, Loop body) {
+        if (from >= to)
+            return;
+        int concurrency = MathLib.min(getConcurrency(), to - from - 1);
+        if (concurrency <= 0) { // Sequential.
+            body.run(from, to);
+            return;
+        }
+        new Job(from, to, concurrency + 1, body, null, null).execute();
+    }
+
+    /**
+     * Executes the specified action concurrently for each element of the 
+     * specified collection. Random access lists (e.g. 
+     * {@link _templates.javolution.util.FastTable FastTable}) are accessed 
+     * directly by index; other collections (e.g. 
+     * {@link _templates.javolution.util.FastMap#values() FastMap.values()}) 
+     * are first copied to an array. The collection should not be modified 
+     * during the execution.
+     * 
+     * @param elements the elements to process.
+     * @param action the action executed for each element.
+     */
+    public static/*<E>*/ void forEach(Collection/*<? extends E>*/ elements,
+            final Action/*<E>*/ action) {
+        if ((elements instanceof List) && (elements instanceof RandomAccess)) {
+            final List list = (List) elements;
+            forEach(0, list.size(), new Loop() {
+                public void run(int start, int end) {
+                    for (int i = start; i < end; i++) {
+                        action.run((Object/*{E}*/) list.get(i));
+                    }
+                }
+            });
+        } else {
+            final Object[] array = elements.toArray();
+            forEach(0, array.length, new Loop() {
+                public void run(int start, int end) {
+                    for (int i = start; i < end; i++) {
+                        action.run((Object/*{E}*/) array[i]);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Reduces the specified index range concurrently. Each executor reduces 
+     * the chunks it claims into its own partial result (starting from the 
+     * specified identity); the partial results are then combined by the 
+     * current thread. The order in which chunks are reduced and partial 
+     * results combined is unspecified, the reduction should then be
+     * associative and commutative.
+     * 
+     * @param from the start index (inclusive).
+     * @param to the end index (exclusive).
+     * @param identity the identity value of the reduction (immutable).
+     * @param reducer the reducer of chunks and combiner of partial results.
+     * @return the reduction of the specified range 
+     *         (<code>identity</code> if the range is empty).
+     */
+    public static/*<R>*/ Object/*{R}*/ reduce(int from, int to,
+            Object/*{R}*/ identity, Reducer/*<R>*/ reducer) {
+        if (from >= to)
+            return identity;
+        int concurrency = MathLib.min(getConcurrency(), to - from - 1);
+        if (concurrency <= 0) // Sequential.
+            return reducer.reduce(identity, from, to);
+        Job job = new Job(from, to, concurrency + 1, null, identity, reducer);
+        job.execute();
+        Object/*{R}*/ result = identity;
+        for (int i = 0; i < job._partials.length; i += Job.PADDING) {
+            result = reducer.combine(result, (Object/*{R}*/) job._partials[i]);
+        }
+        return result;
+    }
+
+    /**
+     * This interface represents the body of a concurrent loop 
+     * (see {@link ConcurrentContext#forEach(int, int, Loop)}).
+     */
+    public interface Loop {
+
+        /**
+         * Executes the loop body for the specified chunk of the range.
+         * 
+         * @param start the chunk start index (inclusive).
+         * @param end the chunk end index (exclusive).
+         */
+        void run(int start, int end);
+    }
+
+    /**
+     * This interface represents an action executed on the elements of 
+     * a collection (see {@link ConcurrentContext#forEach(Collection, Action)}).
+     */
+    public interface Action/*<E>*/ {
+
+        /**
+         * Executes this action on the specified element.
+         * 
+         * @param element the element.
+         */
+        void run(Object/*{E}*/ element);
+    }
+
+    /**
+     * This interface represents a concurrent reduction 
+     * (see {@link ConcurrentContext#reduce}).
+     */
+    public interface Reducer/*<R>*/ {
+
+        /**
+         * Reduces the specified chunk of the range into the specified
+         * partial result.
+         * 
+         * @param partial the partial result (initially the identity).
+         * @param start the chunk start index (inclusive).
+         * @param end the chunk end index (exclusive).
+         * @return the new partial result.
+         */
+        Object/*{R}*/ reduce(Object/*{R}*/ partial, int start, int end);
+
+        /**
+         * Combines the specified partial results.
+         * 
+         * @param left the first partial result.
+         * @param right the second partial result.
+         * @return the combined result.
+         */
+        Object/*{R}*/ combine(Object/*{R}*/ left, Object/*{R}*/ right);
+    }
+
     /**
      * Executes the specified logic concurrently if possible. 
      * 
@@ -305,6 +485,100 @@ public abstract class ConcurrentContext extends Context {
      */
     protected abstract void executeAction(Runnable logic);
 
+    /**
+     * This class represents a loop or reduction job whose chunks are claimed
+     * by its workers (guided self-scheduling).
+     */
+    private static final class Job {
+
+        /**
+         * Holds the spacing of the partial results (avoids false sharing 
+         * of the cache lines written by different workers).
+         */
+        static final int PADDING = 16;
+
+        final int _to;
+
+        final int _minChunk;
+
+        final int _workers;
+
+        final Loop _loop;
+
+        final Object _identity;
+
+        final Reducer _reducer;
+
+        final Object[] _partials;
+
+        int _next; // Guarded by this.
+
+        Job(int from, int to, int workers, Loop loop, Object identity,
+                Reducer reducer) {
+            _next = from;
+            _to = to;
+            _workers = workers;
+            _minChunk = MathLib.max(1, (to - from) / (workers << 4));
+            _loop = loop;
+            _identity = identity;
+            _reducer = reducer;
+            _partials = (reducer != null) ? new Object[workers * PADDING] : null;
+        }
+
+        // Executes the workers concurrently (worker 0 by the current thread).
+        void execute() {
+            ConcurrentContext.enter();
+            try {
+                for (int i = 1; i < _workers; i++) {
+                    ConcurrentContext.execute(new Worker(this, i));
+                }
+                new Worker(this, 0).run();
+            } finally {
+                ConcurrentContext.exit();
+            }
+        }
+    }
+
+    /**
+     * This class represents a worker executing the chunks of a job.
+     */
+    private static final class Worker implements Runnable {
+
+        private final Job _job;
+
+        private final int _index;
+
+        Worker(Job job, int index) {
+            _job = job;
+            _index = index;
+        }
+
+        public void run() {
+            Job job = _job;
+            Object partial = job._identity;
+            while (true) {
+                int start, end;
+                synchronized (job) { // Claims the next chunk.
+                    start = job._next;
+                    if (start >= job._to)
+                        break;
+                    int chunk = MathLib.max(job._minChunk, (job._to - start)
+                            / (job._workers << 1));
+                    end = MathLib.min(job._to, start + chunk);
+                    job._next = end;
+                }
+                if (job._reducer != null) {
+                    partial = job._reducer.reduce(partial, start, end);
+                } else {
+                    job._loop.run(start, end);
+                }
+            }
+            if (job._partials != null) {
+                job._partials[_index * Job.PADDING] = partial;
+            }
+        }
+    }
+
     /**
      * Default implementation using {@link ConcurrentThread} executors.
      */
@@ -337,7 +611,7 @@ public abstract class ConcurrentContext extends Context {
         /**
          * Holds the number of concurrent execution completed.
          */
-        private int _completed;
+        private volatile int _completed;
 
         // Implements Context abstract method.
         protected void enterAction() {
@@ -361,7 +635,11 @@ public abstract class ConcurrentContext extends Context {
         // Implements Context abstract method.
         protected void exitAction() {
             try {
-                if (_initiated != 0)
+                if (_initiated != 0) {
+                    for (int i = ((Integer) SPIN_ITERATIONS.get()).intValue(); 
+                            (--i >= 0) && (_initiated != _completed);) {
+                        // Spins.
+                    }
                     synchronized (this) {
                         while (_initiated != _completed) {
                             try {
@@ -371,6 +649,7 @@ public abstract class ConcurrentContext extends Context {
                             }
                         }
                     }
+                }
                 if (_error != null) {
                     if (_error instanceof RuntimeException)
                         throw ((RuntimeException) _error);
@@ -31,7 +31,7 @@ class ConcurrentThread extends RealtimeThread {
 
     private ConcurrentContext.Default _context;
 
-    private boolean _terminate;
+    private volatile boolean _terminate;
 
     private String _name;
 
@@ -67,6 +67,10 @@ class ConcurrentThread extends RealtimeThread {
      */
     public void run() {
         while (true) { // Main loop.
+            for (int i = ((Integer) ConcurrentContext.SPIN_ITERATIONS.get())
+                    .intValue(); (--i >= 0) && (_logic == null) && !_terminate;) {
+                // Spins (see ConcurrentContext.SPIN_ITERATIONS).
+            }
             synchronized (this) { // Waits for a task.
                 try {
                     while ((_logic == null) && !_terminate)
@@ -81,6 +81,10 @@ public abstract class Context implements XMLSerializable {
      * Holds the inherited allocator context or <code>null</code>
      */
     private AllocatorContext _allocator;
+    /**
+     * Holds the inherited local context or <code>null</code>
+     */
+    private LocalContext _localContext;
 
     /**
      * Default constructor. 
@@ -155,6 +159,7 @@ public abstract class Context implements XMLSerializable {
         context._outer = current;
         context._owner = Thread.currentThread();
         context._allocator = context instanceof AllocatorContext ? (AllocatorContext) context : current._allocator;
+        context._localContext = context instanceof LocalContext ? (LocalContext) context : current._localContext;
         Context.CURRENT.set(context);
         context.enterAction();
     }
@@ -213,6 +218,7 @@ public abstract class Context implements XMLSerializable {
             context._outer = null;
             context._owner = null;
             context._allocator = null;
+            context._localContext = null;
             if (context._factory != null) { // Factory produced.
                 context._factory.recycle(context);
                 context._factory = null;
@@ -239,6 +245,15 @@ public abstract class Context implements XMLSerializable {
         return (_allocator == null) ? AllocatorContext.getDefault() : _allocator;
     }
 
+    /**
+     * Returns the innermost local context of this context (shortcut).
+     * 
+     * @return the local context for this context or <code>null</code> if none.
+     */
+    final LocalContext getLocalContext() {
+        return _localContext;
+    }
+
     // Holds the root context definition.
     private static final class Root extends Context {
 
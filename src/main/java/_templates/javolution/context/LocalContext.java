@@ -9,6 +9,7 @@
 package _templates.javolution.context;
 
 import _templates.javolution.util.FastMap;
+import _templates.javolution.util.FastTable;
 
 /**
  * <p> This class represents a context to define locally scoped environment
@@ -30,6 +31,14 @@ import _templates.javolution.util.FastMap;
  *     
  * <p> As for any context, local context settings are inherited during 
  *     {@link ConcurrentContext concurrent} executions.</p> 
+ *     
+ * <p> Each context keeps a direct link to its innermost local context and 
+ *     the values inherited from outer local contexts are cached per local 
+ *     context. A setting invalidates only the caches of the local contexts
+ *     nested within the context where the setting is performed (or all
+ *     caches for {@link Reference#setDefault default} settings); reading a 
+ *     {@link LocalContext.Reference} takes then constant time regardless 
+ *     of the contexts nesting.</p> 
  *
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 3.6, September 24, 2005
@@ -43,6 +52,42 @@ public class LocalContext extends Context {
      */
     final FastMap _references = new FastMap();
 
+    /**
+     * Holds the values inherited from outer contexts (cache shared by
+     * concurrent executions).
+     */
+    private final FastMap _inherited = new FastMap().shared();
+
+    /**
+     * Holds the modification count of the outer settings (incremented
+     * whenever a setting of an outer local context changes).
+     */
+    private volatile int _outerModCount;
+
+    /**
+     * Holds the outer modification count for which the inherited values 
+     * are valid (read and written by concurrent executions).
+     */
+    private volatile int _inheritedModCount;
+
+    /**
+     * Holds the default modification count for which the inherited values 
+     * are valid.
+     */
+    private volatile int _inheritedDefaultModCount;
+
+    /**
+     * Holds the inner local contexts having cached values inherited from
+     * this context (to be invalidated when this context settings change).
+     */
+    private final FastTable _inners = new FastTable();
+
+    /**
+     * Holds the outer local context this context is registered with
+     * (guarded by the outer context inners).
+     */
+    private LocalContext _registeredWith;
+
     /**
      * Default constructor.
      */
@@ -72,7 +117,85 @@ public class LocalContext extends Context {
 
     // Implements Context abstract method.
     protected void exitAction() {
+        LocalContext outer = _registeredWith;
+        if (outer != null) {
+            synchronized (outer._inners) {
+                outer._inners.remove(this);
+                _registeredWith = null;
+            }
+        }
+        synchronized (_inners) {
+            _inners.clear();
+        }
         _references.clear();
+        _inherited.clear();
+    }
+
+    // Returns the value of the specified reference in this context.
+    private Object valueOf(Reference reference) {
+        Object value = _references.get(reference);
+        if (value != null)
+            return value;
+        final int modCount = _outerModCount; // Read once, before resolving.
+        final int defaultModCount = Reference._DefaultModCount;
+        if ((_inheritedModCount != modCount)
+                || (_inheritedDefaultModCount != defaultModCount)) {
+            synchronized (_inherited) { // Invalidates cache.
+                _inherited.clear();
+                _inheritedModCount = modCount;
+                _inheritedDefaultModCount = defaultModCount;
+            }
+        }
+        value = _inherited.get(reference);
+        if (value != null)
+            return value;
+        Context outer = getOuter();
+        LocalContext outerLocal = (outer != null) ? outer.getLocalContext() : null;
+        if (outerLocal != null) {
+            register(outerLocal); // Before reading the outer value.
+            value = outerLocal.valueOf(reference);
+        } else {
+            value = reference._defaultValue;
+        }
+        if (value != null) {
+            synchronized (_inherited) { // Not cached if settings have changed.
+                if ((_outerModCount == modCount)
+                        && (_inheritedModCount == modCount)
+                        && (Reference._DefaultModCount == defaultModCount)
+                        && (_inheritedDefaultModCount == defaultModCount)) {
+                    _inherited.put(reference, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    // Registers this context for invalidation by the specified outer context.
+    private void register(LocalContext outerLocal) {
+        if (_registeredWith == outerLocal)
+            return;
+        synchronized (outerLocal._inners) {
+            if (_registeredWith != outerLocal) {
+                outerLocal._inners.add(this);
+                _registeredWith = outerLocal;
+            }
+        }
+    }
+
+    // Invalidates the values cached by the inner contexts (recursively).
+    private void invalidateInners() {
+        synchronized (_inners) {
+            for (int i = 0, n = _inners.size(); i < n; i++) {
+                LocalContext inner = (LocalContext) _inners.get(i);
+                inner.incrementOuterModCount();
+                inner.invalidateInners();
+            }
+        }
+    }
+
+    // Increments the outer modification count (atomically).
+    private synchronized void incrementOuterModCount() {
+        _outerModCount++;
     }
 
     /**
@@ -92,6 +215,16 @@ public class LocalContext extends Context {
          * (optimization, most applications use default values).
          */
         private boolean _hasBeenLocallyOverriden;
+        /**
+         * Holds the modification count of the references default values
+         * (invalidates the values cached by all local contexts).
+         */
+        static volatile int _DefaultModCount;
+
+        // Increments the default modification count (atomically).
+        private static synchronized void incrementDefaultModCount() {
+            _DefaultModCount++;
+        }
 
         /**
          * Default constructor (default referent is <code>null</code>).
@@ -122,16 +255,9 @@ public class LocalContext extends Context {
         }
 
         private Object/*{T}*/ retrieveValue() {
-            for (Context ctx = Context.getCurrentContext(); ctx != null; ctx = ctx.getOuter()) {
-                if (ctx instanceof LocalContext) {
-                    LocalContext localContext = (LocalContext) ctx;
-                    Object value = localContext._references.get(this);
-                    if (value != null)
-                        return (Object/*{T}*/) value;
-                }
-            }
-            // Not found, returns default value.
-            return _defaultValue;
+            LocalContext ctx = Reference.getLocalContext();
+            return (ctx != null) ? (Object/*{T}*/) ctx.valueOf(this)
+                    : _defaultValue;
         }
 
         /**
@@ -146,10 +272,11 @@ public class LocalContext extends Context {
                 FastMap references = ctx._references;
                 references.put(this, value);
                 _hasBeenLocallyOverriden = true;
+                ctx.invalidateInners(); // Nested contexts only.
                 return;
             }
             // No local context, sets default value.
-            _defaultValue = value;
+            setDefault(value);
         }
 
         /**
@@ -180,6 +307,7 @@ public class LocalContext extends Context {
          */
         public void setDefault(Object/*{T}*/ defaultValue) {
             _defaultValue = defaultValue;
+            incrementDefaultModCount();
         }
 
         /**
@@ -194,11 +322,7 @@ public class LocalContext extends Context {
 
         // Returns the local context if any.
         private static LocalContext getLocalContext() {
-            for (Context ctx = Context.getCurrentContext(); ctx != null; ctx = ctx.getOuter()) {
-                if (ctx instanceof LocalContext)
-                    return (LocalContext) ctx;
-            }
-            return null;
+            return Context.getCurrentContext().getLocalContext();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,559 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2006 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.context.ConcurrentContext;
+import _templates.javolution.lang.MathLib;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.CharArray;
+import _templates.javolution.text.TypeFormat;
+
+/**
+ * <p> This class represents a streaming reader of delimited records
+ *     (CSV format as specified by
+ *     <a href="http://tools.ietf.org/html/rfc4180">RFC 4180</a>).</p>
+ *
+ * <p> Characters are decoded (UTF-8) directly into a reusable buffer and
+ *     the fields of the current record are returned as {@link CharArray}
+ *     views over that buffer (no allocation). Fields can be enclosed in
+ *     double quotes, in which case they may hold delimiters, line breaks
+ *     and escaped double quotes (<code>""</code>). For example:[code]
+ *     CSVReader reader = new CSVReader().setInput(inputStream);
+ *     reader.next(); // Skips header.
+ *     while (reader.next()) {
+ *         CharArray symbol = reader.getField(0); // View valid until next record.
+ *         double price = reader.getDouble(1);
+ *         long volume = reader.getLong(2);
+ *         ...
+ *     }
+ *     reader.close();[/code]</p>
+ *
+ * <p> Large in-memory inputs can also be parsed concurrently
+ *     (see {@link #parse parse}), the input being split at record boundaries
+ *     and each part processed within a {@link ConcurrentContext}.</p>
+ *
+ * <p> Records may be terminated by <code>CRLF</code> or <code>LF</code>;
+ *     the last record does not need to be terminated.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ * @see     CSVWriter
+ */
+public class CSVReader implements Reusable {
+
+    /**
+     * Holds the UTF-8 reader (for input streams).
+     */
+    private final UTF8StreamReader _utf8Reader = new UTF8StreamReader();
+
+    /**
+     * Holds the current reader or <code>null</code> if input is a
+     * character array.
+     */
+    private Reader _reader;
+
+    /**
+     * Holds the buffer for readers.
+     */
+    private char[] _buffer = new char[4096];
+
+    /**
+     * Holds the characters being parsed (buffer or input array).
+     */
+    private char[] _chars = _buffer;
+
+    /**
+     * Holds the index of the next record.
+     */
+    private int _pos;
+
+    /**
+     * Holds the end of the characters available.
+     */
+    private int _end;
+
+    /**
+     * Indicates if there is no more characters to read.
+     */
+    private boolean _isEndOfInput;
+
+    /**
+     * Holds the delimiter.
+     */
+    private char _delimiter = ',';
+
+    /**
+     * Holds the number of fields of the current record.
+     */
+    private int _fieldCount;
+
+    /**
+     * Holds the fields start indices.
+     */
+    private int[] _starts = new int[16];
+
+    /**
+     * Holds the fields end indices.
+     */
+    private int[] _ends = new int[16];
+
+    /**
+     * Indicates the fields held by the unescaped characters buffer.
+     */
+    private boolean[] _isUnescaped = new boolean[16];
+
+    /**
+     * Holds the fields views.
+     */
+    private CharArray[] _fields = new CharArray[16];
+
+    /**
+     * Holds the characters of the quoted fields with escaped quotes.
+     */
+    private char[] _unescaped = new char[256];
+
+    /**
+     * Holds the number of unescaped characters.
+     */
+    private int _unescapedLength;
+
+    /**
+     * Default constructor.
+     */
+    public CSVReader() {
+    }
+
+    /**
+     * Sets the UTF-8 input stream to read from.
+     *
+     * @param in the input stream.
+     * @return <code>this</code>
+     */
+    public CSVReader setInput(InputStream in) {
+        return setInput(_utf8Reader.setInput(in));
+    }
+
+    /**
+     * Sets the reader to read from.
+     *
+     * @param reader the reader.
+     * @return <code>this</code>
+     */
+    public CSVReader setInput(Reader reader) {
+        _reader = reader;
+        _chars = _buffer;
+        _pos = 0;
+        _end = 0;
+        _isEndOfInput = false;
+        _fieldCount = 0;
+        return this;
+    }
+
+    /**
+     * Sets the characters to parse (the array is not copied).
+     *
+     * @param chars the characters array.
+     * @param offset the index of the first character.
+     * @param length the number of characters.
+     * @return <code>this</code>
+     */
+    public CSVReader setInput(char[] chars, int offset, int length) {
+        _reader = null;
+        _chars = chars;
+        _pos = offset;
+        _end = offset + length;
+        _isEndOfInput = true;
+        _fieldCount = 0;
+        return this;
+    }
+
+    /**
+     * Sets the fields delimiter (default <code>','</code>).
+     *
+     * @param delimiter the delimiter character.
+     * @return <code>this</code>
+     */
+    public CSVReader setDelimiter(char delimiter) {
+        _delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return <code>true</code> if a record has been read;
+     *         <code>false</code> if there is no more record.
+     * @throws IOException if an I/O error occurs or if the input is
+     *         not well-formed.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int status = parseRecord();
+            if (status > 0)
+                return true;
+            if (status < 0) {
+                _fieldCount = 0;
+                return false;
+            }
+            fill(); // More characters required.
+        }
+    }
+
+    /**
+     * Returns the number of fields of the current record.
+     *
+     * @return the number of fields.
+     */
+    public int getFieldCount() {
+        return _fieldCount;
+    }
+
+    /**
+     * Returns the specified field of the current record (unquoted and
+     * unescaped). The view returned is only valid until the next record
+     * is read.
+     *
+     * @param index the field index.
+     * @return the field characters.
+     * @throws IndexOutOfBoundsException if
+     *         <code>(index < 0) || (index >= getFieldCount())</code>
+     */
+    public CharArray getField(int index) {
+        if ((index < 0) || (index >= _fieldCount))
+            throw new IndexOutOfBoundsException("index: " + index);
+        CharArray field = _fields[index];
+        if (field == null) {
+            field = newField(index);
+        }
+        return field.setArray(_isUnescaped[index] ? _unescaped : _chars,
+                _starts[index], _ends[index] - _starts[index]);
+    }
+
+    /**
+     * Returns the specified field as a <code>boolean</code>.
+     *
+     * @param index the field index.
+     * @return <code>TypeFormat.parseBoolean(getField(index))</code>
+     */
+    public boolean getBoolean(int index) {
+        return TypeFormat.parseBoolean(getField(index));
+    }
+
+    /**
+     * Returns the specified field as a decimal <code>int</code>.
+     *
+     * @param index the field index.
+     * @return <code>TypeFormat.parseInt(getField(index))</code>
+     */
+    public int getInt(int index) {
+        return TypeFormat.parseInt(getField(index));
+    }
+
+    /**
+     * Returns the specified field as a decimal <code>long</code>.
+     *
+     * @param index the field index.
+     * @return <code>TypeFormat.parseLong(getField(index))</code>
+     */
+    public long getLong(int index) {
+        return TypeFormat.parseLong(getField(index));
+    }
+
+    /**
+     * Returns the specified field as a <code>double</code>.
+     *
+     * @param index the field index.
+     * @return <code>TypeFormat.parseDouble(getField(index))</code>
+     */
+    public double getDouble(int index) {
+        return TypeFormat.parseDouble(getField(index));
+    }
+
+    /**
+     * Closes this reader and its underlying input then {@link #reset resets}
+     * this reader for potential reuse.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void close() throws IOException {
+        if (_reader != null) {
+            _reader.close();
+        }
+        reset();
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        _utf8Reader.reset();
+        _reader = null;
+        _chars = _buffer;
+        _pos = 0;
+        _end = 0;
+        _isEndOfInput = true;
+        _fieldCount = 0;
+        _delimiter = ',';
+    }
+
+    /**
+     * Parses the specified characters concurrently. The characters are
+     * split at record boundaries, each part being parsed by its own
+     * reader within a {@link ConcurrentContext} (see
+     * {@link ConcurrentContext#forEach(int, int, ConcurrentContext.Loop)}).
+     * The records of a part are handled sequentially but different parts
+     * are handled concurrently (the handler should be thread-safe).
+     *
+     * @param chars the characters to parse (CSV records).
+     * @param offset the index of the first character.
+     * @param length the number of characters.
+     * @param delimiter the fields delimiter.
+     * @param handler the records handler.
+     * @throws IOException if the input is not well-formed.
+     */
+    public static void parse(final char[] chars, int offset, int length,
+            final char delimiter, final Handler handler) throws IOException {
+        final int end = offset + length;
+        final int parts = MathLib.max(1, MathLib.min(
+                ConcurrentContext.getConcurrency() + 1, length >> 16));
+        final int[] bounds = new int[parts + 1];
+        bounds[0] = offset;
+        bounds[parts] = end;
+        boolean isQuoted = false;
+        int i = offset;
+        for (int k = 1; k < parts; k++) { // Splits at record boundaries.
+            int target = offset + (int) (((long) length) * k / parts);
+            for (; i < target; i++) { // Quotes parity only.
+                if (chars[i] == '"') {
+                    isQuoted = !isQuoted;
+                }
+            }
+            for (; i < end; i++) { // Moves to next record.
+                char c = chars[i];
+                if (c == '"') {
+                    isQuoted = !isQuoted;
+                } else if ((c == '\n') && !isQuoted) {
+                    i++;
+                    break;
+                }
+            }
+            bounds[k] = i;
+        }
+        final IOException[] error = new IOException[1];
+        ConcurrentContext.forEach(0, parts, new ConcurrentContext.Loop() {
+            public void run(int start, int end) {
+                CSVReader reader = new CSVReader();
+                for (int k = start; k < end; k++) {
+                    reader.setInput(chars, bounds[k], bounds[k + 1] - bounds[k])
+                            .setDelimiter(delimiter);
+                    try {
+                        while (reader.next()) {
+                            handler.handle(reader);
+                        }
+                    } catch (IOException e) {
+                        synchronized (error) {
+                            error[0] = e;
+                        }
+                        return;
+                    }
+                }
+            }
+        });
+        if (error[0] != null)
+            throw error[0];
+    }
+
+    /**
+     * This interface represents a handler of the records parsed
+     * concurrently (see {@link CSVReader#parse}).
+     */
+    public interface Handler {
+
+        /**
+         * Handles the current record of the specified reader.
+         *
+         * @param record the reader positioned on the record to handle.
+         */
+        void handle(CSVReader record);
+    }
+
+    // Parses the next record; returns 1 if parsed, 0 if more characters
+    // are required and -1 if there is no more record.
+    private int parseRecord() throws IOException {
+        final char[] chars = _chars;
+        final int end = _end;
+        final char delimiter = _delimiter;
+        int i = _pos;
+        if (i >= end)
+            return _isEndOfInput ? -1 : 0;
+        _fieldCount = 0;
+        _unescapedLength = 0;
+        while (true) { // For each field.
+            int start;
+            int stop;
+            boolean isUnescaped = false;
+            if (chars[i] == '"') { // Quoted field.
+                start = ++i;
+                boolean hasEscapedQuotes = false;
+                while (true) {
+                    if (i >= end) {
+                        if (!_isEndOfInput)
+                            return 0;
+                        throw new IOException("Unterminated quoted field");
+                    }
+                    if (chars[i] == '"') {
+                        if (i + 1 >= end) {
+                            if (!_isEndOfInput)
+                                return 0;
+                        } else if (chars[i + 1] == '"') { // Escaped quote.
+                            hasEscapedQuotes = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                stop = i++; // Skips closing quote.
+                if ((i < end) && (chars[i] != delimiter) && (chars[i] != '\r')
+                        && (chars[i] != '\n'))
+                    throw new IOException("Unexpected character '" + chars[i]
+                            + "' after quoted field");
+                if (hasEscapedQuotes) {
+                    int length = unescape(chars, start, stop);
+                    start = _unescapedLength - length;
+                    stop = _unescapedLength;
+                    isUnescaped = true;
+                }
+            } else { // Unquoted field.
+                start = i;
+                for (char c; (i < end) && ((c = chars[i]) != delimiter)
+                        && (c != '\n') && (c != '\r'); i++) {
+                }
+                if ((i >= end) && !_isEndOfInput)
+                    return 0;
+                stop = i;
+            }
+            addField(start, stop, isUnescaped);
+            if (i >= end) { // Last record (not terminated).
+                _pos = i;
+                return 1;
+            }
+            char c = chars[i++];
+            if (c == delimiter) {
+                if (i < end)
+                    continue; // Next field.
+                if (!_isEndOfInput)
+                    return 0;
+                addField(i, i, false); // Empty last field.
+                _pos = i;
+                return 1;
+            }
+            if (c == '\r') {
+                if (i >= end) {
+                    if (!_isEndOfInput)
+                        return 0;
+                } else if (chars[i] == '\n') {
+                    i++;
+                }
+            }
+            _pos = i; // End of record.
+            return 1;
+        }
+    }
+
+    // Reads more characters, the current record is moved to the buffer start.
+    private void fill() throws IOException {
+        if (_pos > 0) {
+            System.arraycopy(_buffer, _pos, _buffer, 0, _end - _pos);
+            _end -= _pos;
+            _pos = 0;
+        }
+        if (_end >= _buffer.length) { // Record larger than buffer.
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+                public void run() {
+                    char[] tmp = new char[_buffer.length * 2];
+                    System.arraycopy(_buffer, 0, tmp, 0, _end);
+                    _buffer = tmp;
+                }
+            });
+            _chars = _buffer;
+        }
+        int n = _reader.read(_buffer, _end, _buffer.length - _end);
+        if (n < 0) {
+            _isEndOfInput = true;
+        } else {
+            _end += n;
+        }
+    }
+
+    // Adds a field to the current record.
+    private void addField(int start, int end, boolean isUnescaped) {
+        if (_fieldCount >= _starts.length) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+                public void run() {
+                    int capacity = _starts.length * 2;
+                    int[] starts = new int[capacity];
+                    int[] ends = new int[capacity];
+                    boolean[] isUnescaped = new boolean[capacity];
+                    CharArray[] fields = new CharArray[capacity];
+                    System.arraycopy(_starts, 0, starts, 0, _fieldCount);
+                    System.arraycopy(_ends, 0, ends, 0, _fieldCount);
+                    System.arraycopy(_isUnescaped, 0, isUnescaped, 0, _fieldCount);
+                    System.arraycopy(_fields, 0, fields, 0, _fields.length);
+                    _starts = starts;
+                    _ends = ends;
+                    _isUnescaped = isUnescaped;
+                    _fields = fields;
+                }
+            });
+        }
+        _starts[_fieldCount] = start;
+        _ends[_fieldCount] = end;
+        _isUnescaped[_fieldCount++] = isUnescaped;
+    }
+
+    // Copies the specified quoted field content to the unescaped buffer
+    // (replacing escaped quotes), returns the number of characters copied.
+    private int unescape(char[] chars, int start, int end) {
+        final int capacity = _unescapedLength + end - start;
+        if (capacity > _unescaped.length) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+                public void run() {
+                    char[] tmp = new char[MathLib.max(capacity, _unescaped.length * 2)];
+                    System.arraycopy(_unescaped, 0, tmp, 0, _unescapedLength);
+                    _unescaped = tmp;
+                }
+            });
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            _unescaped[_unescapedLength + length++] = c;
+            if (c == '"') {
+                i++; // Skips second quote.
+            }
+        }
+        _unescapedLength += length;
+        return length;
+    }
+
+    // Creates the view for the specified field.
+    private CharArray newField(final int index) {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                _fields[index] = new CharArray();
+            }
+        });
+        return _fields[index];
+    }
+}
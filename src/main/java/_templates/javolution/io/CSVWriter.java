@@ -0,0 +1,291 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2006 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import _templates.java.lang.CharSequence;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.TextBuilder;
+
+/**
+ * <p> This class represents a streaming writer of delimited records
+ *     (CSV format as specified by
+ *     <a href="http://tools.ietf.org/html/rfc4180">RFC 4180</a>).</p>
+ *
+ * <p> Fields are written to an internal buffer; numbers are formatted
+ *     through a reusable {@link TextBuilder} (no allocation). Fields holding
+ *     the delimiter, double quotes or line breaks are automatically quoted.
+ *     For example:[code]
+ *     CSVWriter writer = new CSVWriter().setOutput(outputStream); // UTF-8
+ *     for (Quote quote : quotes) {
+ *         writer.write(quote.getSymbol());
+ *         writer.write(quote.getPrice());
+ *         writer.write(quote.getVolume());
+ *         writer.endRecord();
+ *     }
+ *     writer.close();[/code]</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ * @see     CSVReader
+ */
+public class CSVWriter implements Reusable {
+
+    /**
+     * Holds the UTF-8 writer (for output streams).
+     */
+    private final UTF8StreamWriter _utf8Writer = new UTF8StreamWriter();
+
+    /**
+     * Holds the current writer.
+     */
+    private Writer _writer;
+
+    /**
+     * Holds the characters buffer.
+     */
+    private final char[] _buffer = new char[4096];
+
+    /**
+     * Holds the number of characters in the buffer.
+     */
+    private int _length;
+
+    /**
+     * Holds the delimiter.
+     */
+    private char _delimiter = ',';
+
+    /**
+     * Indicates if the next field is the first of the record.
+     */
+    private boolean _isFirstField = true;
+
+    /**
+     * Holds the builder used to format numbers.
+     */
+    private final TextBuilder _tmp = new TextBuilder();
+
+    /**
+     * Default constructor.
+     */
+    public CSVWriter() {
+    }
+
+    /**
+     * Sets the output stream to write to (UTF-8 encoding).
+     *
+     * @param out the output stream.
+     * @return <code>this</code>
+     */
+    public CSVWriter setOutput(OutputStream out) {
+        return setOutput(_utf8Writer.setOutput(out));
+    }
+
+    /**
+     * Sets the writer to write to.
+     *
+     * @param writer the writer.
+     * @return <code>this</code>
+     */
+    public CSVWriter setOutput(Writer writer) {
+        _writer = writer;
+        _length = 0;
+        _isFirstField = true;
+        return this;
+    }
+
+    /**
+     * Sets the fields delimiter (default <code>','</code>).
+     *
+     * @param delimiter the delimiter character.
+     * @return <code>this</code>
+     */
+    public CSVWriter setDelimiter(char delimiter) {
+        _delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Writes the specified field, the field is quoted if it contains
+     * the delimiter, double quotes or line breaks.
+     *
+     * @param csq the field characters or <code>null</code> (empty field).
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public CSVWriter write(CharSequence csq) throws IOException {
+        delimit();
+        if (csq == null)
+            return this;
+        final int length = csq.length();
+        if (!isQuoted(csq)) {
+            for (int i = 0; i < length; i++) {
+                append(csq.charAt(i));
+            }
+            return this;
+        }
+        append('"');
+        for (int i = 0; i < length; i++) {
+            char c = csq.charAt(i);
+            if (c == '"') {
+                append('"'); // Escapes quote.
+            }
+            append(c);
+        }
+        append('"');
+        return this;
+    }
+
+    /**
+     * Writes the specified <code>boolean</code> field.
+     *
+     * @param b the field value.
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public CSVWriter write(boolean b) throws IOException {
+        _tmp.clear().append(b);
+        return writeTmp();
+    }
+
+    /**
+     * Writes the specified decimal <code>int</code> field.
+     *
+     * @param i the field value.
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public CSVWriter write(int i) throws IOException {
+        _tmp.clear().append(i);
+        return writeTmp();
+    }
+
+    /**
+     * Writes the specified decimal <code>long</code> field.
+     *
+     * @param l the field value.
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public CSVWriter write(long l) throws IOException {
+        _tmp.clear().append(l);
+        return writeTmp();
+    }
+
+    /**
+     * Writes the specified <code>double</code> field.
+     *
+     * @param d the field value.
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public CSVWriter write(double d) throws IOException {
+        _tmp.clear().append(d);
+        return writeTmp();
+    }
+
+    /**
+     * Terminates the current record (<code>CRLF</code>).
+     *
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public CSVWriter endRecord() throws IOException {
+        append('\r');
+        append('\n');
+        _isFirstField = true;
+        return this;
+    }
+
+    /**
+     * Flushes this writer and its underlying output.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        _writer.flush();
+    }
+
+    /**
+     * Closes this writer and its underlying output then {@link #reset resets}
+     * this writer for potential reuse.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void close() throws IOException {
+        if (_writer != null) {
+            flushBuffer();
+            _writer.close();
+        }
+        reset();
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        _utf8Writer.reset();
+        _writer = null;
+        _length = 0;
+        _delimiter = ',';
+        _isFirstField = true;
+        _tmp.clear();
+    }
+
+    // Indicates if the specified field has to be quoted.
+    private boolean isQuoted(CharSequence csq) {
+        for (int i = 0, length = csq.length(); i < length; i++) {
+            char c = csq.charAt(i);
+            if ((c == _delimiter) || (c == '"') || (c == '\n') || (c == '\r'))
+                return true;
+        }
+        return false;
+    }
+
+    // Writes the value formatted (quoted only if it contains the delimiter,
+    // e.g. "-1" or "1.5" with '-' or '.' delimiters).
+    private CSVWriter writeTmp() throws IOException {
+        if (isQuoted(_tmp))
+            return write(_tmp);
+        delimit();
+        final int length = _tmp.length();
+        if (_length + length > _buffer.length) {
+            flushBuffer();
+        }
+        _tmp.getChars(0, length, _buffer, _length);
+        _length += length;
+        return this;
+    }
+
+    // Writes the delimiter if not the first field.
+    private void delimit() throws IOException {
+        if (_isFirstField) {
+            _isFirstField = false;
+        } else {
+            append(_delimiter);
+        }
+    }
+
+    // Appends a character to the buffer.
+    private void append(char c) throws IOException {
+        if (_length >= _buffer.length) {
+            flushBuffer();
+        }
+        _buffer[_length++] = c;
+    }
+
+    // Writes the buffer content.
+    private void flushBuffer() throws IOException {
+        _writer.write(_buffer, 0, _length);
+        _length = 0;
+    }
+}
@@ -16,7 +16,9 @@ import _templates.java.io.CharConversionException;
 import _templates.java.lang.CharSequence;
 import _templates.java.lang.IllegalStateException;
 import _templates.java.nio.ByteBuffer;
+import _templates.javolution.lang.MathLib;
 import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.Text;
 
 
 /**
@@ -147,6 +149,18 @@ public final class UTF8ByteBufferWriter extends Writer implements Reusable {
      */
     public void write(char cbuf[], int off, int len) throws IOException {
         final int off_plus_len = off + len;
+        if ((_highSurrogate == 0) && _byteBuffer.hasArray()) { // Bulk ASCII.
+            final byte[] bytes = _byteBuffer.array();
+            final int position = _byteBuffer.position();
+            final int start = _byteBuffer.arrayOffset() + position;
+            final int end = start
+                    + MathLib.min(len, _byteBuffer.limit() - position);
+            int j = start;
+            while ((j < end) && (cbuf[off] < 0x80)) {
+                bytes[j++] = (byte) cbuf[off++];
+            }
+            _byteBuffer.position(position + j - start);
+        }
         for (int i = off; i < off_plus_len;) {
             char c = cbuf[i++];
             if (c < 0x80) {
@@ -178,12 +192,17 @@ public final class UTF8ByteBufferWriter extends Writer implements Reusable {
     }
 
     /**
-     * Writes the specified character sequence.
+     * Writes the specified character sequence ({@link Text} instances are
+     * written block by block).
      *
      * @param  csq the character sequence.
      * @throws IOException if an I/O error occurs
      */
     public void write(CharSequence csq) throws IOException {
+        if (csq instanceof Text) {
+            ((Text) csq).print(this);
+            return;
+        }
         final int length = csq.length();
         for (int i = 0; i < length;) {
             char c = csq.charAt(i++);
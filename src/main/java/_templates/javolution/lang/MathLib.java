@@ -172,6 +172,9 @@ public final class MathLib {
      *         representation of the specified <code>longValue</code>.
      */
     public static int bitCount(long longValue) {
+        /*@JVM-1.5+@
+        if (true) return Long.bitCount(longValue); // Intrinsic.
+        /**/
         longValue = longValue - ((longValue >>> 1) & 0x5555555555555555L);
         longValue = (longValue & 0x3333333333333333L) + ((longValue >>> 2) & 0x3333333333333333L);
         longValue = (longValue + (longValue >>> 4)) & 0x0f0f0f0f0f0f0f0fL;
@@ -191,6 +194,9 @@ public final class MathLib {
      * @return the number of leading zero bits.
      */
     public static int numberOfLeadingZeros(long longValue) {
+        /*@JVM-1.5+@
+        if (true) return Long.numberOfLeadingZeros(longValue); // Intrinsic.
+        /**/
         // From Hacker's Delight
         if (longValue == 0)
             return 64;
@@ -229,6 +235,9 @@ public final class MathLib {
      * @return the number of trailing zero bits.
      */
     public static int numberOfTrailingZeros(long longValue) {
+        /*@JVM-1.5+@
+        if (true) return Long.numberOfTrailingZeros(longValue); // Intrinsic.
+        /**/
         // From Hacker's Delight
         if (longValue == 0)
             return 64;
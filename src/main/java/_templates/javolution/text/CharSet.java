@@ -76,12 +76,21 @@ public final class CharSet implements Immutable {
     private final long[] _mapping;
 
     /**
-     * Creates a character set with the specified mapping.
+     * Holds the ASCII lookup table.  
+     */
+    private final boolean[] _ascii = new boolean[128];
+
+    /**
+     * Creates a character set with the specified mapping (the mapping
+     * should not be modified afterward).
      * 
      * @param mapping the character set mapping.
      */
     private CharSet(long[] mapping) {
         _mapping = mapping;
+        for (int i = MathLib.min(mapping.length << 6, 128); --i >= 0;) {
+            _ascii[i] = (mapping[i >> 6] & (1L << (i & 63))) != 0;
+        }
     }
 
     /**
@@ -97,12 +106,12 @@ public final class CharSet implements Immutable {
                 maxChar = chars[i];
             }
         }
-        CharSet charSet = new CharSet(new long[(maxChar >> 6) + 1]);
+        long[] mapping = new long[(maxChar >> 6) + 1];
         for (int i = chars.length; --i >= 0;) {
             char c = chars[i];
-            charSet._mapping[c >> 6] |= 1L << (c & 63);
+            mapping[c >> 6] |= 1L << (c & 63);
         }
-        return charSet;
+        return new CharSet(mapping);
     }
 
     /**
@@ -118,11 +127,11 @@ public final class CharSet implements Immutable {
         if (first > last)
             throw new IllegalArgumentException(
                     "first should be less or equal to last");
-        CharSet charSet = new CharSet(new long[(last >> 6) + 1]);
+        long[] mapping = new long[(last >> 6) + 1];
         for (char c = first; c <= last; c++) {
-            charSet._mapping[c >> 6] |= 1L << (c & 63);
+            mapping[c >> 6] |= 1L << (c & 63);
         }
-        return charSet;
+        return new CharSet(mapping);
 
     }
 
@@ -134,6 +143,8 @@ public final class CharSet implements Immutable {
      *         character; <code>false</code> otherwise.
      */
     public boolean contains(char c) {
+        if (c < 128)
+            return _ascii[c];
         final int i = c >> 6;
         return i < _mapping.length ? (_mapping[i] & (1L << (c & 63))) != 0
                 : false;
@@ -187,7 +198,38 @@ public final class CharSet implements Immutable {
      *         <code>-1</code> if none found.
      */
     public int indexIn(char[] chars, int fromIndex) {
-        for (int i=fromIndex, n=chars.length; i < n; i++) {
+        return indexIn(chars, fromIndex, chars.length);
+    }
+
+    /**
+     * Returns the first index in the specified character array range of
+     * one of the character of this set. Runs of ASCII characters not in this 
+     * set are skipped in batches (four characters per lookup iteration). 
+     *
+     * @param chars the character array to be searched.
+     * @param fromIndex the index to search from.
+     * @param toIndex the index to search to (exclusive).
+     * @return the index in the specified character sequence or
+     *         <code>-1</code> if none found.
+     */
+    public int indexIn(char[] chars, int fromIndex, int toIndex) {
+        final boolean[] ascii = _ascii;
+        int i = fromIndex;
+        for (final int n = toIndex - 3; i < n; i += 4) {
+            final char c0 = chars[i];
+            final char c1 = chars[i + 1];
+            final char c2 = chars[i + 2];
+            final char c3 = chars[i + 3];
+            if ((c0 | c1 | c2 | c3) < 128) { // ASCII only.
+                if (!(ascii[c0] | ascii[c1] | ascii[c2] | ascii[c3]))
+                    continue; // Skips the whole batch.
+            }
+            if (contains(c0)) return i;
+            if (contains(c1)) return i + 1;
+            if (contains(c2)) return i + 2;
+            if (contains(c3)) return i + 3;
+        }
+        for (; i < toIndex; i++) {
             if (contains(chars[i])) return i;
         }
         return -1;
@@ -259,11 +301,11 @@ public final class CharSet implements Immutable {
     public CharSet plus(CharSet that) {
         if (that._mapping.length > this._mapping.length)
             return that.plus(this);
-        CharSet result = this.copy();
+        long[] mapping = this.copyMapping();
         for (int i = that._mapping.length; --i >= 0;) {
-            result._mapping[i] |= that._mapping[i];
+            mapping[i] |= that._mapping[i];
         }
-        return result;
+        return new CharSet(mapping);
     }
 
     /**
@@ -274,11 +316,11 @@ public final class CharSet implements Immutable {
      * @return <code>this - that</code>
      */
     public CharSet minus(CharSet that) {
-        CharSet result = this.copy();
+        long[] mapping = this.copyMapping();
         for (int i = MathLib.min(this._mapping.length, that._mapping.length); --i >= 0;) {
-            result._mapping[i] &= ~that._mapping[i];
+            mapping[i] &= ~that._mapping[i];
         }
-        return result;
+        return new CharSet(mapping);
     }
 
     /**
@@ -306,15 +348,15 @@ public final class CharSet implements Immutable {
     }
 
     /**
-     * Returns a copy of this character set.
+     * Returns a copy of this character set mapping.
      *  
      * @return an independant copy.
      */
-    private CharSet copy() {
-        CharSet charSet = new CharSet(new long[this._mapping.length]);
+    private long[] copyMapping() {
+        long[] mapping = new long[this._mapping.length];
         for (int i = _mapping.length; --i >= 0;) {
-            charSet._mapping[i] = _mapping[i];
+            mapping[i] = _mapping[i];
         }
-        return charSet;
+        return mapping;
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@
 package _templates.javolution.text;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 
 import java.io.PrintStream;
@@ -93,10 +94,21 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
      */
 
     /**
-     * Holds the texts interned in ImmortalMemory
+     * Holds the number of intern shards (power of two).
      */
-    private static final FastMap INTERN_INSTANCES = new FastMap()
-            .setKeyComparator(FastComparator.LEXICAL);
+    private static final int INTERN_SHARDS = 16;
+
+    /**
+     * Holds the texts interned in ImmortalMemory (sharded to avoid 
+     * contention when new texts are interned concurrently).
+     */
+    private static final FastMap[] INTERN_INSTANCES = new FastMap[INTERN_SHARDS];
+    static {
+        for (int i = 0; i < INTERN_SHARDS; i++) {
+            INTERN_INSTANCES[i] = new FastMap().setKeyComparator(
+                    FastComparator.LEXICAL).shared();
+        }
+    }
 
     /**
      * Holds an empty character sequence.
@@ -123,6 +135,20 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
      */
     private Text _tail;
 
+    /**
+     * Holds the number of line feeds of this composite or <code>-1</code>
+     * if not yet computed (primitives are bounded and always scanned).
+     */
+    private int _lineFeeds = -1;
+
+    /**
+     * Holds the UTF-8 length of this composite or <code>-1</code> if not yet
+     * computed or larger than <code>Integer.MAX_VALUE</code> (an int is
+     * used to be safely published without synchronization, as for
+     * <code>String</code> hash codes).
+     */
+    private int _utf8Length = -1;
+
     /**
      * Creates a new text instance.
      * 
@@ -132,6 +158,18 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
         _data = isPrimitive ? new char[BLOCK_SIZE] : null;
     }
 
+    /**
+     * Creates a primitive text wrapping the specified characters (wide
+     * primitives can be larger than the default block size).
+     * 
+     * @param data the characters (not copied).
+     * @param count the number of characters.
+     */
+    private Text(char[] data, int count) {
+        _data = data;
+        _count = count;
+    }
+
     /**
      * Creates a text holding the characters from the specified <code>String
      * </code>.
@@ -498,6 +536,71 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
         }
     }
 
+    /**
+     * Returns the concatenation of the specified texts. The texts are
+     * concatenated pairwise (bottom-up) resulting in a tree of minimal
+     * depth; this method is typically used to join segments of a large
+     * document built independently (e.g. concurrently). For example:[code]
+     *     final Text[] segments = new Text[n];
+     *     ConcurrentContext.forEach(0, n, new ConcurrentContext.Loop() {
+     *         public void run(int start, int end) {
+     *             for (int i = start; i < end; i++) {
+     *                 segments[i] = parseSegment(i);
+     *             }
+     *         }
+     *     });
+     *     Text document = Text.concat(segments);
+     * [/code]
+     *
+     * @param  texts the texts to concatenate (<code>null</code> elements
+     *         are ignored).
+     * @return the concatenation of the specified texts.
+     */
+    public static Text concat(Text[] texts) {
+        final Text[] nodes = new Text[texts.length];
+        int n = 0;
+        for (int i = 0; i < texts.length; i++) {
+            if ((texts[i] != null) && (texts[i]._count != 0)) {
+                nodes[n++] = texts[i];
+            }
+        }
+        return join(nodes, n);
+    }
+
+    // Joins the specified nodes pairwise (the array is modified).
+    private static Text join(Text[] nodes, int n) {
+        if (n == 0)
+            return Text.EMPTY;
+        while (n > 1) {
+            int j = 0;
+            for (int i = 0; i < n; i += 2) {
+                nodes[j++] = (i + 1 < n) ? nodes[i].concat(nodes[i + 1])
+                        : nodes[i];
+            }
+            n = j;
+        }
+        return nodes[0];
+    }
+
+    /**
+     * Returns the text wrapping the specified blocks of characters
+     * (no copy, the blocks should not be modified afterward).
+     *
+     * @param  blocks the full blocks of characters (except the last one).
+     * @param  blockLength the length of the blocks.
+     * @param  length the total number of characters.
+     * @return the corresponding text instance.
+     */
+    static Text valueOf(char[][] blocks, int blockLength, int length) {
+        final int n = (length + blockLength - 1) / blockLength;
+        final Text[] nodes = new Text[n];
+        for (int i = 0; i < n; i++) {
+            nodes[i] = new Text(blocks[i], MathLib.min(blockLength, length
+                    - i * blockLength));
+        }
+        return join(nodes, n);
+    }
+
     private Text rightRotation() {
         // See: http://en.wikipedia.org/wiki/Tree_rotation
         Text P = this._head;
@@ -561,6 +664,183 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
         return subtext(0, start).concat(subtext(end));
     }
 
+    /**
+     * Returns the text having the characters between the specified indexes
+     * replaced by the specified text.
+     *
+     * @param start the beginning index, inclusive.
+     * @param end the ending index, exclusive.
+     * @param txt the replacement text.
+     * @return <code>subtext(0, start).concat(txt).concat(subtext(end))</code>
+     * @throws IndexOutOfBoundsException if <code>(start < 0) || (end < 0) ||
+     *         (start > end) || (end > this.length()</code>
+     */
+    public Text replace(int start, int end, Text txt) {
+        if (start > end)
+            throw new IndexOutOfBoundsException();
+        return subtext(0, start).concat(txt).concat(subtext(end));
+    }
+
+    /**
+     * Returns the number of lines of this text; lines are terminated by
+     * <code>'\n'</code> (a text without line feed has one line).
+     * The number of line feeds of each node of the text tree is computed
+     * once and kept with the node; texts resulting from insertion, deletion
+     * or concatenation share most of their nodes and only the new nodes
+     * (<code>O[Log(n)]</code>) have to be evaluated.
+     *
+     * @return the number of line feeds plus one.
+     */
+    public int getLineCount() {
+        return lineFeeds() + 1;
+    }
+
+    /**
+     * Returns the line holding the character at the specified index
+     * in <code>O[Log(n)]</code>.
+     *
+     * @param index the character index.
+     * @return the number of line feeds before the specified index.
+     * @throws IndexOutOfBoundsException if <code>(index < 0) ||
+     *         (index > this.length())</code>
+     */
+    public int getLineIndex(int index) {
+        if ((index < 0) || (index > _count))
+            throw new IndexOutOfBoundsException();
+        int line = 0;
+        Text text = this;
+        while (text._data == null) { // Composite.
+            final int cesure = text._head._count;
+            if (index < cesure) {
+                text = text._head;
+            } else {
+                line += text._head.lineFeeds();
+                index -= cesure;
+                text = text._tail;
+            }
+        }
+        for (int i = 0; i < index;) {
+            if (text._data[i++] == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Returns the index of the first character of the specified line
+     * in <code>O[Log(n)]</code>. For example, the lines 10 to 20 (exclusive)
+     * can be replaced as follows:[code]
+     *     text = text.replace(text.getLineStart(10), text.getLineStart(20), lines);
+     * [/code]
+     *
+     * @param line the line index.
+     * @return the index following the <code>line</code>th line feed.
+     * @throws IndexOutOfBoundsException if <code>(line < 0) ||
+     *         (line >= this.getLineCount())</code>
+     */
+    public int getLineStart(int line) {
+        if ((line < 0) || (line > lineFeeds()))
+            throw new IndexOutOfBoundsException();
+        if (line == 0)
+            return 0;
+        int offset = 0;
+        Text text = this;
+        while (text._data == null) { // Composite.
+            final int headLineFeeds = text._head.lineFeeds();
+            if (line <= headLineFeeds) {
+                text = text._head;
+            } else {
+                line -= headLineFeeds;
+                offset += text._head._count;
+                text = text._tail;
+            }
+        }
+        for (int i = 0;;) {
+            if ((text._data[i++] == '\n') && (--line == 0))
+                return offset + i;
+        }
+    }
+
+    // Returns the number of line feeds (cached for composites).
+    private int lineFeeds() {
+        if (_data != null) { // Primitive.
+            int n = 0;
+            for (int i = 0; i < _count;) {
+                if (_data[i++] == '\n') {
+                    n++;
+                }
+            }
+            return n;
+        }
+        int n = _lineFeeds;
+        if (n < 0) {
+            n = _head.lineFeeds() + _tail.lineFeeds();
+            _lineFeeds = n;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the exact number of bytes of the UTF-8 encoding of this text.
+     * As for the {@link #getLineCount line count}, the length of each
+     * composite node of the text tree is computed once and kept with
+     * the node.
+     *
+     * @return the number of bytes written by an {@link UTF8TextEncoder}
+     *         for this text.
+     */
+    public long getUTF8Length() {
+        if (_data != null) { // Primitive.
+            long n = _count;
+            for (int i = 0; i < _count;) {
+                final char c = _data[i++];
+                if (c >= 0x80) {
+                    n += ((c < 0x800) || ((c >= 0xd800) && (c <= 0xdfff))) ? 1
+                            : 2; // Surrogate pairs take four bytes.
+                }
+            }
+            return n;
+        }
+        final int cached = _utf8Length;
+        if (cached >= 0)
+            return cached;
+        final long n = _head.getUTF8Length() + _tail.getUTF8Length();
+        if (n <= Integer.MAX_VALUE) { // Otherwise not cached.
+            _utf8Length = (int) n;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the characters of this text if primitive (package private,
+     * used for direct encoding).
+     *
+     * @return the characters (only the first <code>length()</code> are valid)
+     *         or <code>null</code> if this text is a composite.
+     */
+    final char[] getBlock() {
+        return _data;
+    }
+
+    /**
+     * Returns the head of this text if composite (package private).
+     *
+     * @return the head text or <code>null</code> if primitive.
+     */
+    final Text getHead() {
+        return _head;
+    }
+
+    /**
+     * Returns the tail of this text if composite (package private).
+     *
+     * @return the tail text or <code>null</code> if primitive.
+     */
+    final Text getTail() {
+        return _tail;
+    }
+
     /**
      * Replaces each character sequence of this text that matches the specified 
      * target sequence with the specified replacement sequence.
@@ -774,13 +1054,21 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
 
     /**
      * Returns a text equals to the specified character sequence from a pool of
-     * unique text instances in <code>ImmortalMemory</code>.  
+     * unique text instances in <code>ImmortalMemory</code>. 
+     * Look-ups never block and do not allocate; character sequences such as
+     * {@link CharArray} (e.g. parser views) can be passed directly
+     * (their characters are copied only if a new text has to be interned).
      * 
+     * <p> Note: Interned texts are never removed from the pool; for
+     *           non-literal data (unbounded set of values) a {@link TextCache}
+     *           should be used instead.</p>
+     *
      * @return an unique text instance allocated in <code>ImmortalMemory</code>.
      */
     public static Text intern(final _templates.java.lang.CharSequence csq) {
-        Text text = (Text) INTERN_INSTANCES.get(csq); // Thread-Safe - No entry removed.
-        return (text != null) ? text : Text.internImpl(csq.toString());
+        final FastMap shard = Text.internShard(FastComparator.LEXICAL.hashCodeOf(csq));
+        Text text = (Text) shard.get(csq); // Thread-Safe - No entry removed.
+        return (text != null) ? text : Text.internImpl(csq, shard);
     }
 
     /**
@@ -790,21 +1078,30 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
      * @return an unique text instance allocated in <code>ImmortalMemory</code>.
      */
     public static Text intern(final String str) {
-        Text text = (Text) INTERN_INSTANCES.get(str); // Thread-Safe - No entry removed.
-        return (text != null) ? text : Text.internImpl(str);
-    }
-
-    private static synchronized Text internImpl(final String str) {
-        if (!INTERN_INSTANCES.containsKey(str)) { // Synchronized check.
-            MemoryArea.getMemoryArea(INTERN_INSTANCES).executeInArea(
-                    new Runnable() {
-                        public void run() {
-                            Text txt = new Text(str);
-                            INTERN_INSTANCES.put(txt, txt);
-                        }
-                    });
+        final FastMap shard = Text.internShard(str.hashCode());
+        Text text = (Text) shard.get(str); // Thread-Safe - No entry removed.
+        return (text != null) ? text : Text.internImpl(str, shard);
+    }
+
+    private static FastMap internShard(int hash) {
+        return INTERN_INSTANCES[(hash ^ (hash >>> 16)) & (INTERN_SHARDS - 1)];
+    }
+
+    private static Text internImpl(final Object csqOrString, final FastMap shard) {
+        synchronized (shard) { // Blocks only the threads interning in the same shard.
+            if (!shard.containsKey(csqOrString)) { // Synchronized check.
+                MemoryArea.getMemoryArea(shard).executeInArea(new Runnable() {
+                    public void run() {
+                        Text txt = (csqOrString instanceof String) ? new Text(
+                                (String) csqOrString) : Text.copyOf(
+                                (CharSequence) csqOrString, 0,
+                                ((CharSequence) csqOrString).length());
+                        shard.put(txt, txt);
+                    }
+                });
+            }
+            return (Text) shard.get(csqOrString);
         }
-        return (Text) INTERN_INSTANCES.get(str);
     }
 
     /**
@@ -1018,6 +1315,18 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
         writer.write('\n');
     }
 
+    /**
+     * Returns a reader over the characters of this text. The reader walks
+     * the blocks of the text tree in sequence (no per character lookup);
+     * the text being immutable, the reader does not need to be synchronized
+     * with the text.
+     *
+     * @return a new reader of this text.
+     */
+    public Reader newReader() {
+        return new BlocksReader(this);
+    }
+
     /**
      * Converts the characters of this text to lower case.
      * 
@@ -1471,6 +1780,8 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
      * @param length the primitive length.
      */
     private static Text newPrimitive(int length) {
+        if (length > BLOCK_SIZE) // Copy of a wide primitive.
+            return new Text(new char[length], length);
         Text text = (Text) PRIMITIVE_FACTORY.object();
         text._count = length;
         return text;
@@ -1495,6 +1806,8 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
         text._count = head._count + tail._count;
         text._head = head;
         text._tail = tail;
+        text._lineFeeds = -1;
+        text._utf8Length = -1;
         return text;
     }
 
@@ -1504,4 +1817,130 @@ public final class Text implements CharSequence, Comparable, XMLSerializable,
             return new Text(false);
         }
     };
-}
\ No newline at end of file
+
+    /**
+     * Returns a text allocated in the current memory area (not context 
+     * allocated) holding a copy of the specified characters.
+     *
+     * @param csq the character sequence source.
+     * @param start the index of the first character inclusive.
+     * @param end the index of the last character exclusive.
+     */
+    static Text copyOf(CharSequence csq, int start, int end) {
+        final int length = end - start;
+        if (length <= BLOCK_SIZE) {
+            Text text = new Text(true);
+            text._count = length;
+            for (int i = 0; i < length;) {
+                text._data[i++] = csq.charAt(start++);
+            }
+            return text;
+        } else { // Splits on a block boundary.
+            int half = ((length + BLOCK_SIZE) >> 1) & BLOCK_MASK;
+            Text text = new Text(false);
+            text._count = length;
+            text._head = Text.copyOf(csq, start, start + half);
+            text._tail = Text.copyOf(csq, start + half, end);
+            return text;
+        }
+    }
+
+    /**
+     * Returns a text allocated in the current memory area (not context 
+     * allocated) holding a copy of the specified characters.
+     *
+     * @param chars the source of the characters.
+     * @param offset the index of the first character.
+     * @param length the number of characters.
+     */
+    static Text copyOf(char[] chars, int offset, int length) {
+        if (length <= BLOCK_SIZE) {
+            Text text = new Text(true);
+            text._count = length;
+            System.arraycopy(chars, offset, text._data, 0, length);
+            return text;
+        } else { // Splits on a block boundary.
+            int half = ((length + BLOCK_SIZE) >> 1) & BLOCK_MASK;
+            Text text = new Text(false);
+            text._count = length;
+            text._head = Text.copyOf(chars, offset, half);
+            text._tail = Text.copyOf(chars, offset + half, length - half);
+            return text;
+        }
+    }
+
+    /**
+     * This inner class represents a reader of the primitive blocks of a text
+     * (left to right depth-first traversal).
+     */
+    private static final class BlocksReader extends Reader {
+
+        private Text[] _stack = new Text[16];
+
+        private int _top;
+
+        private Text _block;
+
+        private int _index;
+
+        BlocksReader(Text text) {
+            descend(text);
+        }
+
+        public int read() throws IOException {
+            if (!nextBlock())
+                return -1;
+            return _block._data[_index++];
+        }
+
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            int count = 0;
+            while ((count < len) && nextBlock()) {
+                final int n = MathLib.min(len - count, _block._count - _index);
+                System.arraycopy(_block._data, _index, cbuf, off + count, n);
+                _index += n;
+                count += n;
+            }
+            return (count == 0) ? -1 : count;
+        }
+
+        public boolean ready() {
+            return true;
+        }
+
+        public void close() {
+            _block = null;
+            _top = 0;
+        }
+
+        // Moves to the next block if the current one has been read,
+        // returns false if there is no more character.
+        private boolean nextBlock() {
+            while ((_block != null) && (_index >= _block._count)) {
+                if (_top == 0) {
+                    _block = null;
+                    return false;
+                }
+                descend(_stack[--_top]);
+            }
+            return _block != null;
+        }
+
+        // Pushes the tails and positions on the left-most block.
+        private void descend(Text text) {
+            while (text._data == null) { // Composite.
+                if (_top >= _stack.length) {
+                    Text[] tmp = new Text[_top * 2];
+                    System.arraycopy(_stack, 0, tmp, 0, _top);
+                    _stack = tmp;
+                }
+                _stack[_top++] = text._tail;
+                text = text._head;
+            }
+            _block = text;
+            _index = 0;
+        }
+    }
+}
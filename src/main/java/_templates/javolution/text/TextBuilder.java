@@ -9,6 +9,7 @@
 package _templates.javolution.text;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 
 import _templates.java.io.Serializable;
@@ -828,6 +829,42 @@ public class TextBuilder implements Appendable,
         return Text.valueOf(this, 0, _length);
     }
 
+    /**
+     * Returns the {@link Text} corresponding to this {@link TextBuilder}
+     * and clears this builder. Unlike {@link #toText()}, the blocks of
+     * characters of this builder are transferred to the text returned
+     * (no copy) and the text tree is built bottom-up from these blocks;
+     * this builder restarts with a small capacity. For example:[code]
+     *     TextBuilder tb = new TextBuilder();
+     *     for (int n; (n = reader.read(buffer)) > 0;) {
+     *         tb.append(buffer, 0, n);
+     *     }
+     *     Text document = tb.moveToText(); // No copy of the document.
+     * [/code]
+     *
+     * @return the corresponding {@link Text} instance (heap allocated
+     *         if this builder holds more than 1024 characters).
+     */
+    public final Text moveToText() {
+        if (_capacity < C1) { // Small, copy.
+            Text text = Text.valueOf(this, 0, _length);
+            _length = 0;
+            return text;
+        }
+        final Text text = Text.valueOf(_high, C1, _length);
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+            public void run() {
+                _capacity = C0;
+                _low = new char[C0];
+                _high = new char[1][];
+                _high[0] = _low;
+            }
+        });
+        _length = 0;
+        return text;
+    }
+
     /**
      * Returns the <code>String</code> representation of this 
      * {@link TextBuilder}.
@@ -971,6 +1008,122 @@ public class TextBuilder implements Appendable,
         writer.write('\n');
     }
 
+    /**
+     * Appends all the characters from the specified reader (until the end
+     * of the stream is reached). Characters are read directly into the blocks
+     * of this builder (no intermediate buffer). For example:[code]
+     *     TextBuilder tb = new TextBuilder();
+     *     tb.appendFrom(new FileReader(file));
+     *     Text document = tb.moveToText(); // No copy.
+     * [/code]
+     *
+     * @param  reader the source reader (not closed).
+     * @return <code>this</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    public final TextBuilder appendFrom(Reader reader) throws IOException {
+        while (true) {
+            if (_length == _capacity) {
+                increaseCapacity();
+            }
+            final int offset = _length & M1;
+            final int n = reader.read(_high[_length >> B1], offset, MathLib
+                    .min(C1 - offset, _capacity - _length));
+            if (n < 0)
+                return this;
+            _length += n;
+        }
+    }
+
+    /*@JVM-1.4+@
+    // Appends all the characters decoded from the specified channel
+    // (until the end of the stream is reached) using the specified charset;
+    // characters are decoded directly into the blocks of this builder.
+    // The channel should be in blocking mode.
+    public final TextBuilder appendFrom(
+            java.nio.channels.ReadableByteChannel channel, String charset)
+            throws IOException {
+        java.nio.charset.CharsetDecoder decoder = java.nio.charset.Charset
+                .forName(charset).newDecoder();
+        java.nio.ByteBuffer bytes = java.nio.ByteBuffer.allocate(4096);
+        bytes.flip();
+        java.nio.CharBuffer pair = java.nio.CharBuffer.allocate(2);
+        boolean isEndOfInput = false;
+        boolean isFlushing = false;
+        while (true) {
+            if (_length == _capacity) {
+                increaseCapacity();
+            }
+            final int offset = _length & M1;
+            final int room = MathLib.min(C1 - offset, _capacity - _length);
+            pair.clear(); // Used when there is room for a single char only.
+            java.nio.CharBuffer chars = (room > 1) ? java.nio.CharBuffer
+                    .wrap(_high[_length >> B1], offset, room) : pair;
+            java.nio.charset.CoderResult result = isFlushing ? decoder
+                    .flush(chars) : decoder.decode(bytes, chars, isEndOfInput);
+            if (chars == pair) {
+                append(pair.array(), 0, pair.position());
+            } else {
+                _length += chars.position() - offset;
+            }
+            if (result.isError()) {
+                result.throwException();
+            } else if (result.isUnderflow()) {
+                if (isFlushing)
+                    return this;
+                if (isEndOfInput) {
+                    isFlushing = true;
+                } else {
+                    bytes.compact();
+                    isEndOfInput = channel.read(bytes) < 0;
+                    bytes.flip();
+                }
+            }
+        }
+    }
+
+    // Writes the content of this builder to the specified blocking channel
+    // (UTF-8 encoding) block by block. Non-blocking channels are rejected
+    // (IllegalArgumentException); for these, UTF8TextEncoder.write should
+    // be called whenever the channel is selected for writing.
+    public final void writeTo(java.nio.channels.WritableByteChannel channel)
+            throws IOException {
+        if ((channel instanceof java.nio.channels.SelectableChannel)
+                && !((java.nio.channels.SelectableChannel) channel).isBlocking())
+            throw new IllegalArgumentException(
+                    "Non-blocking channel, use UTF8TextEncoder.write instead");
+        UTF8TextEncoder encoder = new UTF8TextEncoder().setInput(this);
+        while (!encoder.write(channel)) {
+            // Blocking channels may still perform partial writes.
+        }
+    }
+
+    // Returns read-only views over the blocks of this builder (no copy);
+    // the views reflect subsequent modifications of the characters but
+    // not of the length (they should be used before this builder is
+    // modified, e.g. for gathering writes after encoding).
+    public final java.nio.CharBuffer[] toCharBuffers() {
+        final int n = (_length + M1) >> B1;
+        java.nio.CharBuffer[] views = new java.nio.CharBuffer[n];
+        for (int i = 0; i < n; i++) {
+            views[i] = java.nio.CharBuffer.wrap(_high[i], 0,
+                    MathLib.min(C1, _length - (i << B1))).asReadOnlyBuffer();
+        }
+        return views;
+    }
+    /**/
+
+    /**
+     * Returns the blocks of characters of this builder (package private,
+     * used for direct encoding). All blocks are full except the last one
+     * (at index <code>length() >> 10</code>).
+     *
+     * @return the blocks of characters.
+     */
+    final char[][] getBlocks() {
+        return _high;
+    }
+
     /**
      * Indicates if this text builder has the same character content as the 
      * specified character sequence.
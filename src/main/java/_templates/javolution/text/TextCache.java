@@ -0,0 +1,180 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.text;
+
+import _templates.java.lang.CharSequence;
+import _templates.javax.realtime.MemoryArea;
+
+/**
+ * <p> This class represents a bounded cache of unique {@link Text} instances
+ *     for non-literal data (e.g. element names or symbols read by a parser).
+ *     Unlike {@link Text#intern interned} texts, cached texts can be evicted;
+ *     the memory footprint of the cache is bounded by its capacity
+ *     whatever the number of distinct values looked up.[code]
+ *     static final TextCache SYMBOLS = new TextCache(4096);
+ *     ...
+ *     CharArray name = reader.getLocalName();
+ *     Text symbol = SYMBOLS.valueOf(name); // No allocation if cached.
+ *     [/code]</p>
+ *
+ * <p> The cache is direct-mapped; when two texts compete for the same slot,
+ *     the latest looked up replaces the previous one. Look-ups are
+ *     thread-safe and do not allocate when the text is already cached;
+ *     texts are published through volatile slots (atomic reference array)
+ *     on 1.5+ platforms, look-ups never block on these platforms. Texts returned by the same cache are unique
+ *     as long as they are not evicted (<code>==</code> can be used to
+ *     test equality against recently returned values, {@link Text#equals}
+ *     otherwise).</p>
+ *
+ * <p> Cached texts are allocated in the same memory area as the cache itself
+ *     (never on the "stack").</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class TextCache {
+
+    /**
+     * Holds the cached texts (direct-mapped), see newSlots().
+     */
+    private final Object _texts;
+
+    /**
+     * Holds the slot mask.
+     */
+    private final int _mask;
+
+    /**
+     * Creates a text cache having the specified capacity.
+     *
+     * @param capacity the maximum number of texts cached (rounded up
+     *        to the next power of two).
+     */
+    public TextCache(int capacity) {
+        int length = 16;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        _texts = newSlots(length);
+        _mask = length - 1;
+    }
+
+    /**
+     * Returns the cached text equals to the specified character sequence
+     * (the text is created and cached if not present).
+     *
+     * @param csq the character sequence.
+     * @return the corresponding cached text.
+     */
+    public Text valueOf(CharSequence csq) {
+        final int length = csq.length();
+        int h = 0;
+        for (int i = 0; i < length;) {
+            h = 31 * h + csq.charAt(i++);
+        }
+        final int slot = slot(h);
+        final Text text = load(slot);
+        if ((text != null) && (text.length() == length)
+                && text.contentEquals(csq))
+            return text;
+        return cache(slot, csq, null, 0, length);
+    }
+
+    /**
+     * Returns the cached text equals to the specified characters
+     * (the text is created and cached if not present).
+     *
+     * @param chars the source of the characters.
+     * @param offset the index of the first character.
+     * @param length the number of characters.
+     * @return the corresponding cached text.
+     * @throws IndexOutOfBoundsException if <code>(offset < 0) ||
+     *         (length < 0) || ((offset + length) > chars.length)</code>
+     */
+    public Text valueOf(char[] chars, int offset, int length) {
+        if ((offset < 0) || (length < 0) || ((offset + length) > chars.length))
+            throw new IndexOutOfBoundsException();
+        int h = 0;
+        for (int i = offset, n = offset + length; i < n;) {
+            h = 31 * h + chars[i++];
+        }
+        final int slot = slot(h);
+        final Text text = load(slot);
+        if ((text != null) && (text.length() == length)
+                && contentEquals(text, chars, offset))
+            return text;
+        return cache(slot, null, chars, offset, length);
+    }
+
+    /**
+     * Removes all the texts from this cache.
+     */
+    public void clear() {
+        for (int i = 0; i <= _mask;) {
+            store(i++, null);
+        }
+    }
+
+    private int slot(int h) {
+        return (h ^ (h >>> 16)) & _mask;
+    }
+
+    private static boolean contentEquals(Text text, char[] chars, int offset) {
+        for (int i = 0, n = text.length(); i < n;) {
+            if (text.charAt(i++) != chars[offset++])
+                return false;
+        }
+        return true;
+    }
+
+    private Text cache(final int slot, final CharSequence csq,
+            final char[] chars, final int offset, final int length) {
+        final Text[] created = new Text[1];
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                created[0] = (csq != null) ? Text.copyOf(csq, 0, length)
+                        : Text.copyOf(chars, offset, length);
+            }
+        });
+        store(slot, created[0]); // Evicts previous text (if any).
+        return created[0];
+    }
+
+    // Creates the slots (atomic reference array when supported, texts
+    // are then safely published to concurrent readers).
+    private static Object newSlots(int length) {
+        /*@JVM-1.5+@
+        if (true) return new java.util.concurrent.atomic.AtomicReferenceArray(length);
+        /**/
+        return new Text[length];
+    }
+
+    // Publishes the specified text.
+    private void store(int slot, Text text) {
+        /*@JVM-1.5+@
+        if (true) {
+            ((java.util.concurrent.atomic.AtomicReferenceArray) _texts).set(slot, text);
+            return;
+        }
+        /**/
+        synchronized (_texts) { // Atomic arrays not supported.
+            ((Text[]) _texts)[slot] = text;
+        }
+    }
+
+    // Reads the specified slot.
+    private Text load(int slot) {
+        /*@JVM-1.5+@
+        if (true) return (Text) ((java.util.concurrent.atomic.AtomicReferenceArray) _texts).get(slot);
+        /**/
+        synchronized (_texts) { // Atomic arrays not supported.
+            return ((Text[]) _texts)[slot];
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2009 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.text;
+
+import _templates.java.lang.CharSequence;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.context.ObjectFactory;
+import _templates.javolution.lang.Reusable;
+
+/**
+ * <p> This class represents a reusable scanner of delimited tokens and
+ *     numbers over a character buffer.</p>
+ *
+ * <p> Unlike {@link Cursor#nextToken(CharSequence, CharSet)}, tokens are
+ *     returned as a {@link CharArray} view over the source buffer (no copy,
+ *     no allocation); the view is only valid until the next call to this
+ *     scanner. Numbers are parsed directly from the source buffer through
+ *     {@link TypeFormat} without intermediate token. For example:[code]
+ *     TextScanner scanner = TextScanner.newInstance();
+ *     try {
+ *         scanner.setInput(buffer, 0, length).setDelimiters(CharSet.valueOf(',', '\n'));
+ *         while (scanner.hasNext()) {
+ *             CharArray symbol = scanner.nextToken(); // View (no copy).
+ *             double price = scanner.nextDouble();
+ *             long volume = scanner.nextLong();
+ *             ...
+ *         }
+ *     } finally {
+ *         TextScanner.recycle(scanner);
+ *     }[/code]</p>
+ *
+ * <p> The delimiters lookup uses the ASCII table of the {@link CharSet}
+ *     and runs of non-delimiter characters are skipped in batches
+ *     (see {@link CharSet#indexIn(char[], int, int)}).</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class TextScanner implements Reusable {
+
+    /**
+     * Holds the associated factory.
+     */
+    private static final ObjectFactory FACTORY = new ObjectFactory() {
+
+        protected Object create() {
+            return new TextScanner();
+        }
+    };
+
+    /**
+     * Holds the source characters (view over the source buffer).
+     */
+    private final CharArray _source = new CharArray();
+
+    /**
+     * Holds the token returned (view over the source buffer).
+     */
+    private final CharArray _token = new CharArray();
+
+    /**
+     * Holds the cursor used for parsing numbers.
+     */
+    private final Cursor _cursor = new Cursor();
+
+    /**
+     * Holds the delimiters.
+     */
+    private CharSet _delimiters = CharSet.WHITESPACES;
+
+    /**
+     * Holds the buffer for sources which are not character arrays.
+     */
+    private char[] _buffer = new char[0];
+
+    /**
+     * Holds the current index (relative to the source offset).
+     */
+    private int _index;
+
+    /**
+     * Default constructor.
+     */
+    public TextScanner() {
+        _source.setArray(_buffer, 0, 0);
+    }
+
+    /**
+     * Returns a factory produced instance which can be {@link #recycle recycled}
+     * after usage.
+     *
+     * @return a recyclable instance.
+     */
+    public static TextScanner newInstance() {
+        return (TextScanner) FACTORY.object();
+    }
+
+    /**
+     * Recycles the specified factory {@link #newInstance() produced} scanner.
+     *
+     * @param scanner the scanner to recycle.
+     */
+    public static void recycle(TextScanner scanner) {
+        FACTORY.recycle(scanner);
+    }
+
+    /**
+     * Sets the characters to scan (the array is not copied).
+     *
+     * @param chars the source characters.
+     * @param offset the index of the first character.
+     * @param length the number of characters.
+     * @return <code>this</code>
+     */
+    public TextScanner setInput(char[] chars, int offset, int length) {
+        _source.setArray(chars, offset, length);
+        _index = 0;
+        return this;
+    }
+
+    /**
+     * Sets the character sequence to scan. {@link CharArray} instances
+     * are scanned in place; other sequences are copied to an internal
+     * buffer.
+     *
+     * @param csq the source character sequence.
+     * @return <code>this</code>
+     */
+    public TextScanner setInput(CharSequence csq) {
+        if (csq instanceof CharArray) {
+            CharArray chars = (CharArray) csq;
+            return setInput(chars.array(), chars.offset(), chars.length());
+        }
+        final int length = csq.length();
+        if (length > _buffer.length) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+                public void run() {
+                    _buffer = new char[length];
+                }
+            });
+        }
+        if (csq instanceof TextBuilder) {
+            ((TextBuilder) csq).getChars(0, length, _buffer, 0);
+        } else if (csq instanceof Text) {
+            ((Text) csq).getChars(0, length, _buffer, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                _buffer[i] = csq.charAt(i);
+            }
+        }
+        return setInput(_buffer, 0, length);
+    }
+
+    /**
+     * Sets the characters delimiting the tokens and numbers
+     * (default {@link CharSet#WHITESPACES}).
+     *
+     * @param delimiters the delimiters.
+     * @return <code>this</code>
+     */
+    public TextScanner setDelimiters(CharSet delimiters) {
+        _delimiters = delimiters;
+        return this;
+    }
+
+    /**
+     * Returns the index of the next character to scan.
+     *
+     * @return the current index.
+     */
+    public final int getIndex() {
+        return _index;
+    }
+
+    /**
+     * Sets the index of the next character to scan.
+     *
+     * @param index the new index.
+     */
+    public final void setIndex(int index) {
+        _index = index;
+    }
+
+    /**
+     * Skips the delimiters at the current position and indicates if there
+     * is more characters to scan.
+     *
+     * @return <code>true</code> if there is a next token/number;
+     *         <code>false</code> otherwise.
+     */
+    public final boolean hasNext() {
+        return skipDelimiters() < _source.length();
+    }
+
+    /**
+     * Returns the next token (characters up to the next delimiter).
+     * The token returned is a view over the source buffer, its content
+     * is only valid until the next call to this scanner.
+     *
+     * @return the next token or <code>null</code> if none.
+     */
+    public final CharArray nextToken() {
+        final int length = _source.length();
+        final int start = skipDelimiters();
+        if (start >= length)
+            return null;
+        final char[] array = _source.array();
+        final int offset = _source.offset();
+        int end = _delimiters.indexIn(array, offset + start, offset + length);
+        end = (end >= 0) ? end - offset : length;
+        _index = end;
+        return _token.setArray(array, offset + start, end - start);
+    }
+
+    /**
+     * Parses the next decimal <code>int</code>.
+     *
+     * @return the next <code>int</code> value.
+     * @throws NumberFormatException if there is no next <code>int</code>
+     *         or if the number is not followed by a delimiter (or the end
+     *         of the input).
+     */
+    public final int nextInt() {
+        _cursor.setIndex(next());
+        int value = TypeFormat.parseInt(_source, 10, _cursor);
+        _index = checkEnd(_cursor.getIndex());
+        return value;
+    }
+
+    /**
+     * Parses the next decimal <code>long</code>.
+     *
+     * @return the next <code>long</code> value.
+     * @throws NumberFormatException if there is no next <code>long</code>
+     *         or if the number is not followed by a delimiter (or the end
+     *         of the input).
+     */
+    public final long nextLong() {
+        _cursor.setIndex(next());
+        long value = TypeFormat.parseLong(_source, 10, _cursor);
+        _index = checkEnd(_cursor.getIndex());
+        return value;
+    }
+
+    /**
+     * Parses the next <code>double</code>.
+     *
+     * @return the next <code>double</code> value.
+     * @throws NumberFormatException if there is no next <code>double</code>
+     *         or if the number is not followed by a delimiter (or the end
+     *         of the input).
+     */
+    public final double nextDouble() {
+        _cursor.setIndex(next());
+        double value = TypeFormat.parseDouble(_source, _cursor);
+        _index = checkEnd(_cursor.getIndex());
+        return value;
+    }
+
+    /**
+     * Resets this scanner (no source, whitespace delimiters).
+     */
+    public void reset() {
+        _source.setArray(_buffer, 0, 0);
+        _token.setArray(_buffer, 0, 0);
+        _delimiters = CharSet.WHITESPACES;
+        _index = 0;
+        _cursor.reset();
+    }
+
+    // Skips delimiters, returns the start index of the next number.
+    private int next() {
+        final int start = skipDelimiters();
+        if (start >= _source.length())
+            throw new NumberFormatException("No more characters to parse");
+        return start;
+    }
+
+    // Checks that the number ending at the specified index is followed by
+    // a delimiter or the end of the input (e.g. "12abc" is not a number).
+    private int checkEnd(int end) {
+        if ((end < _source.length())
+                && !_delimiters.contains(_source.array()[_source.offset() + end]))
+            throw new NumberFormatException("Invalid character '"
+                    + _source.array()[_source.offset() + end]
+                    + "' following number at index " + end);
+        return end;
+    }
+
+    // Skips the delimiters, returns the new index.
+    private int skipDelimiters() {
+        final char[] array = _source.array();
+        final int offset = _source.offset();
+        final int length = _source.length();
+        int i = _index;
+        while ((i < length) && _delimiters.contains(array[offset + i])) {
+            i++;
+        }
+        _index = i;
+        return i;
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2006 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.text;
+
+import java.io.IOException;
+
+import _templates.java.io.CharConversionException;
+import _templates.java.nio.ByteBuffer;
+import _templates.javolution.lang.MathLib;
+import _templates.javolution.lang.Reusable;
+
+/**
+ * <p> This class represents a UTF-8 encoder writing {@link Text} (or
+ *     {@link TextBuilder}) instances directly to byte buffers (or channels);
+ *     the text tree (or the text builder blocks) is walked block by block
+ *     (no intermediate <code>char[]</code> or <code>String</code>) and
+ *     sequences of ASCII characters are copied in bulk.</p>
+ *
+ * <p> Encoding is resumable: when the destination buffer is full the
+ *     encoder keeps its position (including the bytes of a partially
+ *     written character) and the next call continues from there.
+ *     This allows for large documents to be streamed to non-blocking
+ *     channels. For example:[code]
+ *     long contentLength = document.getUTF8Length(); // Exact.
+ *     UTF8TextEncoder encoder = new UTF8TextEncoder().setInput(document);
+ *     ...
+ *     // Called whenever the socket channel is ready for writing.
+ *     if (encoder.write(socketChannel)) { // Done.
+ *         key.interestOps(SelectionKey.OP_READ);
+ *         encoder.reset();
+ *     }[/code]</p>
+ *
+ * <p> The text encoded should be well-formed (surrogate <code>char</code>
+ *     pairs are encoded as a single four bytes character; unpaired
+ *     surrogates are rejected). The number of bytes written is then
+ *     always equal to {@link Text#getUTF8Length()}.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ * @see     Text#getUTF8Length()
+ */
+public final class UTF8TextEncoder implements Reusable {
+
+    /**
+     * Holds the composite tails remaining to be encoded.
+     */
+    private Text[] _stack = new Text[16];
+
+    /**
+     * Holds the number of tails in the stack.
+     */
+    private int _top;
+
+    /**
+     * Holds the characters of the current block.
+     */
+    private char[] _block;
+
+    /**
+     * Holds the number of characters of the current block.
+     */
+    private int _blockLength;
+
+    /**
+     * Holds the index of the next character of the current block.
+     */
+    private int _index;
+
+    /**
+     * Holds the blocks of the text builder being encoded or
+     * <code>null</code>.
+     */
+    private char[][] _blocks;
+
+    /**
+     * Holds the index of the next text builder block.
+     */
+    private int _blocksIndex;
+
+    /**
+     * Holds the number of text builder characters not in the current block.
+     */
+    private int _blocksRemaining;
+
+    /**
+     * Holds the high surrogate waiting for its low surrogate or
+     * <code>0</code>.
+     */
+    private char _highSurrogate;
+
+    /**
+     * Holds the bytes of the last character encoded.
+     */
+    private final byte[] _pending = new byte[4];
+
+    /**
+     * Holds the index of the next pending byte.
+     */
+    private int _pendingIndex;
+
+    /**
+     * Holds the number of pending bytes.
+     */
+    private int _pendingLength;
+
+    /**
+     * Holds the bytes buffer used for destinations not backed by an array.
+     */
+    private final byte[] _bytes = new byte[1024];
+
+    /**
+     * Holds the bytes buffer used when writing to channels.
+     */
+    private final ByteBuffer _buffer = ByteBuffer.allocate(4096);
+
+    /**
+     * Default constructor.
+     */
+    public UTF8TextEncoder() {
+        _buffer.limit(0);
+    }
+
+    /**
+     * Sets the text to encode.
+     *
+     * @param  text the text to encode.
+     * @return <code>this</code>
+     */
+    public UTF8TextEncoder setInput(Text text) {
+        reset();
+        Text node = text;
+        while (node.getBlock() == null) { // Composite.
+            push(node.getTail());
+            node = node.getHead();
+        }
+        _block = node.getBlock();
+        _blockLength = node.length();
+        return this;
+    }
+
+    /**
+     * Sets the text builder to encode; the text builder should not be
+     * modified until the encoding is complete.
+     *
+     * @param  tb the text builder to encode.
+     * @return <code>this</code>
+     */
+    public UTF8TextEncoder setInput(TextBuilder tb) {
+        reset();
+        _blocks = tb.getBlocks();
+        _blocksRemaining = tb.length();
+        return this;
+    }
+
+    /**
+     * Indicates if there are still bytes to be encoded (or written
+     * when encoding to channels).
+     *
+     * @return <code>true</code> if the encoding is not complete;
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasRemaining() {
+        return _buffer.hasRemaining() || (_pendingIndex < _pendingLength)
+                || (_index < _blockLength) || nextBlock();
+    }
+
+    /**
+     * Encodes as many characters as possible into the specified byte buffer.
+     * If the buffer is backed by an array, bytes are written directly
+     * to the array.
+     *
+     * @param  out the destination buffer.
+     * @return <code>true</code> if the text has been fully encoded;
+     *         <code>false</code> if the buffer is full (this method should
+     *         be called again with some room in the buffer).
+     * @throws CharConversionException if the text contains unpaired
+     *         surrogates.
+     */
+    public boolean encode(ByteBuffer out) throws CharConversionException {
+        if (out.hasArray()) {
+            final int position = out.position();
+            final int n = encode(out.array(), out.arrayOffset() + position,
+                    out.remaining());
+            out.position(position + n);
+        } else {
+            while (out.hasRemaining()) {
+                final int n = encode(_bytes, 0, MathLib.min(_bytes.length, out
+                        .remaining()));
+                if (n == 0)
+                    break;
+                out.put(_bytes, 0, n);
+            }
+        }
+        if ((_pendingIndex < _pendingLength) || (_index < _blockLength)
+                || nextBlock())
+            return false;
+        if (_highSurrogate != 0)
+            throw new CharConversionException("Unpaired surrogate U+"
+                    + Integer.toHexString(_highSurrogate));
+        return true;
+    }
+
+    /**
+     * Encodes characters into the specified portion of a byte array.
+     *
+     * @param  bytes the destination bytes.
+     * @param  off the offset of the first byte to write.
+     * @param  len the maximum number of bytes to write.
+     * @return the actual number of bytes written (less than <code>len</code>
+     *         only if the encoding is complete).
+     * @throws CharConversionException if the text contains unpaired
+     *         surrogates.
+     */
+    public int encode(byte[] bytes, int off, int len)
+            throws CharConversionException {
+        int i = off;
+        final int end = off + len;
+        while (i < end) {
+            if (_pendingIndex < _pendingLength) {
+                bytes[i++] = _pending[_pendingIndex++];
+                continue;
+            }
+            if ((_index >= _blockLength) && !nextBlock())
+                break;
+            if (_highSurrogate == 0) { // Bulk copy of ASCII characters.
+                final char[] block = _block;
+                int j = _index;
+                final int jEnd = j + MathLib.min(_blockLength - j, end - i);
+                while ((j < jEnd) && (block[j] < 0x80)) {
+                    bytes[i++] = (byte) block[j++];
+                }
+                _index = j;
+                if (j == jEnd)
+                    continue;
+            }
+            encode(_block[_index++]);
+        }
+        return i - off;
+    }
+
+    /*@JVM-1.4+@
+    // Writes as many bytes as possible to the specified channel; returns
+    // true if the text has been fully written or false if the (non-blocking)
+    // channel does not accept more bytes (this method should then be called
+    // again when the channel is ready for writing).
+    public boolean write(java.nio.channels.WritableByteChannel channel)
+            throws IOException {
+        while (true) {
+            if (_buffer.hasRemaining()) {
+                channel.write(_buffer);
+                if (_buffer.hasRemaining())
+                    return false; // Channel full.
+            }
+            if (!hasRemaining())
+                return true;
+            _buffer.clear();
+            encode(_buffer);
+            _buffer.flip();
+        }
+    }
+    /**/
+
+    // Implements Reusable.
+    public void reset() {
+        for (int i = 0; i < _top;) {
+            _stack[i++] = null;
+        }
+        _top = 0;
+        _block = null;
+        _blockLength = 0;
+        _index = 0;
+        _blocks = null;
+        _blocksIndex = 0;
+        _blocksRemaining = 0;
+        _highSurrogate = 0;
+        _pendingIndex = 0;
+        _pendingLength = 0;
+        _buffer.clear();
+        _buffer.limit(0);
+    }
+
+    // Encodes the specified non-ASCII character into the pending bytes.
+    private void encode(char c) throws CharConversionException {
+        _pendingIndex = 0;
+        if (_highSurrogate != 0) {
+            if ((c < 0xdc00) || (c > 0xdfff))
+                throw new CharConversionException("Unpaired surrogate U+"
+                        + Integer.toHexString(_highSurrogate));
+            final int code = ((_highSurrogate - 0xd800) << 10) + (c - 0xdc00)
+                    + 0x10000;
+            _highSurrogate = 0;
+            _pending[0] = (byte) (0xf0 | (code >> 18));
+            _pending[1] = (byte) (0x80 | ((code >> 12) & 0x3f));
+            _pending[2] = (byte) (0x80 | ((code >> 6) & 0x3f));
+            _pending[3] = (byte) (0x80 | (code & 0x3f));
+            _pendingLength = 4;
+        } else if (c < 0x80) {
+            _pending[0] = (byte) c;
+            _pendingLength = 1;
+        } else if (c < 0x800) {
+            _pending[0] = (byte) (0xc0 | (c >> 6));
+            _pending[1] = (byte) (0x80 | (c & 0x3f));
+            _pendingLength = 2;
+        } else if ((c < 0xd800) || (c > 0xdfff)) {
+            _pending[0] = (byte) (0xe0 | (c >> 12));
+            _pending[1] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            _pending[2] = (byte) (0x80 | (c & 0x3f));
+            _pendingLength = 3;
+        } else if (c < 0xdc00) { // High surrogate.
+            _highSurrogate = c;
+            _pendingLength = 0;
+        } else
+            throw new CharConversionException("Unpaired surrogate U+"
+                    + Integer.toHexString(c));
+    }
+
+    // Moves to the next non-empty block, returns false if none.
+    private boolean nextBlock() {
+        while (_index >= _blockLength) {
+            if (_blocksRemaining > 0) { // Text builder.
+                _block = _blocks[_blocksIndex++];
+                _blockLength = MathLib.min(_block.length, _blocksRemaining);
+                _blocksRemaining -= _blockLength;
+                _index = 0;
+                continue;
+            }
+            if (_top == 0)
+                return false;
+            Text node = _stack[--_top];
+            _stack[_top] = null;
+            while (node.getBlock() == null) { // Composite.
+                push(node.getTail());
+                node = node.getHead();
+            }
+            _block = node.getBlock();
+            _blockLength = node.length();
+            _index = 0;
+        }
+        return true;
+    }
+
+    // Pushes the specified tail.
+    private void push(Text tail) {
+        if (_top >= _stack.length) {
+            Text[] tmp = new Text[_top * 2];
+            System.arraycopy(_stack, 0, tmp, 0, _top);
+            _stack = tmp;
+        }
+        _stack[_top++] = tail;
+    }
+}
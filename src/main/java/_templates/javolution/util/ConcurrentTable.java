@@ -0,0 +1,377 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.util;
+
+import _templates.java.lang.UnsupportedOperationException;
+import _templates.java.util.Collection;
+import _templates.java.util.Iterator;
+import _templates.java.util.NoSuchElementException;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.context.ObjectFactory;
+import _templates.javolution.lang.MathLib;
+
+/**
+ * <p> This class represents an append-only table supporting concurrent
+ *     producers without synchronization (multiple writers, multiple readers).
+ *     </p>
+ *
+ * <p> Unlike {@link FastCollection#shared shared} collections, appending
+ *     does not lock the table and iterating does not copy its elements;
+ *     iterators are {@link #iterator snapshots} over the elements
+ *     published when the iteration starts.[code]
+ *     static final ConcurrentTable<Event> EVENTS = new ConcurrentTable<Event>();
+ *     ...
+ *     EVENTS.add(event); // Any thread.
+ *     ...
+ *     for (Event e : EVENTS) { // Periodic reader (no copy).
+ *         ...
+ *     }[/code]</p>
+ *
+ * <p> Elements are stored in blocks of fixed size allocated lazily
+ *     (in the same memory area as the table); existing blocks are never
+ *     copied or reallocated. Appending threads reserve an index atomically
+ *     (compare-and-set when supported by the platform) and publish their
+ *     element in its own slot (volatile slot write); no producer ever waits
+ *     for another one.
+ *     Readers see the elements up to the first slot not yet published
+ *     (reserved by a producer still running or which has failed).</p>
+ *
+ * <p> Only {@link #clear} is not thread-safe; it should not be called while
+ *     elements are being appended.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class ConcurrentTable/*<E>*/extends FastCollection/*<E>*/{
+
+    private static final int B1 = 10; // Block capacity in bits.
+
+    private static final int C1 = 1 << B1; // Block capacity (1024).
+
+    private static final int M1 = C1 - 1; // Mask.
+
+    /**
+     * Holds the blocks (replaced by a larger array when full,
+     * the blocks themselves are shared); blocks are created by newSlots().
+     */
+    private volatile Object[] _blocks;
+
+    /**
+     * Holds the number of reserved indices.
+     */
+    private volatile int _reserved;
+
+    /**
+     * Holds the number of elements known to be published (all the slots
+     * below are published, slots above are checked individually).
+     */
+    private volatile int _size;
+
+    /**
+     * Holds the slot value representing <code>null</code> (empty slots
+     * are not published).
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * Holds the value comparator.
+     */
+    private FastComparator/*<? super E>*/_valueComparator = FastComparator.DEFAULT;
+
+    /*@JVM-1.5+@
+    private static final java.util.concurrent.atomic.AtomicIntegerFieldUpdater<ConcurrentTable> RESERVED
+         = java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater(ConcurrentTable.class, "_reserved");
+    private static final java.util.concurrent.atomic.AtomicIntegerFieldUpdater<ConcurrentTable> SIZE
+         = java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater(ConcurrentTable.class, "_size");
+    /**/
+
+    /**
+     * Creates an empty concurrent table.
+     */
+    public ConcurrentTable() {
+        _blocks = new Object[16];
+    }
+
+    /**
+     * Appends the specified value to the end of this table (thread-safe).
+     *
+     * @param value the value to be appended to this table.
+     * @return <code>true</code> (as per the general contract of the
+     *         <code>Collection.add</code> method).
+     */
+    public final boolean add(Object/*{E}*/value) {
+        addLast(value);
+        return true;
+    }
+
+    /**
+     * Appends the specified value to the end of this table (thread-safe).
+     *
+     * @param value the value to be added.
+     */
+    public final void addLast(Object/*{E}*/value) {
+        final int index = reserve();
+        Object[] blocks = _blocks;
+        final int j = index >> B1;
+        if ((j >= blocks.length) || (blocks[j] == null)) {
+            blocks = newBlock(j);
+        }
+        store(blocks[j], index & M1, (value != null) ? value : NULL);
+        if (_size == index) { // Advances the published count.
+            advance(index + 1);
+        }
+    }
+
+    /**
+     * Returns the element at the specified index.
+     *
+     * @param index index of value to return.
+     * @return the value at the specified position in this table.
+     * @throws IndexOutOfBoundsException if <code>(index < 0) ||
+     *         (index >= size())</code>
+     */
+    public final Object/*{E}*/get(int index) {
+        if ((index < 0) || ((index >= _size) && (index >= published())))
+            throw new IndexOutOfBoundsException();
+        final Object value = load(_blocks[index >> B1], index & M1);
+        return (value != NULL) ? (Object/*{E}*/) value : null;
+    }
+
+    /**
+     * Returns a snapshot iterator over the elements published when
+     * this method is called. The iterator does not copy the elements and
+     * is not affected by elements appended during the iteration.
+     *
+     * @return an iterator over the current elements of this table.
+     */
+    public Iterator/*<E>*/iterator() {
+        return SnapshotIterator.valueOf(this);
+    }
+
+    /**
+     * Removes all the elements of this table <b>(not thread-safe)</b>.
+     */
+    public final void clear() {
+        final int size = MathLib.min(_reserved, _blocks.length << B1);
+        final Object[] blocks = _blocks;
+        for (int i = 0; i < size; i += C1) {
+            final Object block = blocks[i >> B1];
+            if (block == null)
+                continue;
+            for (int j = 0, n = MathLib.min(size - i, C1); j < n;) {
+                store(block, j++, null);
+            }
+        }
+        _reserved = 0;
+        _size = 0;
+    }
+
+    /**
+     * Returns this table (already thread-safe).
+     *
+     * @return <code>this</code>
+     */
+    public Collection/*<E>*/shared() {
+        return this;
+    }
+
+    /**
+     * Sets the comparator to use for value equality.
+     *
+     * @param comparator the value comparator.
+     * @return <code>this</code>
+     */
+    public ConcurrentTable/*<E>*/setValueComparator(
+            FastComparator/*<? super E>*/comparator) {
+        _valueComparator = comparator;
+        return this;
+    }
+
+    // Overrides.
+    public FastComparator/*<? super E>*/getValueComparator() {
+        return _valueComparator;
+    }
+
+    // Implements FastCollection abstract method.
+    public final int size() {
+        return published();
+    }
+
+    // Implements FastCollection abstract method.
+    public final Record head() {
+        return Index.valueOf(-1);
+    }
+
+    // Implements FastCollection abstract method.
+    public final Record tail() {
+        return Index.valueOf(published());
+    }
+
+    // Implements FastCollection abstract method.
+    public final Object/*{E}*/valueOf(Record record) {
+        return get(((Index) record).intValue());
+    }
+
+    // Implements FastCollection abstract method.
+    public final void delete(Record record) {
+        throw new UnsupportedOperationException("Append-only table");
+    }
+
+    // Returns the number of elements published contiguously from the
+    // first one (never waits for producers still running).
+    private int published() {
+        final int size = _size; // Volatile read first.
+        final int reserved = _reserved;
+        final Object[] blocks = _blocks;
+        int n = size;
+        while (n < reserved) {
+            final int j = n >> B1;
+            if ((j >= blocks.length) || (blocks[j] == null)
+                    || (load(blocks[j], n & M1) == null))
+                break; // Not published yet.
+            n++;
+        }
+        if (n != size) {
+            advance(n);
+        }
+        return n;
+    }
+
+    // Advances the published count (never moves it backwards).
+    private void advance(int size) {
+        /*@JVM-1.5+@
+        if (true) {
+            for (int current = _size; current < size; current = _size) {
+                if (SIZE.compareAndSet(this, current, size))
+                    return;
+            }
+            return;
+        }
+        /**/
+        synchronized (this) { // Compare-and-set not supported.
+            if (_size < size) {
+                _size = size;
+            }
+        }
+    }
+
+    // Creates a block of slots (atomic reference array when supported,
+    // slots are then written and read with volatile semantics).
+    private static Object newSlots() {
+        /*@JVM-1.5+@
+        if (true) return new java.util.concurrent.atomic.AtomicReferenceArray(C1);
+        /**/
+        return new Object[C1];
+    }
+
+    // Publishes the specified slot value.
+    private static void store(Object block, int i, Object value) {
+        /*@JVM-1.5+@
+        if (true) {
+            ((java.util.concurrent.atomic.AtomicReferenceArray) block).set(i, value);
+            return;
+        }
+        /**/
+        synchronized (block) { // Atomic arrays not supported.
+            ((Object[]) block)[i] = value;
+        }
+    }
+
+    // Reads the specified slot value.
+    private static Object load(Object block, int i) {
+        /*@JVM-1.5+@
+        if (true) return ((java.util.concurrent.atomic.AtomicReferenceArray) block).get(i);
+        /**/
+        synchronized (block) { // Atomic arrays not supported.
+            return ((Object[]) block)[i];
+        }
+    }
+
+    // Reserves the next index.
+    private int reserve() {
+        /*@JVM-1.5+@
+        if (true) return RESERVED.getAndIncrement(this);
+        /**/
+        synchronized (this) { // Compare-and-set not supported.
+            return _reserved++;
+        }
+    }
+
+    // Allocates the specified block (if not already done).
+    private synchronized Object[] newBlock(final int j) {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                Object[] blocks = _blocks;
+                if (j >= blocks.length) { // Blocks are shared, not copied.
+                    int length = blocks.length;
+                    while (j >= length) {
+                        length <<= 1;
+                    }
+                    Object[] tmp = new Object[length];
+                    System.arraycopy(blocks, 0, tmp, 0, blocks.length);
+                    blocks = tmp;
+                }
+                if (blocks[j] == null) {
+                    blocks[j] = newSlots();
+                }
+                _blocks = blocks; // Volatile.
+            }
+        });
+        return _blocks;
+    }
+
+    /**
+     * This inner class implements a snapshot iterator.
+     */
+    private static final class SnapshotIterator implements Iterator {
+
+        private static final ObjectFactory FACTORY = new ObjectFactory() {
+            protected Object create() {
+                return new SnapshotIterator();
+            }
+
+            protected void cleanup(Object obj) {
+                SnapshotIterator i = (SnapshotIterator) obj;
+                i._blocks = null;
+            }
+        };
+
+        private Object[] _blocks;
+
+        private int _nextIndex;
+
+        private int _end; // Exclusive.
+
+        public static SnapshotIterator valueOf(ConcurrentTable table) {
+            SnapshotIterator iterator = (SnapshotIterator) FACTORY.object();
+            iterator._end = table.published(); // Volatile read first.
+            iterator._blocks = table._blocks;
+            iterator._nextIndex = 0;
+            return iterator;
+        }
+
+        public boolean hasNext() {
+            return _nextIndex != _end;
+        }
+
+        public Object next() {
+            if (_nextIndex == _end)
+                throw new NoSuchElementException();
+            final int i = _nextIndex++;
+            final Object value = load(_blocks[i >> B1], i & M1);
+            return (value != NULL) ? value : null;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Append-only table");
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -8,7 +8,9 @@
  */
 package _templates.javolution.util;
 
-import _templates.java.lang.UnsupportedOperationException;
+import _templates.java.lang.IllegalStateException;
+import _templates.java.util.Iterator;
+import _templates.java.util.NoSuchElementException;
 import _templates.java.util.Set;
 import _templates.javax.realtime.MemoryArea;
 import _templates.javolution.context.ObjectFactory;
@@ -23,6 +25,13 @@ import _templates.javolution.lang.Reusable;
  *     a set of {@link Index indices} and obeys the collection semantic
  *     for methods such as {@link #size} (cardinality) or {@link #equals}
  *     (same set of indices).</p>
+ *
+ * <p> For large bit sets, iterations should be performed using the 
+ *     primitive {@link #nextSetBit} cursor or {@link #forEachSetBit}
+ *     (no {@link Index} creation, whole words are skipped at once):[code]
+ *     for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+ *         ...
+ *     }[/code]</p>
  * 
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.3, February 24, 2008
@@ -209,7 +218,9 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
      */
     public void flip(int bitIndex) {
         int i = bitIndex >> 6;
-        setLength(i + 1);
+        if (i >= _length) {
+            setLength(i + 1);
+        }
         bits[i] ^= 1L << bitIndex;
     }
 
@@ -226,7 +237,9 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
             throw new IndexOutOfBoundsException();
         int i = fromIndex >>> 6;
         int j = toIndex >>> 6;
-        setLength(j + 1);
+        if (j >= _length) {
+            setLength(j + 1);
+        }
         if (i == j) {
             bits[i] ^= (-1L << fromIndex) & ((1L << toIndex) - 1);
             return;
@@ -302,7 +315,7 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
         for (int i = _length; --i >= 0;) {
             long l = bits[i];
             if (l != 0) {
-                return i << 6 + 64 - MathLib.numberOfTrailingZeros(l);
+                return (i << 6) + 64 - MathLib.numberOfLeadingZeros(l);
             }
         }
         return 0;
@@ -317,50 +330,131 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
      * @throws IndexOutOfBoundsException if {@code fromIndex < 0} 
      */
     public int nextClearBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset < _length) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) == 0) {
-                    return fromIndex;
-                }
-                mask <<= 1;
-                fromIndex++;
-            } while (mask != 0);
-            mask = 1;
-            offset++;
+        int i = fromIndex >> 6;
+        if (i >= _length)
+            return fromIndex;
+        long word = ~bits[i] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0)
+                return (i << 6) + MathLib.numberOfTrailingZeros(word);
+            if (++i == _length)
+                return i << 6;
+            word = ~bits[i];
         }
-        return fromIndex;
     }
 
     /**
      * Returns the index of the next {@code true} bit, from the specified bit
      * (inclusive). If there is none, {@code -1} is returned. 
      * The following code will iterates through the bit set:[code]
-     *    for (int i=nextSetBit(0); i >= 0; i = nextSetBit(i)) {
+     *    for (int i=nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
      *         ...
      *    }[/code]
      *
      * @param fromIndex the start location.
-     * @return the first {@code false} bit.
+     * @return the first {@code true} bit or {@code -1} if none.
      * @throws IndexOutOfBoundsException if {@code fromIndex < 0} 
      */
     public int nextSetBit(int fromIndex) {
-        int offset = fromIndex >> 6;
-        long mask = 1L << fromIndex;
-        while (offset < _length) {
-            long h = bits[offset];
-            do {
-                if ((h & mask) != 0) 
-                    return fromIndex;
-                mask <<= 1;
-                fromIndex++;
-            } while (mask != 0);
-            mask = 1;
-            offset++;
+        int i = fromIndex >> 6;
+        if (i >= _length)
+            return -1;
+        long word = bits[i] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0)
+                return (i << 6) + MathLib.numberOfTrailingZeros(word);
+            if (++i == _length)
+                return -1;
+            word = bits[i];
+        }
+    }
+
+    /**
+     * Returns the index of the previous {@code true} bit, from the specified
+     * bit (inclusive). If there is none, {@code -1} is returned.
+     * The following code will iterates through the bit set in reverse 
+     * order:[code]
+     *    for (int i=previousSetBit(length() - 1); i >= 0; i = previousSetBit(i - 1)) {
+     *         ...
+     *    }[/code]
+     *
+     * @param fromIndex the start location or {@code -1} (returns {@code -1}).
+     * @return the last {@code true} bit at or before the specified 
+     *         location or {@code -1} if none.
+     * @throws IndexOutOfBoundsException if {@code fromIndex < -1} 
+     */
+    public int previousSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            if (fromIndex == -1)
+                return -1;
+            throw new IndexOutOfBoundsException();
+        }
+        int i = fromIndex >> 6;
+        long word;
+        if (i >= _length) {
+            i = _length - 1;
+            if (i < 0)
+                return -1;
+            word = bits[i];
+        } else {
+            word = bits[i] & (-1L >>> (63 - (fromIndex & 63)));
+        }
+        while (true) {
+            if (word != 0)
+                return (i << 6) + 63 - MathLib.numberOfLeadingZeros(word);
+            if (--i < 0)
+                return -1;
+            word = bits[i];
+        }
+    }
+
+    /**
+     * Calls the specified visitor for each bit set to {@code true} in 
+     * increasing order (no {@link Index} creation). The visitor
+     * should not modify this bit set.
+     *
+     * @param visitor the visitor called with the index of each bit set.
+     */
+    public void forEachSetBit(Visitor visitor) {
+        for (int i = 0; i < _length; i++) {
+            long word = bits[i];
+            while (word != 0) {
+                visitor.visit((i << 6) + MathLib.numberOfTrailingZeros(word));
+                word &= word - 1; // Clears lowest set bit.
+            }
         }
-        return -1;
+    }
+
+    /**
+     * Returns the number of bits set to {@code true} from the specified 
+     * {@code fromIndex} (inclusive) to the specified {@code toIndex} 
+     * (exclusive).
+     *
+     * @param  fromIndex index of the first bit to be counted.
+     * @param  toIndex index after the last bit to be counted.
+     * @return the number of bits set within the specified range.
+     * @throws IndexOutOfBoundsException if 
+     *          {@code (fromIndex < 0) | (toIndex < fromIndex)}
+     */
+    public int cardinality(int fromIndex, int toIndex) {
+        if ((fromIndex < 0) || (toIndex < fromIndex)) 
+            throw new IndexOutOfBoundsException();
+        int i = fromIndex >>> 6;
+        if ((i >= _length) || (fromIndex == toIndex))
+            return 0;
+        int j = (toIndex - 1) >>> 6;
+        long lastMask = -1L >>> (63 - ((toIndex - 1) & 63));
+        if (i == j) 
+            return MathLib.bitCount(bits[i] & (-1L << fromIndex) & lastMask);
+        int sum = MathLib.bitCount(bits[i] & (-1L << fromIndex));
+        int n = MathLib.min(j, _length);
+        for (int k = i + 1; k < n; k++) {
+            sum += MathLib.bitCount(bits[k]);
+        }
+        if (j < _length) {
+            sum += MathLib.bitCount(bits[j] & lastMask);
+        }
+        return sum;
     }
 
     /**
@@ -423,7 +517,9 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
             throw new IndexOutOfBoundsException();
         int i = fromIndex >>> 6;
         int j = toIndex >>> 6;
-        setLength(j + 1);
+        if (j >= _length) {
+            setLength(j + 1);
+        }
         if (i == j) {
             bits[i] |= (-1L << fromIndex) & ((1L << toIndex) - 1);
             return;
@@ -507,12 +603,39 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
     // Optimization.
     public int hashCode() {
         int h = 0;
-         for (int i=nextSetBit(0); i >= 0; i = nextSetBit(i)) {
-             h += i;
+        for (int i=nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            h += i;
         }
         return h;
     }
 
+    // Optimization.
+    public boolean contains(Object index) {
+        return (index instanceof Index) && (((Index) index).intValue() >= 0)
+                && get(((Index) index).intValue());
+    }
+
+    // Optimization.
+    public boolean remove(Object index) {
+        if (!contains(index))
+            return false;
+        clear(((Index) index).intValue());
+        return true;
+    }
+
+    /**
+     * Returns an iterator over the indices of the bits set in this bit set
+     * (allocated on the stack when executed in a 
+     * {@link _templates.javolution.context.StackContext StackContext}).
+     * The iteration is driven by the {@link #nextSetBit} cursor (the 
+     * {@link Index} instances returned are the only objects created).
+     *
+     * @return an iterator over this bit set indices.
+     */
+    public Iterator/*<Index>*/ iterator() {
+        return BitSetIterator.valueOf(this);
+    }
+
     // Implements Reusable.
     public void reset() {
         _length = 0;
@@ -553,8 +676,72 @@ public class FastBitSet extends FastCollection/*<Index>*/ implements Set/*<Index
 
     public void delete(Record record) {
         Index bitIndex = (Index) valueOf(record);
-        if (bitIndex != null)
-        throw new UnsupportedOperationException("Not supported yet.");
+        if (bitIndex != null) {
+            clear(bitIndex.intValue());
+        }
+    }
+
+    /**
+     * This interface represents a visitor of the bits set in a 
+     * {@link FastBitSet} (see {@link FastBitSet#forEachSetBit}).
+     */
+    public interface Visitor {
+
+        /**
+         * Visits the bit at the specified index (bit set).
+         * 
+         * @param bitIndex the index of the bit being visited.
+         */
+        public void visit(int bitIndex);
+    }
+
+    /**
+     * This inner class implements a bit set iterator (primitive cursor).
+     */
+    private static final class BitSetIterator implements Iterator {
+
+        private static final ObjectFactory FACTORY = new ObjectFactory() {
+            protected Object create() {
+                return new BitSetIterator();
+            }
+
+            protected void cleanup(Object obj) {
+                ((BitSetIterator) obj)._bitSet = null;
+            }
+        };
+
+        private FastBitSet _bitSet;
+
+        private int _nextIndex;
+
+        private int _currentIndex;
+
+        public static BitSetIterator valueOf(FastBitSet bitSet) {
+            BitSetIterator iterator = (BitSetIterator) FACTORY.object();
+            iterator._bitSet = bitSet;
+            iterator._nextIndex = bitSet.nextSetBit(0);
+            iterator._currentIndex = -1;
+            return iterator;
+        }
+
+        public boolean hasNext() {
+            return _nextIndex >= 0;
+        }
+
+        public Object next() {
+            if (_nextIndex < 0)
+                throw new NoSuchElementException();
+            _currentIndex = _nextIndex;
+            _nextIndex = _bitSet.nextSetBit(_nextIndex + 1);
+            return Index.valueOf(_currentIndex);
+        }
+
+        public void remove() {
+            if (_currentIndex < 0)
+                throw new IllegalStateException();
+            _bitSet.clear(_currentIndex);
+            _currentIndex = -1;
+        }
     }
 
     /**
@@ -0,0 +1,670 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.util;
+
+import _templates.javolution.lang.MathLib;
+import _templates.javolution.lang.Reusable;
+
+/**
+ * <p> This class represents a bounded cache built upon the {@link FastMap}
+ *     entry list (entries are kept in access order and recycled, no
+ *     allocation in steady state).[code]
+ *     static final FastCache<String, Document> DOCUMENTS
+ *         = new FastCache<String, Document>(64 * 1024 * 1024, FastCache.TINY_LFU)
+ *             .setWeigher(new FastCache.Weigher() { // Capacity in bytes.
+ *                  public int weightOf(Object key, Object value) {
+ *                      return ((Document) value).getSize();
+ *                  }
+ *             }).setExpiration(10 * 60 * 1000).shared();
+ *     ...
+ *     Document doc = DOCUMENTS.get(uri);
+ *     if (doc == null) {
+ *         doc = load(uri);
+ *         DOCUMENTS.put(uri, doc);
+ *     }
+ *     [/code]</p>
+ *
+ * <p> The eviction {@link Policy policy} is specified at construction:<ul>
+ *     <li> {@link #LRU}: the least recently used entry is evicted.</li>
+ *     <li> {@link #LFU}: the least frequently used entry among the least
+ *          recently used ones is evicted (sampled LFU).</li>
+ *     <li> {@link #TINY_LFU}: entries are evicted in LRU order but new
+ *          entries are admitted only if their (approximate) access frequency
+ *          is greater than the frequency of the entry which would be evicted
+ *          (frequencies are estimated using a small aging count-min sketch).
+ *          This policy is more resistant to scans than {@link #LRU}.</li>
+ *     </ul></p>
+ *
+ * <p> The capacity is the maximum total {@link #setWeigher weight} of the
+ *     entries (by default each entry weights <code>1</code>). Entries may
+ *     {@link #setExpiration expire} after being written.
+ *     {@link #setEvictionListener Listeners} are notified of evictions and
+ *     hit, miss and eviction counts are maintained.</p>
+ *
+ * <p> Caches are not thread-safe unless marked {@link #shared shared};
+ *     as look-ups modify the access order, operations on shared caches
+ *     are synchronized (on the cache instance).</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class FastCache/*<K,V>*/ implements Reusable {
+
+    /**
+     * Holds the least recently used eviction policy.
+     */
+    public static final Policy LRU = new Policy("LRU");
+
+    /**
+     * Holds the (sampled) least frequently used eviction policy.
+     */
+    public static final Policy LFU = new Policy("LFU");
+
+    /**
+     * Holds the least recently used eviction policy with frequency based
+     * admission of new entries (TinyLFU).
+     */
+    public static final Policy TINY_LFU = new Policy("TinyLFU");
+
+    /**
+     * Holds the number of least recently used entries examined by
+     * the {@link #LFU} policy.
+     */
+    private static final int LFU_SAMPLES = 8;
+
+    /**
+     * Holds the entries (access order).
+     */
+    private final CacheMap _map = new CacheMap();
+
+    /**
+     * Holds the eviction policy.
+     */
+    private final Policy _policy;
+
+    /**
+     * Holds the capacity (maximum total weight).
+     */
+    private final long _capacity;
+
+    /**
+     * Holds the frequency sketch (TinyLFU only).
+     */
+    private final byte[] _sketch;
+
+    /**
+     * Holds the number of sketch increments since last aging.
+     */
+    private int _sketchIncrements;
+
+    /**
+     * Holds the total weight.
+     */
+    private long _weight;
+
+    /**
+     * Holds the weigher or <code>null</code> (unit weight).
+     */
+    private Weigher _weigher;
+
+    /**
+     * Holds the expiration delay in milliseconds (<code>0</code> if none).
+     */
+    private long _expiration;
+
+    /**
+     * Holds the eviction listener or <code>null</code>.
+     */
+    private EvictionListener _listener;
+
+    /**
+     * Indicates if this cache is shared (thread-safe).
+     */
+    private boolean _isShared;
+
+    /**
+     * Holds the statistics.
+     */
+    private long _hitCount, _missCount, _evictionCount;
+
+    /**
+     * Creates a least recently used cache of specified capacity.
+     *
+     * @param capacity the maximum number of entries (or total weight
+     *        if a {@link #setWeigher weigher} is set).
+     */
+    public FastCache(long capacity) {
+        this(capacity, LRU);
+    }
+
+    /**
+     * Creates a cache of specified capacity and eviction policy.
+     *
+     * @param capacity the maximum number of entries (or total weight
+     *        if a {@link #setWeigher weigher} is set).
+     * @param policy the eviction policy.
+     * @throws IllegalArgumentException if <code>capacity <= 0</code>
+     */
+    public FastCache(long capacity, Policy policy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity: " + capacity);
+        _capacity = capacity;
+        _policy = policy;
+        if (policy == TINY_LFU) { // 16 counters per entry (at most 1M).
+            int length = 256;
+            while ((length < (capacity << 4)) && (length < (1 << 20))) {
+                length <<= 1;
+            }
+            _sketch = new byte[length];
+        } else {
+            _sketch = null;
+        }
+    }
+
+    /**
+     * Sets the weigher used to calculate the weight of the entries
+     * (the weight of an entry should not change while the entry is cached).
+     *
+     * @param weigher the weigher or <code>null</code> for unit weights.
+     * @return <code>this</code>
+     */
+    public FastCache/*<K,V>*/ setWeigher(Weigher weigher) {
+        _weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Sets the delay after which entries expire once written.
+     *
+     * @param milliseconds the expiration delay in milliseconds
+     *        (<code>0</code> if entries do not expire).
+     * @return <code>this</code>
+     */
+    public FastCache/*<K,V>*/ setExpiration(long milliseconds) {
+        _expiration = milliseconds;
+        return this;
+    }
+
+    /**
+     * Sets the listener notified when entries are evicted (or expire).
+     * For shared caches, the listener is called while holding the cache lock.
+     *
+     * @param listener the eviction listener or <code>null</code>.
+     * @return <code>this</code>
+     */
+    public FastCache/*<K,V>*/ setEvictionListener(EvictionListener listener) {
+        _listener = listener;
+        return this;
+    }
+
+    /**
+     * Sets the key comparator for this cache.
+     *
+     * @param keyComparator the key comparator.
+     * @return <code>this</code>
+     * @see FastMap#setKeyComparator
+     */
+    public FastCache/*<K,V>*/ setKeyComparator(
+            FastComparator/*<? super K>*/ keyComparator) {
+        _map.setKeyComparator(keyComparator);
+        return this;
+    }
+
+    /**
+     * Sets the shared status of this cache (all operations are then
+     * synchronized).
+     *
+     * @return <code>this</code>
+     */
+    public FastCache/*<K,V>*/ shared() {
+        _isShared = true;
+        return this;
+    }
+
+    /**
+     * Indicates if this cache is thread-safe.
+     *
+     * @return <code>true</code> if this cache is shared;
+     *         <code>false</code> otherwise.
+     */
+    public boolean isShared() {
+        return _isShared;
+    }
+
+    /**
+     * Returns the eviction policy of this cache.
+     *
+     * @return the eviction policy.
+     */
+    public final Policy getPolicy() {
+        return _policy;
+    }
+
+    /**
+     * Returns the capacity of this cache.
+     *
+     * @return the maximum total weight of the entries.
+     */
+    public final long getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * Returns the value cached for the specified key.
+     *
+     * @param key the key.
+     * @return the cached value or <code>null</code> if none (or expired).
+     */
+    public final Object/*{V}*/ get(Object key) {
+        if (_isShared) {
+            synchronized (this) {
+                return getImpl(key);
+            }
+        }
+        return getImpl(key);
+    }
+
+    private Object/*{V}*/ getImpl(Object key) {
+        if (_sketch != null) {
+            increment(hashOf(key));
+        }
+        CacheEntry entry = (CacheEntry) _map.getEntry(key);
+        if (entry == null) {
+            _missCount++;
+            return null;
+        }
+        if ((entry._expiration != 0)
+                && (System.currentTimeMillis() >= entry._expiration)) {
+            evict(entry, true);
+            _missCount++;
+            return null;
+        }
+        _hitCount++;
+        entry._hits++;
+        _map.moveToLast(entry);
+        return (Object/*{V}*/) entry.getValue();
+    }
+
+    /**
+     * Caches the specified value; entries are evicted if the capacity
+     * is exceeded. With the {@link #TINY_LFU} policy, the new value might
+     * not be admitted (in which case it is immediately reported
+     * to the eviction listener).
+     *
+     * @param key the key.
+     * @param value the value.
+     * @return the previous value cached for the specified key or
+     *         <code>null</code> if none.
+     * @throws IllegalArgumentException if the value weight exceeds the
+     *         capacity of this cache.
+     */
+    public final Object/*{V}*/ put(Object/*{K}*/ key, Object/*{V}*/ value) {
+        if (_isShared) {
+            synchronized (this) {
+                return putImpl(key, value);
+            }
+        }
+        return putImpl(key, value);
+    }
+
+    private Object/*{V}*/ putImpl(Object/*{K}*/ key, Object/*{V}*/ value) {
+        final int weight = (_weigher != null) ? _weigher.weightOf(key, value) : 1;
+        if (weight > _capacity)
+            throw new IllegalArgumentException("Weight " + weight
+                    + " exceeds capacity " + _capacity);
+        final long expiration = (_expiration != 0)
+                ? System.currentTimeMillis() + _expiration : 0;
+        CacheEntry entry = (CacheEntry) _map.getEntry(key);
+        if (entry != null) { // Replaces.
+            Object/*{V}*/ previous = (Object/*{V}*/) entry.setValue(value);
+            _weight += weight - entry._weight;
+            entry._weight = weight;
+            entry._expiration = expiration;
+            _map.moveToLast(entry);
+            evictOverflow(entry);
+            return previous;
+        }
+        if (_sketch != null) { // Admission.
+            increment(hashOf(key));
+            if (_weight + weight > _capacity) {
+                CacheEntry victim = (CacheEntry) _map.head().getNext();
+                if (frequency(hashOf(key)) <= frequency(hashOf(victim.getKey()))) {
+                    _evictionCount++;
+                    if (_listener != null) {
+                        _listener.evicted(key, value, false);
+                    }
+                    return null;
+                }
+            }
+        }
+        entry = (CacheEntry) _map.putEntry(key, value);
+        entry._weight = weight;
+        entry._expiration = expiration;
+        entry._hits = 0;
+        _weight += weight;
+        evictOverflow(entry);
+        return null;
+    }
+
+    /**
+     * Removes the entry for the specified key (the eviction listener
+     * is not notified).
+     *
+     * @param key the key.
+     * @return the value previously cached or <code>null</code> if none.
+     */
+    public final Object/*{V}*/ remove(Object key) {
+        if (_isShared) {
+            synchronized (this) {
+                return removeImpl(key);
+            }
+        }
+        return removeImpl(key);
+    }
+
+    private Object/*{V}*/ removeImpl(Object key) {
+        CacheEntry entry = (CacheEntry) _map.getEntry(key);
+        if (entry == null)
+            return null;
+        _weight -= entry._weight;
+        return (Object/*{V}*/) _map.remove(key);
+    }
+
+    /**
+     * Indicates if this cache holds a value for the specified key
+     * (does not change the access order or the statistics).
+     *
+     * @param key the key.
+     * @return <code>true</code> if a value is cached (possibly expired);
+     *         <code>false</code> otherwise.
+     */
+    public final boolean containsKey(Object key) {
+        if (_isShared) {
+            synchronized (this) {
+                return _map.containsKey(key);
+            }
+        }
+        return _map.containsKey(key);
+    }
+
+    /**
+     * Returns the number of entries in this cache.
+     *
+     * @return the number of entries.
+     */
+    public final int size() {
+        return _map.size();
+    }
+
+    /**
+     * Returns the total weight of the entries in this cache.
+     *
+     * @return the current weight (less or equal to the capacity).
+     */
+    public final long getWeight() {
+        if (_isShared) {
+            synchronized (this) { // Long values are not atomic.
+                return _weight;
+            }
+        }
+        return _weight;
+    }
+
+    /**
+     * Removes all entries from this cache (the eviction listener is not
+     * notified, statistics are kept).
+     */
+    public final void clear() {
+        if (_isShared) {
+            synchronized (this) {
+                clearImpl();
+                return;
+            }
+        }
+        clearImpl();
+    }
+
+    private void clearImpl() {
+        _map.clear();
+        _weight = 0;
+        if (_sketch != null) {
+            for (int i = 0; i < _sketch.length;) {
+                _sketch[i++] = 0;
+            }
+            _sketchIncrements = 0;
+        }
+    }
+
+    /**
+     * Returns the number of successful look-ups.
+     *
+     * @return the hit count.
+     */
+    public final long getHitCount() {
+        if (_isShared) {
+            synchronized (this) { // Long values are not atomic.
+                return _hitCount;
+            }
+        }
+        return _hitCount;
+    }
+
+    /**
+     * Returns the number of look-ups for which no (valid) value was cached.
+     *
+     * @return the miss count.
+     */
+    public final long getMissCount() {
+        if (_isShared) {
+            synchronized (this) { // Long values are not atomic.
+                return _missCount;
+            }
+        }
+        return _missCount;
+    }
+
+    /**
+     * Returns the number of entries evicted (including expired or
+     * not admitted entries).
+     *
+     * @return the eviction count.
+     */
+    public final long getEvictionCount() {
+        if (_isShared) {
+            synchronized (this) { // Long values are not atomic.
+                return _evictionCount;
+            }
+        }
+        return _evictionCount;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts.
+     */
+    public final void resetStatistics() {
+        if (_isShared) {
+            synchronized (this) {
+                _hitCount = 0;
+                _missCount = 0;
+                _evictionCount = 0;
+            }
+            return;
+        }
+        _hitCount = 0;
+        _missCount = 0;
+        _evictionCount = 0;
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        clear();
+        resetStatistics();
+        _weigher = null;
+        _expiration = 0;
+        _listener = null;
+        _isShared = false;
+        _map.setKeyComparator(FastComparator.DEFAULT);
+    }
+
+    /**
+     * Returns the textual representation of this cache (statistics).
+     *
+     * @return the textual representation of this cache.
+     */
+    public String toString() {
+        return "FastCache[" + _policy + ", size: " + size() + ", weight: "
+                + _weight + "/" + _capacity + ", hits: " + _hitCount
+                + ", misses: " + _missCount + ", evictions: "
+                + _evictionCount + "]";
+    }
+
+    // Evicts entries (other than the one specified) until capacity is met.
+    private void evictOverflow(CacheEntry keep) {
+        while (_weight > _capacity) {
+            CacheEntry victim = victim(keep);
+            if (victim == null)
+                return;
+            evict(victim, false);
+        }
+    }
+
+    private CacheEntry victim(CacheEntry keep) {
+        final FastMap.Entry end = _map.tail();
+        CacheEntry victim = null;
+        int samples = (_policy == LFU) ? LFU_SAMPLES : 1;
+        for (FastMap.Entry e = _map.head(); (samples > 0)
+                && ((e = (FastMap.Entry) e.getNext()) != end);) {
+            if (e == keep)
+                continue;
+            samples--;
+            if ((victim == null) || (((CacheEntry) e)._hits < victim._hits)) {
+                victim = (CacheEntry) e;
+            }
+        }
+        return victim;
+    }
+
+    private void evict(CacheEntry entry, boolean expired) {
+        final Object key = entry.getKey();
+        final Object value = entry.getValue();
+        _weight -= entry._weight;
+        _map.remove(key);
+        _evictionCount++;
+        if (_listener != null) {
+            _listener.evicted(key, value, expired);
+        }
+    }
+
+    private int hashOf(Object key) {
+        return ((FastComparator) _map.getKeyComparator()).hashCodeOf(key);
+    }
+
+    // Count-min sketch (4 counters of 4 bits max, aging by halving).
+    private void increment(int hash) {
+        final int mask = _sketch.length - 1;
+        for (int i = 0; i < 4; i++) {
+            int index = index(hash, i) & mask;
+            if (_sketch[index] < 15) {
+                _sketch[index]++;
+            }
+        }
+        if (++_sketchIncrements >= ((_sketch.length >> 4) * 10)) { // Aging.
+            for (int i = 0; i < _sketch.length; i++) {
+                _sketch[i] >>= 1;
+            }
+            _sketchIncrements = 0;
+        }
+    }
+
+    private int frequency(int hash) {
+        final int mask = _sketch.length - 1;
+        int min = 15;
+        for (int i = 0; i < 4; i++) {
+            min = MathLib.min(min, _sketch[index(hash, i) & mask]);
+        }
+        return min;
+    }
+
+    private static int index(int hash, int i) {
+        int h = (hash + i) * (0x9E3779B9 + (i << 1));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * This class represents a cache eviction policy.
+     */
+    public static final class Policy {
+
+        private final String _name;
+
+        private Policy(String name) {
+            _name = name;
+        }
+
+        public String toString() {
+            return _name;
+        }
+    }
+
+    /**
+     * This interface represents the calculator of the entries weight.
+     */
+    public interface Weigher {
+
+        /**
+         * Returns the weight of the specified entry.
+         *
+         * @param key the entry key.
+         * @param value the entry value.
+         * @return the entry weight (positive).
+         */
+        int weightOf(Object key, Object value);
+    }
+
+    /**
+     * This interface represents a listener of cache evictions.
+     */
+    public interface EvictionListener {
+
+        /**
+         * Notifies that the specified entry has been evicted.
+         *
+         * @param key the entry key.
+         * @param value the entry value.
+         * @param expired <code>true</code> if the entry has expired;
+         *        <code>false</code> if the entry has been evicted (or not
+         *        admitted) due to the cache capacity.
+         */
+        void evicted(Object key, Object value, boolean expired);
+    }
+
+    /**
+     * The map holding the cache entries.
+     */
+    private static final class CacheMap extends FastMap {
+
+        protected FastMap.Entry newEntry() {
+            return new CacheEntry();
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * The cache entries (recycled by the map).
+     */
+    private static final class CacheEntry extends FastMap.Entry {
+
+        int _weight;
+
+        int _hits;
+
+        long _expiration;
+    }
+}
@@ -5,6 +5,7 @@ import _templates.java.lang.CharSequence;
 import _templates.java.lang.Comparable;
 import _templates.java.util.Comparator;
 import _templates.javolution.lang.Configurable;
+import _templates.javolution.text.CharArray;
 import _templates.javolution.text.Text;
 import _templates.javolution.xml.XMLSerializable;
 
@@ -243,7 +244,8 @@ public abstract class FastComparator/*<T>*/ implements Comparator/*<T>*/,
         public int hashCodeOf(Object obj) {
             if (obj == null)
                 return 0;
-            if ((obj instanceof String) || (obj instanceof Text))
+            if ((obj instanceof String) || (obj instanceof Text)
+                    || (obj instanceof CharArray))
                 return obj.hashCode();
             CharSequence chars = (CharSequence) obj;
             int h = 0;
@@ -338,6 +340,117 @@ public abstract class FastComparator/*<T>*/ implements Comparator/*<T>*/,
         }
     };
 
+    /**
+     * Holds a lexicographic comparator for {@link CharSequence} or 
+     * {@link String} keys coming from untrusted sources (e.g. names or 
+     * identifiers read from XML or HTTP input). Equality and ordering are
+     * the same as for {@link #LEXICAL}, but the hashcode is calculated using
+     * a keyed hash function (SipHash-1-3) whose key is randomly chosen when
+     * this class is initialized. Adversaries cannot produce sets of keys 
+     * with colliding hashcodes in order to degrade {@link FastMap} 
+     * performance (hash flooding); the hashcodes differ from 
+     * <code>String.hashCode()</code> and from one run to another.
+     */
+    public static final FastComparator/*<CharSequence>*/ SEEDED_LEXICAL = new SeededLexical();
+
+    private static final class SeededLexical extends FastComparator {
+
+        private static final long K0;
+
+        private static final long K1;
+        static {
+            final long[] key = newKey();
+            K0 = key[0];
+            K1 = key[1];
+        }
+
+        // Returns a new random 128 bits key.
+        private static long[] newKey() {
+            /*@JVM-1.4+@
+            if (true) {
+                java.security.SecureRandom random = new java.security.SecureRandom();
+                return new long[] { random.nextLong(), random.nextLong() };
+            }
+            /**/
+            // Fallback when no secure random generator is available (J2ME).
+            java.util.Random random = new java.util.Random(System
+                    .currentTimeMillis()
+                    ^ (((long) System.identityHashCode(new Object())) << 32));
+            return new long[] { random.nextLong(), random.nextLong() };
+        }
+
+        public int hashCodeOf(Object obj) {
+            if (obj == null)
+                return 0;
+            if (obj instanceof String)
+                return sipHash((String) obj, null);
+            return sipHash(null, (CharSequence) obj);
+        }
+
+        // SipHash-1-3, characters are processed four at a time.
+        private static int sipHash(String str, CharSequence csq) {
+            final int length = (str != null) ? str.length() : csq.length();
+            long v0 = K0 ^ 0x736f6d6570736575L;
+            long v1 = K1 ^ 0x646f72616e646f6dL;
+            long v2 = K0 ^ 0x6c7967656e657261L;
+            long v3 = K1 ^ 0x7465646279746573L;
+            for (int i = 0;;) {
+                long m = 0;
+                int j = 0;
+                for (; (j < 4) && (i < length); j++) {
+                    long c = (str != null) ? str.charAt(i++) : csq.charAt(i++);
+                    m |= c << (j << 4);
+                }
+                final boolean last = j < 4;
+                if (last) { // Holds the length (modulo 2^16).
+                    m |= ((long) (length & 0xFFFF)) << 48;
+                }
+                v3 ^= m;
+                for (int r = 0, n = last ? 4 : 1; r < n; r++) {
+                    if (r == 1) { // Finalization.
+                        v0 ^= m;
+                        v2 ^= 0xff;
+                    }
+                    v0 += v1;
+                    v1 = (v1 << 13) | (v1 >>> 51);
+                    v1 ^= v0;
+                    v0 = (v0 << 32) | (v0 >>> 32);
+                    v2 += v3;
+                    v3 = (v3 << 16) | (v3 >>> 48);
+                    v3 ^= v2;
+                    v0 += v3;
+                    v3 = (v3 << 21) | (v3 >>> 43);
+                    v3 ^= v0;
+                    v2 += v1;
+                    v1 = (v1 << 17) | (v1 >>> 47);
+                    v1 ^= v2;
+                    v2 = (v2 << 32) | (v2 >>> 32);
+                }
+                if (last) {
+                    long h = v0 ^ v1 ^ v2 ^ v3;
+                    return (int) (h ^ (h >>> 32));
+                }
+                v0 ^= m;
+            }
+        }
+
+        public boolean areEqual(Object o1, Object o2) {
+            return ((FastComparator) LEXICAL).areEqual(o1, o2);
+        }
+
+        public int compare(Object left, Object right) {
+            return ((FastComparator) LEXICAL).compare(left, right);
+        }
+
+        public String toString() {
+            return "SeededLexical";
+        }
+
+        public Object readResolve() throws ObjectStreamException {
+            return SEEDED_LEXICAL;
+        }
+    }
+
     /**
      * Returns the hash code for the specified object (consistent with 
      * {@link #areEqual}). Two objects considered {@link #areEqual equal} have 
@@ -83,6 +83,15 @@ import _templates.javolution.xml.XMLSerializable;
  *     or for identity maps ({@link FastComparator#IDENTITY IDENTITY}):[code]
  *     FastMap identityMap = new FastMap().setKeyComparator(FastComparator.IDENTITY);
  *     [/code]</p>
+ *
+ * <p> Maps whose keys come from untrusted sources (e.g. names read from 
+ *     XML or HTTP requests) should use the {@link FastComparator#SEEDED_LEXICAL
+ *     SEEDED_LEXICAL} key comparator; otherwise adversaries may submit keys
+ *     with identical hash codes (easy to produce for <code>String</code>)
+ *     turning look-ups into linear searches (hash flooding).[code]
+ *     FastMap<String, Session> sessions = new FastMap<String, Session>()
+ *         .setKeyComparator(FastComparator.SEEDED_LEXICAL).shared();
+ *     [/code]</p>
  * 
  * <p> {@link FastMap.Entry} can quickly be iterated over (forward or backward)
  *     without using iterators. For example:[code]
@@ -101,7 +110,9 @@ import _templates.javolution.xml.XMLSerializable;
  *     from a map, it is automatically restored to its pool. Any new entry is
  *     allocated in the same memory area as the map itself (RTSJ). If the map
  *     is shared, removed entries are not recycled but only dereferenced
- *     (to maintain thread-safety) </p>
+ *     (to maintain thread-safety) unless {@link #setEntryRecycling entry 
+ *     recycling} is enabled, in which case they are recycled at 
+ *     {@link #reclaim quiescent states}.</p>
  *     
  * <p> {@link #shared() Shared} maps do not use internal synchronization, except in case of
  *     concurrent modifications of the map structure (entries being added/deleted).
@@ -209,6 +220,11 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
      * Indicates if this map is shared (thread-safe).
      */
     private transient boolean _isShared;
+    /**
+     * Holds the entries removed from this shared map waiting to be recycled
+     * (<code>null</code> if entry recycling is disabled).
+     */
+    private transient FastTable _retired;
 
     /**
      * Creates a map whose capacity increment smoothly without large resize 
@@ -403,10 +419,31 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
      * @throws NullPointerException if key is <code>null</code>.
      */
     public final Object/*{V}*/ get(Object key) {
+        if (_retired != null)
+            return getRecyclingSafe(key);
         Entry/*<K,V>*/ entry = getEntry(key);
         return (entry != null) ? entry._value : null;
     }
 
+    // Entries may be recycled (reused) concurrently, the entry key is 
+    // checked again once the value has been read.
+    private Object/*{V}*/ getRecyclingSafe(Object key) {
+        final int keyHash = _isDirectKeyComparator ? key.hashCode()
+                : _keyComparator.hashCodeOf(key);
+        while (true) {
+            final Entry/*<K,V>*/ entry = getEntry(key, keyHash);
+            if (entry == null)
+                return null;
+            final Object entryKey = entry._key;
+            final Object/*{V}*/ value = entry._value;
+            if ((ONE_VOLATILE == 1) && (entry._key == entryKey) // Prevents reordering.
+                    && (entryKey != null) && ((key == entryKey) 
+                    || (_isDirectKeyComparator ? key.equals(entryKey) 
+                            : _keyComparator.areEqual(key, entryKey))))
+                return value;
+        }
+    }
+
     /**
      * Returns the entry with the specified key.
      * This method is always thread-safe without synchronization.
@@ -535,6 +572,20 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
         return returnEntry ? entry : null;
     }
 
+    // Moves the specified entry to the end of the entry list (e.g. access 
+    // order for caches). This method is not thread-safe (maps not shared).
+    final void moveToLast(Entry entry) {
+        final Entry last = _tail._previous;
+        if (entry == last)
+            return;
+        entry._previous._next = entry._next;
+        entry._next._previous = entry._previous;
+        last._next = entry;
+        entry._previous = last;
+        entry._next = _tail;
+        _tail._previous = entry;
+    }
+
     private void createNewEntries() { // Increase the number of entries.
         MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
 
@@ -562,18 +613,7 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
 
                 // Check if we can just cleanup (remove NULL entries).
                 if (nullCount > _entryCount) { // Yes.
-                    if (isShared) { // Replaces with a new table.
-                        Entry[] tmp = new Entry[_entries.length];
-                        copyEntries(_entries, tmp, _entries.length);
-                        _entries = tmp;
-                    } else { // We need a temporary buffer.
-                        Object[] tmp = (Object[]) ArrayFactory.OBJECTS_FACTORY.array(_entries.length);
-                        System.arraycopy(_entries, 0, tmp, 0, _entries.length);
-                        FastMap.reset(_entries); // Ok not shared. 
-                        copyEntries(tmp, _entries, _entries.length);
-                        FastMap.reset(tmp); // Clear references.
-                        ArrayFactory.OBJECTS_FACTORY.recycle(tmp);
-                    }
+                    removeNulls(isShared);
                     return;
                 }
 
@@ -601,7 +641,8 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
                     subMap.mapEntry(entry);
                     if (((subMap._entryCount + subMap._nullCount) << 1) >= subMap._entries.length) {
                         // Serious problem submap already full, don't use submap just resize.
-                        LogContext.warning("Unevenly distributed hash code - Degraded Performance");
+                        LogContext.warning("Unevenly distributed hash code - Degraded Performance"
+                                + " (consider FastComparator.SEEDED_LEXICAL for untrusted keys)");
                         Entry[] tmp = new Entry[tableLength];
                         copyEntries(_entries, tmp, _entries.length);
                         _entries = tmp;
@@ -622,6 +663,42 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
         });
     }
 
+    // Rebuilds this final sub-map table without NULL entries.
+    // This method must be executed in the map memory area.
+    private void removeNulls(boolean isShared) {
+        if (isShared) { // Replaces with a new table.
+            Entry[] tmp = new Entry[_entries.length];
+            copyEntries(_entries, tmp, _entries.length);
+            _entries = tmp;
+        } else { // We need a temporary buffer.
+            Object[] tmp = (Object[]) ArrayFactory.OBJECTS_FACTORY.array(_entries.length);
+            System.arraycopy(_entries, 0, tmp, 0, _entries.length);
+            FastMap.reset(_entries); // Ok not shared. 
+            copyEntries(tmp, _entries, _entries.length);
+            FastMap.reset(tmp); // Clear references.
+            ArrayFactory.OBJECTS_FACTORY.recycle(tmp);
+        }
+        _nullCount = 0;
+    }
+
+    // Removes NULL entries from this map and its sub-maps.
+    private void compactTables(final boolean isShared) {
+        if (_useSubMaps) {
+            for (int i = 0; i < C2;) {
+                _subMaps[i++].compactTables(isShared);
+            }
+            return;
+        }
+        if (_nullCount == 0)
+            return;
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+            public void run() {
+                removeNulls(isShared);
+            }
+        });
+    }
+
     private FastMap[] newSubMaps(int capacity) {
         FastMap[] subMaps = new FastMap[C2];
         for (int i = 0; i < C2; i++) {
@@ -763,6 +840,10 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
                 entries[i & mask] = Entry.NULL;
                 map._nullCount++;
                 map._entryCount--;
+                if ((map._nullCount > map._entryCount)
+                        && (map._nullCount > (entries.length >> 2))) {
+                    map.compactTables(_isShared); // Shortens probe sequences.
+                }
 
                 Object prevValue = entry._value;
                 if (!_isShared) { // Clears key/value and recycle.
@@ -776,6 +857,8 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
                     if (next != null) {
                         next._previous = entry;
                     }
+                } else if (_retired != null) { // Recycled at next reclaim.
+                    _retired.addLast(entry);
                 } else {
                     // do nothing, preserving the iterator-free iterations of other threads
                 }                       
@@ -822,6 +905,78 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
         return _isShared;
     }
 
+    /**
+     * Enables or disables the recycling of the entries removed from this 
+     * {@link #shared shared} map. When enabled, removed entries are kept 
+     * aside (concurrent iterations are not affected) and recycled when
+     * {@link #reclaim} is called; long-lived shared maps with many
+     * insertions/removals (e.g. registries) do not allocate new entries
+     * in steady state. Entries of maps not shared are always recycled 
+     * immediately upon removal.
+     * 
+     * @param enabled <code>true</code> if removed entries are recycled 
+     *        by {@link #reclaim}; <code>false</code> otherwise.
+     * @return <code>this</code>
+     */
+    public FastMap/*<K,V>*/ setEntryRecycling(boolean enabled) {
+        if (!enabled) {
+            _retired = null; // Removed entries are left to the garbage collector.
+        } else if (_retired == null) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                public void run() {
+                    _retired = new FastTable();
+                }
+            });
+        }
+        return this;
+    }
+
+    /**
+     * Indicates if the entries removed from this shared map are 
+     * recycled (default <code>false</code>).
+     * 
+     * @return <code>true</code> if entry recycling is enabled; 
+     *         <code>false</code> otherwise.
+     * @see #setEntryRecycling
+     */
+    public boolean isEntryRecycling() {
+        return _retired != null;
+    }
+
+    /**
+     * Recycles the entries removed from this map since the last call
+     * (if {@link #setEntryRecycling entry recycling} is enabled) and 
+     * cleans up the map tables from the slots left by removed entries.
+     * 
+     * <p> This method must be called at a quiescent state; no other thread 
+     *     should be iterating over this map or be holding a reference to
+     *     a removed entry (e.g. a periodic maintenance task while other 
+     *     threads only perform look-ups, insertions or removals).
+     *     Look-ups, insertions and removals are not blocked and may proceed
+     *     concurrently; {@link #get} is safe with respect to entries being
+     *     recycled.</p>
+     */
+    public final synchronized void reclaim() {
+        compactTables(_isShared);
+        final FastTable retired = _retired;
+        if (retired == null)
+            return;
+        for (int i = 0, n = retired.size(); i < n; i++) {
+            Entry entry = (Entry) retired.get(i);
+            entry._key = null;
+            entry._value = null;
+            final Entry next = _tail._next; // Inserts after tail.
+            entry._previous = _tail;
+            entry._next = next;
+            _tail._next = entry;
+            if (next != null) {
+                next._previous = entry;
+            }
+        }
+        retired.clear();
+    }
+
     /**
      * Sets the key comparator for this fast map.
      * 
@@ -1514,6 +1669,7 @@ public class FastMap/*<K,V>*/ implements Map/*<K,V>*/, Reusable,
     // Implements Reusable.
     public void reset() {
         _isShared = false; // A shared map can only be reset if no thread use it.
+        _retired = null;
         clear(); // In which case, it is safe to recycle the entries.
         setKeyComparator(FastComparator.DEFAULT);
         setValueComparator(FastComparator.DEFAULT);
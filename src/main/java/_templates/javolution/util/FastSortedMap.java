@@ -0,0 +1,1750 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.util;
+
+import java.io.IOException;
+
+import _templates.java.io.ObjectInputStream;
+import _templates.java.io.ObjectOutputStream;
+import _templates.java.io.Serializable;
+import _templates.java.lang.IllegalArgumentException;
+import _templates.java.util.Collection;
+import _templates.java.util.Comparator;
+import _templates.java.util.Iterator;
+import _templates.java.util.Map;
+import _templates.java.util.NoSuchElementException;
+import _templates.java.util.Set;
+import _templates.java.util.SortedMap;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.context.ObjectFactory;
+import _templates.javolution.lang.Realtime;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.Text;
+import _templates.javolution.util.FastCollection.Record;
+
+/**
+ * <p> This class represents a sorted map backed by a B+-tree; keys are
+ *     ordered using the map {@link #setKeyComparator key comparator}
+ *     ({@link FastComparator#DEFAULT DEFAULT} for <code>Comparable</code>
+ *     keys, {@link FastComparator#LEXICAL LEXICAL} for character sequences
+ *     of different types, etc.).</p>
+ *
+ * <p> Tree nodes hold their elements in arrays (a few nodes for thousands
+ *     of entries) and the map entries are linked in key order; iterations
+ *     and range queries do not traverse the tree. Nodes and entries are
+ *     pooled by the map: unlike <code>java.util.TreeMap</code>, adding and
+ *     removing mappings in steady state does not allocate (new nodes and
+ *     entries are allocated in the same memory area as the map itself).[code]
+ *     FastSortedMap<Long, Event> events = new FastSortedMap<Long, Event>();
+ *     ...
+ *     // Iterates over the events of the last hour (no allocation).
+ *     FastSortedMap<Long, Event> lastHour = events.tailMap(now - 3600000L);
+ *     for (FastSortedMap.Entry<Long, Event> e = lastHour.head(), end = lastHour.tail();
+ *          (e = e.getNext()) != end;) {
+ *          Event event = e.getValue();
+ *     }[/code]</p>
+ *
+ * <p> Range views ({@link #subMap subMap}, {@link #headMap headMap},
+ *     {@link #tailMap tailMap}) are backed by the map; they support the
+ *     inclusive/exclusive bounds and the navigation methods
+ *     ({@link #floorKey floorKey}, {@link #ceilingKey ceilingKey},
+ *     {@link #lowerKey lowerKey}, {@link #higherKey higherKey}, ...) of
+ *     <code>java.util.NavigableMap</code>. Keys are considered equal when
+ *     the key comparator returns <code>0</code> (as for
+ *     <code>java.util.TreeMap</code>); <code>null</code> keys are not
+ *     supported.</p>
+ *
+ * <p> {@link #shared() Shared} maps support concurrent readers: on 1.5+
+ *     platforms look-ups hold the read lock of a read-write lock (readers
+ *     do not block each other) and updates hold its write lock; on other
+ *     platforms look-ups and updates are synchronized. Optimistic
+ *     (lock-free) look-ups would require memory fences not available on
+ *     all targets; the read lock costs two atomic operations per look-up
+ *     but readers always see a consistent tree. Removed entries of shared maps are not recycled, which
+ *     keeps iterations of other threads valid. With regards to the memory
+ *     model, shared maps offer the same guarantees as {@link FastMap#shared
+ *     shared} {@link FastMap}.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class FastSortedMap/*<K,V>*/ implements SortedMap/*<K,V>*/, Reusable,
+        Realtime, Serializable {
+
+    /**
+     * Holds the map factory.
+     */
+    private static final ObjectFactory FACTORY = new ObjectFactory() {
+
+        public Object create() {
+            return new FastSortedMap();
+        }
+    };
+
+    /**
+     * Holds the tree (shared by the map and its range views).
+     */
+    private transient Tree _tree;
+
+    /**
+     * Holds the low bound of this view (if any).
+     */
+    private transient Object/*{K}*/ _fromKey;
+
+    /**
+     * Holds the high bound of this view (if any).
+     */
+    private transient Object/*{K}*/ _toKey;
+
+    /**
+     * Indicates if this view has a low bound.
+     */
+    private transient boolean _hasFrom;
+
+    /**
+     * Indicates if this view has a high bound.
+     */
+    private transient boolean _hasTo;
+
+    /**
+     * Indicates if the low bound is inclusive.
+     */
+    private transient boolean _fromInclusive;
+
+    /**
+     * Indicates if the high bound is inclusive.
+     */
+    private transient boolean _toInclusive;
+
+    /**
+     * Holds the values view.
+     */
+    private transient Values _values;
+
+    /**
+     * Holds the key set view.
+     */
+    private transient KeySet _keySet;
+
+    /**
+     * Holds the entry set view.
+     */
+    private transient EntrySet _entrySet;
+
+    /**
+     * Creates an empty sorted map.
+     */
+    public FastSortedMap() {
+        _tree = new Tree();
+    }
+
+    /**
+     * Creates a sorted map containing the specified entries.
+     *
+     * @param map the map whose mappings are to be placed into this map.
+     */
+    public FastSortedMap(Map/*<? extends K, ? extends V>*/ map) {
+        this();
+        putAll(map);
+    }
+
+    /**
+     * Creates a range view over the specified tree.
+     */
+    private FastSortedMap(Tree tree, boolean hasFrom, Object/*{K}*/ fromKey,
+            boolean fromInclusive, boolean hasTo, Object/*{K}*/ toKey,
+            boolean toInclusive) {
+        _tree = tree;
+        _hasFrom = hasFrom;
+        _fromKey = fromKey;
+        _fromInclusive = fromInclusive;
+        _hasTo = hasTo;
+        _toKey = toKey;
+        _toInclusive = toInclusive;
+    }
+
+    /**
+     * Returns a new, preallocated or {@link #recycle recycled} sorted map
+     * instance (on the stack when executing in a
+     * {@link _templates.javolution.context.StackContext StackContext}).
+     *
+     * @return a new, preallocated or recycled sorted map instance.
+     */
+    public static/*<K,V>*/FastSortedMap/*<K,V>*/newInstance() {
+        return (FastSortedMap/*<K,V>*/) FACTORY.object();
+    }
+
+    /**
+     * Recycles the specified map instance.
+     *
+     * @param instance the map instance to recycle.
+     */
+    public static void recycle(FastSortedMap instance) {
+        FACTORY.recycle(instance);
+    }
+
+    /**
+     * Returns the head entry of this map (or view); the first entry is
+     * <code>head().getNext()</code>.
+     *
+     * @return the entry preceding the first entry of this map.
+     */
+    public final Entry/*<K,V>*/head() {
+        return (Entry/*<K,V>*/) lowEntry()._previous;
+    }
+
+    /**
+     * Returns the tail entry of this map (or view); the last entry is
+     * <code>tail().getPrevious()</code>.
+     *
+     * @return the entry following the last entry of this map.
+     */
+    public final Entry/*<K,V>*/tail() {
+        if (!_hasTo)
+            return (Entry/*<K,V>*/) _tree._tail;
+        Entry entry = _tree.find(_toInclusive ? Tree.HIGHER : Tree.CEILING, _toKey);
+        return (Entry/*<K,V>*/) ((entry != null) ? entry : _tree._tail);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map; this method
+     * is linear in the view size for bounded range views.
+     *
+     * @return this map's size.
+     */
+    public final int size() {
+        if (!_hasFrom && !_hasTo)
+            return _tree._size;
+        int count = 0;
+        for (Entry e = head(), end = tail(); (e = e._next) != end;) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Indicates if this map contains no key-value mappings.
+     *
+     * @return <code>true</code> if this map contains no key-value mappings;
+     *         <code>false</code> otherwise.
+     */
+    public final boolean isEmpty() {
+        return firstEntry() == null;
+    }
+
+    /**
+     * Indicates if this map contains a mapping for the specified key.
+     *
+     * @param key the key whose presence in this map is to be tested.
+     * @return <code>true</code> if this map contains a mapping for the
+     *         specified key; <code>false</code> otherwise.
+     * @throws NullPointerException if the key is <code>null</code>.
+     */
+    public final boolean containsKey(Object key) {
+        return getEntry(key) != null;
+    }
+
+    /**
+     * Indicates if this map associates one or more keys to the specified
+     * value.
+     *
+     * @param value the value whose presence in this map is to be tested.
+     * @return <code>true</code> if this map maps one or more keys to the
+     *         specified value.
+     */
+    public final boolean containsValue(Object value) {
+        final FastComparator comparator = _tree._valueComparator;
+        for (Entry e = head(), end = tail(); (e = e._next) != end;) {
+            if (comparator.areEqual(value, e._value))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value to which this map associates the specified key.
+     * This method is always thread-safe regardless whether or not the map
+     * is marked {@link #isShared() shared}.
+     *
+     * @param key the key whose associated value is to be returned.
+     * @return the value to which this map maps the specified key, or
+     *         <code>null</code> if there is no mapping for the key.
+     * @throws NullPointerException if key is <code>null</code>.
+     */
+    public final Object/*{V}*/get(Object key) {
+        Entry/*<K,V>*/entry = getEntry(key);
+        return (entry != null) ? entry._value : null;
+    }
+
+    /**
+     * Returns the entry with the specified key.
+     *
+     * @param key the key whose associated entry is to be returned.
+     * @return the entry for the specified key or <code>null</code> if none.
+     */
+    public final Entry/*<K,V>*/getEntry(Object key) {
+        if (!inRange(key))
+            return null;
+        return (Entry/*<K,V>*/) _tree.find(Tree.GET, key);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If this map previously contained a mapping for this key, the old value
+     * is replaced.
+     *
+     * @param key the key with which the specified value is to be associated.
+     * @param value the value to be associated with the specified key.
+     * @return the previous value associated with specified key, or
+     *         <code>null</code> if there was no mapping for key.
+     * @throws NullPointerException if the key is <code>null</code>.
+     * @throws IllegalArgumentException if the key is outside the range of
+     *         this view.
+     */
+    public final Object/*{V}*/put(Object/*{K}*/key, Object/*{V}*/value) {
+        checkRange(key);
+        return (Object/*{V}*/) _tree.put(key, value, false);
+    }
+
+    /**
+     * Associates the specified value only if the specified key is not already
+     * associated (atomic for {@link #isShared() shared} maps).
+     *
+     * @param key the key with which the specified value is to be associated.
+     * @param value the value to be associated with the specified key.
+     * @return the previous value associated with specified key, or
+     *         <code>null</code> if there was no mapping for key.
+     * @throws NullPointerException if the key is <code>null</code>.
+     * @throws IllegalArgumentException if the key is outside the range of
+     *         this view.
+     */
+    public final Object/*{V}*/putIfAbsent(Object/*{K}*/key,
+            Object/*{V}*/value) {
+        checkRange(key);
+        return (Object/*{V}*/) _tree.put(key, value, true);
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param map the mappings to be stored in this map.
+     * @throws NullPointerException the specified map is <code>null</code>,
+     *         or the specified map contains <code>null</code> keys.
+     */
+    public final void putAll(Map/*<? extends K, ? extends V>*/map) {
+        for (Iterator i = map.entrySet().iterator(); i.hasNext();) {
+            Map.Entry/*<K,V>*/e = (Map.Entry/*<K,V>*/) i.next();
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Removes the entry for the specified key if present. The entry
+     * is recycled if the map is not marked as {@link #isShared shared}.
+     *
+     * @param key the key whose mapping is to be removed from the map.
+     * @return previous value associated with specified key, or
+     *         <code>null</code> if there was no mapping for key.
+     * @throws NullPointerException if the key is <code>null</code>.
+     */
+    public final Object/*{V}*/remove(Object key) {
+        if (!inRange(key))
+            return null;
+        return (Object/*{V}*/) _tree.remove(key);
+    }
+
+    /**
+     * Removes all this map's entries (or the entries of this view).
+     */
+    public final void clear() {
+        if (!_hasFrom && !_hasTo) {
+            _tree.clear();
+            return;
+        }
+        for (Entry e = firstEntry(); e != null; e = firstEntry()) {
+            _tree.remove(e._key);
+        }
+    }
+
+    /**
+     * Returns the comparator used to order the keys of this map.
+     *
+     * @return the key comparator.
+     */
+    public final Comparator/*<? super K>*/comparator() {
+        return _tree._keyComparator;
+    }
+
+    /**
+     * Sets the key comparator for this sorted map. The comparator should be
+     * set before any mapping is added (keys are not reordered).
+     *
+     * @param keyComparator the key comparator.
+     * @return <code>this</code>
+     */
+    public FastSortedMap/*<K,V>*/setKeyComparator(
+            FastComparator/*<? super K>*/keyComparator) {
+        _tree._keyComparator = keyComparator;
+        return this;
+    }
+
+    /**
+     * Returns the key comparator for this sorted map.
+     *
+     * @return the key comparator.
+     */
+    public FastComparator/*<? super K>*/getKeyComparator() {
+        return _tree._keyComparator;
+    }
+
+    /**
+     * Sets the value comparator for this map.
+     *
+     * @param valueComparator the value comparator.
+     * @return <code>this</code>
+     */
+    public FastSortedMap/*<K,V>*/setValueComparator(
+            FastComparator/*<? super V>*/valueComparator) {
+        _tree._valueComparator = valueComparator;
+        return this;
+    }
+
+    /**
+     * Returns the value comparator for this map.
+     *
+     * @return the value comparator.
+     */
+    public FastComparator/*<? super V>*/getValueComparator() {
+        return _tree._valueComparator;
+    }
+
+    /**
+     * Sets the shared status of this map (and of its views); shared maps
+     * support concurrent reads and iterations without synchronization,
+     * updates are synchronized internally.
+     *
+     * @return <code>this</code>
+     */
+    public FastSortedMap/*<K,V>*/shared() {
+        _tree._isShared = true;
+        return this;
+    }
+
+    /**
+     * Indicates if this map supports concurrent operations without
+     * synchronization (default unshared).
+     *
+     * @return <code>true</code> if this map is thread-safe; <code>false</code>
+     *         otherwise.
+     */
+    public boolean isShared() {
+        return _tree._isShared;
+    }
+
+    /**
+     * Returns the first (lowest) key of this map.
+     *
+     * @return the first key.
+     * @throws NoSuchElementException if this map is empty.
+     */
+    public final Object/*{K}*/firstKey() {
+        Entry/*<K,V>*/entry = firstEntry();
+        if (entry == null)
+            throw new NoSuchElementException();
+        return entry._key;
+    }
+
+    /**
+     * Returns the last (highest) key of this map.
+     *
+     * @return the last key.
+     * @throws NoSuchElementException if this map is empty.
+     */
+    public final Object/*{K}*/lastKey() {
+        Entry/*<K,V>*/entry = lastEntry();
+        if (entry == null)
+            throw new NoSuchElementException();
+        return entry._key;
+    }
+
+    /**
+     * Returns the entry with the lowest key of this map.
+     *
+     * @return the first entry or <code>null</code> if this map is empty.
+     */
+    public final Entry/*<K,V>*/firstEntry() {
+        Entry entry = _hasFrom ? _tree.find(_fromInclusive ? Tree.CEILING
+                : Tree.HIGHER, _fromKey) : _tree.find(Tree.FIRST, null);
+        return (Entry/*<K,V>*/) (((entry != null) && !tooHigh(entry._key)) ? entry
+                : null);
+    }
+
+    /**
+     * Returns the entry with the highest key of this map.
+     *
+     * @return the last entry or <code>null</code> if this map is empty.
+     */
+    public final Entry/*<K,V>*/lastEntry() {
+        Entry entry = _hasTo ? _tree.find(_toInclusive ? Tree.FLOOR
+                : Tree.LOWER, _toKey) : _tree.find(Tree.LAST, null);
+        return (Entry/*<K,V>*/) (((entry != null) && !tooLow(entry._key)) ? entry
+                : null);
+    }
+
+    /**
+     * Returns the entry with the greatest key less than or equal to the
+     * specified key.
+     *
+     * @param key the key.
+     * @return the corresponding entry or <code>null</code> if none.
+     */
+    public final Entry/*<K,V>*/floorEntry(Object/*{K}*/key) {
+        return below(Tree.FLOOR, key);
+    }
+
+    /**
+     * Returns the entry with the greatest key strictly less than the
+     * specified key.
+     *
+     * @param key the key.
+     * @return the corresponding entry or <code>null</code> if none.
+     */
+    public final Entry/*<K,V>*/lowerEntry(Object/*{K}*/key) {
+        return below(Tree.LOWER, key);
+    }
+
+    /**
+     * Returns the entry with the least key greater than or equal to the
+     * specified key.
+     *
+     * @param key the key.
+     * @return the corresponding entry or <code>null</code> if none.
+     */
+    public final Entry/*<K,V>*/ceilingEntry(Object/*{K}*/key) {
+        return above(Tree.CEILING, key);
+    }
+
+    /**
+     * Returns the entry with the least key strictly greater than the
+     * specified key.
+     *
+     * @param key the key.
+     * @return the corresponding entry or <code>null</code> if none.
+     */
+    public final Entry/*<K,V>*/higherEntry(Object/*{K}*/key) {
+        return above(Tree.HIGHER, key);
+    }
+
+    /**
+     * Returns the greatest key less than or equal to the specified key.
+     *
+     * @param key the key.
+     * @return the corresponding key or <code>null</code> if none.
+     */
+    public final Object/*{K}*/floorKey(Object/*{K}*/key) {
+        Entry/*<K,V>*/entry = floorEntry(key);
+        return (entry != null) ? entry._key : null;
+    }
+
+    /**
+     * Returns the greatest key strictly less than the specified key.
+     *
+     * @param key the key.
+     * @return the corresponding key or <code>null</code> if none.
+     */
+    public final Object/*{K}*/lowerKey(Object/*{K}*/key) {
+        Entry/*<K,V>*/entry = lowerEntry(key);
+        return (entry != null) ? entry._key : null;
+    }
+
+    /**
+     * Returns the least key greater than or equal to the specified key.
+     *
+     * @param key the key.
+     * @return the corresponding key or <code>null</code> if none.
+     */
+    public final Object/*{K}*/ceilingKey(Object/*{K}*/key) {
+        Entry/*<K,V>*/entry = ceilingEntry(key);
+        return (entry != null) ? entry._key : null;
+    }
+
+    /**
+     * Returns the least key strictly greater than the specified key.
+     *
+     * @param key the key.
+     * @return the corresponding key or <code>null</code> if none.
+     */
+    public final Object/*{K}*/higherKey(Object/*{K}*/key) {
+        Entry/*<K,V>*/entry = higherEntry(key);
+        return (entry != null) ? entry._key : null;
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys range from
+     * <code>fromKey</code>, inclusive, to <code>toKey</code>, exclusive.
+     *
+     * @param fromKey the low endpoint (inclusive) of the keys in the view.
+     * @param toKey the high endpoint (exclusive) of the keys in the view.
+     * @return a view of the specified range within this map.
+     * @throws IllegalArgumentException if <code>fromKey</code> is greater
+     *         than <code>toKey</code> or if a bound lies outside the range
+     *         of this view.
+     */
+    public final SortedMap/*<K,V>*/subMap(Object/*{K}*/fromKey,
+            Object/*{K}*/toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys range from
+     * <code>fromKey</code> to <code>toKey</code>.
+     *
+     * @param fromKey the low endpoint of the keys in the view.
+     * @param fromInclusive <code>true</code> if the low endpoint is included.
+     * @param toKey the high endpoint of the keys in the view.
+     * @param toInclusive <code>true</code> if the high endpoint is included.
+     * @return a view of the specified range within this map.
+     * @throws IllegalArgumentException if <code>fromKey</code> is greater
+     *         than <code>toKey</code> or if a bound lies outside the range
+     *         of this view.
+     */
+    public final FastSortedMap/*<K,V>*/subMap(Object/*{K}*/fromKey,
+            boolean fromInclusive, Object/*{K}*/toKey, boolean toInclusive) {
+        if (_tree._keyComparator.compare(fromKey, toKey) > 0)
+            throw new IllegalArgumentException("fromKey > toKey");
+        return view(true, fromKey, fromInclusive, true, toKey, toInclusive);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys are strictly
+     * less than <code>toKey</code>.
+     *
+     * @param toKey the high endpoint (exclusive) of the keys in the view.
+     * @return a view of the specified range within this map.
+     * @throws IllegalArgumentException if <code>toKey</code> lies outside
+     *         the range of this view.
+     */
+    public final SortedMap/*<K,V>*/headMap(Object/*{K}*/toKey) {
+        return headMap(toKey, false);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys are less than
+     * (or equal to, if <code>inclusive</code>) <code>toKey</code>.
+     *
+     * @param toKey the high endpoint of the keys in the view.
+     * @param inclusive <code>true</code> if the high endpoint is included.
+     * @return a view of the specified range within this map.
+     * @throws IllegalArgumentException if <code>toKey</code> lies outside
+     *         the range of this view.
+     */
+    public final FastSortedMap/*<K,V>*/headMap(Object/*{K}*/toKey,
+            boolean inclusive) {
+        return view(false, null, false, true, toKey, inclusive);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys are greater than
+     * or equal to <code>fromKey</code>.
+     *
+     * @param fromKey the low endpoint (inclusive) of the keys in the view.
+     * @return a view of the specified range within this map.
+     * @throws IllegalArgumentException if <code>fromKey</code> lies outside
+     *         the range of this view.
+     */
+    public final SortedMap/*<K,V>*/tailMap(Object/*{K}*/fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Returns a view of the portion of this map whose keys are greater than
+     * (or equal to, if <code>inclusive</code>) <code>fromKey</code>.
+     *
+     * @param fromKey the low endpoint of the keys in the view.
+     * @param inclusive <code>true</code> if the low endpoint is included.
+     * @return a view of the specified range within this map.
+     * @throws IllegalArgumentException if <code>fromKey</code> lies outside
+     *         the range of this view.
+     */
+    public final FastSortedMap/*<K,V>*/tailMap(Object/*{K}*/fromKey,
+            boolean inclusive) {
+        return view(true, fromKey, inclusive, false, null, false);
+    }
+
+    /**
+     * Returns a {@link FastCollection} view of the values contained in this
+     * map (in key order). The collection supports element removal but not
+     * element addition.
+     *
+     * @return a collection view of the values contained in this map
+     *         (instance of {@link FastCollection}).
+     */
+    public final Collection/*<V>*/values() {
+        if (_values == null) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                public void run() {
+                    _values = new Values();
+                }
+            });
+        }
+        return _values;
+    }
+
+    /**
+     * Returns a {@link FastCollection} view of the keys contained in this
+     * map (in key order). The set supports element removal but not element
+     * addition.
+     *
+     * @return a set view of the keys contained in this map
+     *         (instance of {@link FastCollection}).
+     */
+    public final Set/*<K>*/keySet() {
+        if (_keySet == null) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                public void run() {
+                    _keySet = new KeySet();
+                }
+            });
+        }
+        return _keySet;
+    }
+
+    /**
+     * Returns a {@link FastCollection} view of the mappings contained in this
+     * map (in key order). Each element in the returned collection is a
+     * <code>FastSortedMap.Entry</code>. The set supports element removal but
+     * not element addition.
+     *
+     * @return a collection view of the mappings contained in this map
+     *         (instance of {@link FastCollection}).
+     */
+    public final Set/*<Map.Entry<K,V>>*/entrySet() {
+        if (_entrySet == null) {
+            MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                public void run() {
+                    _entrySet = new EntrySet();
+                }
+            });
+        }
+        return _entrySet;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     *
+     * @param obj the object to be compared for equality with this map.
+     * @return <code>true</code> if the specified object is a map having
+     *         the same mappings; <code>false</code> otherwise.
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        } else if (obj instanceof Map) {
+            Map/*<?,?>*/that = (Map) obj;
+            return this.entrySet().equals(that.entrySet());
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the hash code value for this map.
+     *
+     * @return the hash code value for this map.
+     */
+    public int hashCode() {
+        int code = 0;
+        for (Entry e = head(), end = tail(); (e = e._next) != end;) {
+            code += e.hashCode();
+        }
+        return code;
+    }
+
+    /**
+     * Returns the textual representation of this map.
+     *
+     * @return the textual representation of the entry set.
+     */
+    public Text toText() {
+        return Text.valueOf(entrySet());
+    }
+
+    /**
+     * Returns the <code>String</code> representation of this map.
+     *
+     * @return <code>toText().toString()</code>
+     */
+    public final String toString() {
+        return toText().toString();
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        _tree._isShared = false; // Only reset if no thread use it.
+        _tree.clear();
+        _tree._keyComparator = FastComparator.DEFAULT;
+        _tree._valueComparator = FastComparator.DEFAULT;
+    }
+
+    // Requires special handling during de-serialization process.
+    private void readObject(ObjectInputStream stream) throws IOException,
+            ClassNotFoundException {
+        _tree = new Tree();
+        _tree._keyComparator = (FastComparator) stream.readObject();
+        _tree._valueComparator = (FastComparator) stream.readObject();
+        final int size = stream.readInt();
+        for (int i = 0; i < size; i++) {
+            Object key = stream.readObject();
+            Object value = stream.readObject();
+            _tree.put(key, value, false);
+        }
+        _tree._isShared = stream.readBoolean();
+    }
+
+    // Requires special handling during serialization process.
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.writeObject(_tree._keyComparator);
+        stream.writeObject(_tree._valueComparator);
+        stream.writeInt(size());
+        for (Entry e = head(), end = tail(); (e = e._next) != end;) {
+            stream.writeObject(e._key);
+            stream.writeObject(e._value);
+        }
+        stream.writeBoolean(_tree._isShared);
+    }
+
+    // Returns the first entry of this view or the view tail if empty.
+    private Entry lowEntry() {
+        if (!_hasFrom)
+            return _tree._head._next;
+        Entry entry = _tree.find(_fromInclusive ? Tree.CEILING : Tree.HIGHER,
+                _fromKey);
+        return (entry != null) ? entry : _tree._tail;
+    }
+
+    private Entry/*<K,V>*/below(int op, Object key) {
+        if (tooHigh(key))
+            return lastEntry();
+        Entry entry = _tree.find(op, key);
+        return (Entry/*<K,V>*/) (((entry != null) && !tooLow(entry._key)) ? entry
+                : null);
+    }
+
+    private Entry/*<K,V>*/above(int op, Object key) {
+        if (tooLow(key))
+            return firstEntry();
+        Entry entry = _tree.find(op, key);
+        return (Entry/*<K,V>*/) (((entry != null) && !tooHigh(entry._key)) ? entry
+                : null);
+    }
+
+    private boolean tooLow(Object key) {
+        if (!_hasFrom)
+            return false;
+        int cmp = _tree._keyComparator.compare(key, _fromKey);
+        return (cmp < 0) || ((cmp == 0) && !_fromInclusive);
+    }
+
+    private boolean tooHigh(Object key) {
+        if (!_hasTo)
+            return false;
+        int cmp = _tree._keyComparator.compare(key, _toKey);
+        return (cmp > 0) || ((cmp == 0) && !_toInclusive);
+    }
+
+    private boolean inRange(Object key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    private void checkRange(Object key) {
+        if (!inRange(key))
+            throw new IllegalArgumentException("Key out of range");
+    }
+
+    // Creates a view intersecting this view with the specified bounds.
+    private FastSortedMap/*<K,V>*/view(boolean hasFrom, Object/*{K}*/fromKey,
+            boolean fromInclusive, boolean hasTo, Object/*{K}*/toKey,
+            boolean toInclusive) {
+        final FastComparator comparator = _tree._keyComparator;
+        if (hasFrom && _hasFrom) {
+            int cmp = comparator.compare(fromKey, _fromKey);
+            if (cmp < 0)
+                throw new IllegalArgumentException("fromKey out of range");
+            if (cmp == 0) {
+                fromInclusive &= _fromInclusive;
+            }
+        } else if (_hasFrom) {
+            hasFrom = true;
+            fromKey = _fromKey;
+            fromInclusive = _fromInclusive;
+        }
+        if (hasTo && _hasTo) {
+            int cmp = comparator.compare(toKey, _toKey);
+            if (cmp > 0)
+                throw new IllegalArgumentException("toKey out of range");
+            if (cmp == 0) {
+                toInclusive &= _toInclusive;
+            }
+        } else if (_hasTo) {
+            hasTo = true;
+            toKey = _toKey;
+            toInclusive = _toInclusive;
+        }
+        if (hasFrom && _hasTo && (comparator.compare(fromKey, _toKey) > 0))
+            throw new IllegalArgumentException("fromKey out of range");
+        if (hasTo && _hasFrom && (comparator.compare(toKey, _fromKey) < 0))
+            throw new IllegalArgumentException("toKey out of range");
+        return new FastSortedMap/*<K,V>*/(_tree, hasFrom, fromKey,
+                fromInclusive, hasTo, toKey, toInclusive);
+    }
+
+    private final class Values extends FastCollection {
+
+        public int size() {
+            return FastSortedMap.this.size();
+        }
+
+        public void clear() {
+            FastSortedMap.this.clear();
+        }
+
+        public Record head() {
+            return FastSortedMap.this.head();
+        }
+
+        public Record tail() {
+            return FastSortedMap.this.tail();
+        }
+
+        public Object valueOf(Record record) {
+            return ((Entry) record)._value;
+        }
+
+        public void delete(Record record) {
+            FastSortedMap.this.remove(((Entry) record)._key);
+        }
+
+        public FastComparator getValueComparator() {
+            return _tree._valueComparator;
+        }
+    }
+
+    private final class KeySet extends FastCollection implements Set {
+
+        public int size() {
+            return FastSortedMap.this.size();
+        }
+
+        public void clear() {
+            FastSortedMap.this.clear();
+        }
+
+        public boolean contains(Object obj) { // Optimization.
+            return FastSortedMap.this.containsKey(obj);
+        }
+
+        public boolean remove(Object obj) { // Optimization.
+            if (FastSortedMap.this.getEntry(obj) == null)
+                return false;
+            FastSortedMap.this.remove(obj);
+            return true;
+        }
+
+        public Record head() {
+            return FastSortedMap.this.head();
+        }
+
+        public Record tail() {
+            return FastSortedMap.this.tail();
+        }
+
+        public Object valueOf(Record record) {
+            return ((Entry) record)._key;
+        }
+
+        public void delete(Record record) {
+            FastSortedMap.this.remove(((Entry) record)._key);
+        }
+
+        public FastComparator getValueComparator() {
+            return _tree._keyComparator;
+        }
+    }
+
+    private final class EntrySet extends FastCollection implements Set {
+
+        public int size() {
+            return FastSortedMap.this.size();
+        }
+
+        public void clear() {
+            FastSortedMap.this.clear();
+        }
+
+        public boolean contains(Object obj) { // Optimization.
+            if (obj instanceof Map.Entry) {
+                Map.Entry thatEntry = (Map.Entry) obj;
+                Entry thisEntry = getEntry(thatEntry.getKey());
+                if (thisEntry == null)
+                    return false;
+                return _tree._valueComparator.areEqual(thisEntry._value,
+                        thatEntry.getValue());
+            } else {
+                return false;
+            }
+        }
+
+        public Record head() {
+            return FastSortedMap.this.head();
+        }
+
+        public Record tail() {
+            return FastSortedMap.this.tail();
+        }
+
+        public Object valueOf(Record record) {
+            return (Map.Entry) record;
+        }
+
+        public void delete(Record record) {
+            FastSortedMap.this.remove(((Entry) record)._key);
+        }
+
+        public FastComparator getValueComparator() {
+            return _entryComparator;
+        }
+
+        private final FastComparator _entryComparator = new FastComparator() {
+
+            public boolean areEqual(Object o1, Object o2) {
+                if ((o1 instanceof Map.Entry) && (o2 instanceof Map.Entry)) {
+                    Map.Entry e1 = (Map.Entry) o1;
+                    Map.Entry e2 = (Map.Entry) o2;
+                    return (_tree._keyComparator.compare(e1.getKey(), e2.getKey()) == 0)
+                            && _tree._valueComparator.areEqual(e1.getValue(), e2.getValue());
+                }
+                return (o1 == null) && (o2 == null);
+            }
+
+            public int compare(Object o1, Object o2) {
+                return _tree._keyComparator.compare(((Map.Entry) o1).getKey(),
+                        ((Map.Entry) o2).getKey());
+            }
+
+            public int hashCodeOf(Object obj) {
+                Map.Entry entry = (Map.Entry) obj;
+                return _tree._keyComparator.hashCodeOf(entry.getKey())
+                        + _tree._valueComparator.hashCodeOf(entry.getValue());
+            }
+        };
+    }
+
+    /**
+     * This class represents a {@link FastSortedMap} entry; entries are
+     * linked in key order.
+     */
+    public static final class Entry/*<K,V>*/implements Map.Entry/*<K,V>*/,
+            Record, Realtime {
+
+        /**
+         * Holds the next entry (or the next free entry when pooled).
+         */
+        private Entry/*<K,V>*/_next;
+
+        /**
+         * Holds the previous entry.
+         */
+        private Entry/*<K,V>*/_previous;
+
+        /**
+         * Holds the entry key.
+         */
+        private Object/*{K}*/_key;
+
+        /**
+         * Holds the entry value.
+         */
+        private Object/*{V}*/_value;
+
+        /**
+         * Default constructor.
+         */
+        private Entry() {
+        }
+
+        /**
+         * Returns the entry after this one.
+         *
+         * @return the next entry.
+         */
+        public Record/*Entry<K,V>*/getNext() {
+            return _next;
+        }
+
+        /**
+         * Returns the entry before this one.
+         *
+         * @return the previous entry.
+         */
+        public Record/*Entry<K,V>*/getPrevious() {
+            return _previous;
+        }
+
+        /**
+         * Returns the key for this entry.
+         *
+         * @return the entry key.
+         */
+        public Object/*{K}*/getKey() {
+            return _key;
+        }
+
+        /**
+         * Returns the value for this entry.
+         *
+         * @return the entry value.
+         */
+        public Object/*{V}*/getValue() {
+            return _value;
+        }
+
+        /**
+         * Sets the value for this entry.
+         *
+         * @param value the new value.
+         * @return the previous value.
+         */
+        public Object/*{V}*/setValue(Object/*{V}*/value) {
+            Object/*{V}*/old = _value;
+            _value = value;
+            return old;
+        }
+
+        /**
+         * Indicates if this entry is considered equals to the specified entry
+         * (using default value and key equality comparator to ensure symetry).
+         *
+         * @param that the object to test for equality.
+         * @return <code>true<code> if both entry have equal keys and values.
+         *         <code>false<code> otherwise.
+         */
+        public boolean equals(Object that) {
+            if (that instanceof Map.Entry) {
+                Map.Entry entry = (Map.Entry) that;
+                return FastComparator.DEFAULT.areEqual(_key, entry.getKey())
+                        && FastComparator.DEFAULT.areEqual(_value, entry.getValue());
+            } else {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the hash code for this entry.
+         *
+         * @return this entry hash code.
+         */
+        public int hashCode() {
+            return ((_key != null) ? _key.hashCode() : 0)
+                    ^ ((_value != null) ? _value.hashCode() : 0);
+        }
+
+        // Implements Realtime.
+        public Text toText() {
+            return Text.valueOf(_key).plus("=").plus(_value);
+        }
+    }
+
+    /**
+     * This class represents a B+-tree node.
+     */
+    private static abstract class Node {
+
+        /**
+         * Holds the number of entries (leaf) or children (inner node).
+         */
+        int _size;
+
+        /**
+         * Holds the next free node (when pooled).
+         */
+        Node _nextFree;
+    }
+
+    /**
+     * This class represents a leaf node (sorted entries).
+     */
+    private static final class Leaf extends Node {
+
+        final Entry[] _entries = new Entry[Tree.N];
+    }
+
+    /**
+     * This class represents an inner node; <code>_keys[i]</code> is less
+     * than or equal to any key of <code>_children[i]</code> and greater
+     * than any key of <code>_children[i - 1]</code>.
+     */
+    private static final class Inner extends Node {
+
+        final Object[] _keys = new Object[Tree.N];
+
+        final Node[] _children = new Node[Tree.N];
+    }
+
+    /**
+     * This class represents the B+-tree shared by a map and its views.
+     */
+    private static final class Tree {
+
+        static final int N = 32; // Node capacity.
+
+        static final int MIN = N >> 1; // Minimum node size (except root).
+
+        static final int GET = 0;
+
+        static final int CEILING = 1;
+
+        static final int HIGHER = 2;
+
+        static final int FLOOR = 3;
+
+        static final int LOWER = 4;
+
+        static final int FIRST = 5;
+
+        static final int LAST = 6;
+
+        final Entry _head = new Entry();
+
+        final Entry _tail = new Entry();
+
+        FastComparator _keyComparator = FastComparator.DEFAULT;
+
+        FastComparator _valueComparator = FastComparator.DEFAULT;
+
+        boolean _isShared;
+
+        /*@JVM-1.5+@
+        // Holds the lock of shared trees (read lock for look-ups).
+        final java.util.concurrent.locks.ReentrantReadWriteLock _lock
+            = new java.util.concurrent.locks.ReentrantReadWriteLock();
+        /**/
+
+        Node _root;
+
+        int _height; // Root is a leaf when zero.
+
+        int _size;
+
+        Leaf _freeLeaves;
+
+        Inner _freeInners;
+
+        Entry _freeEntries;
+
+        // Holds the results of insertion/removal.
+        Object _oldValue;
+
+        Entry _removed;
+
+        Object _splitKey;
+
+        Tree() {
+            _head._next = _tail;
+            _tail._previous = _head;
+            _root = newLeaf();
+        }
+
+        Entry find(int op, Object key) {
+            if (!_isShared)
+                return findImpl(op, key);
+            /*@JVM-1.5+@
+            if (true) {
+                _lock.readLock().lock();
+                try {
+                    return findImpl(op, key);
+                } finally {
+                    _lock.readLock().unlock();
+                }
+            }
+            /**/
+            synchronized (this) { // Read-write locks not supported.
+                return findImpl(op, key);
+            }
+        }
+
+        private Entry findImpl(int op, Object key) {
+            if (op == FIRST) {
+                Entry entry = _head._next;
+                return (entry != _tail) ? entry : null;
+            }
+            if (op == LAST) {
+                Entry entry = _tail._previous;
+                return (entry != _head) ? entry : null;
+            }
+            final Leaf leaf = leafOf(key);
+            int i = search(leaf, key);
+            if (op == GET)
+                return (i >= 0) ? leaf._entries[i] : null;
+            if ((op == CEILING) || (op == HIGHER)) {
+                i = (i >= 0) ? ((op == CEILING) ? i : i + 1) : -i - 1;
+                Entry entry = (i < leaf._size) ? leaf._entries[i]
+                        : (leaf._size == 0) ? _tail
+                                : leaf._entries[leaf._size - 1]._next;
+                return (entry != _tail) ? entry : null;
+            }
+            i = (i >= 0) ? ((op == FLOOR) ? i : i - 1) : -i - 2;
+            Entry entry = (i >= 0) ? leaf._entries[i] : (leaf._size == 0) ? _head
+                    : leaf._entries[0]._previous;
+            return (entry != _head) ? entry : null;
+        }
+
+        private Leaf leafOf(Object key) {
+            Node node = _root;
+            for (int h = _height; h > 0; h--) {
+                Inner inner = (Inner) node;
+                node = inner._children[childIndex(inner, key)];
+            }
+            return (Leaf) node;
+        }
+
+        // Returns the index of the key or -(insertion point) - 1.
+        private int search(Leaf leaf, Object key) {
+            final Entry[] entries = leaf._entries;
+            int low = 0;
+            int high = leaf._size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = _keyComparator.compare(entries[mid]._key, key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        // Returns the index of the child which may contain the key.
+        private int childIndex(Inner inner, Object key) {
+            final Object[] keys = inner._keys;
+            int low = 1;
+            int high = inner._size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (_keyComparator.compare(keys[mid], key) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low - 1;
+        }
+
+        Object put(Object key, Object value, boolean onlyIfAbsent) {
+            if (key == null)
+                throw new NullPointerException();
+            if (!_isShared)
+                return putImpl(key, value, onlyIfAbsent);
+            /*@JVM-1.5+@
+            if (true) {
+                _lock.writeLock().lock();
+                try {
+                    return putImpl(key, value, onlyIfAbsent);
+                } finally {
+                    _lock.writeLock().unlock();
+                }
+            }
+            /**/
+            synchronized (this) {
+                return putImpl(key, value, onlyIfAbsent);
+            }
+        }
+
+        private Object putImpl(Object key, Object value, boolean onlyIfAbsent) {
+            _oldValue = null;
+            Node split = insert(_root, _height, key, value, onlyIfAbsent);
+            if (split != null) { // Grows (new root).
+                Inner root = newInner();
+                root._children[0] = _root;
+                root._children[1] = split;
+                root._keys[1] = _splitKey;
+                root._size = 2;
+                _root = root;
+                _height++;
+            }
+            _splitKey = null;
+            Object oldValue = _oldValue;
+            _oldValue = null;
+            return oldValue;
+        }
+
+        // Returns the new right sibling if the node has been split.
+        private Node insert(Node node, int height, Object key, Object value,
+                boolean onlyIfAbsent) {
+            if (height == 0) {
+                final Leaf leaf = (Leaf) node;
+                int i = search(leaf, key);
+                if (i >= 0) {
+                    final Entry entry = leaf._entries[i];
+                    _oldValue = entry._value;
+                    if (!onlyIfAbsent) {
+                        entry._value = value;
+                    }
+                    return null;
+                }
+                i = -i - 1;
+                final Entry entry = newEntry();
+                entry._key = key;
+                entry._value = value;
+                link(entry, (i < leaf._size) ? leaf._entries[i]
+                        : (i > 0) ? leaf._entries[i - 1]._next : _tail);
+                _size++;
+                if (leaf._size < N) {
+                    insert(leaf, i, entry);
+                    return null;
+                }
+                final Leaf right = newLeaf(); // Splits.
+                System.arraycopy(leaf._entries, MIN, right._entries, 0, N - MIN);
+                clear(leaf._entries, MIN, N);
+                leaf._size = MIN;
+                right._size = N - MIN;
+                if (i <= MIN) {
+                    insert(leaf, i, entry);
+                } else {
+                    insert(right, i - MIN, entry);
+                }
+                _splitKey = right._entries[0]._key;
+                return right;
+            }
+            final Inner inner = (Inner) node;
+            final int ci = childIndex(inner, key);
+            final Node split = insert(inner._children[ci], height - 1, key,
+                    value, onlyIfAbsent);
+            if (split == null)
+                return null;
+            final Object splitKey = _splitKey;
+            if (inner._size < N) {
+                insert(inner, ci + 1, splitKey, split);
+                return null;
+            }
+            final Inner right = newInner(); // Splits.
+            System.arraycopy(inner._keys, MIN, right._keys, 0, N - MIN);
+            System.arraycopy(inner._children, MIN, right._children, 0, N - MIN);
+            clear(inner._keys, MIN, N);
+            clear(inner._children, MIN, N);
+            inner._size = MIN;
+            right._size = N - MIN;
+            if (ci + 1 <= MIN) {
+                insert(inner, ci + 1, splitKey, split);
+            } else {
+                insert(right, ci + 1 - MIN, splitKey, split);
+            }
+            _splitKey = right._keys[0];
+            right._keys[0] = null;
+            return right;
+        }
+
+        private static void insert(Leaf leaf, int i, Entry entry) {
+            System.arraycopy(leaf._entries, i, leaf._entries, i + 1, leaf._size - i);
+            leaf._entries[i] = entry;
+            leaf._size++;
+        }
+
+        private static void insert(Inner inner, int i, Object key, Node child) {
+            System.arraycopy(inner._keys, i, inner._keys, i + 1, inner._size - i);
+            System.arraycopy(inner._children, i, inner._children, i + 1,
+                    inner._size - i);
+            inner._keys[i] = key;
+            inner._children[i] = child;
+            inner._size++;
+        }
+
+        Object remove(Object key) {
+            if (!_isShared)
+                return removeImpl(key);
+            /*@JVM-1.5+@
+            if (true) {
+                _lock.writeLock().lock();
+                try {
+                    return removeImpl(key);
+                } finally {
+                    _lock.writeLock().unlock();
+                }
+            }
+            /**/
+            synchronized (this) {
+                return removeImpl(key);
+            }
+        }
+
+        private Object removeImpl(Object key) {
+            remove(_root, _height, key);
+            final Entry entry = _removed;
+            if (entry == null)
+                return null;
+            _removed = null;
+            if ((_height > 0) && (_root._size == 1)) { // Shrinks.
+                Inner root = (Inner) _root;
+                _root = root._children[0];
+                _height--;
+                free(root);
+            }
+            final Object oldValue = entry._value;
+            entry._previous._next = entry._next;
+            entry._next._previous = entry._previous;
+            _size--;
+            if (!_isShared) { // Recycles.
+                entry._key = null;
+                entry._value = null;
+                entry._previous = null;
+                entry._next = _freeEntries;
+                _freeEntries = entry;
+            } // Else keeps links for concurrent iterations.
+            return oldValue;
+        }
+
+        private void remove(Node node, int height, Object key) {
+            if (height == 0) {
+                final Leaf leaf = (Leaf) node;
+                final int i = search(leaf, key);
+                if (i < 0)
+                    return;
+                _removed = leaf._entries[i];
+                System.arraycopy(leaf._entries, i + 1, leaf._entries, i,
+                        leaf._size - i - 1);
+                leaf._entries[--leaf._size] = null;
+                return;
+            }
+            final Inner inner = (Inner) node;
+            final int ci = childIndex(inner, key);
+            final Node child = inner._children[ci];
+            remove(child, height - 1, key);
+            if (child._size < MIN) {
+                rebalance(inner, ci, height - 1 == 0);
+            }
+        }
+
+        // Borrows from or merges with a sibling of the underflowing child.
+        private void rebalance(Inner parent, int ci, boolean isLeaf) {
+            if (ci > 0) {
+                final Node left = parent._children[ci - 1];
+                final Node child = parent._children[ci];
+                if (left._size > MIN) {
+                    if (isLeaf) {
+                        final Leaf l = (Leaf) left;
+                        final Leaf c = (Leaf) child;
+                        insert(c, 0, l._entries[--l._size]);
+                        l._entries[l._size] = null;
+                        parent._keys[ci] = c._entries[0]._key;
+                    } else {
+                        final Inner l = (Inner) left;
+                        final Inner c = (Inner) child;
+                        System.arraycopy(c._keys, 1, c._keys, 2, c._size - 1);
+                        System.arraycopy(c._children, 0, c._children, 1, c._size);
+                        c._keys[1] = parent._keys[ci];
+                        c._children[0] = l._children[--l._size];
+                        c._size++;
+                        parent._keys[ci] = l._keys[l._size];
+                        l._keys[l._size] = null;
+                        l._children[l._size] = null;
+                    }
+                } else {
+                    merge(parent, ci - 1, isLeaf);
+                }
+            } else {
+                final Node child = parent._children[ci];
+                final Node right = parent._children[ci + 1];
+                if (right._size > MIN) {
+                    if (isLeaf) {
+                        final Leaf c = (Leaf) child;
+                        final Leaf r = (Leaf) right;
+                        c._entries[c._size++] = r._entries[0];
+                        System.arraycopy(r._entries, 1, r._entries, 0, --r._size);
+                        r._entries[r._size] = null;
+                        parent._keys[ci + 1] = r._entries[0]._key;
+                    } else {
+                        final Inner c = (Inner) child;
+                        final Inner r = (Inner) right;
+                        c._keys[c._size] = parent._keys[ci + 1];
+                        c._children[c._size++] = r._children[0];
+                        parent._keys[ci + 1] = r._keys[1];
+                        System.arraycopy(r._keys, 2, r._keys, 1, r._size - 2);
+                        System.arraycopy(r._children, 1, r._children, 0, --r._size);
+                        r._keys[r._size] = null;
+                        r._children[r._size] = null;
+                    }
+                } else {
+                    merge(parent, ci, isLeaf);
+                }
+            }
+        }
+
+        // Merges the child at the specified index with its right sibling.
+        private void merge(Inner parent, int i, boolean isLeaf) {
+            if (isLeaf) {
+                final Leaf l = (Leaf) parent._children[i];
+                final Leaf r = (Leaf) parent._children[i + 1];
+                System.arraycopy(r._entries, 0, l._entries, l._size, r._size);
+                l._size += r._size;
+                free(r);
+            } else {
+                final Inner l = (Inner) parent._children[i];
+                final Inner r = (Inner) parent._children[i + 1];
+                l._keys[l._size] = parent._keys[i + 1];
+                System.arraycopy(r._keys, 1, l._keys, l._size + 1, r._size - 1);
+                System.arraycopy(r._children, 0, l._children, l._size, r._size);
+                l._size += r._size;
+                free(r);
+            }
+            System.arraycopy(parent._keys, i + 2, parent._keys, i + 1,
+                    parent._size - i - 2);
+            System.arraycopy(parent._children, i + 2, parent._children, i + 1,
+                    parent._size - i - 2);
+            parent._size--;
+            parent._keys[parent._size] = null;
+            parent._children[parent._size] = null;
+        }
+
+        void clear() {
+            if (!_isShared) {
+                clearImpl();
+                return;
+            }
+            /*@JVM-1.5+@
+            if (true) {
+                _lock.writeLock().lock();
+                try {
+                    clearImpl();
+                } finally {
+                    _lock.writeLock().unlock();
+                }
+                return;
+            }
+            /**/
+            synchronized (this) {
+                clearImpl();
+            }
+        }
+
+        private void clearImpl() {
+            if (!_isShared) { // Recycles entries.
+                for (Entry e = _head._next, end = _tail; e != end;) {
+                    Entry next = e._next;
+                    e._key = null;
+                    e._value = null;
+                    e._previous = null;
+                    e._next = _freeEntries;
+                    _freeEntries = e;
+                    e = next;
+                }
+            }
+            _head._next = _tail;
+            _tail._previous = _head;
+            freeAll(_root, _height);
+            _root = newLeaf();
+            _height = 0;
+            _size = 0;
+        }
+
+        private void freeAll(Node node, int height) {
+            if (height > 0) {
+                Inner inner = (Inner) node;
+                for (int i = 0; i < inner._size; i++) {
+                    freeAll(inner._children[i], height - 1);
+                }
+            }
+            free(node);
+        }
+
+        private void free(Node node) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                clear(leaf._entries, 0, leaf._size);
+                leaf._size = 0;
+                leaf._nextFree = _freeLeaves;
+                _freeLeaves = leaf;
+            } else {
+                Inner inner = (Inner) node;
+                clear(inner._keys, 0, inner._size);
+                clear(inner._children, 0, inner._size);
+                inner._size = 0;
+                inner._nextFree = _freeInners;
+                _freeInners = inner;
+            }
+        }
+
+        private static void clear(Object[] array, int from, int to) {
+            for (int i = from; i < to;) {
+                array[i++] = null;
+            }
+        }
+
+        private static void link(Entry entry, Entry next) {
+            final Entry previous = next._previous;
+            entry._previous = previous;
+            entry._next = next;
+            previous._next = entry; // Entry fields set first (iterations).
+            next._previous = entry;
+        }
+
+        private Entry newEntry() {
+            if (_freeEntries == null) {
+                MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                    public void run() {
+                        for (int i = 0; i < N; i++) {
+                            Entry entry = new Entry();
+                            entry._next = _freeEntries;
+                            _freeEntries = entry;
+                        }
+                    }
+                });
+            }
+            final Entry entry = _freeEntries;
+            _freeEntries = entry._next;
+            return entry;
+        }
+
+        private Leaf newLeaf() {
+            if (_freeLeaves == null) {
+                MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                    public void run() {
+                        _freeLeaves = new Leaf();
+                    }
+                });
+            }
+            final Leaf leaf = _freeLeaves;
+            _freeLeaves = (Leaf) leaf._nextFree;
+            leaf._nextFree = null;
+            return leaf;
+        }
+
+        private Inner newInner() {
+            if (_freeInners == null) {
+                MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+
+                    public void run() {
+                        _freeInners = new Inner();
+                    }
+                });
+            }
+            final Inner inner = _freeInners;
+            _freeInners = (Inner) inner._nextFree;
+            inner._nextFree = null;
+            return inner;
+        }
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,411 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.util;
+
+import java.io.IOException;
+
+import _templates.java.io.ObjectInputStream;
+import _templates.java.io.ObjectOutputStream;
+import _templates.java.util.Collection;
+import _templates.java.util.Comparator;
+import _templates.java.util.SortedSet;
+import _templates.javolution.context.ObjectFactory;
+import _templates.javolution.lang.Reusable;
+
+/**
+ * <p> This class represents a sorted set collection backed by a
+ *     {@link FastSortedMap}; elements are ordered using the set
+ *     {@link #setValueComparator value comparator}.</p>
+ *
+ * <p> Range views ({@link #subSet subSet}, {@link #headSet headSet},
+ *     {@link #tailSet tailSet}) are backed by the set and support the
+ *     navigation methods of <code>java.util.NavigableSet</code>. Iterations
+ *     without iterators are supported as for any {@link FastCollection}:[code]
+ *     FastSortedSet<Long> recent = timestamps.tailSet(now - 60000L, true);
+ *     for (FastCollection.Record r = recent.head(), end = recent.tail(); (r = r.getNext()) != end;) {
+ *         Long timestamp = recent.valueOf(r);
+ *     }[/code]</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class FastSortedSet/*<E>*/extends FastCollection/*<E>*/implements
+        SortedSet/*<E>*/, Reusable {
+
+    /**
+     * Holds the set factory.
+     */
+    private static final ObjectFactory FACTORY = new ObjectFactory() {
+
+        public Object create() {
+            return new FastSortedSet();
+        }
+    };
+
+    /**
+     * Holds the backing map.
+     */
+    private transient FastSortedMap _map;
+
+    /**
+     * Creates an empty sorted set.
+     */
+    public FastSortedSet() {
+        this(new FastSortedMap());
+    }
+
+    /**
+     * Creates a sorted set containing the specified elements.
+     *
+     * @param elements the elements to be placed into this set.
+     */
+    public FastSortedSet(Collection/*<? extends E>*/elements) {
+        this(new FastSortedMap());
+        addAll(elements);
+    }
+
+    /**
+     * Creates a set implemented using the specified map.
+     *
+     * @param map the backing map.
+     */
+    private FastSortedSet(FastSortedMap map) {
+        _map = map;
+    }
+
+    /**
+     * Returns a new, preallocated or {@link #recycle recycled} set instance
+     * (on the stack when executing in a {@link _templates.javolution.context.StackContext
+     * StackContext}).
+     *
+     * @return a new, preallocated or recycled set instance.
+     */
+    public static/*<E>*/FastSortedSet/*<E>*/newInstance() {
+        return (FastSortedSet/*<E>*/) FACTORY.object();
+    }
+
+    /**
+     * Recycles a set {@link #newInstance() instance} immediately
+     * (on the stack when executing in a {@link _templates.javolution.context.StackContext
+     * StackContext}).
+     */
+    public static void recycle(FastSortedSet instance) {
+        FACTORY.recycle(instance);
+    }
+
+    /**
+     * Returns the number of elements in this set (linear in the view size
+     * for bounded range views).
+     *
+     * @return the number of elements in this set.
+     */
+    public final int size() {
+        return _map.size();
+    }
+
+    /**
+     * Adds the specified value to this set if it is not already present.
+     *
+     * @param value the value to be added to this set.
+     * @return <code>true</code> if this set did not already contain the
+     *         specified element.
+     * @throws NullPointerException if the value is <code>null</code>.
+     * @throws IllegalArgumentException if the value is outside the range of
+     *         this view.
+     */
+    public final boolean add(Object/*{E}*/value) {
+        return _map.put(value, value) == null;
+    }
+
+    // Overrides (optimization).
+    public final void clear() {
+        _map.clear();
+    }
+
+    // Overrides (optimization).
+    public final boolean contains(Object o) {
+        return _map.containsKey(o);
+    }
+
+    // Overrides (optimization).
+    public final boolean remove(Object o) {
+        return _map.remove(o) != null;
+    }
+
+    /**
+     * Sets the comparator used to order the elements of this set; the
+     * comparator should be set while the set is empty.
+     *
+     * @param comparator the value comparator.
+     * @return <code>this</code>
+     */
+    public FastSortedSet/*<E>*/setValueComparator(
+            FastComparator/*<? super E>*/comparator) {
+        _map.setKeyComparator(comparator);
+        return this;
+    }
+
+    // Overrides.
+    public FastComparator/*<? super E>*/getValueComparator() {
+        return _map.getKeyComparator();
+    }
+
+    /**
+     * Returns the comparator used to order the elements of this set.
+     *
+     * @return the value comparator.
+     */
+    public final Comparator/*<? super E>*/comparator() {
+        return _map.getKeyComparator();
+    }
+
+    /**
+     * Sets the shared status of this set (and of its views); shared sets
+     * support concurrent reads and iterations without synchronization,
+     * updates are synchronized internally (see {@link FastSortedMap#shared}).
+     *
+     * @return <code>this</code>
+     */
+    public Collection/*<E>*/shared() {
+        _map.shared();
+        return this;
+    }
+
+    /**
+     * Returns the first (lowest) element of this set.
+     *
+     * @return the first element.
+     * @throws NoSuchElementException if this set is empty.
+     */
+    public final Object/*{E}*/first() {
+        return (Object/*{E}*/) _map.firstKey();
+    }
+
+    /**
+     * Returns the last (highest) element of this set.
+     *
+     * @return the last element.
+     * @throws NoSuchElementException if this set is empty.
+     */
+    public final Object/*{E}*/last() {
+        return (Object/*{E}*/) _map.lastKey();
+    }
+
+    /**
+     * Returns the greatest element less than or equal to the specified
+     * element.
+     *
+     * @param value the value to match.
+     * @return the corresponding element or <code>null</code> if none.
+     */
+    public final Object/*{E}*/floor(Object/*{E}*/value) {
+        return (Object/*{E}*/) _map.floorKey(value);
+    }
+
+    /**
+     * Returns the greatest element strictly less than the specified element.
+     *
+     * @param value the value to match.
+     * @return the corresponding element or <code>null</code> if none.
+     */
+    public final Object/*{E}*/lower(Object/*{E}*/value) {
+        return (Object/*{E}*/) _map.lowerKey(value);
+    }
+
+    /**
+     * Returns the least element greater than or equal to the specified
+     * element.
+     *
+     * @param value the value to match.
+     * @return the corresponding element or <code>null</code> if none.
+     */
+    public final Object/*{E}*/ceiling(Object/*{E}*/value) {
+        return (Object/*{E}*/) _map.ceilingKey(value);
+    }
+
+    /**
+     * Returns the least element strictly greater than the specified element.
+     *
+     * @param value the value to match.
+     * @return the corresponding element or <code>null</code> if none.
+     */
+    public final Object/*{E}*/higher(Object/*{E}*/value) {
+        return (Object/*{E}*/) _map.higherKey(value);
+    }
+
+    /**
+     * Removes and returns the first (lowest) element of this set.
+     *
+     * @return the first element or <code>null</code> if this set is empty.
+     */
+    public final Object/*{E}*/pollFirst() {
+        FastSortedMap.Entry entry = _map.firstEntry();
+        if (entry == null)
+            return null;
+        Object/*{E}*/value = (Object/*{E}*/) entry.getKey();
+        _map.remove(value);
+        return value;
+    }
+
+    /**
+     * Removes and returns the last (highest) element of this set.
+     *
+     * @return the last element or <code>null</code> if this set is empty.
+     */
+    public final Object/*{E}*/pollLast() {
+        FastSortedMap.Entry entry = _map.lastEntry();
+        if (entry == null)
+            return null;
+        Object/*{E}*/value = (Object/*{E}*/) entry.getKey();
+        _map.remove(value);
+        return value;
+    }
+
+    /**
+     * Returns a view of the portion of this set whose elements range from
+     * <code>fromElement</code>, inclusive, to <code>toElement</code>,
+     * exclusive.
+     *
+     * @param fromElement the low endpoint (inclusive).
+     * @param toElement the high endpoint (exclusive).
+     * @return a view of the specified range within this set.
+     * @throws IllegalArgumentException if <code>fromElement</code> is
+     *         greater than <code>toElement</code> or if a bound lies outside
+     *         the range of this view.
+     */
+    public final SortedSet/*<E>*/subSet(Object/*{E}*/fromElement,
+            Object/*{E}*/toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    /**
+     * Returns a view of the portion of this set whose elements range from
+     * <code>fromElement</code> to <code>toElement</code>.
+     *
+     * @param fromElement the low endpoint.
+     * @param fromInclusive <code>true</code> if the low endpoint is included.
+     * @param toElement the high endpoint.
+     * @param toInclusive <code>true</code> if the high endpoint is included.
+     * @return a view of the specified range within this set.
+     * @throws IllegalArgumentException if <code>fromElement</code> is
+     *         greater than <code>toElement</code> or if a bound lies outside
+     *         the range of this view.
+     */
+    public final FastSortedSet/*<E>*/subSet(Object/*{E}*/fromElement,
+            boolean fromInclusive, Object/*{E}*/toElement, boolean toInclusive) {
+        return new FastSortedSet/*<E>*/(_map.subMap(fromElement,
+                fromInclusive, toElement, toInclusive));
+    }
+
+    /**
+     * Returns a view of the portion of this set whose elements are strictly
+     * less than <code>toElement</code>.
+     *
+     * @param toElement the high endpoint (exclusive).
+     * @return a view of the specified range within this set.
+     * @throws IllegalArgumentException if <code>toElement</code> lies
+     *         outside the range of this view.
+     */
+    public final SortedSet/*<E>*/headSet(Object/*{E}*/toElement) {
+        return headSet(toElement, false);
+    }
+
+    /**
+     * Returns a view of the portion of this set whose elements are less than
+     * (or equal to, if <code>inclusive</code>) <code>toElement</code>.
+     *
+     * @param toElement the high endpoint.
+     * @param inclusive <code>true</code> if the high endpoint is included.
+     * @return a view of the specified range within this set.
+     * @throws IllegalArgumentException if <code>toElement</code> lies
+     *         outside the range of this view.
+     */
+    public final FastSortedSet/*<E>*/headSet(Object/*{E}*/toElement,
+            boolean inclusive) {
+        return new FastSortedSet/*<E>*/(_map.headMap(toElement, inclusive));
+    }
+
+    /**
+     * Returns a view of the portion of this set whose elements are greater
+     * than or equal to <code>fromElement</code>.
+     *
+     * @param fromElement the low endpoint (inclusive).
+     * @return a view of the specified range within this set.
+     * @throws IllegalArgumentException if <code>fromElement</code> lies
+     *         outside the range of this view.
+     */
+    public final SortedSet/*<E>*/tailSet(Object/*{E}*/fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    /**
+     * Returns a view of the portion of this set whose elements are greater
+     * than (or equal to, if <code>inclusive</code>) <code>fromElement</code>.
+     *
+     * @param fromElement the low endpoint.
+     * @param inclusive <code>true</code> if the low endpoint is included.
+     * @return a view of the specified range within this set.
+     * @throws IllegalArgumentException if <code>fromElement</code> lies
+     *         outside the range of this view.
+     */
+    public final FastSortedSet/*<E>*/tailSet(Object/*{E}*/fromElement,
+            boolean inclusive) {
+        return new FastSortedSet/*<E>*/(_map.tailMap(fromElement, inclusive));
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        _map.reset();
+    }
+
+    // Requires special handling during de-serialization process.
+    private void readObject(ObjectInputStream stream) throws IOException,
+            ClassNotFoundException {
+        FastComparator cmp = (FastComparator) stream.readObject();
+        final int size = stream.readInt();
+        _map = new FastSortedMap();
+        _map.setKeyComparator(cmp);
+        for (int i = size; i-- != 0;) {
+            Object key = stream.readObject();
+            _map.put(key, key);
+        }
+    }
+
+    // Requires special handling during serialization process.
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.writeObject(getValueComparator());
+        stream.writeInt(size());
+        for (FastSortedMap.Entry e = _map.head(), end = _map.tail();
+                (e = (FastSortedMap.Entry) e.getNext()) != end;) {
+            stream.writeObject(e.getKey());
+        }
+    }
+
+    // Implements FastCollection abstract method.
+    public final Record head() {
+        return _map.head();
+    }
+
+    // Implements FastCollection abstract method.
+    public final Record tail() {
+        return _map.tail();
+    }
+
+    // Implements FastCollection abstract method.
+    public final Object/*{E}*/valueOf(Record record) {
+        return (Object/*{E}*/) ((FastSortedMap.Entry) record).getKey();
+    }
+
+    // Implements FastCollection abstract method.
+    public final void delete(Record record) {
+        _map.remove(((FastSortedMap.Entry) record).getKey());
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -21,6 +21,8 @@ import _templates.java.util.List;
 import _templates.java.util.ListIterator;
 import _templates.java.util.RandomAccess;
 import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.context.ArrayFactory;
+import _templates.javolution.context.ConcurrentContext;
 import _templates.javolution.context.ObjectFactory;
 import _templates.javolution.context.PersistentContext;
 import _templates.javolution.lang.MathLib;
@@ -49,9 +51,11 @@ import _templates.javolution.lang.Reusable;
  *          table.get(i);
  *     }[/code]</p>
  *     
- *  <p> {@link FastTable} supports {@link #sort sorting} in place (quick sort) 
- *      using the {@link FastCollection#getValueComparator() value comparator}
- *      for the table (no object or array allocation when sorting).</p>
+ *  <p> {@link FastTable} supports {@link #sort sorting} in place (introspective
+ *      sort) using the {@link FastCollection#getValueComparator() value comparator}
+ *      for the table (no object or array allocation when sorting).
+ *      Large tables can be {@link #parallelSort sorted concurrently} and 
+ *      {@link #stableSort stable sorting} is available for any comparator.</p>
  * 
  * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 5.4.5, August 20, 2007
@@ -541,51 +545,261 @@ public class FastTable/*<E>*/extends FastCollection/*<E>*/implements
     }
 
     /**
-     * Sorts this table in place (quick sort) using this table 
+     * Sorts this table in place using this table 
      * {@link FastCollection#getValueComparator() value comparator}
-     * (smallest first).
+     * (smallest first). The sort is an introspective sort (median-of-three
+     * quick sort, switching to heap sort when the recursion becomes too 
+     * deep and to insertion sort for small ranges) performed directly
+     * over the table blocks; it runs in <code>O(n log n)</code> even for
+     * already sorted tables or tables with many equal elements.
+     * This sort is not stable (see {@link #stableSort}).
      * 
      * @return <code>this</code>
      */
     public final FastTable/*<E>*/sort() {
         if (_size > 1) {
-            quicksort(0, _size - 1, this.getValueComparator());
+            introSort(_high, 0, _size, this.getValueComparator(),
+                    depthLimit(_size));
         }
         return this;
     }
 
-    // From Wikipedia Quick Sort - http://en.wikipedia.org/wiki/Quicksort
-    //
-    private void quicksort(int first, int last, FastComparator cmp) {
-        int pivIndex = 0;
-        if (first < last) {
-            pivIndex = partition(first, last, cmp);
-            quicksort(first, (pivIndex - 1), cmp);
-            quicksort((pivIndex + 1), last, cmp);
+    /**
+     * Sorts this table in place using the specified comparator; 
+     * equal elements are not reordered (stable sort). Sorted runs of 
+     * small size are merged bottom-up using a temporary buffer
+     * {@link ArrayFactory#OBJECTS_FACTORY recycled} after use.
+     * 
+     * @param comparator the comparator used to order the elements.
+     * @return <code>this</code>
+     */
+    public final FastTable/*<E>*/stableSort(
+            FastComparator/*<? super E>*/comparator) {
+        final int size = _size;
+        final Object[][] high = _high;
+        for (int i = 0; i < size; i += MERGE_RUN) {
+            insertionSort(high, i, MathLib.min(i + MERGE_RUN, size), comparator);
+        }
+        if (size <= MERGE_RUN)
+            return this;
+        int maxWidth = MERGE_RUN;
+        while ((maxWidth << 1) < size) {
+            maxWidth <<= 1;
         }
+        Object[] buffer = (Object[]) ArrayFactory.OBJECTS_FACTORY.array(maxWidth);
+        try {
+            for (int width = MERGE_RUN; width < size; width <<= 1) {
+                for (int lo = 0; lo < size - width; lo += width << 1) {
+                    merge(high, lo, lo + width, MathLib.min(lo + (width << 1),
+                            size), comparator, buffer);
+                }
+            }
+        } finally {
+            for (int i = 0; i < maxWidth;) { // No dangling references.
+                buffer[i++] = null;
+            }
+            ArrayFactory.OBJECTS_FACTORY.recycle(buffer);
+        }
+        return this;
     }
 
-    private int partition(int f, int l, FastComparator cmp) {
-        int up, down;
-        Object/*{E}*/piv = get(f);
-        up = f;
-        down = l;
-        do {
-            while (cmp.compare(get(up), piv) <= 0 && up < l) {
-                up++;
+    /**
+     * Sorts this table in place using this table 
+     * {@link FastCollection#getValueComparator() value comparator} and
+     * the current {@link ConcurrentContext#getConcurrency() concurrency}.
+     * The table is partitioned into independent ranges sorted concurrently
+     * (no synchronization required as the ranges do not overlap).
+     * Small tables or tables sorted while concurrency is disabled
+     * are sorted by the current thread (see {@link #sort}).
+     * 
+     * @return <code>this</code>
+     */
+    public final FastTable/*<E>*/parallelSort() {
+        final int concurrency = ConcurrentContext.getConcurrency();
+        if ((concurrency == 0) || (_size < PARALLEL_SORT_MIN_SIZE))
+            return sort();
+        int splits = 1; // At least two ranges per concurrent thread.
+        while ((1 << splits) <= concurrency) {
+            splits++;
+        }
+        ConcurrentContext.enter();
+        try {
+            parallelSort(_high, 0, _size, this.getValueComparator(),
+                    depthLimit(_size), splits + 1);
+        } finally {
+            ConcurrentContext.exit();
+        }
+        return this;
+    }
+
+    private static final int INSERTION_SORT_MAX_SIZE = 16;
+
+    private static final int MERGE_RUN = 32;
+
+    private static final int PARALLEL_SORT_MIN_SIZE = 8 * C1;
+
+    private static int depthLimit(int size) {
+        return (64 - MathLib.numberOfLeadingZeros(size)) << 1;
+    }
+
+    private static void parallelSort(final Object[][] high, final int from,
+            final int to, final FastComparator cmp, final int depth, int splits) {
+        if ((splits == 0) || (depth == 0)
+                || (to - from < PARALLEL_SORT_MIN_SIZE)) {
+            ConcurrentContext.execute(new Runnable() {
+                public void run() {
+                    introSort(high, from, to, cmp, depth);
+                }
+            });
+            return;
+        }
+        int split = partition(high, from, to, cmp);
+        parallelSort(high, from, split, cmp, depth - 1, splits - 1);
+        parallelSort(high, split, to, cmp, depth - 1, splits - 1);
+    }
+
+    // Recurses on the smallest range only (stack depth in O(log n)).
+    private static void introSort(Object[][] high, int from, int to,
+            FastComparator cmp, int depth) {
+        while (to - from > INSERTION_SORT_MAX_SIZE) {
+            if (depth-- == 0) {
+                heapSort(high, from, to, cmp);
+                return;
             }
-            while (cmp.compare(get(down), piv) > 0 && down > f) {
-                down--;
+            int split = partition(high, from, to, cmp);
+            if (split - from < to - split) {
+                introSort(high, from, split, cmp, depth);
+                from = split;
+            } else {
+                introSort(high, split, to, cmp, depth);
+                to = split;
             }
-            if (up < down) { // Swaps.
-                Object/*{E}*/temp = get(up);
-                set(up, get(down));
-                set(down, temp);
+        }
+        insertionSort(high, from, to, cmp);
+    }
+
+    // Hoare partition around the median of three. Both scans stop on 
+    // elements equal to the pivot, which keeps the ranges balanced
+    // when there are many duplicates. Returns the split index 
+    // (both ranges [from, split[ and [split, to[ are non-empty).
+    private static int partition(Object[][] high, int from, int to,
+            FastComparator cmp) {
+        final int last = to - 1;
+        final int mid = (from + last) >>> 1;
+        if (cmp.compare(get(high, mid), get(high, from)) < 0) {
+            swap(high, from, mid);
+        }
+        if (cmp.compare(get(high, last), get(high, mid)) < 0) {
+            swap(high, mid, last);
+            if (cmp.compare(get(high, mid), get(high, from)) < 0) {
+                swap(high, from, mid);
+            }
+        }
+        final Object pivot = get(high, mid);
+        int i = from - 1;
+        int j = to;
+        while (true) {
+            while (cmp.compare(get(high, ++i), pivot) < 0) {
+            }
+            while (cmp.compare(get(high, --j), pivot) > 0) {
+            }
+            if (i >= j)
+                return j + 1;
+            swap(high, i, j);
+        }
+    }
+
+    private static void heapSort(Object[][] high, int from, int to,
+            FastComparator cmp) {
+        final int n = to - from;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(high, from, i, n, cmp);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(high, from, from + i);
+            siftDown(high, from, 0, i, cmp);
+        }
+    }
+
+    private static void siftDown(Object[][] high, int base, int i, int n,
+            FastComparator cmp) {
+        final Object value = get(high, base + i);
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= n)
+                break;
+            Object childValue = get(high, base + child);
+            if (child + 1 < n) {
+                Object rightValue = get(high, base + child + 1);
+                if (cmp.compare(childValue, rightValue) < 0) {
+                    child++;
+                    childValue = rightValue;
+                }
+            }
+            if (cmp.compare(value, childValue) >= 0)
+                break;
+            set(high, base + i, childValue);
+            i = child;
+        }
+        set(high, base + i, value);
+    }
+
+    // Stable.
+    private static void insertionSort(Object[][] high, int from, int to,
+            FastComparator cmp) {
+        for (int i = from + 1; i < to; i++) {
+            final Object value = get(high, i);
+            int j = i;
+            while (j > from) {
+                Object previous = get(high, j - 1);
+                if (cmp.compare(previous, value) <= 0)
+                    break;
+                set(high, j--, previous);
+            }
+            set(high, j, value);
+        }
+    }
+
+    // Merges the sorted ranges [lo, mid[ and [mid, hi[ (stable).
+    private static void merge(Object[][] high, int lo, int mid, int hi,
+            FastComparator cmp, Object[] buffer) {
+        if (cmp.compare(get(high, mid - 1), get(high, mid)) <= 0)
+            return; // Already in order.
+        final int n = mid - lo;
+        for (int i = 0; i < n; i++) {
+            buffer[i] = get(high, lo + i);
+        }
+        int i = 0;
+        int j = mid;
+        int k = lo;
+        while ((i < n) && (j < hi)) {
+            Object value = get(high, j);
+            if (cmp.compare(value, buffer[i]) < 0) {
+                set(high, k++, value);
+                j++;
+            } else {
+                set(high, k++, buffer[i++]);
             }
-        } while (down > up);
-        set(f, get(down));
-        set(down, piv);
-        return down;
+        }
+        while (i < n) {
+            set(high, k++, buffer[i++]);
+        }
+    }
+
+    private static Object get(Object[][] high, int index) {
+        return high[index >> B1][index & M1];
+    }
+
+    private static void set(Object[][] high, int index, Object value) {
+        high[index >> B1][index & M1] = value;
+    }
+
+    private static void swap(Object[][] high, int i, int j) {
+        Object[] blockI = high[i >> B1];
+        Object[] blockJ = high[j >> B1];
+        Object tmp = blockI[i & M1];
+        blockI[i & M1] = blockJ[j & M1];
+        blockJ[j & M1] = tmp;
     }
 
     /**
@@ -0,0 +1,644 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.util;
+
+import _templates.java.io.Serializable;
+import _templates.java.util.NoSuchElementException;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.context.ArrayFactory;
+import _templates.javolution.context.HeapContext;
+import _templates.javolution.context.ObjectFactory;
+import _templates.javolution.lang.MathLib;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.TextBuilder;
+
+/**
+ * <p> This class represents a table of <code>int</code> values; it has the
+ *     same incremental, copy-free growth as {@link FastTable} without
+ *     the boxing and the reference per element.[code]
+ *     IntTable samples = IntTable.newInstance();
+ *     samples.addAll(values, 0, count);
+ *     samples.sort();
+ *     int i = samples.binarySearch(threshold);
+ *     ...
+ *     IntTable.recycle(samples);
+ *     [/code]</p>
+ *
+ * <p> Values are held in blocks of at most {@link #BLOCK_SIZE} elements;
+ *     the first block is resized up to {@link #BLOCK_SIZE}, then new blocks
+ *     are added (existing values are never copied). The blocks themselves
+ *     can be {@link #getBlock accessed} for zero-copy export
+ *     (e.g. bulk writes to a data output).</p>
+ *
+ * <p> Instances of this class are not thread-safe.</p>
+ *
+ * @author <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class IntTable implements Reusable, Serializable {
+
+    /**
+     * Holds the factory for this table.
+     */
+    private static final ObjectFactory FACTORY = new ObjectFactory() {
+        public Object create() {
+            return new IntTable();
+        }
+    };
+
+    /**
+     * Holds the maximum number of values per {@link #getBlock block}.
+     */
+    public static final int BLOCK_SIZE = 1024;
+
+    private static final int B0 = 4; // Initial capacity in bits.
+
+    private static final int C0 = 1 << B0; // Initial capacity (16)
+
+    private static final int B1 = 10; // Block maximum capacity in bits.
+
+    private static final int C1 = 1 << B1; // Block maximum capacity (1024).
+
+    private static final int M1 = C1 - 1; // Mask.
+
+    // Resizes up to 1024 maximum (16, 32, 64, 128, 256, 512, 1024). 
+    private int[] _low;
+
+    // For larger capacity use multi-dimensional array.
+    private int[][] _high;
+
+    /**
+     * Holds the current capacity. 
+     */
+    private int _capacity;
+
+    /**
+     * Holds the current size.
+     */
+    private int _size;
+
+    /**
+     * Creates a table of small initial capacity.
+     */
+    public IntTable() {
+        _capacity = C0;
+        _low = new int[C0];
+        _high = new int[1][];
+        _high[0] = _low;
+    }
+
+    /**
+     * Creates a table of specified initial capacity; unless the table size 
+     * reaches the specified capacity, operations on this table will not 
+     * allocate memory (no lazy object creation).
+     * 
+     * @param capacity the initial capacity.
+     */
+    public IntTable(int capacity) {
+        this();
+        while (capacity > _capacity) {
+            increaseCapacity();
+        }
+    }
+
+    /**
+     * Returns a new, preallocated or {@link #recycle recycled} table instance
+     * (on the stack when executing in a {@link _templates.javolution.context.StackContext
+     * StackContext}).
+     *
+     * @return a new, preallocated or recycled table instance.
+     */
+    public static IntTable newInstance() {
+        return (IntTable) FACTORY.object();
+    }
+
+    /**
+     * Recycles a table {@link #newInstance() instance} immediately
+     * (on the stack when executing in a {@link _templates.javolution.context.StackContext
+     * StackContext}). 
+     */
+    public static void recycle(IntTable instance) {
+        FACTORY.recycle(instance);
+    }
+
+    /**
+     * Returns the number of values in this table.
+     *
+     * @return this table size.
+     */
+    public final int size() {
+        return _size;
+    }
+
+    /**
+     * Indicates if this table is empty.
+     *
+     * @return <code>size() == 0</code>
+     */
+    public final boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index index of value to return.
+     * @return the value at the specified position in this table.
+     * @throws IndexOutOfBoundsException if <code>(index < 0) || 
+     *         (index >= size())</code>
+     */
+    public final int get(int index) { // Short to be inlined.
+        if (index >= _size)
+            throw new IndexOutOfBoundsException();
+        return index < C1 ? _low[index] : _high[index >> B1][index & M1];
+    }
+
+    /**
+     * Replaces the value at the specified position in this table with the
+     * specified value.
+     *
+     * @param index index of value to replace.
+     * @param value value to be stored at the specified position.
+     * @return previous value.
+     * @throws IndexOutOfBoundsException if <code>(index < 0) || 
+     *         (index >= size())</code>
+     */
+    public final int set(int index, int value) {
+        if (index >= _size)
+            throw new IndexOutOfBoundsException();
+        final int[] low = _high[index >> B1];
+        final int previous = low[index & M1];
+        low[index & M1] = value;
+        return previous;
+    }
+
+    /**
+     * Appends the specified value to the end of this table.
+     *
+     * @param value the value to be appended.
+     */
+    public final void add(int value) {
+        if (_size >= _capacity)
+            increaseCapacity();
+        _high[_size >> B1][_size & M1] = value;
+        _size++;
+    }
+
+    /**
+     * Appends the specified value to the end of this table <i>(fast)</i>.
+     * 
+     * @param value the value to be added.
+     */
+    public final void addLast(int value) {
+        add(value);
+    }
+
+    /**
+     * Appends all the specified values to the end of this table.
+     * 
+     * @param values the values to be added.
+     */
+    public final void addAll(int[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends the specified values to the end of this table
+     * (block copies).
+     * 
+     * @param values the array holding the values to be added.
+     * @param offset the index of the first value to add.
+     * @param length the number of values to add.
+     * @throws IndexOutOfBoundsException if <code>(offset < 0) ||
+     *         (length < 0) || ((offset + length) > values.length)</code>
+     */
+    public final void addAll(int[] values, int offset, int length) {
+        if ((offset < 0) || (length < 0) || (offset + length > values.length))
+            throw new IndexOutOfBoundsException();
+        final int newSize = _size + length;
+        while (_capacity < newSize) {
+            increaseCapacity();
+        }
+        while (length > 0) {
+            final int i = _size & M1;
+            final int count = MathLib.min(length, C1 - i);
+            System.arraycopy(values, offset, _high[_size >> B1], i, count);
+            _size += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Appends all the values of the specified table to the end of
+     * this table (block copies).
+     * 
+     * @param that the table whose values are added.
+     */
+    public final void addAll(IntTable that) {
+        final int size = that._size; // Allows that == this.
+        for (int i = 0; i < size; i += C1) {
+            addAll(that._high[i >> B1], 0, MathLib.min(size - i, C1));
+        }
+    }
+
+    /**
+     * Removes and returns the last value of this table <i>(fast)</i>.
+     *
+     * @return this table's last value before this call.
+     * @throws NoSuchElementException if this table is empty.
+     */
+    public final int removeLast() {
+        if (_size == 0)
+            throw new NoSuchElementException();
+        _size--;
+        return _high[_size >> B1][_size & M1];
+    }
+
+    /**
+     * Removes all of the values from this table (no memory is released, 
+     * see {@link #trimToSize}).
+     */
+    public final void clear() {
+        _size = 0;
+    }
+
+    // Implements Reusable interface.
+    public void reset() {
+        clear();
+        trimToSize(); // Returns blocks to the array factory.
+    }
+
+    /**
+     * Reduces the capacity of this table to the current size (minimize 
+     * storage space).
+     */
+    public final void trimToSize() {
+        while (_capacity - _size > C1) {
+            _capacity -= C1;
+            recycleBlock(_high[_capacity >> B1]);
+            _high[_capacity >> B1] = null;
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified value
+     * in this table.
+     *
+     * @param value the value to search for.
+     * @return the index of the first occurrence or <code>-1</code> if
+     *         not found.
+     */
+    public final int indexOf(int value) {
+        for (int i = 0; i < _size;) {
+            final int[] low = _high[i >> B1];
+            final int count = MathLib.min(low.length, _size - i);
+            for (int j = 0; j < count; j++) {
+                if (low[j] == value)
+                    return i + j;
+            }
+            i += count;
+        }
+        return -1;
+    }
+
+    /**
+     * Searches this table (sorted in ascending order) for the specified
+     * value using the binary search algorithm.
+     *
+     * @param value the value to search for.
+     * @return the index of the value (any of them if duplicates) or 
+     *         <code>(-(insertion point) - 1)</code> if not found (the 
+     *         insertion point being the index of the first greater value
+     *         or <code>size()</code> if all values are less).
+     * @see #sort
+     */
+    public final int binarySearch(int value) {
+        int low = 0;
+        int high = _size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midValue = _high[mid >> B1][mid & M1];
+            if (midValue < value) {
+                low = mid + 1;
+            } else if (midValue > value) {
+                high = mid - 1;
+            } else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Sorts this table in place in ascending order (introspective sort,
+     * no memory allocation).
+     * 
+     * @return <code>this</code>
+     */
+    public final IntTable sort() {
+        if (_size > 1) {
+            introSort(_high, 0, _size, (64 - MathLib.numberOfLeadingZeros(_size)) << 1);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of blocks holding the values of this table.
+     *
+     * @return <code>(size() + BLOCK_SIZE - 1) / BLOCK_SIZE</code>
+     */
+    public final int getBlockCount() {
+        return (_size + M1) >> B1;
+    }
+
+    /**
+     * Returns the actual block holding the values 
+     * <code>[i * BLOCK_SIZE, i * BLOCK_SIZE + getBlockLength(i)[</code>
+     * (not a copy). Modifying the block modifies this table; 
+     * the block becomes invalid if this table is modified
+     * structurally.
+     *
+     * @param i the block index.
+     * @return the block holding the specified values.
+     * @throws IndexOutOfBoundsException if <code>(i < 0) ||
+     *         (i >= getBlockCount())</code>
+     */
+    public final int[] getBlock(int i) {
+        if ((i < 0) || (i >= getBlockCount()))
+            throw new IndexOutOfBoundsException();
+        return _high[i];
+    }
+
+    /**
+     * Returns the number of values held by the specified block.
+     *
+     * @param i the block index.
+     * @return the number of valid values in {@link #getBlock getBlock(i)}.
+     * @throws IndexOutOfBoundsException if <code>(i < 0) ||
+     *         (i >= getBlockCount())</code>
+     */
+    public final int getBlockLength(int i) {
+        if ((i < 0) || (i >= getBlockCount()))
+            throw new IndexOutOfBoundsException();
+        return MathLib.min(_size - (i << B1), C1);
+    }
+
+    /**
+     * Copies the values of this table into the specified array.
+     * 
+     * @param array the destination array.
+     * @param offset the destination index of the first value.
+     * @return the destination array.
+     * @throws IndexOutOfBoundsException if <code>(offset < 0) ||
+     *         (offset + size() > array.length)</code>
+     */
+    public final int[] toArray(int[] array, int offset) {
+        if ((offset < 0) || (offset + _size > array.length))
+            throw new IndexOutOfBoundsException();
+        for (int i = 0; i < _size; i += C1) {
+            System.arraycopy(_high[i >> B1], 0, array, offset + i, 
+                    MathLib.min(_size - i, C1));
+        }
+        return array;
+    }
+
+    /**
+     * Returns an array holding the values of this table; the array
+     * is produced by {@link ArrayFactory#INTS_FACTORY} and can be
+     * recycled after use.
+     * 
+     * @return an array (possibly larger than this table size) 
+     *         holding the values of this table.
+     */
+    public final int[] toArray() {
+        return toArray((int[]) ArrayFactory.INTS_FACTORY.array(_size), 0);
+    }
+
+    /**
+     * Compares the specified object with this table for equality.
+     * 
+     * @param obj the object to compare with.
+     * @return <code>true</code> if both tables hold the same values in
+     *         the same order; <code>false</code> otherwise.
+     */
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof IntTable))
+            return false;
+        IntTable that = (IntTable) obj;
+        if (_size != that._size)
+            return false;
+        for (int i = 0; i < _size; i++) {
+            if (_high[i >> B1][i & M1] != that._high[i >> B1][i & M1])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code for this table.
+     * 
+     * @return the hash code value.
+     */
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < _size; i++) {
+            h = 31 * h + _high[i >> B1][i & M1];
+        }
+        return h;
+    }
+
+    /**
+     * Returns the textual representation of this table
+     * (e.g. <code>"[1, 2, 3]"</code>).
+     *
+     * @return the textual representation of this table.
+     */
+    public String toString() {
+        TextBuilder tb = TextBuilder.newInstance();
+        try {
+            tb.append('[');
+            for (int i = 0; i < _size; i++) {
+                if (i != 0) {
+                    tb.append(", ");
+                }
+                tb.append(_high[i >> B1][i & M1]);
+            }
+            return tb.append(']').toString();
+        } finally {
+            TextBuilder.recycle(tb);
+        }
+    }
+
+    /**
+     * Returns the current capacity of this table.
+     *
+     * @return this table's capacity.
+     */
+    protected final int getCapacity() {
+        return _capacity;
+    }
+
+    /**
+     * Increases this table capacity.
+     */
+    private void increaseCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                if (_capacity < C1) { // For small capacity, resize.
+                    _capacity <<= 1;
+                    int[] tmp = new int[_capacity];
+                    System.arraycopy(_low, 0, tmp, 0, _size);
+                    _low = tmp;
+                    _high[0] = tmp;
+                } else { // Add a new low block of 1024 elements.
+                    int j = _capacity >> B1;
+                    if (j >= _high.length) { // Resizes _high.
+                        int[][] tmp = new int[_high.length * 2][];
+                        System.arraycopy(_high, 0, tmp, 0, _high.length);
+                        _high = tmp;
+                    }
+                    _high[j] = newBlock();
+                    _capacity += C1;
+                }
+            }
+        });
+    }
+
+    // Takes a block from the heap array factory (blocks are never allocated
+    // on the stack since they may outlive the current stack context).
+    private static int[] newBlock() {
+        HeapContext.enter();
+        try {
+            return (int[]) ArrayFactory.INTS_FACTORY.array(C1);
+        } finally {
+            HeapContext.exit();
+        }
+    }
+
+    // Returns a block to the heap array factory.
+    private static void recycleBlock(int[] block) {
+        HeapContext.enter();
+        try {
+            ArrayFactory.INTS_FACTORY.recycle(block);
+        } finally {
+            HeapContext.exit();
+        }
+    }
+
+    private static final int INSERTION_SORT_MAX_SIZE = 16;
+
+    // Same as FastTable introspective sort (on primitive values).
+    private static void introSort(int[][] high, int from, int to, int depth) {
+        while (to - from > INSERTION_SORT_MAX_SIZE) {
+            if (depth-- == 0) {
+                heapSort(high, from, to);
+                return;
+            }
+            int split = partition(high, from, to);
+            if (split - from < to - split) {
+                introSort(high, from, split, depth);
+                from = split;
+            } else {
+                introSort(high, split, to, depth);
+                to = split;
+            }
+        }
+        insertionSort(high, from, to);
+    }
+
+    private static int partition(int[][] high, int from, int to) {
+        final int last = to - 1;
+        final int mid = (from + last) >>> 1;
+        if (get(high, mid) < get(high, from)) {
+            swap(high, from, mid);
+        }
+        if (get(high, last) < get(high, mid)) {
+            swap(high, mid, last);
+            if (get(high, mid) < get(high, from)) {
+                swap(high, from, mid);
+            }
+        }
+        final int pivot = get(high, mid);
+        int i = from - 1;
+        int j = to;
+        while (true) {
+            while (get(high, ++i) < pivot) {
+            }
+            while (get(high, --j) > pivot) {
+            }
+            if (i >= j)
+                return j + 1;
+            swap(high, i, j);
+        }
+    }
+
+    private static void heapSort(int[][] high, int from, int to) {
+        final int n = to - from;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) {
+            siftDown(high, from, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(high, from, from + i);
+            siftDown(high, from, 0, i);
+        }
+    }
+
+    private static void siftDown(int[][] high, int base, int i, int n) {
+        final int value = get(high, base + i);
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= n)
+                break;
+            int childValue = get(high, base + child);
+            if (child + 1 < n) {
+                int rightValue = get(high, base + child + 1);
+                if (childValue < rightValue) {
+                    child++;
+                    childValue = rightValue;
+                }
+            }
+            if (value >= childValue)
+                break;
+            high[(base + i) >> B1][(base + i) & M1] = childValue;
+            i = child;
+        }
+        high[(base + i) >> B1][(base + i) & M1] = value;
+    }
+
+    private static void insertionSort(int[][] high, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final int value = get(high, i);
+            int j = i;
+            while (j > from) {
+                int previous = get(high, j - 1);
+                if (previous <= value)
+                    break;
+                high[j >> B1][j & M1] = previous;
+                j--;
+            }
+            high[j >> B1][j & M1] = value;
+        }
+    }
+
+    private static int get(int[][] high, int index) {
+        return high[index >> B1][index & M1];
+    }
+
+    private static void swap(int[][] high, int i, int j) {
+        int[] blockI = high[i >> B1];
+        int[] blockJ = high[j >> B1];
+        int tmp = blockI[i & M1];
+        blockI[i & M1] = blockJ[j & M1];
+        blockJ[j & M1] = tmp;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
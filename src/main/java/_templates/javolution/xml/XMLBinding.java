@@ -17,6 +17,7 @@ import _templates.javolution.lang.Reusable;
 import _templates.javolution.text.CharArray;
 import _templates.javolution.text.TextBuilder;
 import _templates.javolution.text.TextFormat;
+import _templates.javolution.util.FastComparator;
 import _templates.javolution.util.FastList;
 import _templates.javolution.util.FastMap;
 import _templates.javolution.util.FastSet;
@@ -64,11 +65,12 @@ import _templates.javolution.xml.stream.XMLStreamWriter;
  *     
  * <p> More advanced bindings can also be created through sub-classing.[code]
  * 
- *     // XML binding using reflection.
+ *     // XML binding using reflection for the classes of a package.
  *     public ReflectionBinding extends XMLBinding {
- *         protected XMLFormat getFormat(Class forClass) {
- *             Field[] fields = forClass.getDeclaredFields();
- *             return new XMLReflectionFormat(fields);
+ *         protected XMLFormat getFormat(Class forClass) throws XMLStreamException {
+ *             if (forClass.getName().startsWith("com.acme.model."))
+ *                 return XMLReflectionFormat.valueOf(forClass);
+ *             return super.getFormat(forClass);
  *         }
  *     }
  *     
@@ -133,6 +135,32 @@ public class XMLBinding implements Reusable, XMLSerializable {
      */
     private final FastMap _aliasToClass = new FastMap();
 
+    /**
+     * Holds the resolution cache from local name (element without namespace
+     * URI) to class (looked up directly from the reader characters).
+     */
+    private final FastMap _localNameToClass = newCache();
+
+    /**
+     * Holds the resolution caches (local name to class) per namespace URI.
+     */
+    private final FastMap _namespaceToClasses = newCache();
+
+    /**
+     * Holds the resolution cache from class attribute value to class.
+     */
+    private final FastMap _classNameToClass = newCache();
+
+    /**
+     * Holds the resolution cache from class to format.
+     */
+    private final FastMap _classToFormat = new FastMap().shared();
+
+    /**
+     * Indicates if reflection formats are used for plain Java objects.
+     */
+    private boolean _reflectionFormats;
+
     /**
      * Default constructor.
      */
@@ -148,6 +176,7 @@ public class XMLBinding implements Reusable, XMLSerializable {
     public void setAlias(Class cls, QName qName) {
         _classToAlias.put(cls, qName);
         _aliasToClass.put(qName, cls);
+        clearCaches();
     }
 
     /**
@@ -183,10 +212,27 @@ public class XMLBinding implements Reusable, XMLSerializable {
         setClassAttribute(name == null ? null : QName.valueOf(name));
     }
 
+    /**
+     * Indicates if plain Java objects (classes having neither a static
+     * XML format nor a parsable text format) are represented using their
+     * {@link XMLReflectionFormat reflection format} (default
+     * <code>false</code>, the default format for
+     * <code>java.lang.Object</code> is used).
+     * 
+     * @param reflectionFormats <code>true</code> if reflection formats
+     *        are used; <code>false</code> otherwise.
+     */
+    public void setReflectionFormats(boolean reflectionFormats) {
+        _reflectionFormats = reflectionFormats;
+        _classToFormat.clear();
+    }
+
     /**
      * Returns the XML format for the specified class/interface.
      * The default implementation returns the {@link XMLFormat#getInstance}
-     * for the specified class.
+     * for the specified class (or its {@link #setReflectionFormats 
+     * reflection format}); the format is resolved once per class
+     * and cached by this binding.
      * 
      * @param forClass the class for which the XML format is returned.
      * @return the XML format for the specified class (never <code>null</code>).
@@ -194,7 +240,16 @@ public class XMLBinding implements Reusable, XMLSerializable {
      *         specified class.
      */
     protected XMLFormat getFormat(Class forClass) throws XMLStreamException  {
-         return XMLFormat.getInstance(forClass);
+        XMLFormat format = (XMLFormat) _classToFormat.get(forClass);
+        if (format != null)
+            return format;
+        format = XMLFormat.getInstance(forClass);
+        if ((format == OBJECT_XML) && _reflectionFormats && !forClass.isArray()
+                && !TextFormat.getInstance(forClass).isParsingSupported()) {
+            format = XMLReflectionFormat.valueOf(forClass);
+        }
+        _classToFormat.put(forClass, format);
+        return format;
     }
 
     /**
@@ -208,6 +263,8 @@ public class XMLBinding implements Reusable, XMLSerializable {
      * If <code>useAttributes</code> is set, the default implementation 
      * reads the class name from the class attribute; otherwise the class 
      * name (or alias) is read from the current element qualified name.
+     * Resolved classes are cached by this binding; they are looked up
+     * directly from the reader's characters (no qualified name created).
      * 
      * @param reader the XML stream reader.
      * @param useAttributes indicates if the element's attributes should be 
@@ -218,21 +275,44 @@ public class XMLBinding implements Reusable, XMLSerializable {
      */
     protected Class readClass(XMLStreamReader reader, boolean useAttributes)
             throws XMLStreamException {
-        QName classQName;
+        CharArray name;
+        CharArray namespaceURI = null;
+        FastMap cache;
         if (useAttributes) {
             if (_classAttribute == null)
                 throw new XMLStreamException(
                         "Binding has no class attribute defined, cannot retrieve class");
-            classQName = QName.valueOf(reader.getAttributeValue(_classAttribute
-                    .getNamespaceURI(), _classAttribute.getLocalName()));
-            if (classQName == null)
+            name = reader.getAttributeValue(_classAttribute.getNamespaceURI(),
+                    _classAttribute.getLocalName());
+            if (name == null)
                 throw new XMLStreamException(
                         "Cannot retrieve class (class attribute not found)");
+            cache = _classNameToClass;
         } else {
-            classQName = QName.valueOf(reader.getNamespaceURI(), reader
-                    .getLocalName());
+            name = reader.getLocalName();
+            namespaceURI = reader.getNamespaceURI();
+            cache = (namespaceURI == null) ? _localNameToClass
+                    : (FastMap) _namespaceToClasses.get(namespaceURI);
         }
 
+        // Searches resolved classes (no allocation).
+        if (cache != null) {
+            Class cls = (Class) cache.get(name);
+            if (cls != null)
+                return cls;
+        }
+        Class cls = resolveClass(useAttributes ? QName.valueOf(name)
+                : QName.valueOf(namespaceURI, name));
+        if (cache == null) { // Only namespaces with resolved classes are kept.
+            cache = namespaceCache(namespaceURI);
+        }
+        cache.put(name.toString(), cls);
+        return cls;
+    }
+
+    // Resolves the class for the specified qualified name.
+    private Class resolveClass(QName classQName) throws XMLStreamException {
+
         // Searches aliases with namespace URI.
         Class cls = (Class) _aliasToClass.get(classQName);
         if (cls != null)
@@ -252,6 +332,35 @@ public class XMLBinding implements Reusable, XMLSerializable {
         return cls;
     }
 
+    // Returns the resolution cache for the specified namespace URI (created
+    // if none, to be called only once a class has been resolved).
+    private FastMap namespaceCache(CharArray namespaceURI) {
+        FastMap cache = (FastMap) _namespaceToClasses.get(namespaceURI);
+        if (cache != null)
+            return cache;
+        synchronized (_namespaceToClasses) {
+            cache = (FastMap) _namespaceToClasses.get(namespaceURI);
+            if (cache == null) {
+                cache = newCache();
+                _namespaceToClasses.put(namespaceURI.toString(), cache);
+            }
+            return cache;
+        }
+    }
+
+    // Element names may come from untrusted documents (hash flooding), 
+    // only names resolved to existing classes are cached.
+    private static FastMap newCache() {
+        return new FastMap().setKeyComparator(FastComparator.SEEDED_LEXICAL).shared();
+    }
+
+    // Clears the resolution caches (e.g. aliases have changed).
+    private void clearCaches() {
+        _localNameToClass.clear();
+        _namespaceToClasses.clear();
+        _classNameToClass.clear();
+    }
+
     /**
      * Writes the specified class to the current XML element attributes or to 
      * a new element if the element attributes cannot be used.
@@ -302,6 +411,9 @@ public class XMLBinding implements Reusable, XMLSerializable {
         _classAttribute = QName.valueOf("class");
         _aliasToClass.reset();
         _classToAlias.reset();
+        clearCaches();
+        _classToFormat.clear();
+        _reflectionFormats = false;
     }
 
     //////////////////////////////////////////////////
@@ -9,12 +9,19 @@
 package _templates.javolution.xml;
 
 import _templates.java.lang.CharSequence;
+import _templates.javolution.context.ObjectFactory;
 import _templates.javolution.lang.Reflection;
+import _templates.javolution.lang.Reusable;
 import _templates.javolution.text.CharArray;
 import _templates.javolution.text.Text;
 import _templates.javolution.text.TextBuilder;
 import _templates.javolution.text.TextFormat;
+import _templates.javolution.util.FastMap;
 import _templates.javolution.xml.sax.Attributes;
+import _templates.javolution.xml.stream.JSONStreamReaderImpl;
+import _templates.javolution.xml.stream.JSONStreamWriterImpl;
+import _templates.javolution.xml.stream.XMLBinaryReaderImpl;
+import _templates.javolution.xml.stream.XMLBinaryWriterImpl;
 import _templates.javolution.xml.stream.XMLStreamException;
 import _templates.javolution.xml.stream.XMLStreamReader;
 import _templates.javolution.xml.stream.XMLStreamReaderImpl;
@@ -208,7 +215,14 @@ public abstract class XMLFormat/*<T>*/ {
      * XML input element. By default, this method returns an object created 
      * using the public no-arg constructor of the specified class. 
      * XML formats may override this method in order to use private/multi-arg
-     * constructors.  
+     * constructors. When objects are streamed with recycling enabled 
+     * (see {@link XMLObjectReader#readNested XMLObjectReader.readNested}),
+     * the streamed (top-level) objects of {@link Reusable} classes are
+     * obtained from the {@link ObjectFactory} of their class (possibly
+     * recycled and then {@link Reusable#reset reset}); nested objects and
+     * objects of other classes are never recycled (their fields would
+     * otherwise keep the values of the previous object when the
+     * corresponding attributes or elements are absent).
      *
      * @param cls the class of the object to return.
      * @param xml the XML input element.
@@ -216,6 +230,14 @@ public abstract class XMLFormat/*<T>*/ {
      */
     public Object/*{T}*/ newInstance(Class/*<T>*/ cls, InputElement xml)
             throws XMLStreamException {
+        if (xml._isRecycling) {
+            xml._isRecycling = false; // Top-level object only.
+            if (Reusable.class.isAssignableFrom(cls)) {
+                Object obj = xml.getFactory(cls).object();
+                xml._recyclable = obj;
+                return (Object/*{T}*/) obj;
+            }
+        }
         try {
             return cls.newInstance();
         } catch (InstantiationException e) {
@@ -262,9 +284,24 @@ public abstract class XMLFormat/*<T>*/ {
     public static final class InputElement {
 
         /**
-         * Holds the stream reader.
+         * Holds the textual stream reader.
+         */
+        final XMLStreamReaderImpl _textReader = new XMLStreamReaderImpl();
+
+        /**
+         * Holds the binary stream reader.
+         */
+        final XMLBinaryReaderImpl _binaryReader = new XMLBinaryReaderImpl();
+
+        /**
+         * Holds the JSON stream reader.
+         */
+        final JSONStreamReaderImpl _jsonReader = new JSONStreamReaderImpl();
+
+        /**
+         * Holds the current stream reader (textual, binary or JSON).
          */
-        final XMLStreamReaderImpl _reader = new XMLStreamReaderImpl();
+        XMLStreamReader _reader = _textReader;
 
         /**
          * Holds the XML binding.
@@ -281,6 +318,21 @@ public abstract class XMLFormat/*<T>*/ {
          */
         private boolean _isReaderAtNext;
 
+        /**
+         * Indicates if streamed objects are recycled (factory allocation).
+         */
+        boolean _isRecycling;
+
+        /**
+         * Holds the last object allocated for recycling or <code>null</code>.
+         */
+        Object _recyclable;
+
+        /**
+         * Holds the factories of the recycled objects (class to factory).
+         */
+        private final FastMap _classToFactory = new FastMap();
+
         /**
          * Default constructor.
          */
@@ -457,6 +509,7 @@ public abstract class XMLFormat/*<T>*/ {
             // Creates object.
             _isReaderAtNext = false; // Makes attributes accessible.
             Object obj = xmlFormat.newInstance(cls, this);
+            _isRecycling = false; // Nested objects are not recycled.
 
             // Adds reference (before reading to support circular reference).
             if (_referenceResolver != null) {
@@ -494,7 +547,9 @@ public abstract class XMLFormat/*<T>*/ {
             if (_isReaderAtNext)
                 throw new XMLStreamException(
                         "Attributes should be read before content");
-            return _reader.getAttributes();
+            return (_reader == _binaryReader) ? _binaryReader.getAttributes()
+                    : (_reader == _jsonReader) ? _jsonReader.getAttributes()
+                    : _textReader.getAttributes();
         }
 
         /**
@@ -535,6 +590,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public boolean getAttribute(String name, boolean defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? _binaryReader.getAttributeBooleanValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? value.toBoolean() : defaultValue;
         }
@@ -569,6 +629,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public byte getAttribute(String name, byte defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? (byte) _binaryReader.getAttributeIntValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? (byte) value.toInt() : defaultValue;
         }
@@ -584,6 +649,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public short getAttribute(String name, short defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? (short) _binaryReader.getAttributeIntValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? (short) value.toInt() : defaultValue;
         }
@@ -599,6 +669,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public int getAttribute(String name, int defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? _binaryReader.getAttributeIntValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? value.toInt() : defaultValue;
         }
@@ -614,6 +689,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public long getAttribute(String name, long defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? _binaryReader.getAttributeLongValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? value.toLong() : defaultValue;
         }
@@ -628,6 +708,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public float getAttribute(String name, float defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? _binaryReader.getAttributeFloatValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? value.toFloat() : defaultValue;
         }
@@ -642,6 +727,11 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public double getAttribute(String name, double defaultValue)
                 throws XMLStreamException {
+            if (_reader == _binaryReader) { // Natively encoded.
+                final int i = getBinaryAttributeIndex(name);
+                return (i >= 0) ? _binaryReader.getAttributeDoubleValue(i)
+                        : defaultValue;
+            }
             CharArray value = getAttribute(name);
             return (value != null) ? value.toDouble() : defaultValue;
         }
@@ -670,6 +760,51 @@ public abstract class XMLFormat/*<T>*/ {
             return (Object/*{T}*/) format.parse(value);
         }
 
+        // Returns the index of the specified attribute (binary reader).
+        private int getBinaryAttributeIndex(String name)
+                throws XMLStreamException {
+            if (_isReaderAtNext)
+                throw new XMLStreamException(
+                        "Attributes should be read before reading content");
+            return _binaryReader.getAttributeIndex(null, toCsq(name));
+        }
+
+        // Positions the reader inside the next element (nested elements 
+        // can then be read one at a time using hasNext()/getNext()).
+        void enter() throws XMLStreamException {
+            if (!hasNext())
+                throw new XMLStreamException("No element to enter", _reader.getLocation());
+            _isReaderAtNext = false; // Next hasNext() moves to nested content.
+        }
+
+        // Skips the remaining nested elements and the end element of the 
+        // element previously entered.
+        void exit() throws XMLStreamException {
+            while (hasNext()) { // Skips without parsing.
+                for (int depth = 1; depth > 0;) {
+                    int event = _reader.next();
+                    if (event == XMLStreamReader.START_ELEMENT) {
+                        depth++;
+                    } else if (event == XMLStreamReader.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                _isReaderAtNext = false;
+            }
+            _isReaderAtNext = false; // Skips end element.
+        }
+
+        // Returns the factory used for the recycled objects of specified class
+        // (the same factory has to be used for allocation and recycling).
+        ObjectFactory getFactory(Class cls) {
+            ObjectFactory factory = (ObjectFactory) _classToFactory.get(cls);
+            if (factory == null) {
+                factory = ObjectFactory.getInstance(cls);
+                _classToFactory.put(cls, factory);
+            }
+            return factory;
+        }
+
         // Sets XML binding. 
         void setBinding(XMLBinding xmlBinding) {
             _binding = xmlBinding;
@@ -684,7 +819,13 @@ public abstract class XMLFormat/*<T>*/ {
         void reset() {
             _binding = XMLBinding.DEFAULT;
             _isReaderAtNext = false;
-            _reader.reset();
+            _isRecycling = false;
+            _recyclable = null;
+            _classToFactory.clear();
+            _textReader.reset();
+            _binaryReader.reset();
+            _jsonReader.reset();
+            _reader = _textReader;
             _referenceResolver = null;
         }
     }
@@ -695,9 +836,24 @@ public abstract class XMLFormat/*<T>*/ {
     public static final class OutputElement {
 
         /**
-         * Holds the stream writer.
+         * Holds the textual stream writer.
+         */
+        final XMLStreamWriterImpl _textWriter = new XMLStreamWriterImpl();
+
+        /**
+         * Holds the binary stream writer.
+         */
+        final XMLBinaryWriterImpl _binaryWriter = new XMLBinaryWriterImpl();
+
+        /**
+         * Holds the JSON stream writer.
+         */
+        final JSONStreamWriterImpl _jsonWriter = new JSONStreamWriterImpl();
+
+        /**
+         * Holds the current stream writer (textual, binary or JSON).
          */
-        final XMLStreamWriterImpl _writer = new XMLStreamWriterImpl();
+        XMLStreamWriter _writer = _textWriter;
 
         /**
          * Holds the XML binding.
@@ -929,6 +1085,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, boolean value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
         private TextBuilder _tmpTextBuilder = new TextBuilder();
@@ -953,6 +1117,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, byte value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), (int) value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), (int) value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
 
@@ -964,6 +1136,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, short value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), (int) value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), (int) value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
 
@@ -975,6 +1155,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, int value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
 
@@ -986,6 +1174,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, long value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
 
@@ -997,6 +1193,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, float value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
 
@@ -1008,6 +1212,14 @@ public abstract class XMLFormat/*<T>*/ {
          */
         public void setAttribute(String name, double value)
                 throws XMLStreamException {
+            if (_writer == _binaryWriter) { // Natively encoded.
+                _binaryWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
+            if (_writer == _jsonWriter) { // JSON number or boolean.
+                _jsonWriter.writeAttribute(toCsq(name), value);
+                return;
+            }
             setAttribute(name, _tmpTextBuilder.clear().append(value));
         }
 
@@ -1042,9 +1254,12 @@ public abstract class XMLFormat/*<T>*/ {
         // Resets for reuse.
         void reset() {
             _binding = XMLBinding.DEFAULT;
-            _writer.reset();
-            _writer.setRepairingNamespaces(true);
-            _writer.setAutomaticEmptyElements(true);
+            _textWriter.reset();
+            _textWriter.setRepairingNamespaces(true);
+            _textWriter.setAutomaticEmptyElements(true);
+            _binaryWriter.reset();
+            _jsonWriter.reset();
+            _writer = _textWriter;
             _referenceResolver = null;
         }
     }
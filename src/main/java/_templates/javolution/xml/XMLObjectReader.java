@@ -16,6 +16,8 @@ import java.io.Reader;
 import _templates.java.lang.IllegalStateException;
 import _templates.javolution.context.ObjectFactory;
 import _templates.javolution.lang.Reusable;
+import _templates.javolution.xml.stream.JSONStreamReaderImpl;
+import _templates.javolution.xml.stream.XMLBinaryReaderImpl;
 import _templates.javolution.xml.stream.XMLStreamException;
 import _templates.javolution.xml.stream.XMLStreamReader;
 import _templates.javolution.xml.stream.XMLStreamReaderImpl;
@@ -38,6 +40,24 @@ import _templates.javolution.xml.stream.XMLStreamReaderImpl;
  *     reader.close(); // Reader is recycled, the underlying stream is closed.
  *     [/code]</p>
  *     
+ * <p> Huge collections do not have to be materialized in memory, their 
+ *     elements can be streamed one at a time (the memory footprint is then 
+ *     bounded by the size of a single element). For example:[code]
+ *     XMLObjectReader reader = XMLObjectReader.newInstance(inputStream);
+ *     reader.enter(); // Positions the reader inside the collection element.
+ *     while (reader.hasNext()) {
+ *         Trade trade = reader.read();
+ *         ...
+ *     }
+ *     reader.exit(); // Moves past the collection end element.
+ *     [/code]
+ *     Or using a handler with objects recycling:[code]
+ *     reader.readNested(new XMLObjectReader.Handler() {
+ *         public void handle(Object obj) {
+ *             ... // Object is recycled when this method returns.
+ *         }
+ *     }, true);[/code]</p>
+ *     
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 4.0, September 4, 2006
  */
@@ -150,7 +170,7 @@ public class XMLObjectReader implements Reusable {
     public XMLObjectReader setInput(InputStream in) throws XMLStreamException {
         if ((_inputStream != null) || (_reader != null))
             throw new IllegalStateException("Reader not closed or reset");
-        _xml._reader.setInput(in);
+        _xml._textReader.setInput(in);
         _inputStream = in;
         return this;
     }
@@ -167,7 +187,7 @@ public class XMLObjectReader implements Reusable {
             throws XMLStreamException {
         if ((_inputStream != null) || (_reader != null))
             throw new IllegalStateException("Reader not closed or reset");
-        _xml._reader.setInput(in, encoding);
+        _xml._textReader.setInput(in, encoding);
         _inputStream = in;
         return this;
     }
@@ -182,7 +202,60 @@ public class XMLObjectReader implements Reusable {
     public XMLObjectReader setInput(Reader in) throws XMLStreamException {
         if ((_inputStream != null) || (_reader != null))
             throw new IllegalStateException("Reader not closed or reset");
-        _xml._reader.setInput(in);
+        _xml._textReader.setInput(in);
+        _reader = in;
+        return this;
+    }
+
+    /**
+     * Sets the binary input stream source for this XML object reader
+     * (stream produced by {@link XMLObjectWriter#setBinaryOutput}).
+     * 
+     * @param  in the source binary input stream.
+     * @return <code>this</code>
+     * @see    XMLBinaryReaderImpl#setInput(InputStream)
+     */
+    public XMLObjectReader setBinaryInput(InputStream in)
+            throws XMLStreamException {
+        if ((_inputStream != null) || (_reader != null))
+            throw new IllegalStateException("Reader not closed or reset");
+        _xml._binaryReader.setInput(in);
+        _xml._reader = _xml._binaryReader;
+        _inputStream = in;
+        return this;
+    }
+
+    /**
+     * Sets the JSON input stream source for this XML object reader
+     * (UTF-8 document produced by {@link XMLObjectWriter#setJSONOutput}).
+     * 
+     * @param  in the source JSON input stream.
+     * @return <code>this</code>
+     * @see    JSONStreamReaderImpl#setInput(InputStream)
+     */
+    public XMLObjectReader setJSONInput(InputStream in)
+            throws XMLStreamException {
+        if ((_inputStream != null) || (_reader != null))
+            throw new IllegalStateException("Reader not closed or reset");
+        _xml._jsonReader.setInput(in);
+        _xml._reader = _xml._jsonReader;
+        _inputStream = in;
+        return this;
+    }
+
+    /**
+     * Sets the JSON reader source for this XML object reader
+     * (document produced by {@link XMLObjectWriter#setJSONOutput}).
+     * 
+     * @param  in the source JSON reader.
+     * @return <code>this</code>
+     * @see    JSONStreamReaderImpl#setInput(Reader)
+     */
+    public XMLObjectReader setJSONInput(Reader in) throws XMLStreamException {
+        if ((_inputStream != null) || (_reader != null))
+            throw new IllegalStateException("Reader not closed or reset");
+        _xml._jsonReader.setInput(in);
+        _xml._reader = _xml._jsonReader;
         _reader = in;
         return this;
     }
@@ -292,6 +365,88 @@ public class XMLObjectReader implements Reusable {
         return _xml.get(localName, uri, cls);
     }
 
+    /**
+     * Positions this reader inside the next element; the nested elements
+     * can then be read one at a time using {@link #hasNext} and 
+     * {@link #read()} without the enclosing element (e.g. a huge collection)
+     * being materialized. The attributes of the element entered are ignored.
+     *
+     * @throws XMLStreamException if there is no element to enter.
+     */
+    public void enter() throws XMLStreamException {
+        _xml.enter();
+    }
+
+    /**
+     * Moves this reader past the end of the element previously 
+     * {@link #enter entered}; any nested element not yet read is skipped 
+     * (without being parsed into objects).
+     */
+    public void exit() throws XMLStreamException {
+        _xml.exit();
+    }
+
+    /**
+     * Streams the nested elements of the next element to the specified 
+     * handler. This method is equivalent to:[code]
+     *     reader.enter();
+     *     while (reader.hasNext()) {
+     *         Object obj = reader.read();
+     *         handler.handle(obj);
+     *         if (recycle && (obj instanceof Reusable))
+     *             factory(obj.getClass()).recycle(obj);
+     *     }
+     *     reader.exit();[/code]
+     * When recycling is enabled, the {@link Reusable} objects allocated 
+     * through the default {@link XMLFormat#newInstance} are obtained from 
+     * their {@link ObjectFactory} (the same factory instance being used for 
+     * allocation and recycling); only the objects passed to the handler are
+     * recycled (not their nested objects) and they should not 
+     * be retained (and no {@link #setReferenceResolver reference resolver}
+     * should be set as it keeps references to the objects read).
+     *
+     * @param handler the handler of the nested objects.
+     * @param recycle <code>true</code> if the objects are recycled after 
+     *        being handled; <code>false</code> otherwise.
+     * @return the number of objects handled.
+     */
+    public int readNested(Handler handler, boolean recycle)
+            throws XMLStreamException {
+        _xml.enter();
+        int count = 0;
+        try {
+            while (_xml.hasNext()) {
+                _xml._isRecycling = recycle; // Top-level object only.
+                _xml._recyclable = null;
+                Object obj = _xml.getNext();
+                handler.handle(obj);
+                count++;
+                if ((obj != null) && (obj == _xml._recyclable)) {
+                    _xml.getFactory(obj.getClass()).recycle(obj);
+                }
+            }
+        } finally {
+            _xml._isRecycling = false;
+            _xml._recyclable = null;
+        }
+        _xml.exit();
+        return count;
+    }
+
+    /**
+     * This interface represents a handler of the objects streamed by 
+     * {@link XMLObjectReader#readNested}.
+     */
+    public interface Handler {
+
+        /**
+         * Handles the specified object.
+         *
+         * @param obj the object read (can be <code>null</code>).
+         */
+        void handle(Object obj) throws XMLStreamException;
+    }
+
     /**
      * Closes this reader and its underlying input then {@link #reset reset}
      * this reader for potential reuse.
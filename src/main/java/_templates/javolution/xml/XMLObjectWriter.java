@@ -16,6 +16,8 @@ import java.io.Writer;
 import _templates.java.lang.IllegalStateException;
 import _templates.javolution.context.ObjectFactory;
 import _templates.javolution.lang.Reusable;
+import _templates.javolution.xml.stream.JSONStreamWriterImpl;
+import _templates.javolution.xml.stream.XMLBinaryWriterImpl;
 import _templates.javolution.xml.stream.XMLStreamException;
 import _templates.javolution.xml.stream.XMLStreamWriter;
 import _templates.javolution.xml.stream.XMLStreamWriterImpl;
@@ -144,7 +146,7 @@ public class XMLObjectWriter implements Reusable {
     public XMLObjectWriter setOutput(OutputStream out) throws XMLStreamException {
         if ((_outputStream != null) || (_writer != null))
             throw new IllegalStateException("Writer not closed or reset");
-        _xml._writer.setOutput(out);
+        _xml._textWriter.setOutput(out);
         _outputStream = out;
         _xml._writer.writeStartDocument();
         return this;
@@ -161,7 +163,7 @@ public class XMLObjectWriter implements Reusable {
     public XMLObjectWriter setOutput(OutputStream out, String encoding) throws XMLStreamException {
         if ((_outputStream != null) || (_writer != null))
             throw new IllegalStateException("Writer not closed or reset");
-        _xml._writer.setOutput(out, encoding);
+        _xml._textWriter.setOutput(out, encoding);
         _outputStream = out;
         _xml._writer.writeStartDocument();
         return this;
@@ -177,7 +179,69 @@ public class XMLObjectWriter implements Reusable {
     public XMLObjectWriter setOutput(Writer out) throws XMLStreamException {
         if ((_outputStream != null) || (_writer != null))
             throw new IllegalStateException("Writer not closed or reset");
-        _xml._writer.setOutput(out);
+        _xml._textWriter.setOutput(out);
+        _writer = out;
+        _xml._writer.writeStartDocument();
+        return this;
+    }
+    
+    /**
+     * Sets the output stream for this XML object writer using a tokenized
+     * binary encoding instead of textual XML (the output can only be read
+     * by a {@link XMLObjectReader#setBinaryInput binary} object reader).
+     * The XML formats are unchanged; names are written only once and
+     * primitive attributes are encoded natively (no formatting/parsing).
+     * 
+     * @param  out the output stream destination.
+     * @return <code>this</code>
+     * @see    XMLBinaryWriterImpl
+     */
+    public XMLObjectWriter setBinaryOutput(OutputStream out)
+            throws XMLStreamException {
+        if ((_outputStream != null) || (_writer != null))
+            throw new IllegalStateException("Writer not closed or reset");
+        _xml._binaryWriter.setOutput(out);
+        _xml._writer = _xml._binaryWriter;
+        _outputStream = out;
+        _xml._writer.writeStartDocument();
+        return this;
+    }
+    
+    /**
+     * Sets the output stream for this XML object writer using JSON
+     * (UTF-8) instead of XML; the output can be read back by a
+     * {@link XMLObjectReader#setJSONInput JSON} object reader.
+     * The XML formats are unchanged: elements are written as JSON arrays
+     * and primitive attributes as JSON numbers or booleans.
+     * 
+     * @param  out the output stream destination.
+     * @return <code>this</code>
+     * @see    JSONStreamWriterImpl
+     */
+    public XMLObjectWriter setJSONOutput(OutputStream out)
+            throws XMLStreamException {
+        if ((_outputStream != null) || (_writer != null))
+            throw new IllegalStateException("Writer not closed or reset");
+        _xml._jsonWriter.setOutput(out);
+        _xml._writer = _xml._jsonWriter;
+        _outputStream = out;
+        _xml._writer.writeStartDocument();
+        return this;
+    }
+    
+    /**
+     * Sets the output writer for this XML object writer using JSON
+     * instead of XML (see {@link #setJSONOutput(OutputStream)}).
+     * 
+     * @param  out the writer destination.
+     * @return <code>this</code>
+     * @see    JSONStreamWriterImpl
+     */
+    public XMLObjectWriter setJSONOutput(Writer out) throws XMLStreamException {
+        if ((_outputStream != null) || (_writer != null))
+            throw new IllegalStateException("Writer not closed or reset");
+        _xml._jsonWriter.setOutput(out);
+        _xml._writer = _xml._jsonWriter;
         _writer = out;
         _xml._writer.writeStartDocument();
         return this;
@@ -196,13 +260,13 @@ public class XMLObjectWriter implements Reusable {
 
     /**
      * Sets the indentation to be used by this writer (no indentation 
-     * by default).
+     * by default, ignored by binary and JSON outputs).
      * 
      * @param indentation the indentation string.
      * @return <code>this</code>
      */
     public XMLObjectWriter setIndentation(String indentation) {
-        _xml._writer.setIndentation(indentation);
+        _xml._textWriter.setIndentation(indentation);
         return this;
     }
 
@@ -9,13 +9,11 @@
 package _templates.javolution.xml;
 
 import _templates.java.lang.CharSequence;
+import _templates.javax.realtime.MemoryArea;
 import _templates.javolution.lang.Reusable;
 import _templates.javolution.text.CharArray;
 import _templates.javolution.text.TextBuilder;
-import _templates.javolution.util.FastComparator;
-import _templates.javolution.util.FastMap;
-import _templates.javolution.util.FastTable;
-import _templates.javolution.util.Index;
+import _templates.javolution.xml.stream.XMLBinaryReaderImpl;
 import _templates.javolution.xml.stream.XMLStreamException;
 
 /**
@@ -26,27 +24,54 @@ import _templates.javolution.xml.stream.XMLStreamException;
  *     {@link XMLObjectWriter} running sequentially (for cross references 
  *     spawning multiple documents).</p>
  *     
+ * <p> Objects are mapped to their identifiers through an identity hash 
+ *     table with open addressing (no entry object is allocated per
+ *     reference) and identifiers are read/written as <code>int</code> 
+ *     values (natively encoded by the binary writer). For write-only 
+ *     streaming of huge graphs, back-references can be 
+ *     {@link #setBackReferences disabled} in which case no object is 
+ *     retained by the resolver.</p>
+ *     
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 4.0, September 4, 2006
  */
 public class XMLReferenceResolver implements Reusable {
 
     /**
-     * Holds object to identifier (FastTable.Index) mapping.
+     * Holds the objects written (hash table keys, open addressing).
+     */
+    private Object[] _objects = new Object[16];
+
+    /**
+     * Holds the identifiers of the objects written (hash table values).
      */
-    private FastMap _objectToId = new FastMap()
-            .setKeyComparator(FastComparator.IDENTITY);
+    private int[] _ids = new int[16];
 
     /**
-     * Holds the objects (index to object mapping).
+     * Holds the number of objects in the hash table.
      */
-    private FastTable _idToObject = new FastTable();
+    private int _objectCount;
+
+    /**
+     * Holds the objects read (identifier to object mapping).
+     */
+    private Object[] _idToObject = new Object[16];
+
+    /**
+     * Holds the number of objects read.
+     */
+    private int _idCount;
 
     /**
      * Holds the id counter.
      */
     private int _counter;
 
+    /**
+     * Indicates if objects are retained for back-references.
+     */
+    private boolean _backReferences = true;
+
     /**
      * Holds the identifier attribute name.
      */
@@ -119,6 +144,21 @@ public class XMLReferenceResolver implements Reusable {
         _refURI = uri;
     }
 
+    /**
+     * Indicates if the objects written/read are retained in order to 
+     * resolve back-references (default <code>true</code>). When disabled,
+     * every object written receives a new identifier and no reference 
+     * is ever written; the memory footprint of the resolver is then 
+     * constant (e.g. write-only streaming of huge object graphs without 
+     * shared nodes). 
+     *
+     * @param enabled <code>true</code> if back-references are resolved;
+     *        <code>false</code> otherwise.
+     */
+    public void setBackReferences(boolean enabled) {
+        _backReferences = enabled;
+    }
+
     /**
      * Writes a reference to the specified object into the specified XML
      * element. The default implementation writes the reference into the 
@@ -132,33 +172,28 @@ public class XMLReferenceResolver implements Reusable {
      */
     public boolean writeReference(Object obj, XMLFormat.OutputElement xml)
             throws XMLStreamException {
-        Index id = (Index) _objectToId.get(obj);
-        if (id == null) { // New identifier.
-            id = Index.valueOf(_counter++);
-            _objectToId.put(obj, id);
-            _tmp.clear().append(id.intValue());
-            if (_idURI == null) {
-                xml.getStreamWriter().writeAttribute(toCsq(_idName),
-                        _tmp);
-            } else {
-                xml.getStreamWriter().writeAttribute(toCsq(_idURI),
-                        toCsq(_idName), _tmp);
-            }
+        if (!_backReferences) {
+            writeInt(_idURI, _idName, _counter++, xml);
             return false;
         }
-        _tmp.clear().append(id.intValue());
-        if (_refURI == null) {
-            xml._writer
-                    .writeAttribute(toCsq(_refName), _tmp);
-        } else {
-            xml._writer.writeAttribute(toCsq(_refURI),
-                    toCsq(_refName), _tmp);
+        int mask = _objects.length - 1;
+        int i = hash(obj) & mask;
+        for (Object key; (key = _objects[i]) != null; i = (i + 1) & mask) {
+            if (key == obj) {
+                writeInt(_refURI, _refName, _ids[i], xml);
+                return true;
+            }
         }
-        return true;
+        // New identifier.
+        _objects[i] = obj;
+        _ids[i] = _counter;
+        writeInt(_idURI, _idName, _counter++, xml);
+        if ((++_objectCount << 1) > _objects.length) { // Load factor 1/2.
+            increaseObjectsCapacity();
+        }
+        return false;
     }
 
-    private TextBuilder _tmp = new TextBuilder();
-
     /**
      * Reads the object referenced by the specified xml input element if any.
      * The default implementation reads the reference attribute to retrieve 
@@ -170,14 +205,12 @@ public class XMLReferenceResolver implements Reusable {
      */
     public Object readReference(XMLFormat.InputElement xml)
             throws XMLStreamException {
-        CharArray value = xml._reader.getAttributeValue(
-                toCsq(_refURI), toCsq(_refName));
-        if (value == null)
+        int ref = readInt(_refURI, _refName, xml);
+        if (ref < 0)
             return null;
-        int ref = value.toInt();
-        if (ref >= _idToObject.size())
-            throw new XMLStreamException("Reference: " + value + " not found");
-        return _idToObject.get(ref);
+        if (ref >= _idCount)
+            throw new XMLStreamException("Reference: " + ref + " not found");
+        return _idToObject[ref];
     }
 
     /**
@@ -191,15 +224,18 @@ public class XMLReferenceResolver implements Reusable {
      */
     public void createReference(Object obj, XMLFormat.InputElement xml)
             throws XMLStreamException {
-        CharArray value = xml._reader.getAttributeValue(
-                toCsq(_idURI), toCsq(_idName));
-        if (value == null)
+        if (!_backReferences)
             return;
-        int i = value.toInt();
-        if (_idToObject.size() != i)
+        int i = readInt(_idURI, _idName, xml);
+        if (i < 0)
+            return;
+        if (_idCount != i)
             throw new XMLStreamException("Identifier discontinuity detected "
-                    + "(expected " + _idToObject.size() + " found " + i + ")");
-        _idToObject.add(obj);
+                    + "(expected " + _idCount + " found " + i + ")");
+        if (_idCount >= _idToObject.length) {
+            increaseIdToObjectCapacity();
+        }
+        _idToObject[_idCount++] = obj;
     }
 
     // Implements Reusable.
@@ -208,11 +244,88 @@ public class XMLReferenceResolver implements Reusable {
         _idURI = null;
         _refName = "ref";
         _refURI = null;
-        _idToObject.clear();
-        _objectToId.clear();
+        _backReferences = true;
+        for (int i = 0; i < _objects.length; i++) {
+            _objects[i] = null;
+        }
+        _objectCount = 0;
+        for (int i = 0; i < _idCount; i++) {
+            _idToObject[i] = null;
+        }
+        _idCount = 0;
         _counter = 0;
     }
 
+    // Writes the specified int attribute (if the name is not null).
+    private void writeInt(String uri, String name, int value,
+            XMLFormat.OutputElement xml) throws XMLStreamException {
+        if (name == null)
+            return;
+        if (uri == null) {
+            xml.setAttribute(name, value); // Natively encoded if binary.
+        } else {
+            xml._writer.writeAttribute(toCsq(uri), toCsq(name), 
+                    _tmp.clear().append(value));
+        }
+    }
+
+    private final TextBuilder _tmp = new TextBuilder();
+
+    // Reads the specified int attribute, returns -1 if not found.
+    private static int readInt(String uri, String name,
+            XMLFormat.InputElement xml) throws XMLStreamException {
+        if (name == null)
+            return -1;
+        if (xml._reader == xml._binaryReader) { // Natively encoded.
+            XMLBinaryReaderImpl reader = xml._binaryReader;
+            int index = reader.getAttributeIndex(toCsq(uri), toCsq(name));
+            return (index >= 0) ? reader.getAttributeIntValue(index) : -1;
+        }
+        CharArray value = xml._reader.getAttributeValue(toCsq(uri), toCsq(name));
+        return (value != null) ? value.toInt() : -1;
+    }
+
+    // Returns the identity hash code of the specified object (spread).
+    private static int hash(Object obj) {
+        int h = System.identityHashCode(obj);
+        return h ^ (h >>> 16);
+    }
+
+    // Doubles the capacity of the object to identifier table.
+    private void increaseObjectsCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                Object[] objects = new Object[_objects.length << 1];
+                int[] ids = new int[objects.length];
+                int mask = objects.length - 1;
+                for (int i = 0; i < _objects.length; i++) {
+                    Object obj = _objects[i];
+                    if (obj == null)
+                        continue;
+                    int j = hash(obj) & mask;
+                    while (objects[j] != null) {
+                        j = (j + 1) & mask;
+                    }
+                    objects[j] = obj;
+                    ids[j] = _ids[i];
+                }
+                _objects = objects;
+                _ids = ids;
+            }
+        });
+    }
+
+    // Doubles the capacity of the identifier to object table.
+    private void increaseIdToObjectCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                Object[] tmp = new Object[_idToObject.length << 1];
+                System.arraycopy(_idToObject, 0, tmp, 0, _idCount);
+                _idToObject = tmp;
+            }
+        });
+    }
+
     private static CharSequence toCsq/**/(Object str) {
         return QName.j2meToCharSeq(str);
     }
@@ -0,0 +1,608 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.xml;
+
+import _templates.java.lang.UnsupportedOperationException;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.text.CharArray;
+import _templates.javolution.text.TextBuilder;
+import _templates.javolution.text.TextFormat;
+import _templates.javolution.util.FastMap;
+import _templates.javolution.xml.stream.XMLStreamException;
+
+/**
+ * <p> This class represents an automatic XML format for plain Java objects
+ *     (classes without static {@link XMLFormat}), based upon the object's
+ *     fields (including inherited and private fields).</p>
+ *
+ * <p> Non-static, non-transient fields of primitive type,
+ *     <code>String</code> and final classes having a parsable
+ *     {@link TextFormat} are represented as attributes; the other
+ *     non-null fields are represented as nested elements named after the
+ *     field. For example:[code]
+ *     public class Person {
+ *         private String name;
+ *         private int age;
+ *         private Address address;
+ *         private List<Person> children;
+ *         ...
+ *     }
+ *     <Person name="John Doe" age="36">
+ *         <address city="Paris" zip="75000"/>
+ *         <children>
+ *             <Person name="Jane Doe" age="3"/>
+ *         </children>
+ *     </Person>[/code]</p>
+ *
+ * <p> Classes are introspected only once; the field accessors are
+ *     precomputed (no name lookup or type dispatch per call) and primitive
+ *     fields are read/written through the typed attribute methods of
+ *     {@link XMLFormat.InputElement}/{@link XMLFormat.OutputElement}
+ *     (natively encoded by binary streams). Objects are created using
+ *     their no-arg constructor (public or not).</p>
+ *
+ * <p> Inherited fields shadowed by a subclass field of the same name are
+ *     qualified by the simple name of their declaring class
+ *     (e.g. <code>&lt;Manager name="..." Employee.name="..."/&gt;</code>).
+ *     </p>
+ *
+ * <p> Reflection formats are used by {@link XMLBinding} instances for which
+ *     {@link XMLBinding#setReflectionFormats reflection formats} are
+ *     enabled. They are not supported on J2ME platforms.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public class XMLReflectionFormat/*<T>*/ extends XMLFormat/*<T>*/ {
+
+    /**
+     * Holds the class to reflection format mapping.
+     */
+    private static final FastMap CLASS_TO_FORMAT = new FastMap().shared();
+
+    /**
+     * Holds the class of the objects formatted.
+     */
+    private final Class/*<T>*/ _forClass;
+
+    /**
+     * Holds the accessors of the fields represented as attributes.
+     */
+    private Accessor[] _attributes;
+
+    /**
+     * Holds the accessors of the fields represented as nested elements
+     * (superclass fields first, sorted by name).
+     */
+    private Accessor[] _elements;
+
+    /*@JVM-1.4+@
+    private java.lang.reflect.Constructor _constructor;
+    /**/
+
+    /**
+     * Returns the reflection format for the specified class (introspected
+     * only once).
+     *
+     * @param forClass the class of the objects to format.
+     * @return the corresponding reflection format.
+     * @throws UnsupportedOperationException if reflection is not supported
+     *         (J2ME).
+     */
+    public static/*<T>*/ XMLReflectionFormat/*<T>*/ valueOf(
+            final Class/*<T>*/ forClass) {
+        XMLReflectionFormat format = (XMLReflectionFormat) CLASS_TO_FORMAT
+                .get(forClass);
+        if (format != null)
+            return format;
+        final XMLReflectionFormat[] tmp = new XMLReflectionFormat[1];
+        MemoryArea.getMemoryArea(CLASS_TO_FORMAT).executeInArea(
+                new Runnable() {
+                    public void run() {
+                        tmp[0] = new XMLReflectionFormat(forClass);
+                    }
+                });
+        CLASS_TO_FORMAT.put(forClass, tmp[0]); // Concurrent puts are harmless.
+        return tmp[0];
+    }
+
+    /**
+     * Creates the reflection format for the specified class (unbound).
+     *
+     * @param forClass the class of the objects to format.
+     * @throws UnsupportedOperationException if reflection is not supported
+     *         (J2ME).
+     */
+    protected XMLReflectionFormat(Class/*<T>*/ forClass) {
+        super(null);
+        _forClass = forClass;
+        /*@JVM-1.4+@
+        if (true) {
+            introspect();
+            return;
+        }
+        /**/
+        throw new UnsupportedOperationException(
+                "Reflection formats not supported");
+    }
+
+    /**
+     * Returns the class of the objects formatted by this format.
+     *
+     * @return the class of the formatted objects.
+     */
+    public final Class/*<T>*/ getFormattedClass() {
+        return _forClass;
+    }
+
+    // Overrides.
+    public Object/*{T}*/ newInstance(Class/*<T>*/ cls, InputElement xml)
+            throws XMLStreamException {
+        if (cls != _forClass)
+            return super.newInstance(cls, xml);
+        return (Object/*{T}*/) allocate();
+    }
+
+    // Creates a new instance using the no-arg constructor.
+    private Object allocate() throws XMLStreamException {
+        /*@JVM-1.4+@
+        if (_constructor != null) {
+            try {
+                return _constructor.newInstance(NO_ARGS);
+            } catch (InstantiationException e) {
+                throw new XMLStreamException(e);
+            } catch (IllegalAccessException e) {
+                throw new XMLStreamException(e);
+            } catch (java.lang.reflect.InvocationTargetException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+        /**/
+        throw new XMLStreamException("No no-arg constructor for " + _forClass);
+    }
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    // Implements XMLFormat.
+    public void write(Object/*{T}*/ obj, OutputElement xml)
+            throws XMLStreamException {
+        for (int i = 0; i < _attributes.length;) {
+            _attributes[i++].write(obj, xml);
+        }
+        for (int i = 0; i < _elements.length;) {
+            _elements[i++].write(obj, xml);
+        }
+    }
+
+    // Implements XMLFormat.
+    public void read(InputElement xml, Object/*{T}*/ obj)
+            throws XMLStreamException {
+        for (int i = 0; i < _attributes.length;) {
+            _attributes[i++].read(xml, obj);
+        }
+        for (int i = 0; i < _elements.length;) {
+            _elements[i++].read(xml, obj);
+        }
+    }
+
+    // Overrides.
+    public String toString() {
+        return "Reflection XMLFormat for " + _forClass.getName();
+    }
+
+    /**
+     * This class represents a precomputed field accessor.
+     */
+    private static abstract class Accessor {
+
+        final String _name;
+
+        Accessor(String name) {
+            _name = name;
+        }
+
+        abstract void write(Object obj, OutputElement xml)
+                throws XMLStreamException;
+
+        abstract void read(InputElement xml, Object obj)
+                throws XMLStreamException;
+    }
+
+    /*@JVM-1.4+@
+    private void introspect() {
+        _elements = new Accessor[0];
+        _attributes = new Accessor[0];
+        for (Class cls = _forClass; cls != Object.class && cls != null; cls = cls
+                .getSuperclass()) {
+            java.lang.reflect.Field[] fields = cls.getDeclaredFields();
+            sort(fields); // Same order regardless of the virtual machine.
+            Accessor[] attributes = new Accessor[fields.length];
+            int attributeCount = 0;
+            Accessor[] elements = new Accessor[fields.length];
+            int elementCount = 0;
+            for (int i = 0; i < fields.length; i++) {
+                java.lang.reflect.Field field = fields[i];
+                int modifiers = field.getModifiers();
+                if (java.lang.reflect.Modifier.isStatic(modifiers)
+                        || java.lang.reflect.Modifier.isTransient(modifiers)
+                        || (field.getName().indexOf('$') >= 0)) // Synthetic.
+                    continue;
+                String name = field.getName();
+                if (isDefined(name)) { // Shadowed by a subclass field.
+                    name = qualifiedName(cls, name);
+                    if (isDefined(name))
+                        throw new IllegalArgumentException("Field " + name
+                                + " of " + _forClass + " is shadowed and"
+                                + " cannot be uniquely named");
+                }
+                field.setAccessible(true);
+                Accessor accessor = newAttributeAccessor(field, name);
+                if (accessor != null) {
+                    attributes[attributeCount++] = accessor;
+                } else {
+                    elements[elementCount++] = newElementAccessor(field, name);
+                }
+            }
+            _attributes = concat(attributes, attributeCount, _attributes);
+            _elements = concat(elements, elementCount, _elements);
+        }
+        try {
+            _constructor = _forClass.getDeclaredConstructor(new Class[0]);
+            _constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            _constructor = null; // Requires XMLFormat.newInstance override.
+        }
+    }
+
+    // Indicates if the specified name is used by a subclass accessor.
+    private boolean isDefined(String name) {
+        for (int i = 0; i < _attributes.length; i++) {
+            if (_attributes[i]._name.equals(name))
+                return true;
+        }
+        for (int i = 0; i < _elements.length; i++) {
+            if (_elements[i]._name.equals(name))
+                return true;
+        }
+        return false;
+    }
+
+    // Returns the name of a shadowed field qualified by its class simple
+    // name (e.g. "Base.name" or "Outer.Inner.name").
+    private static String qualifiedName(Class cls, String name) {
+        String className = cls.getName();
+        className = className.substring(className.lastIndexOf('.') + 1);
+        return className.replace('$', '.') + "." + name;
+    }
+
+    // Returns the specified accessors followed by the existing ones.
+    private static Accessor[] concat(Accessor[] accessors, int length,
+            Accessor[] existing) {
+        Accessor[] tmp = new Accessor[length + existing.length];
+        System.arraycopy(accessors, 0, tmp, 0, length);
+        System.arraycopy(existing, 0, tmp, length, existing.length);
+        return tmp;
+    }
+
+    private static void sort(java.lang.reflect.Field[] fields) {
+        for (int i = 1; i < fields.length; i++) { // Insertion sort (small).
+            java.lang.reflect.Field field = fields[i];
+            int j = i;
+            while ((j > 0)
+                    && (fields[j - 1].getName().compareTo(field.getName()) > 0)) {
+                fields[j] = fields[j - 1];
+                j--;
+            }
+            fields[j] = field;
+        }
+    }
+
+    private static Accessor newAttributeAccessor(java.lang.reflect.Field field,
+            String name) {
+        Class type = field.getType();
+        if (type == boolean.class)
+            return new BooleanAccessor(field, name);
+        if (type == byte.class)
+            return new ByteAccessor(field, name);
+        if (type == char.class)
+            return new CharAccessor(field, name);
+        if (type == short.class)
+            return new ShortAccessor(field, name);
+        if (type == int.class)
+            return new IntAccessor(field, name);
+        if (type == long.class)
+            return new LongAccessor(field, name);
+        if (type == float.class)
+            return new FloatAccessor(field, name);
+        if (type == double.class)
+            return new DoubleAccessor(field, name);
+        if (type == String.class)
+            return new StringAccessor(field, name);
+        if (java.lang.reflect.Modifier.isFinal(type.getModifiers())
+                && !type.isArray()
+                && TextFormat.getInstance(type).isParsingSupported())
+            return new TextAccessor(field, name);
+        return null;
+    }
+
+    private static Accessor newElementAccessor(java.lang.reflect.Field field,
+            String name) {
+        Class type = field.getType();
+        if (java.lang.reflect.Modifier.isFinal(type.getModifiers())
+                && !type.isArray())
+            return new TypedElementAccessor(field, name); // No class attribute.
+        return new ElementAccessor(field, name);
+    }
+
+    private static abstract class FieldAccessor extends Accessor {
+
+        final java.lang.reflect.Field _field;
+
+        FieldAccessor(java.lang.reflect.Field field, String name) {
+            super(name);
+            _field = field;
+        }
+
+        void write(Object obj, OutputElement xml) throws XMLStreamException {
+            try {
+                writeField(obj, xml);
+            } catch (IllegalAccessException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+
+        void read(InputElement xml, Object obj) throws XMLStreamException {
+            try {
+                readField(xml, obj);
+            } catch (IllegalAccessException e) {
+                throw new XMLStreamException(e);
+            }
+        }
+
+        abstract void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException;
+
+        abstract void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException;
+    }
+
+    private static final class BooleanAccessor extends FieldAccessor {
+
+        BooleanAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getBoolean(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setBoolean(obj, xml.getAttribute(_name, _field
+                    .getBoolean(obj)));
+        }
+    }
+
+    private static final class ByteAccessor extends FieldAccessor {
+
+        ByteAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getByte(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setByte(obj, xml.getAttribute(_name, _field.getByte(obj)));
+        }
+    }
+
+    private static final class CharAccessor extends FieldAccessor {
+
+        CharAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getChar(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setChar(obj, xml.getAttribute(_name, _field.getChar(obj)));
+        }
+    }
+
+    private static final class ShortAccessor extends FieldAccessor {
+
+        ShortAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getShort(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setShort(obj, xml.getAttribute(_name, _field.getShort(obj)));
+        }
+    }
+
+    private static final class IntAccessor extends FieldAccessor {
+
+        IntAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getInt(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setInt(obj, xml.getAttribute(_name, _field.getInt(obj)));
+        }
+    }
+
+    private static final class LongAccessor extends FieldAccessor {
+
+        LongAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getLong(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setLong(obj, xml.getAttribute(_name, _field.getLong(obj)));
+        }
+    }
+
+    private static final class FloatAccessor extends FieldAccessor {
+
+        FloatAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getFloat(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setFloat(obj, xml.getAttribute(_name, _field.getFloat(obj)));
+        }
+    }
+
+    private static final class DoubleAccessor extends FieldAccessor {
+
+        DoubleAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, _field.getDouble(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            _field.setDouble(obj, xml.getAttribute(_name, _field
+                    .getDouble(obj)));
+        }
+    }
+
+    private static final class StringAccessor extends FieldAccessor {
+
+        StringAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.setAttribute(_name, (String) _field.get(obj));
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            CharArray value = xml.getAttribute(_name);
+            if (value != null) {
+                _field.set(obj, value.toString());
+            }
+        }
+    }
+
+    private static final class TextAccessor extends FieldAccessor {
+
+        private final TextFormat _format;
+
+        TextAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+            _format = TextFormat.getInstance(field.getType());
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            Object value = _field.get(obj);
+            if (value == null)
+                return;
+            TextBuilder tmp = TextBuilder.newInstance();
+            try {
+                _format.format(value, tmp);
+                xml.setAttribute(_name, tmp);
+            } finally {
+                TextBuilder.recycle(tmp);
+            }
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            CharArray value = xml.getAttribute(_name);
+            if (value != null) {
+                _field.set(obj, _format.parse(value));
+            }
+        }
+    }
+
+    private static final class ElementAccessor extends FieldAccessor {
+
+        ElementAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.add(_field.get(obj), _name);
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            Object value = xml.get(_name);
+            if (value != null) {
+                _field.set(obj, value);
+            }
+        }
+    }
+
+    private static final class TypedElementAccessor extends FieldAccessor {
+
+        private final Class _type;
+
+        TypedElementAccessor(java.lang.reflect.Field field, String name) {
+            super(field, name);
+            _type = field.getType();
+        }
+
+        void writeField(Object obj, OutputElement xml)
+                throws XMLStreamException, IllegalAccessException {
+            xml.add(_field.get(obj), _name, _type);
+        }
+
+        void readField(InputElement xml, Object obj)
+                throws XMLStreamException, IllegalAccessException {
+            Object value = xml.get(_name, _type);
+            if (value != null) {
+                _field.set(obj, value);
+            }
+        }
+    }
+    /**/
+}
@@ -29,6 +29,8 @@ import _templates.java.lang.CharSequence;
 import _templates.javolution.lang.Reusable;
 import _templates.javolution.text.CharArray;
 import _templates.javolution.text.Text;
+import _templates.javolution.util.FastComparator;
+import _templates.javolution.util.FastMap;
 
 /**
  * <p> This class provides a SAX2-compliant parser wrapping a
@@ -38,6 +40,16 @@ import _templates.javolution.text.Text;
  *     the SAX2-like {@link _templates.javolution.xml.sax.XMLReaderImpl 
  *     XMLSaxParserImpl} or better{@link _templates.javolution.xml.stream.XMLStreamReader 
  *     XMLStreamReader} is recommended.</p>
+ *     
+ * <p> To reduce the overhead of the SAX2 bridge, the element/attribute names 
+ *     are converted only once (interned strings cached by content, the 
+ *     <code>"http://xml.org/sax/features/string-interning"</code> feature 
+ *     is supported) and attribute values are converted lazily, 
+ *     only when requested by the content handler. The names cache is
+ *     bounded; once full (documents with too many distinct names),
+ *     new names are no longer interned (protects the virtual machine
+ *     intern pool) and the string-interning feature is reported as
+ *     <code>false</code> until this reader is {@link #reset reset}.</p>
  *
  * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
  * @version 4.0, June 16, 2005
@@ -70,15 +82,25 @@ public final class SAX2ReaderImpl implements XMLReader, Reusable {
     // Implements org.xml.sax.XMLReader interface.
     public boolean getFeature(String name) throws SAXNotRecognizedException,
             SAXNotSupportedException {
+        if (name.equals(STRING_INTERNING))
+            return !_proxy.isNamesCacheFull();
         return _parser.getFeature(name);
     }
 
     // Implements org.xml.sax.XMLReader interface.
     public void setFeature(String name, boolean value)
             throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (name.equals(STRING_INTERNING)) {
+            if (value != getFeature(STRING_INTERNING))
+                throw new SAXNotSupportedException(
+                        "String interning cannot be set to " + value);
+            return;
+        }
         _parser.setFeature(name, value);
     }
 
+    private static final String STRING_INTERNING = "http://xml.org/sax/features/string-interning";
+
     // Implements org.xml.sax.XMLReader interface.
     public Object getProperty(String name) throws SAXNotRecognizedException,
             SAXNotSupportedException {
@@ -158,6 +180,7 @@ public final class SAX2ReaderImpl implements XMLReader, Reusable {
     // Implements Reusable interface.
     public void reset() {
         _parser.reset();        
+        _proxy.clearNames();
     }
     /**
      * This class defines the proxy for content handler and attributes.
@@ -176,12 +199,57 @@ public final class SAX2ReaderImpl implements XMLReader, Reusable {
          */
         private _templates.javolution.xml.sax.Attributes _attributes;
 
+        /**
+         * Holds the names already converted (content to interned string),
+         * kept across documents parsed (names come from the parsed input,
+         * hence the seeded hash).
+         */
+        private final FastMap _names = new FastMap()
+                .setKeyComparator(FastComparator.SEEDED_LEXICAL);
+
+        /**
+         * Holds the attribute values of the current element converted so far.
+         */
+        private String[] _values = new String[16];
+
+        /**
+         * Holds the number of attributes of the current element.
+         */
+        private int _length;
+
         /**
          * Default constructor.
          */
         public Proxy() {
         }
 
+        // Returns the interned string for the specified name (cached),
+        // names are not interned anymore when the cache is full.
+        private String name(CharSequence chars) {
+            if (chars == null)
+                return null;
+            String str = (String) _names.get(chars);
+            if (str != null)
+                return str;
+            if (isNamesCacheFull()) // Protects against unbounded names.
+                return chars.toString();
+            str = chars.toString().intern();
+            _names.put(str, str);
+            return str;
+        }
+
+        private static final int MAX_NAMES = 4096;
+
+        // Indicates if the names cache is full (names not interned).
+        boolean isNamesCacheFull() {
+            return _names.size() >= MAX_NAMES;
+        }
+
+        // Clears the names cache.
+        void clearNames() {
+            _names.clear();
+        }
+
         // Implements ContentHandler
         public void setDocumentLocator(Locator locator) {
             _sax2Handler.setDocumentLocator(locator);
@@ -201,28 +269,35 @@ public final class SAX2ReaderImpl implements XMLReader, Reusable {
         // Implements ContentHandler
         public void startPrefixMapping(CharArray prefix, CharArray uri)
                 throws SAXException {
-            _sax2Handler.startPrefixMapping(prefix.toString(), uri.toString());
+            _sax2Handler.startPrefixMapping(name(prefix), name(uri));
         }
 
         // Implements ContentHandler
         public void endPrefixMapping(CharArray prefix) throws SAXException {
-            _sax2Handler.endPrefixMapping(prefix.toString());
+            _sax2Handler.endPrefixMapping(name(prefix));
         }
 
         // Implements ContentHandler
         public void startElement(CharArray namespaceURI,
                 CharArray localName, CharArray qName,
                 _templates.javolution.xml.sax.Attributes atts) throws SAXException {
+            for (int i = 0; i < _length; i++) {
+                _values[i] = null; // Values of previous element.
+            }
             _attributes = atts;
-            _sax2Handler.startElement(namespaceURI.toString(), localName
-                    .toString(), qName.toString(), this);
+            _length = (atts != null) ? atts.getLength() : 0;
+            if (_length > _values.length) {
+                _values = new String[_length];
+            }
+            _sax2Handler.startElement(name(namespaceURI), name(localName),
+                    name(qName), this);
         }
 
         // Implements ContentHandler
         public void endElement(CharArray namespaceURI,
                 CharArray localName, CharArray qName) throws SAXException {
-            _sax2Handler.endElement(namespaceURI.toString(), localName
-                    .toString(), qName.toString());
+            _sax2Handler.endElement(name(namespaceURI), name(localName),
+                    name(qName));
         }
 
         // Implements ContentHandler
@@ -251,36 +326,45 @@ public final class SAX2ReaderImpl implements XMLReader, Reusable {
 
         // Implements Attributes
         public int getLength() {
-            return (_attributes != null ? _attributes.getLength() : 0);
+            return _length;
         }
 
         // Implements Attributes
         public String getURI(int index) {
             CharSequence chars = (_attributes != null ? _attributes.getURI(index) : null);
-            return (chars != null ? chars.toString() : "");
+            return (chars != null ? name(chars) : "");
         }
 
         // Implements Attributes
         public String getLocalName(int index) {
             CharSequence chars = (_attributes != null ? _attributes.getLocalName(index) : null);
-            return (chars != null ? chars.toString() : "");
+            return (chars != null ? name(chars) : "");
         }
 
         // Implements Attributes
         public String getQName(int index) {
             CharSequence chars = (_attributes != null ? _attributes.getQName(index) : null);
-            return (chars != null ? chars.toString() : "");
+            return (chars != null ? name(chars) : "");
         }
 
         // Implements Attributes
         public String getType(int index) {
-            return (_attributes != null ? _attributes.getType(index).toString() : null);
+            return (_attributes != null ? name(_attributes.getType(index)) : null);
         }
 
         // Implements Attributes
         public String getValue(int index) {
-            CharSequence chars = (_attributes != null ? _attributes.getValue(index) : null);
-            return (chars != null ? chars.toString() : null);
+            if ((index < 0) || (index >= _length))
+                return null;
+            String value = _values[index];
+            if (value == null) { // Converts on first request only.
+                CharSequence chars = _attributes.getValue(index);
+                if (chars == null)
+                    return null;
+                value = chars.toString();
+                _values[index] = value;
+            }
+            return value;
         }
 
         // Implements Attributes
@@ -295,22 +379,22 @@ public final class SAX2ReaderImpl implements XMLReader, Reusable {
 
         // Implements Attributes
         public String getType(String uri, String localName) {
-            return (uri != null && localName != null && _attributes != null ? _attributes.getType(toCharSequence(uri), toCharSequence(localName)).toString() : null);
+            return (uri != null && localName != null && _attributes != null ? name(_attributes.getType(toCharSequence(uri), toCharSequence(localName))) : null);
         }
 
         // Implements Attributes
         public String getType(String qName) {
-            return (qName != null && _attributes != null ? _attributes.getType(toCharSequence(qName)).toString() : null);
+            return (qName != null && _attributes != null ? name(_attributes.getType(toCharSequence(qName))) : null);
         }
 
         // Implements Attributes
         public String getValue(String uri, String localName) {
-            return (uri != null && localName != null && _attributes != null && _attributes.getValue(toCharSequence(uri), toCharSequence(localName)) != null ? _attributes.getValue(toCharSequence(uri), toCharSequence(localName)).toString() : null);
+            return getValue(getIndex(uri, localName));
         }
 
         // Implements Attributes
         public String getValue(String qName) {
-            return (qName != null && _attributes != null ? _attributes.getValue(toCharSequence(qName)).toString() : null);
+            return getValue(getIndex(qName));
         }
     }
 
@@ -0,0 +1,1053 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.xml.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+import _templates.java.lang.CharSequence;
+import _templates.java.lang.IllegalStateException;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.io.UTF8StreamReader;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.CharArray;
+import _templates.javolution.text.TypeFormat;
+import _templates.javolution.xml.sax.Attributes;
+
+/**
+ * <p> This class represents a {@link _templates.javolution.lang.Reusable
+ *     reusable} implementation of {@link XMLStreamReader} for the
+ *     <a href="http://www.json.org/">JSON</a> documents produced by
+ *     {@link JSONStreamWriterImpl} (elements represented as
+ *     <a href="http://www.jsonml.org/">JsonML</a> arrays).</p>
+ *
+ * <p> Element names, attribute names and values and text are decoded
+ *     (unescaped) into a single internal buffer and returned as
+ *     {@link CharArray} views over this buffer (no object creation once
+ *     the buffer has grown to its working size). JSON numbers and booleans
+ *     are returned as their literal characters; they can be parsed directly
+ *     using the typed <code>getAttribute...Value(int)</code> methods
+ *     ({@link TypeFormat}).</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class JSONStreamReaderImpl implements XMLStreamReader, Reusable {
+
+    /**
+     * Holds the length of the read buffer.
+     */
+    private static final int BUFFER_LENGTH = 4096;
+
+    /**
+     * Holds the reader source (<code>null</code> when unused).
+     */
+    private Reader _reader;
+
+    /**
+     * Holds the UTF-8 reader (for input streams).
+     */
+    private final UTF8StreamReader _utf8Reader = new UTF8StreamReader();
+
+    /**
+     * Holds the read buffer.
+     */
+    private final char[] _readBuffer = new char[BUFFER_LENGTH];
+
+    /**
+     * Holds the index of the next character to read.
+     */
+    private int _readIndex;
+
+    /**
+     * Holds the number of characters in the read buffer.
+     */
+    private int _readCount;
+
+    /**
+     * Holds the number of characters read before the current read buffer.
+     */
+    private int _charsRead;
+
+    /**
+     * Holds the decoded characters (element names stack followed by the
+     * current event data).
+     */
+    private char[] _data = new char[256];
+
+    /**
+     * Holds the number of decoded characters.
+     */
+    private int _length;
+
+    /**
+     * Holds the number of decoded characters of the element names stack.
+     */
+    private int _stackLength;
+
+    /**
+     * Holds the current event type.
+     */
+    private int _eventType = START_DOCUMENT;
+
+    /**
+     * Indicates if the current array has no item yet.
+     */
+    private boolean _isFirstItem;
+
+    /**
+     * Indicates if the separator before the next item has been read.
+     */
+    private boolean _isSeparated;
+
+    /**
+     * Holds the current nesting level.
+     */
+    private int _depth;
+
+    /**
+     * Holds the start of the elements name (indexed per nesting level).
+     */
+    private int[] _elementStarts = new int[16];
+
+    /**
+     * Holds the local name of the elements (indexed per nesting level).
+     */
+    private CharArray[] _elementLocalNames = new CharArray[16];
+
+    /**
+     * Holds the number of attributes of the current start element.
+     */
+    private int _attributeCount;
+
+    /**
+     * Holds the attributes name offset (name and value are contiguous).
+     */
+    private int[] _attributeStarts = new int[16];
+
+    /**
+     * Holds the attributes name length.
+     */
+    private int[] _attributeNameLengths = new int[16];
+
+    /**
+     * Holds the attributes value length.
+     */
+    private int[] _attributeValueLengths = new int[16];
+
+    /**
+     * Holds the attributes local name.
+     */
+    private CharArray[] _attributeLocalNames = new CharArray[16];
+
+    /**
+     * Holds the attributes value.
+     */
+    private CharArray[] _attributeValues = new CharArray[16];
+
+    /**
+     * Holds the start of the current text.
+     */
+    private int _textStart;
+
+    /**
+     * Holds the current text.
+     */
+    private final CharArray _text = new CharArray();
+
+    /**
+     * Holds the attributes view.
+     */
+    private final AttributesView _attributes = new AttributesView();
+
+    /**
+     * Holds the location.
+     */
+    private final LocationImpl _location = new LocationImpl();
+
+    /**
+     * Default constructor.
+     */
+    public JSONStreamReaderImpl() {
+        for (int i = 0; i < _attributeValues.length;) {
+            _elementLocalNames[i] = new CharArray();
+            _attributeLocalNames[i] = new CharArray();
+            _attributeValues[i++] = new CharArray();
+        }
+    }
+
+    /**
+     * Sets the input stream source for this JSON stream reader
+     * (UTF-8 encoding).
+     *
+     * @param in the input source.
+     */
+    public void setInput(InputStream in) throws XMLStreamException {
+        setInput(_utf8Reader.setInput(in));
+    }
+
+    /**
+     * Sets the reader input source for this JSON stream reader.
+     *
+     * @param reader the input source.
+     */
+    public void setInput(Reader reader) throws XMLStreamException {
+        if (_reader != null)
+            throw new IllegalStateException("Reader not closed or reset");
+        _reader = reader;
+    }
+
+    /**
+     * Returns the current attributes (SAX2-Like).
+     *
+     * @return the attributes of the current start element.
+     * @throws IllegalStateException if not a START_ELEMENT.
+     */
+    public Attributes getAttributes() {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return _attributes;
+    }
+
+    /**
+     * Returns the index of the specified attribute.
+     *
+     * @param uri the namespace URI (ignored, attributes have no namespace).
+     * @param localName the attribute local name.
+     * @return the attribute index or <code>-1</code> if not found.
+     * @throws IllegalStateException if not a START_ELEMENT.
+     */
+    public int getAttributeIndex(CharSequence uri, CharSequence localName) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        final int n = localName.length();
+        for (int i = 0; i < _attributeCount; i++) {
+            if (_attributeNameLengths[i] != n)
+                continue;
+            int j = 0;
+            for (int k = _attributeStarts[i]; j < n; j++) {
+                if (_data[k++] != localName.charAt(j))
+                    break;
+            }
+            if (j == n)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the <code>boolean</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public boolean getAttributeBooleanValue(int index) {
+        return TypeFormat.parseBoolean(getAttributeValue(index));
+    }
+
+    /**
+     * Returns the <code>int</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public int getAttributeIntValue(int index) {
+        return TypeFormat.parseInt(getAttributeValue(index));
+    }
+
+    /**
+     * Returns the <code>long</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public long getAttributeLongValue(int index) {
+        return TypeFormat.parseLong(getAttributeValue(index));
+    }
+
+    /**
+     * Returns the <code>float</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public float getAttributeFloatValue(int index) {
+        return TypeFormat.parseFloat(getAttributeValue(index));
+    }
+
+    /**
+     * Returns the <code>double</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public double getAttributeDoubleValue(int index) {
+        return TypeFormat.parseDouble(getAttributeValue(index));
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        _attributeCount = 0;
+        _charsRead = 0;
+        _depth = 0;
+        _eventType = START_DOCUMENT;
+        _isFirstItem = false;
+        _isSeparated = false;
+        _length = 0;
+        _readCount = 0;
+        _readIndex = 0;
+        _reader = null;
+        _stackLength = 0;
+        _textStart = 0;
+        _utf8Reader.reset();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int next() throws XMLStreamException {
+        if (_eventType == END_ELEMENT) {
+            _stackLength = _elementStarts[--_depth];
+        } else if (_eventType == END_DOCUMENT)
+            throw new XMLStreamException("End of document reached", _location);
+        _length = _stackLength;
+        _attributeCount = 0;
+        if (_eventType == START_DOCUMENT) {
+            if (readSkipWhitespaces() != '[')
+                throw new XMLStreamException("JSON array expected", _location);
+            _isFirstItem = true;
+        }
+        final char c = readItemStart();
+        if (c == ']') {
+            if (_depth == 0)
+                return _eventType = END_DOCUMENT;
+            return _eventType = END_ELEMENT;
+        }
+        if (c == '[') {
+            readStartElement();
+            return _eventType = START_ELEMENT;
+        }
+        _textStart = _length;
+        readValue(c);
+        _text.setArray(_data, _textStart, _length - _textStart);
+        return _eventType = CHARACTERS;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public void require(int type, CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        if (_eventType != type)
+            throw new XMLStreamException("Expected event: "
+                    + XMLStreamReaderImpl.NAMES_OF_EVENTS[type]
+                    + ", found event: "
+                    + XMLStreamReaderImpl.NAMES_OF_EVENTS[_eventType]);
+        if (namespaceURI != null)
+            throw new XMLStreamException("Expected namespace URI: "
+                    + namespaceURI + ", found: " + getNamespaceURI());
+        if ((localName != null) && !getLocalName().equals(localName))
+            throw new XMLStreamException("Expected local name: " + localName
+                    + ", found: " + getLocalName());
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getElementText() throws XMLStreamException {
+        if (_eventType != START_ELEMENT)
+            throw new XMLStreamException(
+                    "Parser must be on START_ELEMENT to read next text",
+                    _location);
+        _length = _stackLength;
+        _attributeCount = 0;
+        _textStart = _length;
+        for (char c = readItemStart();; c = readItemStart()) {
+            if (c == ']') {
+                _eventType = END_ELEMENT;
+                _text.setArray(_data, _textStart, _length - _textStart);
+                return _text;
+            }
+            if (c == '[')
+                throw new XMLStreamException(
+                        "Element text content may not contain START_ELEMENT",
+                        _location);
+            readValue(c); // Merges adjacent text.
+        }
+    }
+
+    // Implements XMLStreamReader Interface.
+    public Object getProperty(String name) throws IllegalArgumentException {
+        if (name.equals(XMLInputFactory.IS_COALESCING))
+            return Boolean.FALSE;
+        throw new IllegalArgumentException("Property: " + name
+                + " not supported");
+    }
+
+    // Implements XMLStreamReader Interface.
+    public void close() throws XMLStreamException {
+        reset();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getAttributeCount() {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return _attributeCount;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeLocalName(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        if (index >= _attributeCount)
+            return null;
+        return _attributeLocalNames[index].setArray(_data,
+                _attributeStarts[index], _attributeNameLengths[index]);
+    }
+
+    // Implements XMLStreamReader Interface (attributes have no namespace).
+    public CharArray getAttributeNamespace(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (attributes have no prefix).
+    public CharArray getAttributePrefix(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeType(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return (index < _attributeCount) ? CDATA : null;
+    }
+
+    private static final CharArray CDATA = new CharArray("CDATA");
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeValue(CharSequence uri, CharSequence localName) {
+        final int index = getAttributeIndex(uri, localName);
+        return (index >= 0) ? getAttributeValue(index) : null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeValue(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        if (index >= _attributeCount)
+            return null;
+        return _attributeValues[index].setArray(_data, _attributeStarts[index]
+                + _attributeNameLengths[index], _attributeValueLengths[index]);
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getCharacterEncodingScheme() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public String getEncoding() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getEventType() {
+        return _eventType;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getLocalName() {
+        if ((_eventType != START_ELEMENT) && (_eventType != END_ELEMENT))
+            throw new IllegalStateException("Not a start or end element");
+        final int i = _depth - 1; // Element names are contiguous.
+        final int start = _elementStarts[i];
+        final int end = _stackLength;
+        return _elementLocalNames[i].setArray(_data, start, end - start);
+    }
+
+    // Implements XMLStreamReader Interface.
+    public Location getLocation() {
+        return _location;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public int getNamespaceCount() {
+        if ((_eventType != START_ELEMENT) && (_eventType != END_ELEMENT))
+            throw new IllegalStateException("Not a start or end element");
+        return 0;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public CharArray getNamespacePrefix(int index) {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public CharArray getNamespaceURI(CharSequence prefix) {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public CharArray getNamespaceURI(int index) {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public NamespaceContext getNamespaceContext() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (elements have no namespace).
+    public CharArray getNamespaceURI() {
+        if ((_eventType != START_ELEMENT) && (_eventType != END_ELEMENT))
+            throw new IllegalStateException("Not a start or end element");
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (elements have no prefix).
+    public CharArray getPrefix() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getPIData() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getPITarget() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getText() {
+        if (_eventType != CHARACTERS)
+            throw new IllegalStateException("Not a text event");
+        return _text;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public char[] getTextCharacters() {
+        return getText().array();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getTextCharacters(int sourceStart, char[] target,
+            int targetStart, int length) throws XMLStreamException {
+        CharArray text = getText();
+        int copyLength = Math.min(length, text.length() - sourceStart);
+        System.arraycopy(text.array(), text.offset() + sourceStart, target,
+                targetStart, copyLength);
+        return copyLength;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getTextLength() {
+        return getText().length();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getTextStart() {
+        return getText().offset();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getVersion() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isStandalone() {
+        return false;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean standaloneSet() {
+        return false;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean hasName() {
+        return (_eventType == START_ELEMENT) || (_eventType == END_ELEMENT);
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean hasNext() throws XMLStreamException {
+        return _eventType != END_DOCUMENT;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean hasText() {
+        return (_eventType == CHARACTERS) && (_text.length() > 0);
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isAttributeSpecified(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return index < _attributeCount;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isCharacters() {
+        return _eventType == CHARACTERS;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isEndElement() {
+        return _eventType == END_ELEMENT;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isStartElement() {
+        return _eventType == START_ELEMENT;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isWhiteSpace() {
+        if (_eventType != CHARACTERS)
+            return false;
+        for (int i = _textStart; i < _length;) {
+            final char c = _data[i++];
+            if ((c != 0x20) && (c != 0x9) && (c != 0xD) && (c != 0xA))
+                return false;
+        }
+        return true;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int nextTag() throws XMLStreamException {
+        int eventType = next();
+        while ((eventType == CHARACTERS) && isWhiteSpace()) {
+            eventType = next();
+        }
+        if ((eventType != START_ELEMENT) && (eventType != END_ELEMENT))
+            throw new XMLStreamException("Tag expected (but found "
+                    + XMLStreamReaderImpl.NAMES_OF_EVENTS[_eventType] + ")",
+                    _location);
+        return eventType;
+    }
+
+    // Reads the separator (if any) and returns the first character of the
+    // next item of the current array or ']' if the array is closed.
+    private char readItemStart() throws XMLStreamException {
+        char c = readSkipWhitespaces();
+        if (_isSeparated) {
+            _isSeparated = false;
+        } else if (c == ']') {
+            return c;
+        } else if (_isFirstItem) {
+            _isFirstItem = false;
+        } else if (c == ',') {
+            c = readSkipWhitespaces();
+        } else
+            throw new XMLStreamException("',' or ']' expected (but found '"
+                    + c + "')", _location);
+        if ((c == ']') || (c == ',') || (c == '}') || (c == ':'))
+            throw new XMLStreamException("Unexpected character '" + c + "'",
+                    _location);
+        return c;
+    }
+
+    // Reads the element name and its attributes (JSON object).
+    private void readStartElement() throws XMLStreamException {
+        if (_depth >= _elementStarts.length) {
+            increaseElementCapacity();
+        }
+        if (readSkipWhitespaces() != '"')
+            throw new XMLStreamException("Element name expected", _location);
+        _elementStarts[_depth++] = _length;
+        readString();
+        _stackLength = _length;
+        _isFirstItem = false;
+        char c = readSkipWhitespaces();
+        if (c != ',') {
+            _readIndex--; // Unread.
+            return;
+        }
+        c = readSkipWhitespaces();
+        if (c != '{') { // First content item (no attributes).
+            _readIndex--; // Unread.
+            _isSeparated = true;
+            return;
+        }
+        c = readSkipWhitespaces();
+        if (c == '}')
+            return;
+        while (true) {
+            if (c != '"')
+                throw new XMLStreamException("Attribute name expected",
+                        _location);
+            if (_attributeCount >= _attributeStarts.length) {
+                increaseAttributeCapacity();
+            }
+            final int i = _attributeCount;
+            final int start = _length;
+            readString();
+            _attributeStarts[i] = start;
+            _attributeNameLengths[i] = _length - start;
+            if (readSkipWhitespaces() != ':')
+                throw new XMLStreamException("':' expected", _location);
+            c = readSkipWhitespaces();
+            if ((c == '{') || (c == '['))
+                throw new XMLStreamException(
+                        "Attribute value cannot be an object or an array",
+                        _location);
+            final int valueStart = _length;
+            final boolean isNull = readValue(c);
+            _attributeValueLengths[i] = _length - valueStart;
+            if (!isNull) {
+                _attributeCount++;
+            } else {  // Null value, no attribute.
+                _length = start;
+            }
+            c = readSkipWhitespaces();
+            if (c == '}')
+                return;
+            if (c != ',')
+                throw new XMLStreamException("',' or '}' expected",
+                        _location);
+            c = readSkipWhitespaces();
+        }
+    }
+
+    // Reads a string (first quote read) or a literal value (number,
+    // boolean or null) starting with the specified character, returns
+    // true if the value read is the null literal.
+    private boolean readValue(char c) throws XMLStreamException {
+        if (c == '"') {
+            readString();
+            return false;
+        }
+        if (((c < '0') || (c > '9')) && (c != '-') && (c != 't')
+                && (c != 'f') && (c != 'n'))
+            throw new XMLStreamException("Unexpected character '" + c + "'",
+                    _location);
+        final int start = _length;
+        while (true) {
+            append(c);
+            c = read();
+            if ((c == ',') || (c == ']') || (c == '}') || (c <= ' ')) {
+                _readIndex--; // Unread.
+                break;
+            }
+        }
+        final int length = _length - start;
+        if (isLiteral(start, length, "true") || isLiteral(start, length, "false"))
+            return false;
+        if (isLiteral(start, length, "null"))
+            return true;
+        if (!isNumber(start, start + length))
+            throw new XMLStreamException("Invalid literal value '"
+                    + new String(_data, start, length) + "'", _location);
+        return false;
+    }
+
+    // Indicates if the specified data characters are the specified literal.
+    private boolean isLiteral(int start, int length, String literal) {
+        if (length != literal.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (_data[start + i] != literal.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    // Indicates if the specified data characters are a JSON number:
+    // -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+    private boolean isNumber(int start, int end) {
+        int i = start;
+        if ((i < end) && (_data[i] == '-')) {
+            i++;
+        }
+        if ((i < end) && (_data[i] == '0')) {
+            i++;
+        } else {
+            final int digits = i;
+            i = skipDigits(i, end);
+            if (i == digits)
+                return false;
+        }
+        if ((i < end) && (_data[i] == '.')) {
+            final int digits = ++i;
+            i = skipDigits(i, end);
+            if (i == digits)
+                return false;
+        }
+        if ((i < end) && ((_data[i] == 'e') || (_data[i] == 'E'))) {
+            i++;
+            if ((i < end) && ((_data[i] == '+') || (_data[i] == '-'))) {
+                i++;
+            }
+            final int digits = i;
+            i = skipDigits(i, end);
+            if (i == digits)
+                return false;
+        }
+        return i == end;
+    }
+
+    // Returns the index of the first non-digit data character.
+    private int skipDigits(int i, int end) {
+        while ((i < end) && (_data[i] >= '0') && (_data[i] <= '9')) {
+            i++;
+        }
+        return i;
+    }
+
+    // Reads a string (opening quote already read), the unescaped characters
+    // are appended to the data buffer.
+    private void readString() throws XMLStreamException {
+        while (true) {
+            char c = read();
+            if (c == '"')
+                return;
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                case 'n':
+                    c = '\n';
+                    break;
+                case 'r':
+                    c = '\r';
+                    break;
+                case 't':
+                    c = '\t';
+                    break;
+                case 'b':
+                    c = '\b';
+                    break;
+                case 'f':
+                    c = '\f';
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        final char h = read();
+                        final int digit;
+                        if ((h >= '0') && (h <= '9')) {
+                            digit = h - '0';
+                        } else if ((h >= 'A') && (h <= 'F')) {
+                            digit = h - 'A' + 10;
+                        } else if ((h >= 'a') && (h <= 'f')) {
+                            digit = h - 'a' + 10;
+                        } else
+                            throw new XMLStreamException(
+                                    "Invalid unicode escape", _location);
+                        code = (code << 4) | digit;
+                    }
+                    c = (char) code;
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    break;
+                default:
+                    throw new XMLStreamException("Invalid escape character '"
+                            + c + "'", _location);
+                }
+            }
+            append(c);
+        }
+    }
+
+    private void append(char c) {
+        if (_length >= _data.length) {
+            increaseDataBuffer();
+        }
+        _data[_length++] = c;
+    }
+
+    private char readSkipWhitespaces() throws XMLStreamException {
+        while (true) {
+            final char c = read();
+            if ((c != ' ') && (c != '\n') && (c != '\r') && (c != '\t'))
+                return c;
+        }
+    }
+
+    private char read() throws XMLStreamException {
+        if (_readIndex < _readCount)
+            return _readBuffer[_readIndex++];
+        if (_reader == null)
+            throw new IllegalStateException("No input source");
+        try {
+            _charsRead += _readCount;
+            _readIndex = 0;
+            _readCount = _reader.read(_readBuffer, 0, BUFFER_LENGTH);
+            if (_readCount <= 0) {
+                _readCount = 0;
+                throw new XMLStreamException("Unexpected end of stream",
+                        _location);
+            }
+            return _readBuffer[_readIndex++];
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private void increaseDataBuffer() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                char[] tmp = new char[_data.length * 2];
+                System.arraycopy(_data, 0, tmp, 0, _length);
+                _data = tmp;
+            }
+        });
+    }
+
+    private void increaseElementCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                final int newCapacity = _elementStarts.length * 2;
+                int[] starts = new int[newCapacity];
+                System.arraycopy(_elementStarts, 0, starts, 0, _depth);
+                _elementStarts = starts;
+                CharArray[] tmp = new CharArray[newCapacity];
+                System.arraycopy(_elementLocalNames, 0, tmp, 0, _depth);
+                for (int i = _depth; i < newCapacity;) {
+                    tmp[i++] = new CharArray();
+                }
+                _elementLocalNames = tmp;
+            }
+        });
+    }
+
+    private void increaseAttributeCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                final int length = _attributeCount;
+                final int newCapacity = length * 2;
+
+                int[] ints = new int[newCapacity];
+                System.arraycopy(_attributeStarts, 0, ints, 0, length);
+                _attributeStarts = ints;
+
+                ints = new int[newCapacity];
+                System.arraycopy(_attributeNameLengths, 0, ints, 0, length);
+                _attributeNameLengths = ints;
+
+                ints = new int[newCapacity];
+                System.arraycopy(_attributeValueLengths, 0, ints, 0, length);
+                _attributeValueLengths = ints;
+
+                CharArray[] tmp = new CharArray[newCapacity];
+                System.arraycopy(_attributeLocalNames, 0, tmp, 0, length);
+                for (int i = length; i < newCapacity;) {
+                    tmp[i++] = new CharArray();
+                }
+                _attributeLocalNames = tmp;
+
+                tmp = new CharArray[newCapacity];
+                System.arraycopy(_attributeValues, 0, tmp, 0, length);
+                for (int i = length; i < newCapacity;) {
+                    tmp[i++] = new CharArray();
+                }
+                _attributeValues = tmp;
+            }
+        });
+    }
+
+    /**
+     * This inner class represents the attributes of the current element.
+     */
+    private final class AttributesView implements Attributes {
+
+        public int getLength() {
+            return _attributeCount;
+        }
+
+        public CharArray getURI(int index) {
+            return null;
+        }
+
+        public CharArray getLocalName(int index) {
+            return (index >= 0 && index < _attributeCount) ? getAttributeLocalName(index)
+                    : null;
+        }
+
+        public CharArray getPrefix(int index) {
+            return null;
+        }
+
+        public CharArray getQName(int index) {
+            return getLocalName(index);
+        }
+
+        public CharArray getType(int index) {
+            return (index >= 0 && index < _attributeCount) ? CDATA : null;
+        }
+
+        public CharArray getValue(int index) {
+            return (index >= 0 && index < _attributeCount) ? getAttributeValue(index)
+                    : null;
+        }
+
+        public int getIndex(CharSequence uri, CharSequence localName) {
+            if (uri == null)
+                throw new IllegalArgumentException(
+                        "null namespace URI is not allowed");
+            return getAttributeIndex(uri, localName);
+        }
+
+        public int getIndex(CharSequence qName) {
+            return getAttributeIndex(null, qName);
+        }
+
+        public CharArray getType(CharSequence uri, CharSequence localName) {
+            return (getIndex(uri, localName) >= 0) ? CDATA : null;
+        }
+
+        public CharArray getType(CharSequence qName) {
+            return (getIndex(qName) >= 0) ? CDATA : null;
+        }
+
+        public CharArray getValue(CharSequence uri, CharSequence localName) {
+            final int index = getIndex(uri, localName);
+            return (index >= 0) ? getAttributeValue(index) : null;
+        }
+
+        public CharArray getValue(CharSequence qName) {
+            final int index = getIndex(qName);
+            return (index >= 0) ? getAttributeValue(index) : null;
+        }
+    }
+
+    /**
+     * This inner class represents the location (character offset) in the
+     * stream.
+     */
+    private final class LocationImpl implements Location {
+
+        public int getLineNumber() {
+            return -1; // Not available.
+        }
+
+        public int getColumnNumber() {
+            return -1; // Not available.
+        }
+
+        public int getCharacterOffset() {
+            return _charsRead + _readIndex;
+        }
+
+        public String getPublicId() {
+            return null; // Not available.
+        }
+
+        public String getSystemId() {
+            return null; // Not available.
+        }
+
+        public String toString() {
+            return "Character offset " + getCharacterOffset();
+        }
+    }
+}
@@ -0,0 +1,572 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.xml.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import _templates.java.lang.CharSequence;
+import _templates.java.lang.IllegalStateException;
+import _templates.javolution.io.UTF8StreamWriter;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.CharArray;
+import _templates.javolution.text.TextBuilder;
+
+/**
+ * <p> This class represents a {@link _templates.javolution.lang.Reusable
+ *     reusable} implementation of {@link XMLStreamWriter} producing
+ *     <a href="http://www.json.org/">JSON</a> text. The output can be read
+ *     back using a {@link JSONStreamReaderImpl}.</p>
+ *
+ * <p> The XML infoset is mapped to JSON arrays
+ *     (<a href="http://www.jsonml.org/">JsonML</a> convention): each element
+ *     is an array holding the element name, an optional object for the
+ *     attributes and then the element content (strings for text, arrays for
+ *     nested elements). The document itself is an array of elements.
+ *     For example:[code]
+ *     <Quote symbol="ABC" price="12.5"><Note>Closed</Note></Quote>
+ *     [/code] is written as:[code]
+ *     [["Quote",{"symbol":"ABC","price":12.5},["Note","Closed"]]]
+ *     [/code]</p>
+ *
+ * <p> Primitive attribute values written through the typed
+ *     <code>writeAttribute</code> methods are written as JSON numbers or
+ *     booleans (not quoted). Namespaces, comments, processing instructions
+ *     and DTD are ignored; CDATA sections are written as characters.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class JSONStreamWriterImpl implements XMLStreamWriter, Reusable {
+
+    /**
+     * Holds the length of intermediate buffer.
+     */
+    private static final int BUFFER_LENGTH = 2048;
+
+    /**
+     * Holds the hexadecimal digits (unicode escapes).
+     */
+    private static final char[] HEXA = { '0', '1', '2', '3', '4', '5', '6',
+            '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    /**
+     * Holds the writer destination (<code>null</code> when unused).
+     */
+    private Writer _writer;
+
+    /**
+     * Holds the UTF-8 writer (for output streams).
+     */
+    private final UTF8StreamWriter _utf8Writer = new UTF8StreamWriter();
+
+    /**
+     * Holds intermediate buffer.
+     */
+    private final char[] _buffer = new char[BUFFER_LENGTH];
+
+    /**
+     * Holds the buffer current index.
+     */
+    private int _index;
+
+    /**
+     * Holds the current nesting level.
+     */
+    private int _nesting;
+
+    /**
+     * Indicates if the document array has been started.
+     */
+    private boolean _isDocumentStarted;
+
+    /**
+     * Indicates if the current array (document or element) has no item yet.
+     */
+    private boolean _isFirstItem;
+
+    /**
+     * Indicates if attributes can be written (start element open).
+     */
+    private boolean _isElementOpen;
+
+    /**
+     * Indicates if the attributes object of the current element is open.
+     */
+    private boolean _isAttributesOpen;
+
+    /**
+     * Indicates if the current element is an empty element.
+     */
+    private boolean _isEmptyElement;
+
+    /**
+     * Holds temporary builder (formatting of numbers).
+     */
+    private final TextBuilder _tmp = new TextBuilder();
+
+    /**
+     * Default constructor.
+     */
+    public JSONStreamWriterImpl() {
+    }
+
+    /**
+     * Sets the output stream destination for this JSON stream writer
+     * (UTF-8 encoding).
+     *
+     * @param out the output destination.
+     */
+    public void setOutput(OutputStream out) throws XMLStreamException {
+        setOutput(_utf8Writer.setOutput(out));
+    }
+
+    /**
+     * Sets the writer destination for this JSON stream writer.
+     *
+     * @param writer the output destination.
+     */
+    public void setOutput(Writer writer) throws XMLStreamException {
+        if (_writer != null)
+            throw new IllegalStateException("Writer not closed or reset");
+        _writer = writer;
+    }
+
+    // Implements reusable.
+    public void reset() {
+        _index = 0;
+        _isAttributesOpen = false;
+        _isDocumentStarted = false;
+        _isElementOpen = false;
+        _isEmptyElement = false;
+        _isFirstItem = false;
+        _nesting = 0;
+        _tmp.clear();
+        _utf8Writer.reset();
+        _writer = null;
+    }
+
+    /**
+     * Writes the specified <code>int</code> attribute (JSON number).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, int value)
+            throws XMLStreamException {
+        writeAttributeName(localName);
+        writeTmp(_tmp.clear().append(value));
+    }
+
+    /**
+     * Writes the specified <code>long</code> attribute (JSON number).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, long value)
+            throws XMLStreamException {
+        writeAttributeName(localName);
+        writeTmp(_tmp.clear().append(value));
+    }
+
+    /**
+     * Writes the specified <code>float</code> attribute (JSON number,
+     * or string if the value is not finite).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, float value)
+            throws XMLStreamException {
+        writeAttributeName(localName);
+        _tmp.clear().append(value);
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            writeString(_tmp);
+        } else {
+            writeTmp(_tmp);
+        }
+    }
+
+    /**
+     * Writes the specified <code>double</code> attribute (JSON number,
+     * or string if the value is not finite).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, double value)
+            throws XMLStreamException {
+        writeAttributeName(localName);
+        _tmp.clear().append(value);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeString(_tmp);
+        } else {
+            writeTmp(_tmp);
+        }
+    }
+
+    /**
+     * Writes the specified <code>boolean</code> attribute (JSON boolean).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, boolean value)
+            throws XMLStreamException {
+        writeAttributeName(localName);
+        writeTmp(_tmp.clear().append(value));
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartElement(CharSequence localName)
+            throws XMLStreamException {
+        if (localName == null)
+            throw new XMLStreamException("Local name cannot be null");
+        if (_writer == null)
+            throw new IllegalStateException("No output destination");
+        if (!_isDocumentStarted) {
+            writeStartDocument();
+        }
+        if (_isEmptyElement)
+            closeEmptyElement();
+        writeItemSeparator();
+        write('[');
+        writeString(localName);
+        _nesting++;
+        _isElementOpen = true;
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeStartElement(CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeStartElement(CharSequence prefix, CharSequence localName,
+            CharSequence namespaceURI) throws XMLStreamException {
+        writeStartElement(localName);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEmptyElement(CharSequence localName)
+            throws XMLStreamException {
+        writeStartElement(localName);
+        _isEmptyElement = true;
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeEmptyElement(CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        writeStartElement(localName);
+        _isEmptyElement = true;
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeEmptyElement(CharSequence prefix, CharSequence localName,
+            CharSequence namespaceURI) throws XMLStreamException {
+        writeStartElement(localName);
+        _isEmptyElement = true;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEndElement() throws XMLStreamException {
+        if (_isEmptyElement)
+            closeEmptyElement();
+        if (_nesting == 0)
+            throw new XMLStreamException("No element to close");
+        closeAttributes();
+        write(']');
+        _nesting--;
+        _isElementOpen = false;
+        _isFirstItem = false;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEndDocument() throws XMLStreamException {
+        if (_isEmptyElement)
+            closeEmptyElement();
+        while (_nesting > 0) { // Implicits closing of all elements.
+            writeEndElement();
+        }
+        if (_isDocumentStarted) {
+            write(']');
+            _isDocumentStarted = false;
+        }
+        flush();
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void close() throws XMLStreamException {
+        if (_writer != null) {
+            if (_isDocumentStarted) { // Closes all elements.
+                writeEndDocument();
+            }
+            flush();
+        }
+        reset();
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void flush() throws XMLStreamException {
+        try {
+            _writer.write(_buffer, 0, _index);
+            _index = 0;
+            _writer.flush();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeAttribute(CharSequence localName, CharSequence value)
+            throws XMLStreamException {
+        if (value == null)
+            throw new XMLStreamException("Value cannot be null");
+        writeAttributeName(localName);
+        writeString(value);
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeAttribute(CharSequence prefix, CharSequence namespaceURI,
+            CharSequence localName, CharSequence value)
+            throws XMLStreamException {
+        writeAttribute(localName, value);
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeAttribute(CharSequence namespaceURI,
+            CharSequence localName, CharSequence value)
+            throws XMLStreamException {
+        writeAttribute(localName, value);
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeNamespace(CharSequence prefix, CharSequence namespaceURI)
+            throws XMLStreamException {
+        if (!_isElementOpen)
+            throw new IllegalStateException("No open start element");
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void writeDefaultNamespace(CharSequence namespaceURI)
+            throws XMLStreamException {
+        writeNamespace(null, namespaceURI);
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeComment(CharSequence data) throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeProcessingInstruction(CharSequence target)
+            throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeProcessingInstruction(CharSequence target,
+            CharSequence data) throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeCData(CharSequence data) throws XMLStreamException {
+        if (data == null)
+            throw new XMLStreamException("Data cannot be null");
+        writeCharacters(data);
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeDTD(CharSequence dtd) throws XMLStreamException {
+        if (_nesting > 0)
+            throw new XMLStreamException(
+                    "DOCTYPE declaration (DTD) when not in document root (prolog)");
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEntityRef(CharSequence name) throws XMLStreamException {
+        throw new XMLStreamException(
+                "Entity references are not supported by JSON streams");
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartDocument() throws XMLStreamException {
+        writeStartDocument(null, null);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartDocument(CharSequence version)
+            throws XMLStreamException {
+        writeStartDocument(null, version);
+    }
+
+    // Implements XMLStreamWriter interface (encoding and version ignored).
+    public void writeStartDocument(CharSequence encoding, CharSequence version)
+            throws XMLStreamException {
+        if (_nesting > 0)
+            throw new XMLStreamException("Not in document root");
+        if (_isDocumentStarted)
+            return;
+        write('[');
+        _isDocumentStarted = true;
+        _isFirstItem = true;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeCharacters(CharSequence text) throws XMLStreamException {
+        if (_isEmptyElement)
+            closeEmptyElement();
+        if ((text == null) || (text.length() == 0))
+            return;
+        if (!_isDocumentStarted) {
+            writeStartDocument();
+        }
+        writeItemSeparator();
+        writeString(text);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeCharacters(char[] text, int start, int length)
+            throws XMLStreamException {
+        _tmpCharArray.setArray(text, start, length);
+        writeCharacters(_tmpCharArray);
+    }
+
+    private final CharArray _tmpCharArray = new CharArray();
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public CharSequence getPrefix(CharSequence uri) throws XMLStreamException {
+        return null;
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void setPrefix(CharSequence prefix, CharSequence uri)
+            throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are ignored).
+    public void setDefaultNamespace(CharSequence uri) throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface.
+    public Object getProperty(String name) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Property: " + name
+                + " not supported");
+    }
+
+    private void closeEmptyElement() throws XMLStreamException {
+        _isEmptyElement = false;
+        writeEndElement();
+    }
+
+    // Closes the attributes object (if any), no more attributes allowed.
+    private void closeAttributes() throws XMLStreamException {
+        if (_isAttributesOpen) {
+            write('}');
+            _isAttributesOpen = false;
+        }
+        _isElementOpen = false;
+    }
+
+    // Writes the separator before a new item of the current array.
+    private void writeItemSeparator() throws XMLStreamException {
+        closeAttributes();
+        if (_isFirstItem) {
+            _isFirstItem = false;
+        } else {
+            write(',');
+        }
+    }
+
+    private void writeAttributeName(CharSequence localName)
+            throws XMLStreamException {
+        if (localName == null)
+            throw new XMLStreamException("Local name cannot be null");
+        if (!_isElementOpen)
+            throw new IllegalStateException("No open start element");
+        write(',');
+        if (!_isAttributesOpen) {
+            write('{');
+            _isAttributesOpen = true;
+        }
+        writeString(localName);
+        write(':');
+    }
+
+    // Writes the specified literal (number or boolean).
+    private void writeTmp(TextBuilder tb) throws XMLStreamException {
+        final int length = tb.length();
+        if (_index + length > BUFFER_LENGTH) {
+            flushBuffer();
+        }
+        tb.getChars(0, length, _buffer, _index);
+        _index += length;
+    }
+
+    // Writes the specified characters as a quoted JSON string.
+    private void writeString(CharSequence csq) throws XMLStreamException {
+        write('"');
+        for (int i = 0, length = csq.length(); i < length;) {
+            final char c = csq.charAt(i++);
+            if ((c >= 0x20) && (c != '"') && (c != '\\')) {
+                if (_index == BUFFER_LENGTH) {
+                    flushBuffer();
+                }
+                _buffer[_index++] = c;
+                continue;
+            }
+            write('\\');
+            switch (c) {
+            case '"':
+            case '\\':
+                write(c);
+                break;
+            case '\n':
+                write('n');
+                break;
+            case '\r':
+                write('r');
+                break;
+            case '\t':
+                write('t');
+                break;
+            case '\b':
+                write('b');
+                break;
+            case '\f':
+                write('f');
+                break;
+            default: // Other control characters.
+                write('u');
+                write('0');
+                write('0');
+                write(HEXA[c >> 4]);
+                write(HEXA[c & 0xf]);
+            }
+        }
+        write('"');
+    }
+
+    private void write(char c) throws XMLStreamException {
+        if (_index == BUFFER_LENGTH) {
+            flushBuffer();
+        }
+        _buffer[_index++] = c;
+    }
+
+    private void flushBuffer() throws XMLStreamException {
+        try {
+            _writer.write(_buffer, 0, _index);
+            _index = 0;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+}
@@ -0,0 +1,1076 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.xml.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import _templates.java.lang.CharSequence;
+import _templates.java.lang.IllegalStateException;
+import _templates.javax.realtime.MemoryArea;
+import _templates.javolution.lang.MathLib;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.CharArray;
+import _templates.javolution.text.TextBuilder;
+import _templates.javolution.xml.sax.Attributes;
+
+/**
+ * <p> This class represents a {@link _templates.javolution.lang.Reusable
+ *     reusable} implementation of {@link XMLStreamReader} for the binary
+ *     streams produced by {@link XMLBinaryWriterImpl}.</p>
+ *
+ * <p> Names are read once and then resolved by index; text and attribute
+ *     values are decoded into internal buffers (no object creation
+ *     once the buffers have grown to their working size). Attributes
+ *     natively encoded can be retrieved without parsing using the typed
+ *     <code>getAttribute...Value(int)</code> methods; their character
+ *     representation is only formatted when requested.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class XMLBinaryReaderImpl implements XMLStreamReader, Reusable {
+
+    /**
+     * Holds the length of intermediate buffer.
+     */
+    private static final int BUFFER_LENGTH = 4096;
+
+    /**
+     * Holds the input source (<code>null</code> when unused).
+     */
+    private InputStream _in;
+
+    /**
+     * Holds the input buffer.
+     */
+    private final byte[] _bytes = new byte[BUFFER_LENGTH];
+
+    /**
+     * Holds the index of the next byte to read.
+     */
+    private int _start;
+
+    /**
+     * Holds the number of valid bytes in the input buffer.
+     */
+    private int _end;
+
+    /**
+     * Holds the number of bytes read before the current buffer.
+     */
+    private int _bytesRead;
+
+    /**
+     * Holds the current event type.
+     */
+    private int _eventType = START_DOCUMENT;
+
+    /**
+     * Holds the token read ahead (<code>-1</code> if none).
+     */
+    private int _nextToken = -1;
+
+    /**
+     * Holds the namespace URIs table.
+     */
+    private final NameTable _namespaces = new NameTable();
+
+    /**
+     * Holds the element local names table.
+     */
+    private final NameTable _elementNames = new NameTable();
+
+    /**
+     * Holds the attribute local names table.
+     */
+    private final NameTable _attributeNames = new NameTable();
+
+    /**
+     * Holds the current nesting level.
+     */
+    private int _depth;
+
+    /**
+     * Holds the namespace URI of the elements (indexed per nesting level).
+     */
+    private CharArray[] _elementURIs = new CharArray[16];
+
+    /**
+     * Holds the local name of the elements (indexed per nesting level).
+     */
+    private CharArray[] _elementLocalNames = new CharArray[16];
+
+    /**
+     * Holds the number of attributes of the current start element.
+     */
+    private int _attributeCount;
+
+    /**
+     * Holds the attributes namespace URI.
+     */
+    private CharArray[] _attributeURIs = new CharArray[16];
+
+    /**
+     * Holds the attributes local name.
+     */
+    private CharArray[] _attributeLocalNames = new CharArray[16];
+
+    /**
+     * Holds the attributes value (characters).
+     */
+    private CharArray[] _attributeValues = new CharArray[16];
+
+    /**
+     * Holds the attributes token (type of encoding).
+     */
+    private int[] _attributeTokens = new int[16];
+
+    /**
+     * Indicates if the attributes value (characters) is available.
+     */
+    private boolean[] _isAttributeFormatted = new boolean[16];
+
+    /**
+     * Holds the natively encoded integer values.
+     */
+    private long[] _attributeLongs = new long[16];
+
+    /**
+     * Holds the natively encoded floating point values.
+     */
+    private double[] _attributeDoubles = new double[16];
+
+    /**
+     * Holds the characters of the attributes value.
+     */
+    private char[] _attributeChars = new char[256];
+
+    /**
+     * Holds the number of characters of the attributes value.
+     */
+    private int _attributeCharsLength;
+
+    /**
+     * Holds the characters of the current text event.
+     */
+    private char[] _textChars = new char[256];
+
+    /**
+     * Holds the number of characters of the current text event.
+     */
+    private int _textLength;
+
+    /**
+     * Holds the current text.
+     */
+    private final CharArray _text = new CharArray();
+
+    /**
+     * Holds the attributes view.
+     */
+    private final AttributesView _attributes = new AttributesView();
+
+    /**
+     * Holds the location.
+     */
+    private final LocationImpl _location = new LocationImpl();
+
+    /**
+     * Holds temporary builder (formatting of natively encoded values).
+     */
+    private final TextBuilder _tmp = new TextBuilder();
+
+    /**
+     * Default constructor.
+     */
+    public XMLBinaryReaderImpl() {
+        for (int i = 0; i < _attributeValues.length;) {
+            _attributeValues[i++] = new CharArray();
+        }
+    }
+
+    /**
+     * Sets the input stream source for this binary stream reader.
+     *
+     * @param in the input source.
+     * @throws XMLStreamException if the input is not a binary XML stream.
+     */
+    public void setInput(InputStream in) throws XMLStreamException {
+        if (_in != null)
+            throw new IllegalStateException("Reader not closed or reset");
+        _in = in;
+        for (int i = 0; i < XMLBinaryWriterImpl.HEADER.length; i++) {
+            if (read() != XMLBinaryWriterImpl.HEADER[i])
+                throw new XMLStreamException("Not a binary XML stream",
+                        _location);
+        }
+    }
+
+    /**
+     * Returns the current attributes (SAX2-Like).
+     *
+     * @return the attributes of the current start element.
+     * @throws IllegalStateException if not a START_ELEMENT.
+     */
+    public Attributes getAttributes() {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return _attributes;
+    }
+
+    /**
+     * Returns the index of the specified attribute.
+     *
+     * @param uri the namespace URI or <code>null</code> to match any
+     *        namespace.
+     * @param localName the attribute local name.
+     * @return the attribute index or <code>-1</code> if not found.
+     * @throws IllegalStateException if not a START_ELEMENT.
+     */
+    public int getAttributeIndex(CharSequence uri, CharSequence localName) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        for (int i = 0; i < _attributeCount; i++) {
+            if (_attributeLocalNames[i].equals(localName)
+                    && ((uri == null) || ((_attributeURIs[i] != null) && _attributeURIs[i]
+                            .equals(uri))))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the <code>boolean</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public boolean getAttributeBooleanValue(int index) {
+        final int token = _attributeTokens[index];
+        if (token == XMLBinaryWriterImpl.ATTRIBUTE_TRUE)
+            return true;
+        if (token == XMLBinaryWriterImpl.ATTRIBUTE_FALSE)
+            return false;
+        return getAttributeValue(index).toBoolean();
+    }
+
+    /**
+     * Returns the <code>int</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     * @throws NumberFormatException if the attribute value is a
+     *         <code>long</code> not in the <code>int</code> range.
+     */
+    public int getAttributeIntValue(int index) {
+        if (!isInteger(index))
+            return getAttributeValue(index).toInt();
+        final long value = _attributeLongs[index];
+        if ((value < Integer.MIN_VALUE) || (value > Integer.MAX_VALUE))
+            throw new NumberFormatException("Overflow");
+        return (int) value;
+    }
+
+    /**
+     * Returns the <code>long</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public long getAttributeLongValue(int index) {
+        return isInteger(index) ? _attributeLongs[index] : getAttributeValue(
+                index).toLong();
+    }
+
+    /**
+     * Returns the <code>float</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public float getAttributeFloatValue(int index) {
+        return isFloatingPoint(index) ? (float) _attributeDoubles[index]
+                : isInteger(index) ? (float) _attributeLongs[index]
+                        : getAttributeValue(index).toFloat();
+    }
+
+    /**
+     * Returns the <code>double</code> value of the specified attribute.
+     *
+     * @param index the attribute index.
+     * @return the attribute value.
+     */
+    public double getAttributeDoubleValue(int index) {
+        return isFloatingPoint(index) ? _attributeDoubles[index]
+                : isInteger(index) ? (double) _attributeLongs[index]
+                        : getAttributeValue(index).toDouble();
+    }
+
+    private boolean isInteger(int index) {
+        final int token = _attributeTokens[index];
+        return (token == XMLBinaryWriterImpl.ATTRIBUTE_INT)
+                || (token == XMLBinaryWriterImpl.ATTRIBUTE_LONG);
+    }
+
+    private boolean isFloatingPoint(int index) {
+        final int token = _attributeTokens[index];
+        return (token == XMLBinaryWriterImpl.ATTRIBUTE_FLOAT)
+                || (token == XMLBinaryWriterImpl.ATTRIBUTE_DOUBLE);
+    }
+
+    // Implements Reusable.
+    public void reset() {
+        _attributeCount = 0;
+        _attributeCharsLength = 0;
+        _attributeNames.reset();
+        _bytesRead = 0;
+        _depth = 0;
+        _elementNames.reset();
+        _end = 0;
+        _eventType = START_DOCUMENT;
+        _in = null;
+        _namespaces.reset();
+        _nextToken = -1;
+        _start = 0;
+        _textLength = 0;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int next() throws XMLStreamException {
+        if (_eventType == END_ELEMENT) {
+            _depth--;
+        } else if (_eventType == END_DOCUMENT)
+            throw new XMLStreamException("End of document reached", _location);
+        final int token = nextToken();
+        switch (token) {
+        case XMLBinaryWriterImpl.START_ELEMENT:
+            readStartElement();
+            return _eventType = START_ELEMENT;
+        case XMLBinaryWriterImpl.CHARACTERS:
+            _textLength = 0;
+            readText();
+            _text.setArray(_textChars, 0, _textLength);
+            return _eventType = CHARACTERS;
+        case XMLBinaryWriterImpl.END_ELEMENT:
+            if (_depth == 0)
+                throw new XMLStreamException("Unexpected end element",
+                        _location);
+            return _eventType = END_ELEMENT;
+        case XMLBinaryWriterImpl.END_DOCUMENT:
+            if (_depth != 0)
+                throw new XMLStreamException("Unexpected end of document",
+                        _location);
+            return _eventType = END_DOCUMENT;
+        default:
+            throw new XMLStreamException("Unexpected token " + token,
+                    _location);
+        }
+    }
+
+    // Implements XMLStreamReader Interface.
+    public void require(int type, CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        if (_eventType != type)
+            throw new XMLStreamException("Expected event: "
+                    + XMLStreamReaderImpl.NAMES_OF_EVENTS[type]
+                    + ", found event: "
+                    + XMLStreamReaderImpl.NAMES_OF_EVENTS[_eventType]);
+        if ((namespaceURI != null)
+                && ((getNamespaceURI() == null) || !getNamespaceURI().equals(
+                        namespaceURI)))
+            throw new XMLStreamException("Expected namespace URI: "
+                    + namespaceURI + ", found: " + getNamespaceURI());
+        if ((localName != null) && !getLocalName().equals(localName))
+            throw new XMLStreamException("Expected local name: " + localName
+                    + ", found: " + getLocalName());
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getElementText() throws XMLStreamException {
+        if (_eventType != START_ELEMENT)
+            throw new XMLStreamException(
+                    "Parser must be on START_ELEMENT to read next text",
+                    _location);
+        _textLength = 0;
+        for (int token = nextToken();; token = nextToken()) {
+            if (token == XMLBinaryWriterImpl.CHARACTERS) {
+                readText(); // Merges adjacent text.
+            } else if (token == XMLBinaryWriterImpl.END_ELEMENT) {
+                _eventType = END_ELEMENT;
+                _text.setArray(_textChars, 0, _textLength);
+                return _text;
+            } else if (token == XMLBinaryWriterImpl.START_ELEMENT) {
+                throw new XMLStreamException(
+                        "Element text content may not contain START_ELEMENT",
+                        _location);
+            } else {
+                throw new XMLStreamException("Unexpected token " + token,
+                        _location);
+            }
+        }
+    }
+
+    // Implements XMLStreamReader Interface.
+    public Object getProperty(String name) throws IllegalArgumentException {
+        if (name.equals(XMLInputFactory.IS_COALESCING))
+            return Boolean.FALSE;
+        throw new IllegalArgumentException("Property: " + name
+                + " not supported");
+    }
+
+    // Implements XMLStreamReader Interface.
+    public void close() throws XMLStreamException {
+        reset();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getAttributeCount() {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return _attributeCount;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeLocalName(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return (index < _attributeCount) ? _attributeLocalNames[index] : null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeNamespace(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return (index < _attributeCount) ? _attributeURIs[index] : null;
+    }
+
+    // Implements XMLStreamReader Interface (prefixes are not preserved).
+    public CharArray getAttributePrefix(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeType(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return (index < _attributeCount) ? CDATA : null;
+    }
+
+    private static final CharArray CDATA = new CharArray("CDATA");
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeValue(CharSequence uri, CharSequence localName) {
+        final int index = getAttributeIndex(uri, localName);
+        return (index >= 0) ? getAttributeValue(index) : null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getAttributeValue(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        if (index >= _attributeCount)
+            return null;
+        if (!_isAttributeFormatted[index]) {
+            format(index);
+        }
+        return _attributeValues[index];
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getCharacterEncodingScheme() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public String getEncoding() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getEventType() {
+        return _eventType;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getLocalName() {
+        if ((_eventType != START_ELEMENT) && (_eventType != END_ELEMENT))
+            throw new IllegalStateException("Not a start or end element");
+        return _elementLocalNames[_depth - 1];
+    }
+
+    // Implements XMLStreamReader Interface.
+    public Location getLocation() {
+        return _location;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public int getNamespaceCount() {
+        if ((_eventType != START_ELEMENT) && (_eventType != END_ELEMENT))
+            throw new IllegalStateException("Not a start or end element");
+        return 0;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public CharArray getNamespacePrefix(int index) {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public CharArray getNamespaceURI(CharSequence prefix) {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public CharArray getNamespaceURI(int index) {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface (no namespace declaration).
+    public NamespaceContext getNamespaceContext() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getNamespaceURI() {
+        if ((_eventType != START_ELEMENT) && (_eventType != END_ELEMENT))
+            throw new IllegalStateException("Not a start or end element");
+        return _elementURIs[_depth - 1];
+    }
+
+    // Implements XMLStreamReader Interface (prefixes are not preserved).
+    public CharArray getPrefix() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getPIData() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getPITarget() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getText() {
+        if (_eventType != CHARACTERS)
+            throw new IllegalStateException("Not a text event");
+        return _text;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public char[] getTextCharacters() {
+        return getText().array();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getTextCharacters(int sourceStart, char[] target,
+            int targetStart, int length) throws XMLStreamException {
+        CharArray text = getText();
+        int copyLength = Math.min(length, text.length() - sourceStart);
+        System.arraycopy(text.array(), text.offset() + sourceStart, target,
+                targetStart, copyLength);
+        return copyLength;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getTextLength() {
+        return getText().length();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int getTextStart() {
+        return getText().offset();
+    }
+
+    // Implements XMLStreamReader Interface.
+    public CharArray getVersion() {
+        return null;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isStandalone() {
+        return false;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean standaloneSet() {
+        return false;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean hasName() {
+        return (_eventType == START_ELEMENT) || (_eventType == END_ELEMENT);
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean hasNext() throws XMLStreamException {
+        return _eventType != END_DOCUMENT;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean hasText() {
+        return (_eventType == CHARACTERS) && (_text.length() > 0);
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isAttributeSpecified(int index) {
+        if (_eventType != START_ELEMENT)
+            throw new IllegalStateException("Not a start element");
+        return index < _attributeCount;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isCharacters() {
+        return _eventType == CHARACTERS;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isEndElement() {
+        return _eventType == END_ELEMENT;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isStartElement() {
+        return _eventType == START_ELEMENT;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public boolean isWhiteSpace() {
+        if (_eventType != CHARACTERS)
+            return false;
+        for (int i = 0; i < _textLength;) {
+            final char c = _textChars[i++];
+            if ((c != 0x20) && (c != 0x9) && (c != 0xD) && (c != 0xA))
+                return false;
+        }
+        return true;
+    }
+
+    // Implements XMLStreamReader Interface.
+    public int nextTag() throws XMLStreamException {
+        int eventType = next();
+        while ((eventType == CHARACTERS) && isWhiteSpace()) {
+            eventType = next();
+        }
+        if ((eventType != START_ELEMENT) && (eventType != END_ELEMENT))
+            throw new XMLStreamException("Tag expected (but found "
+                    + XMLStreamReaderImpl.NAMES_OF_EVENTS[_eventType] + ")",
+                    _location);
+        return eventType;
+    }
+
+    // Returns the token read ahead or reads the next one.
+    private int nextToken() throws XMLStreamException {
+        if (_nextToken < 0)
+            return read();
+        final int token = _nextToken;
+        _nextToken = -1;
+        return token;
+    }
+
+    // Reads the element name and its attributes.
+    private void readStartElement() throws XMLStreamException {
+        if (_depth >= _elementLocalNames.length) {
+            increaseElementCapacity();
+        }
+        _elementURIs[_depth] = readName(_namespaces);
+        _elementLocalNames[_depth++] = readName(_elementNames);
+        _attributeCount = 0;
+        _attributeCharsLength = 0;
+        while (true) {
+            final int token = read();
+            if ((token < XMLBinaryWriterImpl.ATTRIBUTE_TEXT)
+                    || (token > XMLBinaryWriterImpl.ATTRIBUTE_FALSE)) {
+                _nextToken = token;
+                return;
+            }
+            if (_attributeCount >= _attributeLocalNames.length) {
+                increaseAttributeCapacity();
+            }
+            final int i = _attributeCount++;
+            _attributeTokens[i] = token;
+            _attributeURIs[i] = readName(_namespaces);
+            _attributeLocalNames[i] = readName(_attributeNames);
+            _isAttributeFormatted[i] = false;
+            switch (token) {
+            case XMLBinaryWriterImpl.ATTRIBUTE_TEXT:
+                final int offset = _attributeCharsLength;
+                final int length = readVarInt();
+                _attributeChars = readChars(_attributeChars, offset, length);
+                _attributeCharsLength += length;
+                _attributeValues[i].setArray(_attributeChars, offset, length);
+                _isAttributeFormatted[i] = true;
+                break;
+            case XMLBinaryWriterImpl.ATTRIBUTE_INT:
+            case XMLBinaryWriterImpl.ATTRIBUTE_LONG:
+                final long zigzag = readVarLong();
+                _attributeLongs[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+                break;
+            case XMLBinaryWriterImpl.ATTRIBUTE_FLOAT:
+                _attributeDoubles[i] = Float.intBitsToFloat((int) readFixed(4));
+                break;
+            case XMLBinaryWriterImpl.ATTRIBUTE_DOUBLE:
+                _attributeDoubles[i] = Double.longBitsToDouble(readFixed(8));
+                break;
+            default: // Boolean (value is the token).
+            }
+        }
+    }
+
+    // Formats the natively encoded value of the specified attribute.
+    private void format(int index) {
+        _tmp.clear();
+        switch (_attributeTokens[index]) {
+        case XMLBinaryWriterImpl.ATTRIBUTE_INT:
+        case XMLBinaryWriterImpl.ATTRIBUTE_LONG:
+            _tmp.append(_attributeLongs[index]);
+            break;
+        case XMLBinaryWriterImpl.ATTRIBUTE_FLOAT:
+            _tmp.append((float) _attributeDoubles[index]);
+            break;
+        case XMLBinaryWriterImpl.ATTRIBUTE_DOUBLE:
+            _tmp.append(_attributeDoubles[index]);
+            break;
+        default:
+            _tmp.append(getAttributeBooleanValue(index));
+        }
+        final int offset = _attributeCharsLength;
+        final int length = _tmp.length();
+        if (offset + length > _attributeChars.length) {
+            _attributeChars = grow(_attributeChars, offset + length);
+        }
+        _tmp.getChars(0, length, _attributeChars, offset);
+        _attributeCharsLength += length;
+        _attributeValues[index].setArray(_attributeChars, offset, length);
+        _isAttributeFormatted[index] = true;
+    }
+
+    // Reads a name reference, new names are added to the specified table.
+    private CharArray readName(NameTable table) throws XMLStreamException {
+        final int ref = readVarInt();
+        if (ref == XMLBinaryWriterImpl.NAME_NULL)
+            return null;
+        if (ref != XMLBinaryWriterImpl.NAME_LITERAL) {
+            final int index = ref - XMLBinaryWriterImpl.NAME_INDEX;
+            if (index >= table._size)
+                throw new XMLStreamException("Invalid name reference "
+                        + index, _location);
+            return table._names[index];
+        }
+        final int length = readVarInt();
+        final int offset = table._length;
+        table._chars = readChars(table._chars, offset, length);
+        table._length += length;
+        return table.add(offset, length);
+    }
+
+    // Reads the text and appends it to the current text.
+    private void readText() throws XMLStreamException {
+        final int length = readVarInt();
+        _textChars = readChars(_textChars, _textLength, length);
+        _textLength += length;
+    }
+
+    // Decodes the specified number of characters (array grown if necessary).
+    // The length read from the stream is not trusted, the array is grown
+    // as the characters are actually read (a corrupt length cannot force
+    // allocations larger than twice the input size).
+    private char[] readChars(char[] chars, int offset, int length)
+            throws XMLStreamException {
+        if (length > Integer.MAX_VALUE - offset)
+            throw new XMLStreamException("Length out of range", _location);
+        for (int i = offset, end = offset + length; i < end;) {
+            if (i >= chars.length) {
+                chars = grow(chars, MathLib.min(end, i + BUFFER_LENGTH));
+            }
+            final int b = read();
+            if (b < 0x80) {
+                chars[i++] = (char) b;
+            } else if (b < 0xe0) {
+                chars[i++] = (char) (((b & 0x1f) << 6) | (read() & 0x3f));
+            } else {
+                final int b1 = read();
+                chars[i++] = (char) (((b & 0x0f) << 12)
+                        | ((b1 & 0x3f) << 6) | (read() & 0x3f));
+            }
+        }
+        return chars;
+    }
+
+    // Reads an unsigned variable length integer (7 bits per byte).
+    private long readVarLong() throws XMLStreamException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = read();
+            value |= ((long) (b & 0x7f)) << shift;
+            if (b < 0x80)
+                return value;
+        }
+        throw new XMLStreamException("Malformed variable length integer",
+                _location);
+    }
+
+    private int readVarInt() throws XMLStreamException {
+        final long value = readVarLong();
+        if ((value < 0) || (value > Integer.MAX_VALUE))
+            throw new XMLStreamException("Length or index out of range",
+                    _location);
+        return (int) value;
+    }
+
+    // Reads the specified number of bytes (big endian).
+    private long readFixed(int n) throws XMLStreamException {
+        long bits = 0;
+        for (int i = 0; i < n; i++) {
+            bits = (bits << 8) | read();
+        }
+        return bits;
+    }
+
+    private int read() throws XMLStreamException {
+        if (_start < _end)
+            return _bytes[_start++] & 0xff;
+        if (_in == null)
+            throw new IllegalStateException("No input source");
+        try {
+            _bytesRead += _end;
+            _start = 0;
+            _end = _in.read(_bytes, 0, BUFFER_LENGTH);
+            if (_end <= 0) {
+                _end = 0;
+                throw new XMLStreamException("Unexpected end of stream",
+                        _location);
+            }
+            return _bytes[_start++] & 0xff;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private char[] grow(final char[] chars, final int minLength) {
+        final char[][] tmp = new char[1][];
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                int length = chars.length * 2;
+                while (length < minLength) {
+                    length *= 2;
+                }
+                tmp[0] = new char[length];
+            }
+        });
+        System.arraycopy(chars, 0, tmp[0], 0, chars.length);
+        return tmp[0];
+    }
+
+    private void increaseElementCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                final int newCapacity = _elementLocalNames.length * 2;
+                CharArray[] tmp = new CharArray[newCapacity];
+                System.arraycopy(_elementURIs, 0, tmp, 0, _depth);
+                _elementURIs = tmp;
+                tmp = new CharArray[newCapacity];
+                System.arraycopy(_elementLocalNames, 0, tmp, 0, _depth);
+                _elementLocalNames = tmp;
+            }
+        });
+    }
+
+    private void increaseAttributeCapacity() {
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                final int length = _attributeCount;
+                final int newCapacity = length * 2;
+
+                CharArray[] tmp = new CharArray[newCapacity];
+                System.arraycopy(_attributeURIs, 0, tmp, 0, length);
+                _attributeURIs = tmp;
+
+                tmp = new CharArray[newCapacity];
+                System.arraycopy(_attributeLocalNames, 0, tmp, 0, length);
+                _attributeLocalNames = tmp;
+
+                tmp = new CharArray[newCapacity];
+                System.arraycopy(_attributeValues, 0, tmp, 0, length);
+                for (int i = length; i < newCapacity;) {
+                    tmp[i++] = new CharArray();
+                }
+                _attributeValues = tmp;
+
+                int[] tokens = new int[newCapacity];
+                System.arraycopy(_attributeTokens, 0, tokens, 0, length);
+                _attributeTokens = tokens;
+
+                boolean[] formatted = new boolean[newCapacity];
+                System.arraycopy(_isAttributeFormatted, 0, formatted, 0,
+                        length);
+                _isAttributeFormatted = formatted;
+
+                long[] longs = new long[newCapacity];
+                System.arraycopy(_attributeLongs, 0, longs, 0, length);
+                _attributeLongs = longs;
+
+                double[] doubles = new double[newCapacity];
+                System.arraycopy(_attributeDoubles, 0, doubles, 0, length);
+                _attributeDoubles = doubles;
+            }
+        });
+    }
+
+    /**
+     * This inner class represents a name table (names are never removed,
+     * existing names are not affected when the table grows).
+     */
+    private final class NameTable {
+
+        CharArray[] _names = new CharArray[16];
+
+        int _size;
+
+        char[] _chars = new char[256];
+
+        int _length;
+
+        CharArray add(int offset, int length) {
+            if (_size >= _names.length) {
+                MemoryArea.getMemoryArea(XMLBinaryReaderImpl.this)
+                        .executeInArea(new Runnable() {
+                            public void run() {
+                                CharArray[] tmp = new CharArray[_size * 2];
+                                System.arraycopy(_names, 0, tmp, 0, _size);
+                                _names = tmp;
+                            }
+                        });
+            }
+            CharArray name = _names[_size];
+            if (name == null) {
+                name = newCharArray();
+                _names[_size] = name;
+            }
+            _size++;
+            return name.setArray(_chars, offset, length);
+        }
+
+        void reset() {
+            _size = 0;
+            _length = 0;
+        }
+    }
+
+    private CharArray newCharArray() {
+        final CharArray[] tmp = new CharArray[1];
+        MemoryArea.getMemoryArea(this).executeInArea(new Runnable() {
+            public void run() {
+                tmp[0] = new CharArray();
+            }
+        });
+        return tmp[0];
+    }
+
+    /**
+     * This inner class represents the attributes of the current element.
+     */
+    private final class AttributesView implements Attributes {
+
+        public int getLength() {
+            return _attributeCount;
+        }
+
+        public CharArray getURI(int index) {
+            return (index >= 0 && index < _attributeCount) ? _attributeURIs[index]
+                    : null;
+        }
+
+        public CharArray getLocalName(int index) {
+            return (index >= 0 && index < _attributeCount) ? _attributeLocalNames[index]
+                    : null;
+        }
+
+        public CharArray getPrefix(int index) {
+            return null;
+        }
+
+        public CharArray getQName(int index) {
+            return getLocalName(index);
+        }
+
+        public CharArray getType(int index) {
+            return (index >= 0 && index < _attributeCount) ? CDATA : null;
+        }
+
+        public CharArray getValue(int index) {
+            return (index >= 0 && index < _attributeCount) ? getAttributeValue(index)
+                    : null;
+        }
+
+        public int getIndex(CharSequence uri, CharSequence localName) {
+            if (uri == null)
+                throw new IllegalArgumentException(
+                        "null namespace URI is not allowed");
+            return getAttributeIndex(uri, localName);
+        }
+
+        public int getIndex(CharSequence qName) {
+            return getAttributeIndex(null, qName);
+        }
+
+        public CharArray getType(CharSequence uri, CharSequence localName) {
+            return (getIndex(uri, localName) >= 0) ? CDATA : null;
+        }
+
+        public CharArray getType(CharSequence qName) {
+            return (getIndex(qName) >= 0) ? CDATA : null;
+        }
+
+        public CharArray getValue(CharSequence uri, CharSequence localName) {
+            final int index = getIndex(uri, localName);
+            return (index >= 0) ? getAttributeValue(index) : null;
+        }
+
+        public CharArray getValue(CharSequence qName) {
+            final int index = getIndex(qName);
+            return (index >= 0) ? getAttributeValue(index) : null;
+        }
+    }
+
+    /**
+     * This inner class represents the location (byte offset) in the stream.
+     */
+    private final class LocationImpl implements Location {
+
+        public int getLineNumber() {
+            return -1; // Not available.
+        }
+
+        public int getColumnNumber() {
+            return -1; // Not available.
+        }
+
+        public int getCharacterOffset() {
+            return _bytesRead + _start;
+        }
+
+        public String getPublicId() {
+            return null; // Not available.
+        }
+
+        public String getSystemId() {
+            return null; // Not available.
+        }
+
+        public String toString() {
+            return "Byte offset " + getCharacterOffset();
+        }
+    }
+}
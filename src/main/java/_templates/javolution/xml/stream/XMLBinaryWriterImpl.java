@@ -0,0 +1,534 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package _templates.javolution.xml.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import _templates.java.lang.CharSequence;
+import _templates.java.lang.IllegalStateException;
+import _templates.javolution.lang.Reusable;
+import _templates.javolution.text.CharArray;
+import _templates.javolution.util.FastComparator;
+import _templates.javolution.util.FastMap;
+import _templates.javolution.util.Index;
+
+/**
+ * <p> This class represents a {@link _templates.javolution.lang.Reusable
+ *     reusable} implementation of {@link XMLStreamWriter} producing a
+ *     tokenized binary representation of the XML infoset (in the spirit
+ *     of Fast Infoset). The output can only be read back using a
+ *     {@link XMLBinaryReaderImpl}.</p>
+ *
+ * <p> Element names, attribute names and namespace URIs are written once
+ *     and then referenced by index (string tables); text is length-prefixed
+ *     (no escaping) and primitive attribute values written through the
+ *     typed <code>writeAttribute</code> methods are encoded natively
+ *     (no formatting/parsing).</p>
+ *
+ * <p> Only the information used for data binding is preserved: prefixes,
+ *     namespace declarations, comments, processing instructions and
+ *     DTD are ignored; CDATA sections are written as characters.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class XMLBinaryWriterImpl implements XMLStreamWriter, Reusable {
+
+    /**
+     * Holds the stream header (magic number and format version).
+     */
+    static final byte[] HEADER = { 'J', 'B', 'X', 1 };
+
+    // Tokens.
+    static final int START_ELEMENT = 1;
+
+    static final int END_ELEMENT = 2;
+
+    static final int CHARACTERS = 3;
+
+    static final int END_DOCUMENT = 4;
+
+    static final int ATTRIBUTE_TEXT = 5;
+
+    static final int ATTRIBUTE_INT = 6; // Zig-zag variable length.
+
+    static final int ATTRIBUTE_LONG = 7; // Zig-zag variable length.
+
+    static final int ATTRIBUTE_FLOAT = 8; // IEEE 754 (4 bytes).
+
+    static final int ATTRIBUTE_DOUBLE = 9; // IEEE 754 (8 bytes).
+
+    static final int ATTRIBUTE_TRUE = 10;
+
+    static final int ATTRIBUTE_FALSE = 11;
+
+    // Name references (string tables).
+    static final int NAME_NULL = 0;
+
+    static final int NAME_LITERAL = 1;
+
+    static final int NAME_INDEX = 2; // Offset of table indices.
+
+    /**
+     * Holds the length of intermediate buffer.
+     */
+    private static final int BUFFER_LENGTH = 2048;
+
+    /**
+     * Holds the output stream destination (<code>null</code> when unused).
+     */
+    private OutputStream _out;
+
+    /**
+     * Holds intermediate buffer.
+     */
+    private final byte[] _bytes = new byte[BUFFER_LENGTH];
+
+    /**
+     * Holds the buffer current index.
+     */
+    private int _index;
+
+    /**
+     * Holds the current nesting level.
+     */
+    private int _nesting;
+
+    /**
+     * Indicates if attributes can be written (start element open).
+     */
+    private boolean _isElementOpen;
+
+    /**
+     * Indicates if the current element is an empty element.
+     */
+    private boolean _isEmptyElement;
+
+    /**
+     * Holds the namespace URIs table.
+     */
+    private final FastMap _namespaces = new FastMap()
+            .setKeyComparator(FastComparator.LEXICAL);
+
+    /**
+     * Holds the element local names table.
+     */
+    private final FastMap _elementNames = new FastMap()
+            .setKeyComparator(FastComparator.LEXICAL);
+
+    /**
+     * Holds the attribute local names table.
+     */
+    private final FastMap _attributeNames = new FastMap()
+            .setKeyComparator(FastComparator.LEXICAL);
+
+    /**
+     * Default constructor.
+     */
+    public XMLBinaryWriterImpl() {
+    }
+
+    /**
+     * Sets the output stream destination for this binary stream writer.
+     *
+     * @param out the output destination.
+     */
+    public void setOutput(OutputStream out) throws XMLStreamException {
+        if (_out != null)
+            throw new IllegalStateException("Writer not closed or reset");
+        _out = out;
+    }
+
+    // Implements reusable.
+    public void reset() {
+        _attributeNames.reset();
+        _attributeNames.setKeyComparator(FastComparator.LEXICAL);
+        _elementNames.reset();
+        _elementNames.setKeyComparator(FastComparator.LEXICAL);
+        _index = 0;
+        _isElementOpen = false;
+        _isEmptyElement = false;
+        _namespaces.reset();
+        _namespaces.setKeyComparator(FastComparator.LEXICAL);
+        _nesting = 0;
+        _out = null;
+    }
+
+    /**
+     * Writes the specified <code>int</code> attribute (native encoding).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, int value)
+            throws XMLStreamException {
+        writeAttributeName(ATTRIBUTE_INT, null, localName);
+        writeVarLong(((value << 1) ^ (value >> 31)) & 0xffffffffL);
+    }
+
+    /**
+     * Writes the specified <code>long</code> attribute (native encoding).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, long value)
+            throws XMLStreamException {
+        writeAttributeName(ATTRIBUTE_LONG, null, localName);
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes the specified <code>float</code> attribute (native encoding).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, float value)
+            throws XMLStreamException {
+        writeAttributeName(ATTRIBUTE_FLOAT, null, localName);
+        writeFixed(Float.floatToIntBits(value), 4);
+    }
+
+    /**
+     * Writes the specified <code>double</code> attribute (native encoding).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, double value)
+            throws XMLStreamException {
+        writeAttributeName(ATTRIBUTE_DOUBLE, null, localName);
+        writeFixed(Double.doubleToLongBits(value), 8);
+    }
+
+    /**
+     * Writes the specified <code>boolean</code> attribute (native encoding).
+     *
+     * @param localName the local name of the attribute.
+     * @param value the value of the attribute.
+     */
+    public void writeAttribute(CharSequence localName, boolean value)
+            throws XMLStreamException {
+        writeAttributeName(value ? ATTRIBUTE_TRUE : ATTRIBUTE_FALSE, null,
+                localName);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartElement(CharSequence localName)
+            throws XMLStreamException {
+        writeStartElement(null, localName);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartElement(CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        if (localName == null)
+            throw new XMLStreamException("Local name cannot be null");
+        if (_out == null)
+            throw new IllegalStateException("No output destination");
+        if (_isEmptyElement)
+            closeEmptyElement();
+        write(START_ELEMENT);
+        writeName(_namespaces, namespaceURI);
+        writeName(_elementNames, localName);
+        _nesting++;
+        _isElementOpen = true;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartElement(CharSequence prefix, CharSequence localName,
+            CharSequence namespaceURI) throws XMLStreamException {
+        writeStartElement(namespaceURI, localName);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEmptyElement(CharSequence localName)
+            throws XMLStreamException {
+        writeStartElement(null, localName);
+        _isEmptyElement = true;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEmptyElement(CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        writeStartElement(namespaceURI, localName);
+        _isEmptyElement = true;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEmptyElement(CharSequence prefix, CharSequence localName,
+            CharSequence namespaceURI) throws XMLStreamException {
+        writeStartElement(namespaceURI, localName);
+        _isEmptyElement = true;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEndElement() throws XMLStreamException {
+        if (_isEmptyElement)
+            closeEmptyElement();
+        if (_nesting == 0)
+            throw new XMLStreamException("No element to close");
+        write(END_ELEMENT);
+        _nesting--;
+        _isElementOpen = false;
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEndDocument() throws XMLStreamException {
+        if (_isEmptyElement)
+            closeEmptyElement();
+        while (_nesting > 0) { // Implicits closing of all elements.
+            writeEndElement();
+        }
+        write(END_DOCUMENT);
+        flush();
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void close() throws XMLStreamException {
+        if (_out != null) {
+            if (_nesting != 0) { // Closes all elements.
+                writeEndDocument();
+            }
+            flush();
+        }
+        reset();
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void flush() throws XMLStreamException {
+        try {
+            _out.write(_bytes, 0, _index);
+            _index = 0;
+            _out.flush();
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeAttribute(CharSequence localName, CharSequence value)
+            throws XMLStreamException {
+        writeAttribute(null, localName, value);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeAttribute(CharSequence prefix, CharSequence namespaceURI,
+            CharSequence localName, CharSequence value)
+            throws XMLStreamException {
+        writeAttribute(namespaceURI, localName, value);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeAttribute(CharSequence namespaceURI,
+            CharSequence localName, CharSequence value)
+            throws XMLStreamException {
+        if (value == null)
+            throw new XMLStreamException("Value cannot be null");
+        writeAttributeName(ATTRIBUTE_TEXT, namespaceURI, localName);
+        writeText(value);
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are not prefixed).
+    public void writeNamespace(CharSequence prefix, CharSequence namespaceURI)
+            throws XMLStreamException {
+        if (!_isElementOpen)
+            throw new IllegalStateException("No open start element");
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are not prefixed).
+    public void writeDefaultNamespace(CharSequence namespaceURI)
+            throws XMLStreamException {
+        writeNamespace(null, namespaceURI);
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeComment(CharSequence data) throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeProcessingInstruction(CharSequence target)
+            throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeProcessingInstruction(CharSequence target,
+            CharSequence data) throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeCData(CharSequence data) throws XMLStreamException {
+        if (data == null)
+            throw new XMLStreamException("Data cannot be null");
+        writeCharacters(data);
+    }
+
+    // Implements XMLStreamWriter interface (ignored).
+    public void writeDTD(CharSequence dtd) throws XMLStreamException {
+        if (_nesting > 0)
+            throw new XMLStreamException(
+                    "DOCTYPE declaration (DTD) when not in document root (prolog)");
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeEntityRef(CharSequence name) throws XMLStreamException {
+        throw new XMLStreamException(
+                "Entity references are not supported by binary streams");
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartDocument() throws XMLStreamException {
+        writeStartDocument(null, null);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeStartDocument(CharSequence version)
+            throws XMLStreamException {
+        writeStartDocument(null, version);
+    }
+
+    // Implements XMLStreamWriter interface (encoding and version ignored).
+    public void writeStartDocument(CharSequence encoding, CharSequence version)
+            throws XMLStreamException {
+        if (_nesting > 0)
+            throw new XMLStreamException("Not in document root");
+        for (int i = 0; i < HEADER.length;) {
+            write(HEADER[i++]);
+        }
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeCharacters(CharSequence text) throws XMLStreamException {
+        if (_isEmptyElement)
+            closeEmptyElement();
+        _isElementOpen = false;
+        if ((text == null) || (text.length() == 0))
+            return;
+        write(CHARACTERS);
+        writeText(text);
+    }
+
+    // Implements XMLStreamWriter interface.
+    public void writeCharacters(char[] text, int start, int length)
+            throws XMLStreamException {
+        _tmpCharArray.setArray(text, start, length);
+        writeCharacters(_tmpCharArray);
+    }
+
+    private final CharArray _tmpCharArray = new CharArray();
+
+    // Implements XMLStreamWriter interface (namespaces are not prefixed).
+    public CharSequence getPrefix(CharSequence uri) throws XMLStreamException {
+        return null;
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are not prefixed).
+    public void setPrefix(CharSequence prefix, CharSequence uri)
+            throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface (namespaces are not prefixed).
+    public void setDefaultNamespace(CharSequence uri) throws XMLStreamException {
+    }
+
+    // Implements XMLStreamWriter interface.
+    public Object getProperty(String name) throws IllegalArgumentException {
+        throw new IllegalArgumentException("Property: " + name
+                + " not supported");
+    }
+
+    private void closeEmptyElement() throws XMLStreamException {
+        _isEmptyElement = false;
+        writeEndElement();
+    }
+
+    private void writeAttributeName(int token, CharSequence namespaceURI,
+            CharSequence localName) throws XMLStreamException {
+        if (localName == null)
+            throw new XMLStreamException("Local name cannot be null");
+        if (!_isElementOpen)
+            throw new IllegalStateException("No open start element");
+        write(token);
+        writeName(_namespaces, namespaceURI);
+        writeName(_attributeNames, localName);
+    }
+
+    // Writes a reference to the specified name table (literal when new).
+    private void writeName(FastMap table, CharSequence name)
+            throws XMLStreamException {
+        if (name == null) {
+            write(NAME_NULL);
+            return;
+        }
+        Index index = (Index) table.get(name);
+        if (index != null) {
+            writeVarLong(NAME_INDEX + index.intValue());
+            return;
+        }
+        table.put(name.toString(), Index.valueOf(table.size()));
+        write(NAME_LITERAL);
+        writeText(name);
+    }
+
+    // Writes the length (in chars) followed by the chars (UTF-8 like).
+    private void writeText(CharSequence csq) throws XMLStreamException {
+        final int length = csq.length();
+        writeVarLong(length);
+        for (int i = 0; i < length;) {
+            if (_index + 3 > BUFFER_LENGTH) {
+                flushBuffer();
+            }
+            final char c = csq.charAt(i++);
+            if (c < 0x80) {
+                _bytes[_index++] = (byte) c;
+            } else if (c < 0x800) {
+                _bytes[_index++] = (byte) (0xc0 | (c >> 6));
+                _bytes[_index++] = (byte) (0x80 | (c & 0x3f));
+            } else { // Surrogates are encoded separately.
+                _bytes[_index++] = (byte) (0xe0 | (c >> 12));
+                _bytes[_index++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                _bytes[_index++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    // Writes an unsigned variable length integer (7 bits per byte).
+    private void writeVarLong(long value) throws XMLStreamException {
+        while ((value & ~0x7fL) != 0) {
+            write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    // Writes the specified number of bytes (big endian).
+    private void writeFixed(long bits, int n) throws XMLStreamException {
+        for (int shift = (n - 1) << 3; shift >= 0; shift -= 8) {
+            write((int) (bits >>> shift));
+        }
+    }
+
+    private void write(int b) throws XMLStreamException {
+        if (_index == BUFFER_LENGTH) {
+            flushBuffer();
+        }
+        _bytes[_index++] = (byte) b;
+    }
+
+    private void flushBuffer() throws XMLStreamException {
+        try {
+            _out.write(_bytes, 0, _index);
+            _index = 0;
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+}
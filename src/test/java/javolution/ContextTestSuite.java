@@ -12,11 +12,14 @@ import javolution.context.ArrayFactory;
 import javolution.context.ConcurrentContext;
 import javolution.context.LocalContext;
 import javolution.context.ObjectFactory;
+import javolution.context.LogContext;
 import javolution.context.StackContext;
+import javolution.lang.Configurable;
 import javolution.lang.MathLib;
 import javolution.testing.TestCase;
 import javolution.testing.TestContext;
 import javolution.testing.TestSuite;
+import javolution.util.FastMap;
 import javolution.util.FastTable;
 import javolution.util.Index;
 
@@ -33,6 +36,12 @@ public final class ContextTestSuite extends TestSuite {
         final int defaultConcurrency = ConcurrentContext.getConcurrency();
         addTest(new Concurrency(10000, 0)); // Test with concurrency disabled
         addTest(new Concurrency(10000, defaultConcurrency));
+        addTest(new ForEachReduce(1000000, 0));
+        addTest(new ForEachReduce(1000000, defaultConcurrency));
+        addTest(new HandOff(10000, 0));
+        addTest(new HandOff(10000, 100000));
+        addTest(new LocalReferences(100, 100000));
+        addTest(new LocalSettings(8, 10000, defaultConcurrency));
         addTest(new SmallObjectAllocation(false));
         addTest(new SmallObjectAllocation(true));
         addTest(new ArrayRecycling(4096, false));
@@ -134,6 +143,313 @@ public final class ContextTestSuite extends TestSuite {
         }
     }
 
+    class ForEachReduce extends TestCase {
+
+        final int _size;
+
+        final int _concurrency;
+
+        int[] _values;
+
+        long _sum;
+
+        final FastMap _map = new FastMap().shared();
+
+        public ForEachReduce(int size, int concurrency) {
+            _size = size;
+            _concurrency = concurrency;
+        }
+
+        public String getName() {
+            return "ConcurrentContext (" + _concurrency + ") forEach/reduce (" + _size + " elements)";
+        }
+
+        public void setUp() {
+            _values = new int[_size];
+            _map.clear();
+            for (int i = 0; i < 1000; i++) {
+                _map.put(new Integer(i), new Integer(i));
+            }
+        }
+
+        public void execute() {
+            LocalContext.enter();
+            try {
+                ConcurrentContext.setConcurrency(_concurrency);
+                ConcurrentContext.forEach(0, _size, new ConcurrentContext.Loop() {
+
+                    public void run(int start, int end) {
+                        for (int i = start; i < end; i++) {
+                            _values[i] = i % 1000;
+                        }
+                    }
+                });
+                Long sum = (Long) ConcurrentContext.reduce(0, _size, new Long(0),
+                        new ConcurrentContext.Reducer() {
+
+                            public Object reduce(Object partial, int start, int end) {
+                                long sum = ((Long) partial).longValue();
+                                for (int i = start; i < end; i++) {
+                                    sum += _values[i];
+                                }
+                                return new Long(sum);
+                            }
+
+                            public Object combine(Object left, Object right) {
+                                return new Long(((Long) left).longValue() + ((Long) right).longValue());
+                            }
+                        });
+                _sum = sum.longValue();
+                ConcurrentContext.forEach(_map.values(), new ConcurrentContext.Action() {
+
+                    public void run(Object element) {
+                        Integer i = (Integer) element;
+                        _map.put(i, new Integer(-i.intValue()));
+                    }
+                });
+            } finally {
+                LocalContext.exit();
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(new Long((_size / 1000) * 499500L), new Long(_sum));
+            for (int i = 0; i < 1000; i++) {
+                if (!TestContext.assertEquals(new Integer(-i), _map.get(new Integer(i))))
+                    break;
+            }
+        }
+    }
+
+    class HandOff extends TestCase {
+
+        final int _count;
+
+        final int _spins;
+
+        final long[] _latencies;
+
+        volatile long _started;
+
+        int _executed;
+
+        public HandOff(int count, int spins) {
+            _count = count;
+            _spins = spins;
+            _latencies = new long[count];
+        }
+
+        public String getName() {
+            return "ConcurrentContext hand-off latency (" + _count + " executions, "
+                    + _spins + " spin iterations)";
+        }
+
+        public void execute() {
+            Integer spins = (Integer) ConcurrentContext.SPIN_ITERATIONS.get();
+            Configurable.configure(ConcurrentContext.SPIN_ITERATIONS, new Integer(_spins));
+            try {
+                _executed = 0;
+                for (int i = 0; i < _count; i++) {
+                    final int index = i;
+                    ConcurrentContext.enter();
+                    try {
+                        _started = System.nanoTime();
+                        ConcurrentContext.execute(new Runnable() {
+
+                            public void run() {
+                                _latencies[index] = System.nanoTime() - _started;
+                            }
+                        });
+                    } finally {
+                        ConcurrentContext.exit();
+                    }
+                    _executed++;
+                }
+            } finally {
+                Configurable.configure(ConcurrentContext.SPIN_ITERATIONS, spins);
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_count, _executed);
+            long[] sorted = (long[]) _latencies.clone();
+            java.util.Arrays.sort(sorted);
+            LogContext.info("Hand-off latency (ns) p50: " + sorted[_count / 2]
+                    + ", p90: " + sorted[_count * 9 / 10]
+                    + ", p99: " + sorted[_count * 99 / 100]);
+        }
+    }
+
+    class LocalReferences extends TestCase {
+
+        final int _depth;
+
+        final int _reads;
+
+        final LocalContext.Reference _reference = new LocalContext.Reference("default");
+
+        final LocalContext.Reference _other = new LocalContext.Reference("other");
+
+        String _outerValue;
+
+        String _innerValue;
+
+        String _defaultValue;
+
+        String _overrideValue;
+
+        String _exitValue;
+
+        public LocalReferences(int depth, int reads) {
+            _depth = depth;
+            _reads = reads;
+        }
+
+        public String getName() {
+            return "LocalContext.Reference.get() (" + _reads + " reads, " + _depth
+                    + " nested contexts)";
+        }
+
+        public void execute() {
+            LocalContext.enter();
+            try { // Disables the default value shortcut.
+                _other.set("local");
+            } finally {
+                LocalContext.exit();
+            }
+            LocalContext.enter();
+            try {
+                _reference.set("outer");
+                for (int i = 0; i < _depth; i++) {
+                    LocalContext.enter();
+                }
+                try {
+                    Object value = null;
+                    for (int i = 0; i < _reads; i++) {
+                        value = _reference.get();
+                    }
+                    _outerValue = (String) value;
+                    _defaultValue = (String) _other.get();
+                    _other.setDefault("changed"); // Invalidates cached values.
+                    _defaultValue += "/" + _other.get();
+                    _other.setDefault("other");
+                    LocalContext.enter();
+                    try {
+                        _reference.set("inner");
+                        _innerValue = (String) _reference.get();
+                        _reference.set(null); // Inherits.
+                        _overrideValue = (String) _reference.get();
+                    } finally {
+                        LocalContext.exit();
+                    }
+                    _exitValue = (String) _reference.get();
+                } finally {
+                    for (int i = 0; i < _depth; i++) {
+                        LocalContext.exit();
+                    }
+                }
+            } finally {
+                LocalContext.exit();
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals("outer", _outerValue);
+            TestContext.assertEquals("inner", _innerValue);
+            TestContext.assertEquals("outer", _overrideValue);
+            TestContext.assertEquals("outer", _exitValue);
+            TestContext.assertEquals("other/changed", _defaultValue);
+            TestContext.assertEquals("default", _reference.get());
+        }
+    }
+
+    class LocalSettings extends TestCase {
+
+        final int _tasks;
+
+        final int _settings;
+
+        final int _concurrency;
+
+        final LocalContext.Reference _reference = new LocalContext.Reference();
+
+        final LocalContext.Reference _shared = new LocalContext.Reference("default");
+
+        int _reads;
+
+        int _errors;
+
+        public LocalSettings(int tasks, int settings, int concurrency) {
+            _tasks = tasks;
+            _settings = settings;
+            _concurrency = concurrency;
+        }
+
+        public String getName() {
+            return "LocalContext.Reference.set()/get() (" + _tasks
+                    + " concurrent tasks, " + _settings + " settings each)";
+        }
+
+        public void execute() {
+            _reads = 0;
+            _errors = 0;
+            LocalContext.enter();
+            try {
+                ConcurrentContext.setConcurrency(_concurrency);
+                _shared.set("outer");
+                ConcurrentContext.enter();
+                try {
+                    for (int i = 0; i < _tasks; i++) {
+                        final int task = i;
+                        ConcurrentContext.execute(new Runnable() {
+
+                            public void run() {
+                                setAndRead(task);
+                            }
+                        });
+                    }
+                } finally {
+                    ConcurrentContext.exit();
+                }
+            } finally {
+                LocalContext.exit();
+            }
+        }
+
+        private void setAndRead(int task) {
+            int errors = 0;
+            LocalContext.enter();
+            try {
+                for (int i = 0; i < _settings; i++) {
+                    Index expected = Index.valueOf(task * _settings + i);
+                    _reference.set(expected); // Invalidates nested contexts only.
+                    LocalContext.enter();
+                    try {
+                        if ((_reference.get() != expected)
+                                || (_shared.get() != "outer")) {
+                            errors++;
+                        }
+                    } finally {
+                        LocalContext.exit();
+                    }
+                }
+            } finally {
+                LocalContext.exit();
+            }
+            synchronized (this) {
+                _reads += _settings;
+                _errors += errors;
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_tasks * _settings, _reads);
+            TestContext.assertEquals(0, _errors);
+            TestContext.assertEquals("default", _shared.get());
+            TestContext.assertEquals(null, _reference.get());
+        }
+    }
+
     class SmallObjectAllocation extends TestCase {
 
         final int N = 1000;
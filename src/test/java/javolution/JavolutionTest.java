@@ -29,6 +29,15 @@ public class JavolutionTest extends junit.framework.TestSuite {
         for (TestCase test : new StructTestSuite().tests()) {
             suite.addTest(new JUnitTestCase(test));
         }
+        for (TestCase test : new UtilTestSuite().tests()) {
+            suite.addTest(new JUnitTestCase(test));
+        }
+        for (TestCase test : new TextTestSuite().tests()) {
+            suite.addTest(new JUnitTestCase(test));
+        }
+        for (TestCase test : new XMLTestSuite().tests()) {
+            suite.addTest(new JUnitTestCase(test));
+        }
         // ...
         return suite;
     }
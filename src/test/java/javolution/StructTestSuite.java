@@ -8,14 +8,19 @@
  */
 package javolution;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteOrder;
 import java.util.List;
 import java.util.ArrayList;
+import javolution.io.CSVReader;
+import javolution.io.CSVWriter;
 import javolution.io.Struct;
 import javolution.testing.TestCase;
 import javolution.testing.TestContext;
 import javolution.testing.TestSuite;
 import javolution.text.Text;
+import javolution.text.TextBuilder;
 
 /**
  * <p> This class holds the test cases for the {@link javolution.io io} classes.</p>
@@ -37,6 +42,8 @@ public final class StructTestSuite extends TestSuite {
     public StructTestSuite() {
         addStructTests(ByteOrder.BIG_ENDIAN);
         addStructTests(ByteOrder.LITTLE_ENDIAN);
+        addTest(new CSVRoundTrip());
+        addTest(new CSVParallelParse(1000000));
     }
 
     private void addStructTests(ByteOrder byteOrder) {
@@ -467,6 +474,133 @@ public final class StructTestSuite extends TestSuite {
         }
     }
 
+    private static class CSVRoundTrip extends TestCase {
+
+        private static final String[] FIELDS = { "plain", "with,comma",
+            "with \"quotes\"", "multi\r\nline", "", "\u00e9t\u00e9 \u20ac" };
+
+        private final ByteArrayOutputStream _out = new ByteArrayOutputStream();
+
+        private final List<String> _read = new ArrayList<String>();
+
+        private long _sum;
+
+        private int _records;
+
+        public String getName() {
+            return "IoTest.CSV - Round trip (quoted, escaped, multiline, UTF-8)";
+        }
+
+        public void execute() throws Exception {
+            _out.reset();
+            CSVWriter writer = new CSVWriter().setOutput(_out);
+            for (int i = 0; i < 1000; i++) {
+                for (String field : FIELDS) {
+                    writer.write(field);
+                }
+                writer.write(i);
+                writer.write(i * 1000000000L);
+                writer.write(i * 0.5);
+                writer.write((i & 1) == 0);
+                writer.endRecord();
+            }
+            writer.close();
+            _read.clear();
+            _sum = 0;
+            _records = 0;
+            CSVReader reader = new CSVReader().setInput(
+                    new ByteArrayInputStream(_out.toByteArray()));
+            while (reader.next()) {
+                TestContext.assertEquals(FIELDS.length + 4, reader.getFieldCount());
+                if (_records == 0) {
+                    for (int i = 0; i < FIELDS.length; i++) {
+                        _read.add(reader.getField(i).toString());
+                    }
+                }
+                int n = FIELDS.length;
+                TestContext.assertEquals(_records, reader.getInt(n));
+                TestContext.assertEquals(_records * 1000000000L, reader.getLong(n + 1));
+                TestContext.assertEquals(_records * 0.5, reader.getDouble(n + 2));
+                TestContext.assertEquals((_records & 1) == 0, reader.getBoolean(n + 3));
+                _sum += reader.getInt(n);
+                _records++;
+            }
+            reader.close();
+        }
+
+        public void validate() throws Exception {
+            TestContext.assertEquals(1000, _records);
+            TestContext.assertEquals(999L * 1000 / 2, _sum);
+            for (int i = 0; i < FIELDS.length; i++) {
+                TestContext.assertEquals(FIELDS[i], _read.get(i));
+            }
+            // Numbers containing the delimiter are quoted.
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CSVWriter writer = new CSVWriter().setOutput(out).setDelimiter('.');
+            writer.write(1.5).write(-2).write(3L).endRecord();
+            writer.close();
+            CSVReader reader = new CSVReader().setDelimiter('.').setInput(
+                    new ByteArrayInputStream(out.toByteArray()));
+            TestContext.assertTrue(reader.next());
+            TestContext.assertEquals(3, reader.getFieldCount());
+            TestContext.assertEquals(1.5, reader.getDouble(0));
+            TestContext.assertEquals(-2, reader.getInt(1));
+            TestContext.assertEquals(3L, reader.getLong(2));
+            reader.close();
+        }
+    }
+
+    private static class CSVParallelParse extends TestCase {
+
+        private final int _size;
+
+        private char[] _chars;
+
+        private int _length;
+
+        private int _records;
+
+        private long _sum;
+
+        private CSVParallelParse(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "IoTest.CSV - Parallel parse of " + _size + " records";
+        }
+
+        public void setUp() {
+            TextBuilder tb = new TextBuilder();
+            for (int i = 0; i < _size; i++) {
+                tb.append("\"sym,").append(i % 100).append("\",").append(i).append('\n');
+            }
+            _length = tb.length();
+            _chars = new char[_length];
+            tb.getChars(0, _length, _chars, 0);
+            _records = 0;
+            _sum = 0;
+        }
+
+        public void execute() throws Exception {
+            CSVReader.parse(_chars, 0, _length, ',', new CSVReader.Handler() {
+
+                public void handle(CSVReader record) {
+                    long value = record.getLong(1);
+                    synchronized (CSVParallelParse.this) {
+                        _records++;
+                        _sum += value;
+                    }
+                }
+            });
+        }
+
+        public void validate() throws Exception {
+            TestContext.assertEquals(_size, _records);
+            TestContext.assertEquals(((long) _size) * (_size - 1) / 2, _sum);
+        }
+    }
+
     private static abstract class BaseStructTest extends TestCase {
 
         protected final ByteOrder order;
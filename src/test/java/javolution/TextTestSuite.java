@@ -0,0 +1,508 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2009 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javolution;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+
+import javolution.context.ConcurrentContext;
+import javolution.io.UTF8ByteBufferWriter;
+import javolution.testing.TestCase;
+import javolution.testing.TestContext;
+import javolution.testing.TestSuite;
+import javolution.text.CharArray;
+import javolution.text.CharSet;
+import javolution.text.Text;
+import javolution.text.TextBuilder;
+import javolution.text.TextCache;
+import javolution.text.TextScanner;
+import javolution.text.UTF8TextEncoder;
+
+/**
+ * <p> This class holds the test cases for the {@link javolution.text
+ *     text} classes.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class TextTestSuite extends TestSuite {
+
+    public TextTestSuite() {
+        addTest(new Intern(1000));
+        addTest(new Cache(1000));
+        addTest(new Scan(10000));
+        addTest(new Lines(100000));
+        addTest(new Bulk(1000000, 16));
+        addTest(new UTF8(100000));
+        addTest(new BlockIO(100000));
+    }
+
+    class Intern extends TestCase {
+
+        final int _size;
+
+        CharArray[] _symbols;
+
+        Text[] _interned;
+
+        public Intern(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "Text.intern(CharSequence) (" + _size + " symbols)";
+        }
+
+        public void setUp() {
+            _symbols = new CharArray[_size];
+            _interned = new Text[_size];
+            char[] buffer = new char[_size * 64];
+            for (int i = 0, offset = 0; i < _size; i++) {
+                String name = "symbol-" + i + (i % 3 == 0 ? "-with-a-longer-name-than-one-block" : "");
+                name.getChars(0, name.length(), buffer, offset);
+                _symbols[i] = new CharArray().setArray(buffer, offset, name.length());
+                offset += name.length();
+            }
+        }
+
+        public void execute() {
+            for (int i = 0; i < _size; i++) {
+                _interned[i] = Text.intern(_symbols[i]);
+            }
+        }
+
+        public void validate() {
+            for (int i = 0; i < _size; i++) {
+                Text text = _interned[i];
+                if (!TestContext.assertSame(text, Text.intern(_symbols[i].toString())))
+                    break;
+                if (!TestContext.assertTrue(text.contentEquals(_symbols[i])))
+                    break;
+            }
+        }
+    }
+
+    class Cache extends TestCase {
+
+        final int _size;
+
+        final TextCache _cache = new TextCache(64);
+
+        CharArray[] _symbols;
+
+        Text[] _cached;
+
+        public Cache(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "TextCache.valueOf(CharSequence) (" + _size + " symbols)";
+        }
+
+        public void setUp() {
+            _symbols = new CharArray[_size];
+            _cached = new Text[_size];
+            for (int i = 0; i < _size; i++) {
+                _symbols[i] = new CharArray("element" + (i % 128));
+            }
+        }
+
+        public void execute() {
+            for (int i = 0; i < _size; i++) {
+                _cached[i] = _cache.valueOf(_symbols[i]);
+            }
+        }
+
+        public void validate() {
+            for (int i = 0; i < _size; i++) {
+                if (!TestContext.assertTrue(_cached[i].contentEquals(_symbols[i])))
+                    break;
+            }
+            Text text = _cache.valueOf(_symbols[0]);
+            TestContext.assertSame(text, _cache.valueOf(_symbols[0]));
+            char[] chars = _symbols[0].toString().toCharArray();
+            TestContext.assertSame(text, _cache.valueOf(chars, 0, chars.length));
+        }
+    }
+
+    class Scan extends TestCase {
+
+        final int _size;
+
+        final TextScanner _scanner = new TextScanner();
+
+        final CharSet _letters = CharSet.rangeOf('A', 'Z');
+
+        char[] _feed;
+
+        int _symbols;
+
+        long _volumes;
+
+        double _prices;
+
+        int _ids;
+
+        public Scan(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "TextScanner.nextToken/nextInt/nextLong/nextDouble (" + _size + " records)";
+        }
+
+        public void setUp() {
+            StringBuffer sb = new StringBuffer();
+            for (int i = 0; i < _size; i++) {
+                sb.append("SYMBOL-").append(i % 100).append(", ").append(i)
+                        .append(",").append(i * 0.5).append(",  ")
+                        .append(i * 1000000000L).append('\n');
+            }
+            _feed = sb.toString().toCharArray();
+        }
+
+        public void execute() {
+            _symbols = 0;
+            _ids = 0;
+            _prices = 0;
+            _volumes = 0;
+            _scanner.setInput(_feed, 0, _feed.length).setDelimiters(
+                    CharSet.valueOf(new char[] { ',', ' ', '\n' }));
+            while (_scanner.hasNext()) {
+                CharArray symbol = _scanner.nextToken();
+                if (_letters.contains(symbol.charAt(0)) && (symbol.length() > 7)) {
+                    _symbols++;
+                }
+                _ids += _scanner.nextInt();
+                _prices += _scanner.nextDouble();
+                _volumes += _scanner.nextLong();
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _symbols);
+            TestContext.assertEquals(_size * (_size - 1) / 2, _ids);
+            TestContext.assertEquals(_size * (_size - 1) / 4.0, _prices);
+            TestContext.assertEquals(1000000000L * _size * (_size - 1) / 2, _volumes);
+            _scanner.setInput("a  bb\tccc").setDelimiters(CharSet.WHITESPACES);
+            TestContext.assertEquals("a", _scanner.nextToken().toString());
+            TestContext.assertEquals("bb", _scanner.nextToken().toString());
+            TestContext.assertEquals("ccc", _scanner.nextToken().toString());
+            TestContext.assertEquals(null, _scanner.nextToken());
+            _scanner.setInput("12abc 3.5x 7").setDelimiters(CharSet.WHITESPACES);
+            try {
+                _scanner.nextInt();
+                TestContext.fail("NumberFormatException expected for 12abc");
+            } catch (NumberFormatException e) {
+                // Expected.
+            }
+            TestContext.assertEquals("12abc", _scanner.nextToken().toString());
+            try {
+                _scanner.nextDouble();
+                TestContext.fail("NumberFormatException expected for 3.5x");
+            } catch (NumberFormatException e) {
+                // Expected.
+            }
+            TestContext.assertEquals("3.5x", _scanner.nextToken().toString());
+            TestContext.assertEquals(7L, _scanner.nextLong());
+            CharSet digits = CharSet.rangeOf('0', '9');
+            char[] chars = "abcdefghij\u00e9klmn7op".toCharArray();
+            TestContext.assertEquals(15, digits.indexIn(chars, 0, chars.length));
+            TestContext.assertEquals(-1, digits.indexIn(chars, 0, 15));
+        }
+    }
+
+    class Lines extends TestCase {
+
+        final int _size;
+
+        Text _text;
+
+        String _string;
+
+        int _found;
+
+        public Lines(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "Text.getLineStart/getLineIndex (" + _size + " lines, edited)";
+        }
+
+        public void setUp() {
+            Text text = Text.EMPTY;
+            for (int i = 0; i < _size; i++) {
+                text = text.concat(Text.valueOf("line " + i + ((i % 7 == 0) ? " (longer than one block of characters)\n" : "\n")));
+            }
+            _text = text;
+            _text.getLineCount(); // Line feeds counted once.
+        }
+
+        public void execute() {
+            _found = 0;
+            for (int i = 0; i < _size; i += 7) {
+                int start = _text.getLineStart(i);
+                if (_text.getLineIndex(start) == i) {
+                    _found++;
+                }
+            }
+            // Replaces lines 10 to 20 (exclusive) with a single line.
+            _text = _text.replace(_text.getLineStart(10), _text.getLineStart(20), Text.valueOf("replaced\n"));
+            _string = _text.toString();
+        }
+
+        public void validate() {
+            TestContext.assertEquals((_size + 6) / 7, _found);
+            TestContext.assertEquals(_size - 9 + 1, _text.getLineCount());
+            int lineStart = 0;
+            for (int line = 0; line < 30; line++) {
+                TestContext.assertEquals(lineStart, _text.getLineStart(line));
+                TestContext.assertEquals(line, _text.getLineIndex(lineStart));
+                lineStart = _string.indexOf('\n', lineStart) + 1;
+            }
+            TestContext.assertEquals("replaced", _text.subtext(_text.getLineStart(10), _text.getLineStart(11) - 1).toString());
+            TestContext.assertEquals(_size - 9, _text.getLineIndex(_text.length()));
+            try {
+                Reader reader = _text.newReader();
+                StringBuffer sb = new StringBuffer();
+                char[] buffer = new char[100];
+                sb.append((char) reader.read());
+                for (int n; (n = reader.read(buffer, 0, buffer.length)) > 0;) {
+                    sb.append(buffer, 0, n);
+                }
+                TestContext.assertEquals(-1, reader.read());
+                TestContext.assertEquals(_string, sb.toString());
+            } catch (IOException e) {
+                TestContext.fail(e.toString());
+            }
+        }
+    }
+
+    class Bulk extends TestCase {
+
+        final int _size;
+
+        final int _segments;
+
+        String _expected;
+
+        Text _text;
+
+        public Bulk(int size, int segments) {
+            _size = size;
+            _segments = segments;
+        }
+
+        public String getName() {
+            return "TextBuilder.moveToText and Text.concat(Text[]) (" + _size
+                    + " lines, " + _segments + " concurrent segments)";
+        }
+
+        public void setUp() {
+            StringBuffer sb = new StringBuffer();
+            for (int i = 0; i < _size; i++) {
+                sb.append("line ").append(i).append('\n');
+            }
+            _expected = sb.toString();
+        }
+
+        public void execute() {
+            final Text[] segments = new Text[_segments];
+            final int segmentSize = _size / _segments;
+            ConcurrentContext.forEach(0, _segments, new ConcurrentContext.Loop() {
+
+                public void run(int start, int end) {
+                    TextBuilder tb = new TextBuilder();
+                    for (int s = start; s < end; s++) {
+                        int last = (s == _segments - 1) ? _size : (s + 1) * segmentSize;
+                        for (int i = s * segmentSize; i < last; i++) {
+                            tb.append("line ").append(i).append('\n');
+                        }
+                        segments[s] = tb.moveToText(); // No copy.
+                    }
+                }
+            });
+            _text = Text.concat(segments);
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_expected.length(), _text.length());
+            TestContext.assertEquals(_expected, _text.toString());
+            TestContext.assertEquals(_size + 1, _text.getLineCount());
+            TestContext.assertEquals(_expected.substring(1000, 5000), _text.subtext(1000, 5000).toString());
+            TestContext.assertEquals(_expected.substring(10, 2000).toUpperCase(), _text.subtext(10, 2000).toUpperCase().toString());
+            TestContext.assertEquals(_expected, _text.copy().toString());
+            TextBuilder tb = new TextBuilder();
+            tb.append(_expected.substring(0, 3000));
+            Text moved = tb.moveToText();
+            TestContext.assertEquals(0, tb.length());
+            tb.append("overwrite ").append(_expected.substring(0, 3000));
+            TestContext.assertEquals(_expected.substring(0, 3000), moved.toString());
+            TestContext.assertEquals(Text.EMPTY, Text.concat(new Text[] { null, Text.EMPTY }));
+        }
+    }
+
+    class UTF8 extends TestCase {
+
+        final int _size;
+
+        byte[] _expected;
+
+        Text _text;
+
+        ByteArrayOutputStream _out = new ByteArrayOutputStream();
+
+        public UTF8(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "UTF8TextEncoder.encode(ByteBuffer) - " + _size
+                    + " words, resumed every 7 bytes";
+        }
+
+        public void setUp() {
+            String[] words = { "ascii ", "caf\u00e9 ", "\u20ac ", "\ud83d\ude00", "\n" };
+            StringBuffer sb = new StringBuffer();
+            Text text = Text.EMPTY;
+            for (int i = 0; i < _size; i++) {
+                String word = words[i % words.length];
+                sb.append(word);
+                text = text.concat(Text.valueOf(word.charAt(0))).concat(
+                        Text.valueOf(word.substring(1))); // Splits pairs.
+            }
+            try {
+                _expected = sb.toString().getBytes("UTF-8");
+            } catch (IOException e) {
+                throw new Error(e.getMessage());
+            }
+            _text = text;
+            _out.reset();
+        }
+
+        public void execute() {
+            UTF8TextEncoder encoder = new UTF8TextEncoder().setInput(_text);
+            ByteBuffer buffer = ByteBuffer.allocate(7); // Splits characters.
+            try {
+                while (!encoder.encode(buffer)) {
+                    _out.write(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                throw new Error(e.getMessage());
+            }
+            _out.write(buffer.array(), 0, buffer.position());
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_expected.length, (int) _text.getUTF8Length());
+            TestContext.assertTrue(java.util.Arrays.equals(_expected, _out.toByteArray()));
+            try {
+                ByteBuffer direct = ByteBuffer.allocateDirect(_expected.length);
+                TestContext.assertTrue(new UTF8TextEncoder().setInput(_text).encode(direct));
+                TestContext.assertEquals(_expected.length, direct.position());
+                ByteBuffer heap = ByteBuffer.allocate(_expected.length);
+                new UTF8ByteBufferWriter().setOutput(heap).write(_text);
+                TestContext.assertTrue(java.util.Arrays.equals(_expected, heap.array()));
+                new UTF8TextEncoder().setInput(Text.valueOf("\ud83d")).encode(ByteBuffer.allocate(8));
+                TestContext.fail("Unpaired surrogate should be rejected");
+            } catch (IOException e) {
+                // Expected (unpaired surrogate).
+            }
+        }
+    }
+
+    class BlockIO extends TestCase {
+
+        final int _size;
+
+        String _expected;
+
+        byte[] _bytes;
+
+        TextBuilder _fromReader;
+
+        TextBuilder _fromChannel;
+
+        public BlockIO(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "TextBuilder.appendFrom/writeTo/toCharBuffers (" + _size
+                    + " lines)";
+        }
+
+        public void setUp() {
+            StringBuffer sb = new StringBuffer();
+            for (int i = 0; i < _size; i++) {
+                sb.append("caf\u00e9 \ud83d\ude00 ").append(i).append('\n');
+            }
+            _expected = sb.toString();
+            try {
+                _bytes = _expected.getBytes("UTF-8");
+            } catch (IOException e) {
+                throw new Error(e.getMessage());
+            }
+        }
+
+        public void execute() {
+            try {
+                _fromReader = new TextBuilder().appendFrom(new StringReader(_expected));
+                _fromChannel = new TextBuilder().appendFrom(Channels
+                        .newChannel(new ByteArrayInputStream(_bytes)), "UTF-8");
+            } catch (IOException e) {
+                throw new Error(e.getMessage());
+            }
+        }
+
+        public void validate() {
+            TestContext.assertTrue(_fromReader.contentEquals(_expected));
+            TestContext.assertTrue(_fromChannel.contentEquals(_expected));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                _fromChannel.writeTo(Channels.newChannel(out));
+            } catch (IOException e) {
+                throw new Error(e.getMessage());
+            }
+            TestContext.assertTrue(java.util.Arrays.equals(_bytes, out.toByteArray()));
+            try {
+                Pipe pipe = Pipe.open();
+                pipe.sink().configureBlocking(false);
+                try {
+                    _fromChannel.writeTo(pipe.sink());
+                    TestContext.fail("Non-blocking channel accepted");
+                } catch (IllegalArgumentException e) {
+                    // Expected.
+                } finally {
+                    pipe.sink().close();
+                    pipe.source().close();
+                }
+            } catch (IOException e) {
+                throw new Error(e.getMessage());
+            }
+            CharBuffer[] views = _fromReader.toCharBuffers();
+            StringBuffer sb = new StringBuffer();
+            for (int i = 0; i < views.length; i++) {
+                TestContext.assertTrue(views[i].isReadOnly());
+                sb.append(views[i]);
+            }
+            TestContext.assertEquals(_expected, sb.toString());
+        }
+    }
+}
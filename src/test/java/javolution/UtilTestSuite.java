@@ -0,0 +1,660 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2009 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javolution;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javolution.context.ConcurrentContext;
+import javolution.lang.MathLib;
+import javolution.testing.TestCase;
+import javolution.testing.TestContext;
+import javolution.testing.TestSuite;
+import javolution.text.Text;
+import javolution.util.ConcurrentTable;
+import javolution.util.FastBitSet;
+import javolution.util.FastCache;
+import javolution.util.FastComparator;
+import javolution.util.FastMap;
+import javolution.util.FastSortedMap;
+import javolution.util.FastSortedSet;
+import javolution.util.FastTable;
+import javolution.util.Index;
+import javolution.util.IntTable;
+
+/**
+ * <p> This class holds the test cases for the {@link javolution.util
+ *     util} classes.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class UtilTestSuite extends TestSuite {
+
+    public UtilTestSuite() {
+        addTest(new BitSetIteration(100000));
+        addTest(new TableSort(100000, false));
+        addTest(new TableSort(100000, true));
+        addTest(new TableStableSort(100000));
+        addTest(new IntTableSort(100000));
+        addTest(new HashFlooding(11, FastComparator.LEXICAL));
+        addTest(new HashFlooding(11, FastComparator.SEEDED_LEXICAL));
+        addTest(new SharedMapChurn(5000, 20));
+        addTest(new CacheScan(FastCache.LRU));
+        addTest(new CacheScan(FastCache.LFU));
+        addTest(new CacheScan(FastCache.TINY_LFU));
+        addTest(new SortedMapUpdate(100000, false));
+        addTest(new SortedMapUpdate(100000, true));
+        addTest(new ConcurrentAppend(10000, CONCURRENT_TABLE));
+        addTest(new ConcurrentAppend(10000, SYNCHRONIZED_LIST));
+        addTest(new ConcurrentAppend(10000, COPY_ON_WRITE_LIST));
+    }
+
+    class BitSetIteration extends TestCase {
+
+        final int _size;
+
+        FastBitSet _fastBitSet;
+
+        BitSet _bitSet;
+
+        int _count;
+
+        int _sum;
+
+        public BitSetIteration(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "FastBitSet.forEachSetBit(Visitor) (" + _size + " bits)";
+        }
+
+        public void setUp() {
+            _fastBitSet = new FastBitSet();
+            _bitSet = new BitSet();
+            for (int i = 0; i < _size / 8; i++) {
+                int from = MathLib.random(0, _size);
+                int to = MathLib.min(_size, from + MathLib.random(0, 8));
+                _fastBitSet.set(from, to);
+                _bitSet.set(from, to);
+            }
+        }
+
+        public void execute() {
+            _count = 0;
+            _sum = 0;
+            _fastBitSet.forEachSetBit(new FastBitSet.Visitor() {
+
+                public void visit(int bitIndex) {
+                    _count++;
+                    _sum += bitIndex;
+                }
+            });
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_bitSet.cardinality(), _count);
+            TestContext.assertEquals(_bitSet.cardinality(), _fastBitSet.cardinality());
+            TestContext.assertEquals(_bitSet.length(), _fastBitSet.length());
+            TestContext.assertEquals(_sum, _fastBitSet.hashCode());
+            for (int i = 0; i < _size; i += 61) {
+                if (!TestContext.assertEquals(_bitSet.nextSetBit(i), _fastBitSet.nextSetBit(i)))
+                    break;
+                if (!TestContext.assertEquals(_bitSet.nextClearBit(i), _fastBitSet.nextClearBit(i)))
+                    break;
+                if (!TestContext.assertEquals(_bitSet.previousSetBit(i), _fastBitSet.previousSetBit(i)))
+                    break;
+                int to = MathLib.min(_size, i + 150);
+                if (!TestContext.assertEquals(_bitSet.get(i, to).cardinality(), _fastBitSet.cardinality(i, to)))
+                    break;
+            }
+            Iterator i = _fastBitSet.iterator();
+            for (int j = _bitSet.nextSetBit(0); j >= 0; j = _bitSet.nextSetBit(j + 1)) {
+                if (!TestContext.assertEquals(Index.valueOf(j), i.next()))
+                    break;
+            }
+            TestContext.assertFalse(i.hasNext());
+        }
+    }
+
+    class TableSort extends TestCase {
+
+        final int _size;
+
+        final boolean _parallel;
+
+        FastTable _table;
+
+        public TableSort(int size, boolean parallel) {
+            _size = size;
+            _parallel = parallel;
+        }
+
+        public String getName() {
+            return "FastTable." + (_parallel ? "parallelSort()" : "sort()")
+                    + " (" + _size + " random, sorted, reversed and equal elements)";
+        }
+
+        public void setUp() {
+            _table = new FastTable();
+            for (int i = 0; i < _size; i++) { // Random.
+                _table.add(Index.valueOf(MathLib.random(0, _size)));
+            }
+            for (int i = 0; i < _size; i++) { // Sorted.
+                _table.add(Index.valueOf(_size + i));
+            }
+            for (int i = 0; i < _size; i++) { // Reversed.
+                _table.add(Index.valueOf(3 * _size - i));
+            }
+            for (int i = 0; i < _size; i++) { // Equal.
+                _table.add(Index.valueOf(_size / 2));
+            }
+        }
+
+        public void execute() {
+            if (_parallel) {
+                _table.parallelSort();
+            } else {
+                _table.sort();
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(4 * _size, _table.size());
+            for (int i = 1, n = _table.size(); i < n; i++) {
+                if (!TestContext.assertTrue(((Index) _table.get(i - 1)).intValue()
+                        <= ((Index) _table.get(i)).intValue()))
+                    break;
+            }
+        }
+    }
+
+    class TableStableSort extends TestCase {
+
+        final int _size;
+
+        final FastComparator _byModulo = new FastComparator() {
+
+            public int hashCodeOf(Object obj) {
+                return ((Index) obj).intValue() % 97;
+            }
+
+            public boolean areEqual(Object o1, Object o2) {
+                return compare(o1, o2) == 0;
+            }
+
+            public int compare(Object o1, Object o2) {
+                return hashCodeOf(o1) - hashCodeOf(o2);
+            }
+        };
+
+        FastTable _table;
+
+        public TableStableSort(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "FastTable.stableSort(FastComparator) (" + _size + " elements)";
+        }
+
+        public void setUp() {
+            _table = new FastTable();
+            for (int i = 0; i < _size; i++) {
+                _table.add(Index.valueOf(i));
+            }
+        }
+
+        public void execute() {
+            _table.stableSort(_byModulo);
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _table.size());
+            for (int i = 1; i < _size; i++) {
+                Object previous = _table.get(i - 1);
+                Object current = _table.get(i);
+                int cmp = _byModulo.compare(previous, current);
+                if (!TestContext.assertTrue((cmp < 0) || ((cmp == 0)
+                        && (((Index) previous).intValue() < ((Index) current).intValue()))))
+                    break;
+            }
+        }
+    }
+
+    static final int CONCURRENT_TABLE = 0;
+
+    static final int SYNCHRONIZED_LIST = 1;
+
+    static final int COPY_ON_WRITE_LIST = 2;
+
+    class ConcurrentAppend extends TestCase {
+
+        static final int PRODUCERS = 4;
+
+        final int _size;
+
+        final int _type;
+
+        Collection _collection;
+
+        Index[] _values;
+
+        int _sum;
+
+        public ConcurrentAppend(int size, int type) {
+            _size = size;
+            _type = type;
+        }
+
+        public void setUp() {
+            _values = new Index[_size];
+            for (int i = 0; i < _size; i++) {
+                _values[i] = Index.valueOf(i); // Index.valueOf synchronizes.
+            }
+        }
+
+        public String getName() {
+            String name = (_type == CONCURRENT_TABLE) ? "ConcurrentTable"
+                    : (_type == SYNCHRONIZED_LIST) ? "Collections.synchronizedList(ArrayList)"
+                            : "CopyOnWriteArrayList";
+            return name + ".add(Object) (" + PRODUCERS + " producers, "
+                    + _size + " elements) and iteration";
+        }
+
+        public void execute() {
+            _collection = (_type == CONCURRENT_TABLE) ? (Collection) new ConcurrentTable()
+                    : (_type == SYNCHRONIZED_LIST) ? Collections.synchronizedList(new ArrayList())
+                            : (Collection) new CopyOnWriteArrayList();
+            ConcurrentContext.enter();
+            try {
+                for (int i = 0; i < PRODUCERS; i++) {
+                    final int producer = i;
+                    ConcurrentContext.execute(new Runnable() {
+
+                        public void run() {
+                            for (int j = producer; j < _size; j += PRODUCERS) {
+                                _collection.add(_values[j]);
+                            }
+                        }
+                    });
+                }
+            } finally {
+                ConcurrentContext.exit();
+            }
+            _sum = 0;
+            if (_type == SYNCHRONIZED_LIST) {
+                synchronized (_collection) {
+                    for (Iterator i = _collection.iterator(); i.hasNext();) {
+                        _sum += ((Index) i.next()).intValue();
+                    }
+                }
+            } else {
+                for (Iterator i = _collection.iterator(); i.hasNext();) {
+                    _sum += ((Index) i.next()).intValue();
+                }
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _collection.size());
+            TestContext.assertEquals((_size * (_size - 1)) / 2, _sum);
+        }
+    }
+
+    class IntTableSort extends TestCase {
+
+        final int _size;
+
+        int[] _values;
+
+        IntTable _table;
+
+        public IntTableSort(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "IntTable.addAll(int[]) and sort() (" + _size + " elements)";
+        }
+
+        public void setUp() {
+            _values = new int[_size];
+            for (int i = 0; i < _size; i++) {
+                _values[i] = MathLib.random(-_size, _size);
+            }
+        }
+
+        public void execute() {
+            _table = IntTable.newInstance();
+            _table.addAll(_values, 0, _size / 3);
+            _table.addAll(_values, _size / 3, _size - _size / 3);
+            _table.sort();
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _table.size());
+            for (int i = 1; i < _size; i++) {
+                if (!TestContext.assertTrue(_table.get(i - 1) <= _table.get(i)))
+                    break;
+            }
+            for (int i = 0; i < _size; i += 97) {
+                int index = _table.binarySearch(_values[i]);
+                if (!TestContext.assertEquals(_values[i], _table.get(index)))
+                    break;
+            }
+            int index = _table.binarySearch(_size + 1); // Greater than all.
+            TestContext.assertEquals(-_size - 1, index);
+            long sum = 0;
+            long blockSum = 0;
+            for (int i = 0; i < _size; i++) {
+                sum += _values[i];
+            }
+            for (int i = 0; i < _table.getBlockCount(); i++) {
+                int[] block = _table.getBlock(i);
+                for (int j = 0, n = _table.getBlockLength(i); j < n; j++) {
+                    blockSum += block[j];
+                }
+            }
+            TestContext.assertEquals(sum, blockSum);
+            IntTable.recycle(_table);
+        }
+    }
+
+    class HashFlooding extends TestCase {
+
+        final int _n;
+
+        final FastComparator _comparator;
+
+        String[] _keys;
+
+        FastMap _map;
+
+        public HashFlooding(int n, FastComparator comparator) {
+            _n = n;
+            _comparator = comparator;
+        }
+
+        public String getName() {
+            return "FastMap.put/get (" + (1 << _n)
+                    + " keys with identical String.hashCode(), " + _comparator
+                    + " key comparator)";
+        }
+
+        public void setUp() { // All combinations of "Aa" and "BB" (same hash).
+            _keys = new String[1 << _n];
+            for (int i = 0; i < _keys.length; i++) {
+                StringBuffer sb = new StringBuffer();
+                for (int j = 0; j < _n; j++) {
+                    sb.append(((i >> j) & 1) == 0 ? "Aa" : "BB");
+                }
+                _keys[i] = sb.toString();
+            }
+        }
+
+        public void execute() {
+            _map = new FastMap().setKeyComparator(_comparator);
+            for (int i = 0; i < _keys.length; i++) {
+                _map.put(_keys[i], _keys[i]);
+            }
+            for (int i = 0; i < _keys.length; i++) {
+                _map.get(_keys[i]);
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_keys[0].hashCode(), _keys[_keys.length - 1].hashCode());
+            TestContext.assertEquals(_keys.length, _map.size());
+            for (int i = 0; i < _keys.length; i++) {
+                if (!TestContext.assertSame(_keys[i], _map.get(new Text(_keys[i]))))
+                    break;
+            }
+        }
+    }
+
+    class SharedMapChurn extends TestCase {
+
+        final int _size;
+
+        final int _rounds;
+
+        FastMap _map;
+
+        IdentityHashMap _firstEntries;
+
+        int _newEntries;
+
+        public SharedMapChurn(int size, int rounds) {
+            _size = size;
+            _rounds = rounds;
+        }
+
+        public String getName() {
+            return "FastMap.reclaim() (shared map, " + _rounds + " x " + _size
+                    + " insertions/removals)";
+        }
+
+        public void execute() {
+            _map = new FastMap().shared().setEntryRecycling(true);
+            _firstEntries = new IdentityHashMap();
+            _newEntries = 0;
+            for (int r = 0; r < _rounds; r++) {
+                for (int i = 0; i < _size; i++) {
+                    Index key = Index.valueOf(r * _size + i);
+                    Object entry = _map.putEntry(key, key);
+                    if (r == 0) {
+                        _firstEntries.put(entry, entry);
+                    } else if (!_firstEntries.containsKey(entry)) {
+                        _newEntries++;
+                    }
+                }
+                for (int i = 0; i < _size; i++) {
+                    Index key = Index.valueOf(r * _size + i);
+                    if (i % 2 == 0) { // Concurrent look-ups are safe.
+                        _map.get(key);
+                    }
+                    _map.remove(key);
+                }
+                _map.reclaim();
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(0, _map.size());
+            TestContext.assertTrue(_map.isEmpty());
+            TestContext.assertEquals(0, _newEntries);
+            for (int i = 0; i < _size; i++) {
+                Index key = Index.valueOf(i);
+                _map.put(key, key);
+            }
+            for (int i = 0; i < _size; i++) {
+                Index key = Index.valueOf(i);
+                if (!TestContext.assertSame(key, _map.get(key)))
+                    break;
+            }
+            TestContext.assertEquals(_size, _map.size());
+        }
+    }
+
+    class CacheScan extends TestCase {
+
+        static final int CAPACITY = 1000;
+
+        final FastCache.Policy _policy;
+
+        FastCache _cache;
+
+        int _evicted;
+
+        int _hotHits;
+
+        public CacheScan(FastCache.Policy policy) {
+            _policy = policy;
+        }
+
+        public String getName() {
+            return "FastCache (" + _policy + ", " + CAPACITY
+                    + " entries, hot set and scan)";
+        }
+
+        public void execute() {
+            _evicted = 0;
+            _cache = new FastCache(CAPACITY, _policy).setEvictionListener(
+                    new FastCache.EvictionListener() {
+
+                        public void evicted(Object key, Object value, boolean expired) {
+                            _evicted++;
+                        }
+                    });
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < CAPACITY / 2; i++) { // Hot set.
+                    Index key = Index.valueOf(i);
+                    if (_cache.get(key) == null) {
+                        _cache.put(key, key);
+                    }
+                }
+            }
+            for (int i = 0; i < 10 * CAPACITY; i++) { // Scan (one-time keys).
+                Index key = Index.valueOf(CAPACITY + i);
+                if (_cache.get(key) == null) {
+                    _cache.put(key, key);
+                }
+                if (i % 4 == 0) { // Hot set still in use.
+                    key = Index.valueOf((i >> 2) % (CAPACITY / 2));
+                    if (_cache.get(key) == null) {
+                        _cache.put(key, key);
+                    }
+                }
+            }
+            _hotHits = 0;
+            for (int i = 0; i < CAPACITY / 2; i++) {
+                if (_cache.get(Index.valueOf(i)) != null) {
+                    _hotHits++;
+                }
+            }
+        }
+
+        public void validate() {
+            TestContext.assertTrue(_cache.size() <= CAPACITY);
+            TestContext.assertEquals(_cache.size(), (int) _cache.getWeight());
+            TestContext.assertEquals(_evicted, (int) _cache.getEvictionCount());
+            TestContext.assertTrue(_cache.getHitCount() > 0);
+            if (_policy == FastCache.LRU) { // Scan flushes part of the hot set.
+                TestContext.assertTrue(_hotHits < CAPACITY / 2);
+            } else if (_policy == FastCache.TINY_LFU) { // Scan resistant.
+                TestContext.assertEquals(CAPACITY / 2, _hotHits);
+            }
+            Index key = Index.valueOf(CAPACITY / 2 - 1);
+            _cache.put(key, Index.valueOf(-1)); // Replaces (always admitted).
+            TestContext.assertSame(Index.valueOf(-1), _cache.get(key));
+            _cache.remove(key);
+            TestContext.assertFalse(_cache.containsKey(key));
+        }
+    }
+
+    class SortedMapUpdate extends TestCase {
+
+        final int _size;
+
+        final boolean _isTreeMap;
+
+        Integer[] _keys;
+
+        Map _map;
+
+        TreeMap _expected;
+
+        public SortedMapUpdate(int size, boolean isTreeMap) {
+            _size = size;
+            _isTreeMap = isTreeMap;
+        }
+
+        public String getName() {
+            return (_isTreeMap ? "TreeMap" : "FastSortedMap")
+                    + ".put/remove (" + _size + " random keys)";
+        }
+
+        public void setUp() {
+            _keys = new Integer[_size];
+            for (int i = 0; i < _size; i++) {
+                _keys[i] = new Integer(MathLib.random(0, _size));
+            }
+            _map = _isTreeMap ? (Map) new TreeMap() : new FastSortedMap();
+        }
+
+        public void execute() {
+            _map.clear();
+            for (int i = 0; i < _size; i++) {
+                _map.put(_keys[i], _keys[i]);
+            }
+            for (int i = 0; i < _size; i += 2) {
+                _map.remove(_keys[i]);
+            }
+        }
+
+        public void validate() {
+            _expected = new TreeMap();
+            for (int i = 0; i < _size; i++) {
+                _expected.put(_keys[i], _keys[i]);
+            }
+            for (int i = 0; i < _size; i += 2) {
+                _expected.remove(_keys[i]);
+            }
+            TestContext.assertEquals(_expected.size(), _map.size());
+            TestContext.assertTrue(_expected.keySet().equals(_map.keySet()));
+            if (_isTreeMap)
+                return;
+            FastSortedMap map = (FastSortedMap) _map;
+            Iterator it = _expected.keySet().iterator();
+            for (FastSortedMap.Entry e = map.head(), end = map.tail(); (e = (FastSortedMap.Entry) e.getNext()) != end;) {
+                if (!TestContext.assertEquals(it.next(), e.getKey())) // Ordered.
+                    break;
+            }
+            for (int i = 0; i < 1000; i++) { // Navigation.
+                Integer key = new Integer(MathLib.random(-1, _size + 1));
+                if (!TestContext.assertEquals(_expected.floorKey(key), map.floorKey(key))
+                        || !TestContext.assertEquals(_expected.lowerKey(key), map.lowerKey(key))
+                        || !TestContext.assertEquals(_expected.ceilingKey(key), map.ceilingKey(key))
+                        || !TestContext.assertEquals(_expected.higherKey(key), map.higherKey(key)))
+                    break;
+            }
+            for (int i = 0; i < 100; i++) { // Range views.
+                Integer from = new Integer(MathLib.random(0, _size));
+                Integer to = new Integer(MathLib.random(from.intValue(), _size));
+                boolean fromInclusive = (i & 1) == 0;
+                boolean toInclusive = (i & 2) == 0;
+                FastSortedMap view = map.subMap(from, fromInclusive, to, toInclusive);
+                Map expected = _expected.subMap(from, fromInclusive, to, toInclusive);
+                if (!TestContext.assertEquals(expected.size(), view.size())
+                        || !TestContext.assertTrue(expected.keySet().equals(view.keySet()))
+                        || !TestContext.assertEquals(_expected.headMap(to, toInclusive).size(), 
+                                map.headMap(to, toInclusive).size()))
+                    break;
+            }
+            FastSortedSet set = new FastSortedSet(_expected.keySet());
+            FastSortedSet tail = set.tailSet(new Integer(_size / 2), true);
+            while (!tail.isEmpty()) {
+                tail.pollFirst();
+            }
+            TestContext.assertEquals(_expected.headMap(new Integer(_size / 2)).size(), set.size());
+            map.clear();
+            TestContext.assertTrue(map.isEmpty());
+            TestContext.assertEquals(null, map.firstEntry());
+        }
+    }
+}
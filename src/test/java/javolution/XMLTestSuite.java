@@ -0,0 +1,726 @@
+/*
+ * Javolution - Java(TM) Solution for Real-Time and Embedded Systems
+ * Copyright (C) 2010 - Javolution (http://javolution.org/)
+ * All rights reserved.
+ *
+ * Permission to use, copy, modify, and distribute this software is
+ * freely granted, provided that this notice is preserved.
+ */
+package javolution;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javolution.lang.Reusable;
+import javolution.testing.TestCase;
+import javolution.testing.TestContext;
+import javolution.testing.TestSuite;
+import javolution.util.FastTable;
+import javolution.xml.XMLBinding;
+import javolution.xml.XMLFormat;
+import javolution.xml.XMLObjectReader;
+import javolution.xml.XMLObjectWriter;
+import javolution.xml.XMLReferenceResolver;
+import javolution.xml.sax.SAX2ReaderImpl;
+import javolution.xml.stream.XMLStreamException;
+
+/**
+ * <p> This class holds the test cases for the {@link javolution.xml
+ *     xml} classes.</p>
+ *
+ * @author  <a href="mailto:jean-marie@dautelle.com">Jean-Marie Dautelle</a>
+ * @version 5.5, October 18, 2026
+ */
+public final class XMLTestSuite extends TestSuite {
+
+    public XMLTestSuite() {
+        addTest(new ReadObjects(10000, false));
+        addTest(new ReadObjects(10000, true));
+        addTest(new ReflectionFormat(1000, false));
+        addTest(new ReflectionFormat(1000, true));
+        addTest(new StreamObjects(100000, false, false));
+        addTest(new StreamObjects(100000, true, true));
+        addTest(new References(100000, false));
+        addTest(new References(100000, true));
+        addTest(new Sax2Parse(10000));
+        addTest(new JSONObjects(1000));
+    }
+
+    class ReadObjects extends TestCase {
+
+        final int _size;
+
+        final boolean _isBinary;
+
+        final XMLBinding _binding = new XMLBinding();
+
+        FastTable _objects;
+
+        byte[] _xml;
+
+        FastTable _read;
+
+        public ReadObjects(int size, boolean isBinary) {
+            _size = size;
+            _isBinary = isBinary;
+        }
+
+        public String getName() {
+            return "XMLObjectReader.read() (" + _size + " elements, aliased and class names"
+                    + (_isBinary ? ", binary)" : ")");
+        }
+
+        public void setUp() {
+            _binding.setAlias(Integer.class, "Integer");
+            _objects = new FastTable();
+            for (int i = 0; i < _size; i++) {
+                _objects.add((i % 3 == 0) ? (Object) new Integer(-i)
+                        : (i % 3 == 1) ? (Object) new Double(i / 3.0)
+                                : (Object) ("\u00e9t\u00e9 <" + i + "> \u4e2d"));
+            }
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XMLObjectWriter writer = new XMLObjectWriter().setBinding(_binding);
+                if (_isBinary) {
+                    writer.setBinaryOutput(out);
+                } else {
+                    writer.setOutput(out);
+                }
+                writer.write(_objects);
+                writer.close();
+                _xml = out.toByteArray();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void execute() {
+            try {
+                XMLObjectReader reader = new XMLObjectReader().setBinding(_binding);
+                if (_isBinary) {
+                    reader.setBinaryInput(new ByteArrayInputStream(_xml));
+                } else {
+                    reader.setInput(new ByteArrayInputStream(_xml));
+                }
+                _read = (FastTable) reader.read();
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_objects, _read);
+            _binding.setAlias(Integer.class, "Int"); // Cached resolution cleared.
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XMLObjectWriter writer = XMLObjectWriter.newInstance(out).setBinding(_binding);
+                writer.write(new Integer(-1));
+                writer.close();
+                TestContext.assertTrue(new String(out.toByteArray()).indexOf("<Int ") >= 0);
+                XMLObjectReader reader = XMLObjectReader.newInstance(
+                        new ByteArrayInputStream(out.toByteArray())).setBinding(_binding);
+                TestContext.assertEquals(new Integer(-1), reader.read());
+                reader.close();
+            } catch (XMLStreamException e) {
+                TestContext.fail(e.toString());
+            }
+        }
+    }
+
+    class ReflectionFormat extends TestCase {
+
+        final int _size;
+
+        final boolean _isBinary;
+
+        final XMLBinding _binding = new XMLBinding();
+
+        FastTable _persons;
+
+        byte[] _xml;
+
+        FastTable _read;
+
+        public ReflectionFormat(int size, boolean isBinary) {
+            _size = size;
+            _isBinary = isBinary;
+        }
+
+        public String getName() {
+            return "XMLReflectionFormat (" + _size + " objects with nested objects"
+                    + (_isBinary ? ", binary)" : ")");
+        }
+
+        public void setUp() {
+            _binding.setReflectionFormats(true);
+            _binding.setAlias(Person.class, "Person");
+            _binding.setAlias(Manager.class, "Manager");
+            _persons = new FastTable();
+            for (int i = 0; i < _size; i++) {
+                Person person = (i % 5 == 0) ? new Manager() : new Person();
+                person._name = (i % 10 == 0) ? null : "Person " + i;
+                person._age = i % 100;
+                person._salary = i * 1000.5;
+                person._rank = (i % 2 == 0) ? new Integer(i) : null;
+                person._isActive = (i % 3 == 0);
+                person._initial = (char) ('A' + i % 26);
+                person._address = new Address("Street " + i, 75000 + i);
+                if (i % 4 == 0) {
+                    Person child = new Person();
+                    child._name = "Child " + i;
+                    person._children.add(child);
+                }
+                person._cache = "not serialized";
+                if (person instanceof Manager) { // Shadowed field.
+                    ((Manager) person)._name = "Manager " + i;
+                }
+                _persons.add(person);
+            }
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XMLObjectWriter writer = new XMLObjectWriter().setBinding(_binding);
+                if (_isBinary) {
+                    writer.setBinaryOutput(out);
+                } else {
+                    writer.setOutput(out);
+                }
+                writer.write(_persons);
+                writer.close();
+                _xml = out.toByteArray();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void execute() {
+            try {
+                XMLObjectReader reader = new XMLObjectReader().setBinding(_binding);
+                if (_isBinary) {
+                    reader.setBinaryInput(new ByteArrayInputStream(_xml));
+                } else {
+                    reader.setInput(new ByteArrayInputStream(_xml));
+                }
+                _read = (FastTable) reader.read();
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_persons, _read);
+            TestContext.assertEquals(null, ((Person) _read.get(1))._cache);
+            if (!_isBinary) {
+                String xml = new String(_xml);
+                TestContext.assertTrue(xml.indexOf(" _name=\"Person 1\"") >= 0);
+                TestContext.assertTrue(xml.indexOf("<_address _street=\"Street 1\"") >= 0);
+                TestContext.assertTrue(xml.indexOf(" _name=\"Manager 5\"") >= 0);
+                TestContext.assertTrue(xml.indexOf(" XMLTestSuite.Person._name=\"Person 5\"") >= 0);
+            }
+        }
+    }
+
+    class StreamObjects extends TestCase implements XMLObjectReader.Handler {
+
+        final int _size;
+
+        final boolean _isBinary;
+
+        final boolean _recycle;
+
+        byte[] _xml;
+
+        int _count;
+
+        long _sum;
+
+        int _instances;
+
+        Object _previous;
+
+        Object _trailer;
+
+        public StreamObjects(int size, boolean isBinary, boolean recycle) {
+            _size = size;
+            _isBinary = isBinary;
+            _recycle = recycle;
+        }
+
+        public String getName() {
+            return "XMLObjectReader.readNested(Handler, " + _recycle + ") (" + _size
+                    + " elements" + (_isBinary ? ", binary)" : ")");
+        }
+
+        public void setUp() {
+            FastTable quotes = new FastTable();
+            for (int i = 0; i < _size; i++) {
+                Quote quote = new Quote();
+                quote._id = i;
+                quote._price = i / 4.0;
+                quotes.add(quote);
+            }
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XMLObjectWriter writer = new XMLObjectWriter();
+                if (_isBinary) {
+                    writer.setBinaryOutput(out);
+                } else {
+                    writer.setOutput(out);
+                }
+                writer.write(quotes);
+                writer.write("End");
+                writer.close();
+                _xml = out.toByteArray();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void execute() {
+            _count = 0;
+            _sum = 0;
+            _instances = 0;
+            _previous = null;
+            try {
+                XMLObjectReader reader = new XMLObjectReader();
+                if (_isBinary) {
+                    reader.setBinaryInput(new ByteArrayInputStream(_xml));
+                } else {
+                    reader.setInput(new ByteArrayInputStream(_xml));
+                }
+                _count = reader.readNested(this, _recycle);
+                _trailer = reader.read();
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void handle(Object obj) {
+            Quote quote = (Quote) obj;
+            _sum += quote._id;
+            if (quote._price != quote._id / 4.0)
+                throw new RuntimeException("Wrong price for " + quote._id);
+            if (quote != _previous) {
+                _instances++;
+            }
+            _previous = quote;
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _count);
+            TestContext.assertEquals(((long) _size) * (_size - 1) / 2, _sum);
+            TestContext.assertEquals(_recycle ? 1 : _size, _instances);
+            TestContext.assertEquals("End", _trailer);
+            try { // Partial reading.
+                XMLObjectReader reader = new XMLObjectReader();
+                if (_isBinary) {
+                    reader.setBinaryInput(new ByteArrayInputStream(_xml));
+                } else {
+                    reader.setInput(new ByteArrayInputStream(_xml));
+                }
+                reader.enter();
+                TestContext.assertEquals(0, ((Quote) reader.read())._id);
+                TestContext.assertEquals(1, ((Quote) reader.read())._id);
+                reader.exit();
+                TestContext.assertEquals("End", reader.read());
+                reader.close();
+            } catch (XMLStreamException e) {
+                TestContext.fail(e.toString());
+            }
+        }
+    }
+
+    class References extends TestCase {
+
+        final int _size;
+
+        final boolean _isBinary;
+
+        FastTable _objects;
+
+        byte[] _xml;
+
+        FastTable _read;
+
+        public References(int size, boolean isBinary) {
+            _size = size;
+            _isBinary = isBinary;
+        }
+
+        public String getName() {
+            return "XMLReferenceResolver (" + _size + " elements, 1000 shared objects"
+                    + (_isBinary ? ", binary)" : ")");
+        }
+
+        public void setUp() {
+            Quote[] shared = new Quote[1000];
+            for (int i = 0; i < shared.length; i++) {
+                shared[i] = new Quote();
+                shared[i]._id = i;
+            }
+            _objects = new FastTable();
+            for (int i = 0; i < _size; i++) {
+                _objects.add(shared[i % shared.length]);
+            }
+            _xml = write(_objects, true);
+        }
+
+        public void execute() {
+            _read = (FastTable) read(_xml);
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _read.size());
+            for (int i = 0; i < _size; i++) {
+                Quote quote = (Quote) _read.get(i);
+                if (!TestContext.assertTrue(quote == _read.get(i % 1000)))
+                    break;
+                if (!TestContext.assertEquals(i % 1000, quote._id))
+                    break;
+            }
+            // Without back-references every object is written.
+            byte[] xml = write(_objects, false);
+            FastTable read = (FastTable) read(xml);
+            TestContext.assertEquals(_size, read.size());
+            TestContext.assertTrue(read.get(0) != read.get(1000));
+            TestContext.assertEquals(new Integer(999), new Integer(((Quote) read.get(_size - 1))._id));
+            if (!_isBinary) {
+                TestContext.assertTrue(new String(xml).indexOf("ref=") < 0);
+            }
+        }
+
+        private byte[] write(Object obj, boolean backReferences) {
+            try {
+                XMLReferenceResolver resolver = new XMLReferenceResolver();
+                resolver.setBackReferences(backReferences);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XMLObjectWriter writer = new XMLObjectWriter().setReferenceResolver(resolver);
+                if (_isBinary) {
+                    writer.setBinaryOutput(out);
+                } else {
+                    writer.setOutput(out);
+                }
+                writer.write(obj);
+                writer.close();
+                return out.toByteArray();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        private Object read(byte[] xml) {
+            try {
+                XMLObjectReader reader = new XMLObjectReader()
+                        .setReferenceResolver(new XMLReferenceResolver());
+                if (_isBinary) {
+                    reader.setBinaryInput(new ByteArrayInputStream(xml));
+                } else {
+                    reader.setInput(new ByteArrayInputStream(xml));
+                }
+                Object obj = reader.read();
+                reader.close();
+                return obj;
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+    }
+
+    class Sax2Parse extends TestCase {
+
+        final int _size;
+
+        byte[] _xml;
+
+        int _count;
+
+        long _sum;
+
+        boolean _interned;
+
+        public Sax2Parse(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "SAX2ReaderImpl.parse (" + _size + " elements, interned names)";
+        }
+
+        public void setUp() {
+            StringBuffer sb = new StringBuffer("<?xml version=\"1.0\"?><quotes>");
+            for (int i = 0; i < _size; i++) {
+                sb.append("<quote index=\"").append(i).append("\" currency=\"USD\"/>");
+            }
+            _xml = sb.append("</quotes>").toString().getBytes();
+        }
+
+        public void execute() {
+            _count = 0;
+            _sum = 0;
+            _interned = true;
+            SAX2ReaderImpl reader = new SAX2ReaderImpl();
+            reader.setContentHandler(new DefaultHandler() {
+
+                public void startElement(String uri, String localName, String qName,
+                        Attributes atts) {
+                    if (localName != "quote") // Interned names.
+                        return;
+                    _count++;
+                    _sum += Integer.parseInt(atts.getValue("index"));
+                    _interned &= (atts.getLocalName(1) == "currency")
+                            && "USD".equals(atts.getValue(1));
+                }
+            });
+            try {
+                InputSource input = new InputSource(new ByteArrayInputStream(_xml));
+                input.setEncoding("UTF-8");
+                reader.parse(input);
+                _interned &= reader.getFeature("http://xml.org/sax/features/string-interning");
+            } catch (Exception e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_size, _count);
+            TestContext.assertEquals(((long) _size) * (_size - 1) / 2, _sum);
+            TestContext.assertTrue(_interned);
+            final String feature = "http://xml.org/sax/features/string-interning";
+            SAX2ReaderImpl reader = new SAX2ReaderImpl();
+            try {
+                reader.setFeature(feature, false);
+                TestContext.fail("String interning cannot be disabled");
+            } catch (SAXNotSupportedException e) {
+                // Expected.
+            } catch (SAXException e) {
+                throw new RuntimeException(e.toString());
+            }
+            StringBuffer sb = new StringBuffer("<?xml version=\"1.0\"?><names>");
+            for (int i = 0; i < 5000; i++) { // Distinct names (cache bounded).
+                sb.append("<n").append(i).append("/>");
+            }
+            final int[] count = new int[1];
+            reader.setContentHandler(new DefaultHandler() {
+
+                public void startElement(String uri, String localName, String qName,
+                        Attributes atts) {
+                    count[0]++;
+                }
+            });
+            try {
+                InputSource input = new InputSource(new ByteArrayInputStream(sb
+                        .append("</names>").toString().getBytes()));
+                input.setEncoding("UTF-8");
+                reader.parse(input);
+                TestContext.assertEquals(5001, count[0]);
+                TestContext.assertTrue(!reader.getFeature(feature)); // No more interning.
+                reader.reset();
+                TestContext.assertTrue(reader.getFeature(feature));
+            } catch (Exception e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+    }
+
+    class JSONObjects extends TestCase {
+
+        final int _size;
+
+        final XMLBinding _binding = new XMLBinding();
+
+        FastTable _objects;
+
+        byte[] _json;
+
+        FastTable _read;
+
+        public JSONObjects(int size) {
+            _size = size;
+        }
+
+        public String getName() {
+            return "XMLObjectWriter.setJSONOutput (" + _size
+                    + " objects with nested objects, escaped text and numbers)";
+        }
+
+        public void setUp() {
+            _binding.setReflectionFormats(true);
+            _binding.setAlias(Person.class, "Person");
+            _objects = new FastTable();
+            for (int i = 0; i < _size; i++) {
+                Person person = new Person();
+                person._name = (i % 10 == 0) ? null : "\"Person\" " + i + "\n\t\\ \u00e9\u0001";
+                person._age = i % 100;
+                person._salary = -i * 1000.5;
+                person._rank = (i % 2 == 0) ? new Integer(i) : null;
+                person._isActive = (i % 3 == 0);
+                person._initial = (char) ('A' + i % 26);
+                person._address = new Address("Street [" + i + "], {}", 75000 + i);
+                _objects.add(person);
+                _objects.add((i % 2 == 0) ? (Object) new Double(i / 3.0) : "text, " + i);
+            }
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                XMLObjectWriter writer = new XMLObjectWriter().setBinding(_binding);
+                writer.setJSONOutput(out);
+                writer.write(_objects);
+                writer.close();
+                _json = out.toByteArray();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void execute() {
+            try {
+                XMLObjectReader reader = new XMLObjectReader().setBinding(_binding);
+                reader.setJSONInput(new ByteArrayInputStream(_json));
+                _read = (FastTable) reader.read();
+                reader.close();
+            } catch (XMLStreamException e) {
+                throw new RuntimeException(e.toString());
+            }
+        }
+
+        public void validate() {
+            TestContext.assertEquals(_objects, _read);
+            String json = new String(_json);
+            TestContext.assertTrue(json.startsWith("[[\"javolution.util.FastTable\""));
+            TestContext.assertTrue(json.endsWith("]]"));
+            TestContext.assertTrue(json.indexOf("\"_name\":\"\\\"Person\\\" 1\\n\\t\\\\ ") >= 0);
+            TestContext.assertTrue(json.indexOf("\"_age\":1,") >= 0); // Number (not quoted).
+            try { // Raw JSON (whitespaces, no attributes, nested text).
+                XMLObjectReader reader = new XMLObjectReader();
+                reader.setJSONInput(new java.io.StringReader(
+                        " [ [\"java.lang.String\", {\"value\" : \"a\\u0062c\"} ] ,\n"
+                        + "[\"java.lang.Integer\",{\"value\":-12}]]"));
+                TestContext.assertEquals("abc", reader.read());
+                TestContext.assertEquals(new Integer(-12), reader.read());
+                reader.close();
+            } catch (XMLStreamException e) {
+                TestContext.fail(e.toString());
+            }
+            String[] malformed = { "\"a\\u00:1\"", "\"a\\u00Z1\"", "tru", "nope", "-x", "01", "1.", "1e" };
+            for (int i = 0; i < malformed.length; i++) {
+                try {
+                    XMLObjectReader reader = new XMLObjectReader();
+                    reader.setJSONInput(new java.io.StringReader(
+                            "[[\"java.lang.String\",{\"value\":" + malformed[i] + "}]]"));
+                    reader.read();
+                    TestContext.fail("Malformed value accepted: " + malformed[i]);
+                } catch (XMLStreamException e) {
+                    // Expected.
+                }
+            }
+        }
+    }
+
+    public static final class Quote implements Reusable {
+
+        int _id;
+
+        double _price;
+
+        public void reset() {
+            _id = 0;
+            _price = 0;
+        }
+
+        static final XMLFormat XML = new XMLFormat(Quote.class) {
+
+            public void write(Object obj, OutputElement xml) throws XMLStreamException {
+                xml.setAttribute("index", ((Quote) obj)._id);
+                xml.setAttribute("price", ((Quote) obj)._price);
+            }
+
+            public void read(InputElement xml, Object obj) throws XMLStreamException {
+                ((Quote) obj)._id = xml.getAttribute("index", 0);
+                ((Quote) obj)._price = xml.getAttribute("price", 0.0);
+            }
+        };
+    }
+
+    static class Person {
+
+        String _name;
+
+        int _age;
+
+        double _salary;
+
+        Integer _rank;
+
+        boolean _isActive;
+
+        char _initial;
+
+        Address _address;
+
+        FastTable _children = new FastTable();
+
+        transient String _cache;
+
+        private Person() {
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Person))
+                return false;
+            Person that = (Person) obj;
+            return equal(_name, that._name) && (_age == that._age)
+                    && (_salary == that._salary) && equal(_rank, that._rank)
+                    && (_isActive == that._isActive) && (_initial == that._initial)
+                    && equal(_address, that._address) && _children.equals(that._children);
+        }
+
+        public int hashCode() {
+            return _age;
+        }
+    }
+
+    static final class Manager extends Person {
+
+        String _name; // Shadows Person._name
+
+        public boolean equals(Object obj) {
+            return (obj instanceof Manager) && super.equals(obj)
+                    && equal(_name, ((Manager) obj)._name);
+        }
+    }
+
+    static final class Address {
+
+        String _street;
+
+        int _zip;
+
+        Address() {
+        }
+
+        Address(String street, int zip) {
+            _street = street;
+            _zip = zip;
+        }
+
+        public boolean equals(Object obj) {
+            return (obj instanceof Address) && equal(_street, ((Address) obj)._street)
+                    && (_zip == ((Address) obj)._zip);
+        }
+
+        public int hashCode() {
+            return _zip;
+        }
+    }
+
+    static boolean equal(Object left, Object right) {
+        return (left == null) ? (right == null) : left.equals(right);
+    }
+}